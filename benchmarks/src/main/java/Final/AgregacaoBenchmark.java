@@ -0,0 +1,93 @@
+package Final;
+
+import Final.PizzariaApp.AgregacaoParalela;
+import Final.PizzariaApp.ArquivoColunar;
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.FonteVendas;
+import Final.PizzariaApp.PedidosEmMemoria;
+import Final.PizzariaApp.PizzariaService;
+import Final.PizzariaApp.ResumoVendas;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Agregação completa com 1, 2 e 4 threads: pedidos em memória ou um histórico de 10 arquivos colunares do mesmo
+ * tamanho (1 milhão de pedidos em memória = 10 milhões arquivados). Antes da medição, o relatório paralelo é
+ * comparado com o da agregação sequencial; se diferirem, o benchmark falha em vez de medir um resultado errado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx4g"})
+public class AgregacaoBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int tamanho;
+
+    @Param({"memoria", "historico"})
+    public String fonte;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    private Path arquivo;
+    private List<FonteVendas> fontes;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        PizzariaService servico = BenchmarkPizzaria.popular(tamanho);
+        fontes = new ArrayList<>();
+        if (fonte.equals("historico")) {
+            arquivo = Files.createTempFile("agregacao", ".col");
+            ArquivoColunar.escrever(arquivo, servico.getListaPedidos());
+            for (int i = 0; i < 10; i++) fontes.add(ArquivoColunar.abrir(arquivo));
+        } else {
+            fontes.add(new PedidosEmMemoria(servico.getListaPedidos()));
+        }
+        pool = new ForkJoinPool(threads);
+        String referencia = imprimir(AgregacaoParalela.resumirSequencial(fontes));
+        if (!imprimir(AgregacaoParalela.resumir(fontes, pool)).equals(referencia)) {
+            throw new IllegalStateException("A agregação paralela diverge da sequencial com " + threads + " threads.");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void limpar() throws IOException {
+        pool.shutdown();
+        if (arquivo != null) Files.delete(arquivo);
+    }
+
+    @Benchmark
+    public Object resumir() {
+        return AgregacaoParalela.resumir(fontes, pool);
+    }
+
+    private static String imprimir(ResumoVendas resumo) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        resumo.imprimir(new PrintStream(saida, true, StandardCharsets.UTF_8));
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+}
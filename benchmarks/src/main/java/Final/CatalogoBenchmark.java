@@ -0,0 +1,159 @@
+package Final;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.CatalogoPrecos;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.PizzariaService;
+import Final.PizzariaApp.Sabor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Preços pela versão de fábrica (reajuste 0) e por uma versão recarregada (reajuste 10%): o custo deve ser o mesmo,
+ * porque as duas guardam os preços em arrays por ordinal. Os benchmarks "recarregando" criam pedidos enquanto
+ * outra thread recarrega o catálogo sem parar, bem mais do que qualquer reajuste real.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class CatalogoBenchmark {
+    private static final int TAMANHO = 10_000;
+    private static final int AMOSTRAS = 1 << 14;
+
+    @Param({"0", "10"})
+    public int reajuste;
+
+    private Path arquivo;
+    private PizzariaService servico;
+    private List<Cliente> clientes;
+    private int[] ids;
+    private int[] sementes;
+    private int proxima;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        arquivo = Files.createTempFile("catalogo", ".properties");
+        servico = BenchmarkPizzaria.popular(TAMANHO);
+        clientes = servico.getListaClientes();
+        ids = BenchmarkPizzaria.indices(AMOSTRAS, TAMANHO, 7);
+        sementes = BenchmarkPizzaria.indices(AMOSTRAS, Integer.MAX_VALUE, 11);
+        if (reajuste > 0) {
+            gravarCatalogo(arquivo, reajuste);
+            servico.recarregarCatalogo(arquivo);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void limpar() throws IOException {
+        gravarCatalogo(arquivo, 0); // Volta aos preços de fábrica
+        servico.recarregarCatalogo(arquivo);
+        Files.delete(arquivo);
+    }
+
+    // Pedidos criados numa iteração são cancelados ao fim dela, fora da medição
+    @TearDown(Level.Iteration)
+    public void cancelarCriados() {
+        ServicoBenchmark.cancelarPedidosApos(servico, TAMANHO);
+    }
+
+    private int amostra() {
+        return proxima++ & (AMOSTRAS - 1);
+    }
+
+    @Benchmark
+    public Object pizzaDe() {
+        return BenchmarkPizzaria.pizzaAleatoria(sementes[amostra()]);
+    }
+
+    // Pedidos da versão de fábrica recebem pizzas da versão vigente; invocações alternadas removem a pizza adicionada
+    @Benchmark
+    public Object adicionarPizzaAoPedido() {
+        int i = proxima++;
+        int amostra = (i >>> 1) & (AMOSTRAS - 1);
+        Pedido pedido = servico.buscarPedido(1 + ids[amostra]);
+        return (i & 1) == 0
+                ? servico.adicionarPizzaAoPedido(pedido, BenchmarkPizzaria.pizzaAleatoria(sementes[amostra]))
+                : servico.removerPizzaDoPedido(pedido, pedido.getNumPizzas() - 1);
+    }
+
+    @Benchmark
+    public Object criarPedido() {
+        int i = amostra();
+        return servico.criarPedido(clientes.get(ids[i] % clientes.size()), List.of(BenchmarkPizzaria.pizzaAleatoria(sementes[i])),
+                List.of(Bebida.values()[i % Bebida.values().length]), 3.5);
+    }
+
+    @Benchmark
+    public Object criarPedidoRecarregando(Recarregador recarregador) {
+        return criarPedido();
+    }
+
+    /** Thread que regrava e recarrega o catálogo (alternando 10% e 11% de reajuste) enquanto a medição roda. */
+    @State(Scope.Benchmark)
+    public static class Recarregador {
+        private final AtomicBoolean parar = new AtomicBoolean();
+        private Thread thread;
+
+        @Setup(Level.Iteration)
+        public void iniciar(CatalogoBenchmark benchmark) {
+            parar.set(false);
+            thread = Thread.ofPlatform().start(() -> {
+                try {
+                    for (int i = 0; !parar.get(); i++) {
+                        gravarCatalogo(benchmark.arquivo, 10 + (i & 1));
+                        benchmark.servico.recarregarCatalogo(benchmark.arquivo);
+                        Thread.sleep(1);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        @TearDown(Level.Iteration)
+        public void parar() throws InterruptedException {
+            parar.set(true);
+            thread.join();
+        }
+    }
+
+    // Catálogo com todos os preços de fábrica reajustados em 'percentual'
+    static void gravarCatalogo(Path arquivo, int percentual) throws IOException {
+        StringBuilder texto = new StringBuilder();
+        for (Sabor sabor : Sabor.values()) {
+            texto.append("sabor.").append(sabor.name()).append('=')
+                .append(BigDecimal.valueOf(sabor.getPrecoPadraoCentavos() * (100 + percentual) / 100, 2)).append('\n');
+        }
+        for (Bebida bebida : Bebida.values()) {
+            texto.append("bebida.").append(bebida.name()).append('=')
+                .append(BigDecimal.valueOf(bebida.getPrecoPadraoCentavos() * (100 + percentual) / 100, 2)).append('\n');
+        }
+        Files.writeString(arquivo, texto);
+    }
+}
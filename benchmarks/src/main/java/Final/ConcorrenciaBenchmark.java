@@ -0,0 +1,86 @@
+package Final;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.PizzariaService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vazão de "criar pedido + adicionar bebida" com 1, 4, 8 e 16 threads. Cada invocação divide o mesmo lote
+ * de operações entre as threads, então ops/s é comparável entre os parâmetros. A prova de que não há
+ * atualizações perdidas nem IDs repetidos está no teste PizzariaServiceConcorrenciaTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ConcorrenciaBenchmark {
+    private static final int LOTE = 16_000; // Divisível por todos os números de threads
+
+    @Param({"1", "4", "8", "16"})
+    public int threads;
+
+    private PizzariaService servico;
+    private Cliente cliente;
+    private Pizza pizza;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        executor = Executors.newFixedThreadPool(threads);
+        pizza = BenchmarkPizzaria.pizzaAleatoria(99);
+    }
+
+    // Serviço novo a cada iteração, para que o número de pedidos acumulados não pese na medição seguinte
+    @Setup(Level.Iteration)
+    public void preparar() {
+        servico = BenchmarkPizzaria.popular(1_000);
+        cliente = servico.getListaClientes().get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public void criarEEditar() throws Exception {
+        int porThread = LOTE / threads;
+        List<Future<?>> tarefas = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            tarefas.add(executor.submit(() -> {
+                for (int i = 0; i < porThread; i++) {
+                    Pedido pedido = servico.criarPedido(cliente, List.of(pizza), List.of(), 2.0);
+                    servico.adicionarBebidaAoPedido(pedido, Bebida.values()[i % Bebida.values().length]);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> tarefa : tarefas) tarefa.get();
+    }
+}
@@ -0,0 +1,74 @@
+package Final;
+
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.Persistencia;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.PizzariaService;
+import Final.PizzariaApp.PoliticaSync;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pedidos criados por segundo com o diário ligado, em cada política de fsync, por 8 threads (o que favorece
+ * o group commit da política SEMPRE). Cada iteração começa com um diretório de dados novo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class DiarioBenchmark {
+    @Param({"SEMPRE", "INTERVALO", "NUNCA"})
+    public PoliticaSync politica;
+
+    private Path diretorio;
+    private PizzariaService servico;
+    private Persistencia persistencia;
+    private Cliente cliente;
+    private Pizza pizza;
+
+    @Setup(Level.Iteration)
+    public void abrir() throws IOException {
+        diretorio = Files.createTempDirectory("benchmark-diario");
+        servico = new PizzariaService();
+        persistencia = Persistencia.abrir(diretorio, politica, servico);
+        cliente = new Cliente("Benchmark", "Rua", "0", "b@ex.com");
+        servico.adicionarCliente(cliente);
+        pizza = BenchmarkPizzaria.pizzaAleatoria(7);
+    }
+
+    @TearDown(Level.Iteration)
+    public void fechar() throws IOException {
+        persistencia.close();
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path arquivo : arquivos.sorted(Comparator.reverseOrder()).toList()) Files.delete(arquivo);
+        }
+    }
+
+    @Benchmark
+    public Object criarPedido() {
+        return servico.criarPedido(cliente, List.of(pizza), List.of(), 1.0);
+    }
+}
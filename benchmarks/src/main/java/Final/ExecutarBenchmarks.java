@@ -0,0 +1,27 @@
+package Final;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ponto de entrada do benchmarks.jar: aceita as mesmas opções do JMH (filtro de benchmarks, -p, -f, -wi, -i...)
+ * e sempre liga o profiler de alocação (o mesmo que -prof gc), para que toda medição traga bytes/op junto do tempo.
+ * Ex.: java --enable-preview -jar benchmarks/target/benchmarks.jar ServicoBenchmark -p tamanho=1000,100000
+ */
+public class ExecutarBenchmarks {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions linhaDeComando = new CommandLineOptions(args);
+        boolean soConsulta = linhaDeComando.shouldHelp() || linhaDeComando.shouldList() || linhaDeComando.shouldListWithParams()
+                || linhaDeComando.shouldListProfilers() || linhaDeComando.shouldListResultFormats();
+        boolean comGc = linhaDeComando.getProfilers().stream().anyMatch(p -> p.getKlass().equals(GCProfiler.class.getName())
+                || p.getKlass().equals("gc"));
+        if (soConsulta || comGc) {
+            Main.main(args);
+            return;
+        }
+        new Runner(new OptionsBuilder().parent(linhaDeComando).addProfiler(GCProfiler.class).build()).run();
+    }
+}
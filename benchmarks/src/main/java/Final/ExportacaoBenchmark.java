@@ -0,0 +1,58 @@
+package Final;
+
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.PizzariaService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Exportação completa para CSV e JSON por linha. O profiler de alocação mostra a memória por exportação:
+ * deve ficar perto de constante com o tamanho, porque os pedidos são escritos em fluxo, sem montar o arquivo em memória.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx4g"})
+public class ExportacaoBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int tamanho;
+
+    @Param({"csv", "jsonl"})
+    public String formato;
+
+    private PizzariaService servico;
+    private Path arquivo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        servico = BenchmarkPizzaria.popular(tamanho);
+        arquivo = Files.createTempFile("exportacao", "." + formato);
+    }
+
+    @TearDown(Level.Trial)
+    public void limpar() throws IOException {
+        Files.deleteIfExists(arquivo);
+    }
+
+    @Benchmark
+    public long exportarPedidos() throws IOException {
+        return servico.exportarPedidos(arquivo); // Bytes gravados
+    }
+}
@@ -0,0 +1,120 @@
+package Final;
+
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.GrafoSabor;
+import Final.PizzariaApp.Sabor;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GrafoSabor (matriz triangular de long por ordinal) contra a versão anterior em Map<Sabor, Map<Sabor, Integer>>,
+ * mantida abaixo só para comparação: registrar milhões de pizzas num grafo novo e exibir as conexões de um grafo cheio.
+ * O profiler de alocação mostra a diferença principal: a matriz não aloca por par, o mapa encaixota cada contagem.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class GrafoBenchmark {
+    @Param({"1000000", "5000000"})
+    public int pizzas;
+
+    private List<List<Sabor>> combinacoes;
+    private GrafoSabor matrizCheia;
+    private GrafoSaborMapa mapaCheio;
+    private PrintStream descarte;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        combinacoes = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) combinacoes.add(BenchmarkPizzaria.pizzaAleatoria(i * 7919).getSabores());
+        matrizCheia = (GrafoSabor) registrarMatriz();
+        mapaCheio = (GrafoSaborMapa) registrarMapa();
+        descarte = new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Object registrarMatriz() {
+        GrafoSabor grafo = new GrafoSabor();
+        for (int i = 0; i < pizzas; i++) grafo.adicionarSabores(combinacoes.get(i & 1023));
+        return grafo;
+    }
+
+    @Benchmark
+    public Object registrarMapa() {
+        GrafoSaborMapa grafo = new GrafoSaborMapa();
+        for (int i = 0; i < pizzas; i++) grafo.adicionarSabores(combinacoes.get(i & 1023));
+        return grafo;
+    }
+
+    @Benchmark
+    public void exibirMatriz() {
+        matrizCheia.exibirConexoes(descarte);
+    }
+
+    @Benchmark
+    public void exibirMapa() {
+        mapaCheio.exibirConexoes(descarte);
+    }
+
+    // Implementação anterior do GrafoSabor, como estava antes da matriz (só a saída passou a ser parâmetro)
+    public static class GrafoSaborMapa {
+        private final Map<Sabor, Map<Sabor, Integer>> conexoes;
+
+        public GrafoSaborMapa() {
+            this.conexoes = new HashMap<>();
+            for (Sabor s : Sabor.values()) {
+                conexoes.put(s, new HashMap<>());
+            }
+        }
+
+        public void adicionarSabores(List<Sabor> sabores) {
+            for (int i = 0; i < sabores.size(); i++) {
+                Sabor s1 = sabores.get(i);
+                for (int j = i + 1; j < sabores.size(); j++) {
+                    Sabor s2 = sabores.get(j);
+
+                    conexoes.get(s1).put(s2, conexoes.get(s1).getOrDefault(s2, 0) + 1);
+                    conexoes.get(s2).put(s1, conexoes.get(s2).getOrDefault(s1, 0) + 1);
+                }
+            }
+        }
+
+        public void exibirConexoes(PrintStream saida) {
+            Set<String> paresImpressos = new HashSet<>();
+
+            conexoes.forEach((s1, vizinhos) -> vizinhos.forEach((s2, count) -> {
+                if (count >= 1) {
+                    String key = s1.compareTo(s2) < 0 ? s1.name() + s2.name() : s2.name() + s1.name();
+
+                    if (!paresImpressos.contains(key)) {
+                        saida.printf("  - %s e %s: %d vezes\n",
+                            s1.getNomeFormatado(), s2.getNomeFormatado(), count);
+                        paresImpressos.add(key);
+                    }
+                }
+            }));
+        }
+    }
+}
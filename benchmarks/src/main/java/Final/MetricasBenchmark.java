@@ -0,0 +1,81 @@
+package Final;
+
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.PizzariaService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo da instrumentação: as mesmas operações com as métricas desligadas e ligadas (sem gravação do JFR ativa,
+ * como em produção quando ninguém está coletando). Cada variante roda em JVMs próprias, com serviço e aquecimento
+ * próprios: a ordem das variantes não influencia o resultado. São 3 forks por variante para separar ruído de diferença real.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3, jvmArgsAppend = "--enable-preview")
+public class MetricasBenchmark {
+    private static final int TAMANHO = 100_000;
+    private static final int AMOSTRAS = 1 << 16;
+
+    @Param({"desligadas", "ligadas"})
+    public String metricas;
+
+    private PizzariaService servico;
+    private int[] ids;
+    private String[] buscas;
+    private Pizza pizzaFixa;
+    private int proxima;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        servico = BenchmarkPizzaria.popular(TAMANHO);
+        if (metricas.equals("desligadas")) servico.anexarMetricas(null);
+        List<Cliente> clientes = servico.getListaClientes();
+        ids = BenchmarkPizzaria.indices(AMOSTRAS, TAMANHO, 7);
+        buscas = new String[AMOSTRAS];
+        for (int i = 0; i < AMOSTRAS; i++) buscas[i] = clientes.get(ids[i] % clientes.size()).getNome().substring(0, 4);
+        pizzaFixa = BenchmarkPizzaria.pizzaAleatoria(12345);
+    }
+
+    private int amostra() {
+        return proxima++ & (AMOSTRAS - 1);
+    }
+
+    @Benchmark
+    public Object buscarPedido() {
+        return servico.buscarPedido(1 + ids[amostra()]);
+    }
+
+    @Benchmark
+    public Object buscarClientePorNome() {
+        return servico.buscarClientePorNome(buscas[amostra()]);
+    }
+
+    // Invocações alternadas adicionam e removem a mesma pizza: os pedidos não crescem durante a medição
+    @Benchmark
+    public Object adicionarPizzaAoPedido() {
+        int i = proxima++;
+        Pedido pedido = servico.buscarPedido(1 + ids[(i >>> 1) & (AMOSTRAS - 1)]);
+        return (i & 1) == 0
+                ? servico.adicionarPizzaAoPedido(pedido, pizzaFixa)
+                : servico.removerPizzaDoPedido(pedido, pedido.getNumPizzas() - 1);
+    }
+}
@@ -0,0 +1,86 @@
+package Final;
+
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.FiltroPedidos;
+import Final.PizzariaApp.Pagina;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.PizzariaService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo de uma página (20 itens) no início e a 90% da listagem, por filtro: com cursor, a página profunda custa
+ * o mesmo que a primeira. A varredura filtra a lista inteira sem índice, como a listagem fazia antes, e cresce com o total.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx4g"})
+public class PaginacaoBenchmark {
+    private static final int TAMANHO_PAGINA = 20;
+
+    @Param({"1000", "100000", "1000000"})
+    public int tamanho;
+
+    @Param({"todos", "valorMinimo", "cliente"})
+    public String filtro;
+
+    private PizzariaService servico;
+    private FiltroPedidos filtroPedidos;
+    private long cursorProfundo;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        servico = BenchmarkPizzaria.popular(tamanho);
+        Cliente frequente = servico.getListaClientes().get(0);
+        for (int i = 0; i < tamanho / 20; i++) { // Um cliente com histórico de várias páginas
+            servico.criarPedido(frequente, List.of(BenchmarkPizzaria.pizzaAleatoria(i)), List.of(), 1.0);
+        }
+        filtroPedidos = switch (filtro) {
+            case "valorMinimo" -> FiltroPedidos.TODOS.comValorMinimo(15_000);
+            case "cliente" -> FiltroPedidos.TODOS.comCliente(frequente);
+            default -> FiltroPedidos.TODOS;
+        };
+        // Cursor da página a 90% do caminho, obtido percorrendo a listagem inteira antes da medição
+        List<Long> cursores = new ArrayList<>();
+        Pagina<Pedido> pagina = servico.listarPedidos(filtroPedidos, Pagina.INICIO, TAMANHO_PAGINA);
+        while (pagina.temProxima()) {
+            cursores.add(pagina.getProximoCursor());
+            pagina = servico.listarPedidos(filtroPedidos, pagina.getProximoCursor(), TAMANHO_PAGINA);
+        }
+        cursorProfundo = cursores.isEmpty() ? Pagina.INICIO : cursores.get(cursores.size() * 9 / 10);
+    }
+
+    @Benchmark
+    public Object primeiraPagina() {
+        return servico.listarPedidos(filtroPedidos, Pagina.INICIO, TAMANHO_PAGINA);
+    }
+
+    @Benchmark
+    public Object paginaA90PorCento() {
+        return servico.listarPedidos(filtroPedidos, cursorProfundo, TAMANHO_PAGINA);
+    }
+
+    @Benchmark
+    public int varreduraCompleta() {
+        int encontrados = 0;
+        for (Pedido pedido : servico.getListaPedidos()) if (filtroPedidos.aceita(pedido)) encontrados++;
+        return encontrados;
+    }
+}
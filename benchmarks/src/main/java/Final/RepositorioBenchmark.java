@@ -0,0 +1,57 @@
+package Final;
+
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.RepositorioPedidos;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Busca por ID no RepositorioPedidos isolado (sem trava nem métricas do serviço), com 1 mil e 1 milhão de pedidos.
+ * O índice é um hash: o tempo por busca deve ficar na mesma ordem de grandeza nos dois tamanhos (só as falhas de
+ * cache pesam); uma varredura linear seria ~1000x mais lenta com 1 milhão.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx2g"})
+public class RepositorioBenchmark {
+    private static final int AMOSTRAS = 1 << 16;
+
+    @Param({"1000", "1000000"})
+    public int tamanho;
+
+    private RepositorioPedidos repositorio;
+    private int[] ids;
+    private int proxima;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Cliente cliente = new Cliente("Benchmark", "Rua", "11999990000", "b@ex.com");
+        List<Pizza> pizzas = List.of(BenchmarkPizzaria.pizzaAleatoria(1));
+        repositorio = new RepositorioPedidos();
+        for (int id = 1; id <= tamanho; id++) repositorio.adicionar(new Pedido(id, cliente, pizzas, List.of(), 1.0));
+        ids = BenchmarkPizzaria.indices(AMOSTRAS, tamanho, 7);
+    }
+
+    @Benchmark
+    public Object buscar() {
+        return repositorio.buscar(1 + ids[proxima++ & (AMOSTRAS - 1)]);
+    }
+}
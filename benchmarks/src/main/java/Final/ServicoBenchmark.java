@@ -0,0 +1,149 @@
+package Final;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.FiltroPedidos;
+import Final.PizzariaApp.Pagina;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.PedidoNaoEncontradoException;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.PizzariaService;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Caminhos críticos do PizzariaService com 1 mil, 100 mil e 1 milhão de pedidos (dados de BenchmarkPizzaria.popular).
+ * Consultas, edições, frete e preço não devem variar com o tamanho; só o relatório percorre os pedidos.
+ * As entradas (IDs, buscas, sementes) são sorteadas antes da medição e percorridas em ciclo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx4g"})
+public class ServicoBenchmark {
+    private static final int AMOSTRAS = 1 << 16; // Potência de 2: a próxima amostra sai de um AND
+
+    @Param({"1000", "100000", "1000000"})
+    public int tamanho;
+
+    private PizzariaService servico;
+    private List<Cliente> clientes;
+    private int[] ids;
+    private int[] sementes;
+    private String[] buscas;
+    private String[] telefones;
+    private Pizza pizzaFixa;
+    private PrintStream descarte;
+    private int proxima;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        servico = BenchmarkPizzaria.popular(tamanho);
+        clientes = servico.getListaClientes();
+        ids = BenchmarkPizzaria.indices(AMOSTRAS, tamanho, 7);
+        sementes = BenchmarkPizzaria.indices(AMOSTRAS, Integer.MAX_VALUE, 11);
+        buscas = new String[AMOSTRAS];
+        telefones = new String[AMOSTRAS];
+        for (int i = 0; i < AMOSTRAS; i++) {
+            Cliente cliente = clientes.get(ids[i] % clientes.size());
+            buscas[i] = cliente.getNome().substring(0, Math.min(cliente.getNome().length(), 3 + (i % 5)));
+            telefones[i] = cliente.getTelefone();
+        }
+        pizzaFixa = BenchmarkPizzaria.pizzaAleatoria(12345);
+        descarte = new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    private int amostra() {
+        return proxima++ & (AMOSTRAS - 1);
+    }
+
+    @Benchmark
+    public Object buscarPedido() {
+        return servico.buscarPedido(1 + ids[amostra()]);
+    }
+
+    @Benchmark
+    public Object buscarClientePorNome() {
+        return servico.buscarClientePorNome(buscas[amostra()]);
+    }
+
+    @Benchmark
+    public Object buscarClientePorTelefone() {
+        return servico.buscarClientePorTelefone(telefones[amostra()]);
+    }
+
+    @Benchmark
+    public long calcularFrete() {
+        int i = amostra();
+        return servico.calcularFrete(ids[i] % 20, 1 + (i & 3), i & 1);
+    }
+
+    @Benchmark
+    public Object pizzaDe() {
+        return BenchmarkPizzaria.pizzaAleatoria(sementes[amostra()]);
+    }
+
+    // Invocações alternadas adicionam uma pizza e removem a mesma pizza do mesmo pedido: os pedidos não crescem
+    // ao longo da medição, e o tempo reportado é a média das duas edições no lugar
+    @Benchmark
+    public Object adicionarPizzaAoPedido() {
+        int i = proxima++;
+        Pedido pedido = servico.buscarPedido(1 + ids[(i >>> 1) & (AMOSTRAS - 1)]);
+        return (i & 1) == 0
+                ? servico.adicionarPizzaAoPedido(pedido, pizzaFixa)
+                : servico.removerPizzaDoPedido(pedido, pedido.getNumPizzas() - 1);
+    }
+
+    @Benchmark
+    public Object criarPedido() {
+        int i = amostra();
+        return servico.criarPedido(clientes.get(ids[i] % clientes.size()), List.of(pizzaFixa),
+                List.of(Bebida.values()[i % Bebida.values().length]), 3.5);
+    }
+
+    @Benchmark
+    public void gerarRelatorio() {
+        servico.gerarRelatorio(descarte);
+    }
+
+    // Os pedidos criados numa iteração são cancelados ao fim dela, fora da medição: o serviço volta ao tamanho do parâmetro
+    @TearDown(Level.Iteration)
+    public void cancelarCriados() {
+        cancelarPedidosApos(servico, tamanho);
+    }
+
+    static void cancelarPedidosApos(PizzariaService servico, int ultimoIdMantido) {
+        FiltroPedidos criados = FiltroPedidos.TODOS.comIds(ultimoIdMantido + 1, Integer.MAX_VALUE);
+        Pagina<Pedido> pagina = servico.listarPedidos(criados, Pagina.INICIO, 1_000);
+        while (true) {
+            for (Pedido pedido : pagina.getItens()) {
+                try {
+                    while (pedido.getNumBebidas() > 0) servico.removerBebidaDoPedido(pedido, 0);
+                    while (true) servico.removerPizzaDoPedido(pedido, 0);
+                } catch (PedidoNaoEncontradoException cancelado) {
+                    // Sem itens, o pedido é cancelado e sai do serviço
+                }
+            }
+            if (!pagina.temProxima()) break;
+            pagina = servico.listarPedidos(criados, pagina.getProximoCursor(), 1_000);
+        }
+    }
+}
@@ -0,0 +1,6940 @@
+package Final;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays; 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.InputMismatchException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+public class PizzariaApp {
+
+    // --- CLASSES DE MODELO ---
+
+    public enum Sabor {
+        MARGUERITA(3000), PEPPERONI(3500), QUATRO_QUEIJOS(3700),
+        CALABRESA(3300), FRANGO_CATUPIRY(3650), PORTUGUESA(3340),
+        MUSSARELA(2800), ATUM(3870), VEGETARIANA(3430),
+        ESPECIAL_CASA(4220);
+
+        private final long precoPadraoCentavos; // Valores monetários em centavos: somas exatas, sem erro de ponto flutuante
+
+        Sabor(long precoPadraoCentavos) {
+            this.precoPadraoCentavos = precoPadraoCentavos;
+        }
+        // Métodos de Sabor... (mantidos)
+        long getPrecoPadraoCentavos() { return precoPadraoCentavos; } // Preço de fábrica (versão 1 do catálogo)
+        public String getNomeFormatado() { return name().replace('_', ' ').toLowerCase(); }
+        public static Sabor fromIndex(int index) {
+            Sabor[] sabores = Sabor.values();
+            if (index >= 0 && index < sabores.length) {
+                return sabores[index];
+            }
+            throw new IllegalArgumentException("Índice de sabor inválido.");
+        }
+    }
+    
+    // NOVO: Enum para Bebidas
+    public enum Bebida {
+        COCA_COLA_2L(1200), GUARANA_2L(1050), FANTA_2L(1000);
+
+        private final long precoPadraoCentavos;
+
+        Bebida(long precoPadraoCentavos) {
+            this.precoPadraoCentavos = precoPadraoCentavos;
+        }
+
+        long getPrecoPadraoCentavos() { return precoPadraoCentavos; } // Preço de fábrica (versão 1 do catálogo)
+        
+        public String getNomeFormatado() {
+            return name().replace('_', ' ').toLowerCase();
+        }
+        
+        public static Bebida fromIndex(int index) {
+            Bebida[] bebidas = Bebida.values();
+            if (index >= 0 && index < bebidas.length) {
+                return bebidas[index];
+            }
+            throw new IllegalArgumentException("Índice de bebida inválido.");
+        }
+    }
+
+    // NOVO: Valores monetários circulam como long em centavos; a conversão para reais só acontece na exibição
+    public static final class Moeda {
+        private Moeda() {}
+
+        public static String formatar(long centavos) {
+            return String.format("%.2f", centavos / 100.0); // Exato: todo valor com 2 casas tem representação próxima o bastante
+        }
+    }
+
+    public static class Cliente {
+        private final String nome;
+        private final String endereco;
+        private final String telefone;
+        private final String email;
+        private int id; // Atribuído pelo repositório no cadastro (0 = não cadastrado)
+        private final HistoricoCliente historico = new HistoricoCliente(); // NOVO: Pedidos e totais do cliente
+
+        public Cliente(String nome, String endereco, String telefone, String email){
+            this.nome = nome;
+            this.endereco = endereco;
+            this.telefone = telefone;
+            this.email = email;
+        }
+
+        void atribuirId(int id) {
+            if (this.id != 0) throw new IllegalStateException("Cliente " + nome + " já está cadastrado.");
+            this.id = id;
+        }
+
+        public int getId() { return id; }
+        public String getNome() { return nome; }
+        public String getEndereco() { return endereco; }
+        public String getTelefone() { return telefone; }
+        public String getEmail() { return email; }
+        public HistoricoCliente getHistorico() { return historico; }
+
+        // NOVO: Cadastrados são iguais pelo ID (estável, também entre reinícios); sem cadastro, só pela identidade
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Cliente other)) return false;
+            return id != 0 && id == other.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Integer.hashCode(id); // Não cadastrados caem todos em 0: iguais só a si mesmos, o que o contrato permite
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s | End: %s | Tel: %s", nome, endereco, telefone);
+        }
+    }
+
+    /**
+     * NOVO: Histórico do cliente, mantido pelo serviço a cada criação, alteração, cancelamento e arquivamento:
+     * os IDs dos seus pedidos em memória (em ordem crescente) e os totais de toda a vida do cliente.
+     * Os totais separam a parte em memória da já arquivada nos fechamentos de período; a arquivada vai para a foto,
+     * e a em memória é refeita com os pedidos na recuperação, então o "desde sempre" sobrevive a ambos.
+     */
+    public static final class HistoricoCliente {
+        private final ListaInt idsPedidos = new ListaInt();
+        private final TotaisCliente emMemoria = new TotaisCliente();
+        private final TotaisCliente arquivados = new TotaisCliente();
+
+        synchronized void registrarPedido(Pedido pedido, int sinal) {
+            if (sinal > 0) idsPedidos.inserirOrdenado(pedido.getId()); // Criações simultâneas podem chegar fora de ordem
+            else idsPedidos.removerOrdenado(pedido.getId());
+            emMemoria.registrarPedido(pedido, sinal);
+        }
+
+        synchronized void registrarValor(long centavos, int sinal) {
+            emMemoria.gastoCentavos += sinal * centavos;
+        }
+
+        synchronized void registrarPizza(Pizza pizza, int sinal) {
+            emMemoria.registrarPizza(pizza, sinal);
+        }
+
+        // Fechamento de período: o pedido sai do índice, mas continua nos totais
+        synchronized void arquivar(Pedido pedido) {
+            idsPedidos.removerOrdenado(pedido.getId());
+            emMemoria.registrarPedido(pedido, -1);
+            arquivados.registrarPedido(pedido, 1);
+        }
+
+        public synchronized int getNumPedidos() { return emMemoria.pedidos + arquivados.pedidos; }
+        public synchronized long getGastoTotalCentavos() { return emMemoria.gastoCentavos + arquivados.gastoCentavos; }
+
+        /** Sabor mais pedido em toda a vida do cliente (empate: o de menor ordinal); vazio se ainda não pediu pizza. */
+        public synchronized Optional<Sabor> getSaborFavorito() {
+            int melhor = -1;
+            int maior = 0;
+            for (int i = 0; i < emMemoria.sabores.length; i++) {
+                int contagem = emMemoria.sabores[i] + arquivados.sabores[i];
+                if (contagem > maior) {
+                    maior = contagem;
+                    melhor = i;
+                }
+            }
+            return melhor < 0 ? Optional.empty() : Optional.of(Sabor.values()[melhor]);
+        }
+
+        /** IDs dos pedidos em memória, do mais antigo ao mais recente. */
+        public synchronized int[] getIdsPedidos() { return idsPedidos.copiar(); }
+        synchronized int getUltimoIdPedido() { return idsPedidos.ultimo(); } // -1 = nenhum em memória
+        synchronized int getProximoIdPedidoApos(int id) { return idsPedidos.proximoApos(id); } // -1 = acabou
+
+        synchronized TotaisCliente copiarArquivados() { return arquivados.copiar(); }
+        synchronized void restaurarArquivados(TotaisCliente totais) { arquivados.somar(totais); }
+    }
+
+    // NOVO: Contadores de um cliente (pedidos, gasto e sabores), alterados só sob o monitor do HistoricoCliente
+    static final class TotaisCliente {
+        int pedidos;
+        long gastoCentavos;
+        final int[] sabores = new int[Sabor.values().length];
+
+        void registrarPedido(Pedido pedido, int sinal) {
+            pedidos += sinal;
+            gastoCentavos += sinal * pedido.getValorTotalCentavos();
+            for (int i = 0, n = pedido.getNumPizzas(); i < n; i++) registrarPizza(pedido.getPizza(i), sinal);
+        }
+
+        void registrarPizza(Pizza pizza, int sinal) {
+            for (Sabor sabor : pizza.getSabores()) sabores[sabor.ordinal()] += sinal;
+        }
+
+        void somar(TotaisCliente outros) {
+            pedidos += outros.pedidos;
+            gastoCentavos += outros.gastoCentavos;
+            for (int i = 0; i < sabores.length; i++) sabores[i] += outros.sabores[i];
+        }
+
+        TotaisCliente copiar() {
+            TotaisCliente copia = new TotaisCliente();
+            copia.somar(this);
+            return copia;
+        }
+
+        boolean vazio() {
+            return pedidos == 0 && gastoCentavos == 0 && Arrays.stream(sabores).allMatch(c -> c == 0);
+        }
+    }
+
+    // NOVO: Pizzas são canônicas (flyweight): sabores iguais no mesmo tamanho compartilham uma única instância
+    // por versão do catálogo de preços, com preço e lista de sabores calculados uma vez. Obtenha instâncias com Pizza.de(...).
+    public static final class Pizza {
+        static final int MAX_SABORES = 4;
+        static final int SABOR_VAZIO = 0xF; // Cada sabor ocupa um nibble, então Sabor deve ter no máximo 15 constantes
+
+        // Chave compacta: tamanho nos bits 16+ e os ordinais dos sabores, em ordem crescente, nos nibbles 0..3
+        private final int chave;
+        private final List<Sabor> sabores;
+        private final long precoCentavos;
+        private final TamanhoPizza tamanho;
+        private final CatalogoPrecos catalogo;
+
+        public enum TamanhoPizza {
+            BROTO(70), GRANDE(100), GIGA(130);
+            
+            private final int fatorPrecoPercentual;
+
+            TamanhoPizza(int fatorPrecoPercentual) {
+                this.fatorPrecoPercentual = fatorPrecoPercentual;
+            }
+
+            public int getFatorPrecoPercentual() { return fatorPrecoPercentual; }
+
+            public static TamanhoPizza getByIndex(int index) {
+                TamanhoPizza[] tamanhos = TamanhoPizza.values();
+                if (index >= 0 && index < tamanhos.length) {
+                    return tamanhos[index];
+                }
+                throw new IllegalArgumentException("Índice de tamanho inválido.");
+            }
+        }
+
+        Pizza(int chave, CatalogoPrecos catalogo){
+            TamanhoPizza tamanho = TamanhoPizza.values()[chave >>> 16];
+            Sabor[] todos = Sabor.values();
+            List<Sabor> decodificados = new ArrayList<>(MAX_SABORES);
+            for (int i = 0; i < MAX_SABORES; i++) {
+                int ordinal = (chave >>> (4 * i)) & 0xF;
+                if (ordinal == SABOR_VAZIO) break;
+                decodificados.add(todos[ordinal]);
+            }
+            this.chave = chave;
+            this.sabores = List.copyOf(decodificados);
+            this.tamanho = tamanho;
+            this.catalogo = catalogo;
+            this.precoCentavos = catalogo.calcularPrecoPizza(this.sabores, tamanho);
+        }
+
+        /**
+         * Retorna a pizza canônica com esses sabores (em qualquer ordem) e tamanho, com os preços de fábrica.
+         * Ao entrar num pedido ela é precificada pela versão do catálogo do pedido.
+         */
+        public static Pizza de(List<Sabor> sabores, TamanhoPizza tamanho) {
+            return de(sabores, tamanho, CatalogoPrecos.PADRAO);
+        }
+
+        /** NOVO: A pizza canônica com os preços da versão informada (ex.: a vigente no serviço). */
+        public static Pizza de(List<Sabor> sabores, TamanhoPizza tamanho, CatalogoPrecos catalogo) {
+            return catalogo.pizza((tamanho.ordinal() << 16) | compactarSabores(sabores));
+        }
+
+        // Ordinais em ordem crescente, um por nibble, com SABOR_VAZIO nas posições livres
+        static int compactarSabores(List<Sabor> sabores) {
+            if (sabores == null || sabores.isEmpty()) {
+                 throw new IllegalArgumentException("A pizza deve ter pelo menos um sabor.");
+            }
+            if (sabores.size() > MAX_SABORES) throw new IllegalArgumentException("A pizza deve ter no máximo 4 sabores.");
+            int codigo = 0xFFFF;
+            for (int i = 0; i < sabores.size(); i++) {
+                int ordinal = sabores.get(i).ordinal();
+                int pos = i;
+                while (pos > 0 && ((codigo >>> (4 * (pos - 1))) & 0xF) > ordinal) pos--;
+                // Desloca os nibbles a partir de 'pos' uma posição para cima e insere o ordinal no espaço aberto
+                int baixos = codigo & ((1 << (4 * pos)) - 1);
+                int altos = (codigo << 4) & 0xFFFF & ~((1 << (4 * (pos + 1))) - 1);
+                codigo = altos | (ordinal << (4 * pos)) | baixos;
+            }
+            return codigo;
+        }
+
+        public List<Sabor> getSabores() { return sabores; } // Imutável e compartilhada
+        int getSaboresCompactados() { return chave & 0xFFFF; }
+        int getChave() { return chave; }
+        public long getPrecoCentavos() { return precoCentavos; }
+        public TamanhoPizza getTamanho() { return tamanho; }
+        CatalogoPrecos getCatalogo() { return catalogo; }
+
+        // Iguais = mesmos sabores e tamanho, ainda que precificadas por versões diferentes do catálogo
+        @Override
+        public boolean equals(Object obj) {
+            return this == obj || (obj instanceof Pizza outra && chave == outra.chave);
+        }
+
+        @Override
+        public int hashCode() {
+            return Integer.hashCode(chave);
+        }
+        
+        @Override
+        public String toString() {
+            String saboresStr = sabores.stream()
+                .map(Sabor::getNomeFormatado)
+                .collect(Collectors.joining(", "));
+            
+            return String.format("%s (R$ %s) - Sabores: [%s]", 
+                                 tamanho.name(), Moeda.formatar(precoCentavos), saboresStr);
+        }
+    }
+    
+    /**
+     * NOVO: Catálogo de preços versionado, carregado de arquivo e trocado a quente (sem reiniciar e perder o estado).
+     * Sabores e bebidas continuam sendo os enums: seus ordinais são os IDs densos da chave da pizza e da persistência,
+     * e os preços de cada versão ficam em arrays indexados por ordinal, como a antiga tabela Sabor × Tamanho.
+     * Cada versão é imutável e tem suas próprias pizzas canônicas. A vigente e as versões conhecidas pertencem a cada
+     * PizzariaService (VersoesCatalogo); publicar é uma troca atômica de referência, sem pausar pedidos.
+     * O pedido guarda a versão com que foi criado e continua precificando por ela depois de uma recarga.
+     * Arquivo (formato Properties, preços em reais): sabor.MARGUERITA=31.50, bebida.FANTA_2L=10.50;
+     * itens ausentes ficam com o preço de fábrica.
+     */
+    public static final class CatalogoPrecos {
+        private static final int NUM_SABORES = Sabor.values().length;
+        private static final int NUM_BEBIDAS = Bebida.values().length;
+        private static final int BITS_PAGINA = 12; // Pizzas canônicas em páginas de 4096 chaves, alocadas sob demanda
+        static final CatalogoPrecos PADRAO = new CatalogoPrecos(1, precosPadraoSabores(), precosPadraoBebidas()); // Tabela de fábrica
+
+        private final int versao;
+        private final long[] precosSabores; // Por ordinal
+        private final long[] precosBebidas; // Por ordinal
+        private final long[] tabelaPizzas; // Linha = tamanho, coluna = sabor; arredondamento (meio centavo para cima) já aplicado
+        // Poucas páginas são usadas (pizzas de até 3 sabores caem todas na mesma), então cada versão custa poucos KB
+        private final AtomicReferenceArray<AtomicReferenceArray<Pizza>> canonicas =
+            new AtomicReferenceArray<>((Pizza.TamanhoPizza.values().length << 16) >>> BITS_PAGINA);
+
+        CatalogoPrecos(int versao, long[] precosSabores, long[] precosBebidas) {
+            if (precosSabores.length != NUM_SABORES || precosBebidas.length != NUM_BEBIDAS) {
+                throw new IllegalArgumentException("O catálogo deve ter " + NUM_SABORES + " sabores e " + NUM_BEBIDAS + " bebidas.");
+            }
+            this.versao = versao;
+            this.precosSabores = precosSabores.clone();
+            this.precosBebidas = precosBebidas.clone();
+            Pizza.TamanhoPizza[] tamanhos = Pizza.TamanhoPizza.values();
+            this.tabelaPizzas = new long[tamanhos.length * NUM_SABORES];
+            for (Pizza.TamanhoPizza t : tamanhos) {
+                for (int s = 0; s < NUM_SABORES; s++) {
+                    tabelaPizzas[t.ordinal() * NUM_SABORES + s] = (precosSabores[s] * t.getFatorPrecoPercentual() + 50) / 100;
+                }
+            }
+        }
+
+        private static long[] precosPadraoSabores() {
+            long[] precos = new long[NUM_SABORES];
+            for (Sabor s : Sabor.values()) precos[s.ordinal()] = s.getPrecoPadraoCentavos();
+            return precos;
+        }
+
+        private static long[] precosPadraoBebidas() {
+            long[] precos = new long[NUM_BEBIDAS];
+            for (Bebida b : Bebida.values()) precos[b.ordinal()] = b.getPrecoPadraoCentavos();
+            return precos;
+        }
+
+        // Lê o arquivo como a versão informada; itens ausentes ficam com o preço de fábrica
+        static CatalogoPrecos ler(Path arquivo, int versao) throws IOException {
+            Properties propriedades = new Properties();
+            try (Reader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+                propriedades.load(leitor);
+            }
+            long[] sabores = precosPadraoSabores();
+            long[] bebidas = precosPadraoBebidas();
+            for (String chave : propriedades.stringPropertyNames()) {
+                int ponto = chave.indexOf('.');
+                String tipo = ponto < 0 ? "" : chave.substring(0, ponto).trim().toLowerCase();
+                String nome = chave.substring(ponto + 1).trim().toUpperCase();
+                long preco = lerPreco(chave, propriedades.getProperty(chave));
+                try {
+                    switch (tipo) {
+                        case "sabor": sabores[Sabor.valueOf(nome).ordinal()] = preco; break;
+                        case "bebida": bebidas[Bebida.valueOf(nome).ordinal()] = preco; break;
+                        default: throw new IllegalArgumentException("Item do catálogo deve começar com sabor. ou bebida.: " + chave);
+                    }
+                } catch (IllegalArgumentException e) {
+                    if (e.getMessage().startsWith("Item do catálogo")) throw e;
+                    throw new IllegalArgumentException("Item desconhecido no catálogo: " + chave);
+                }
+            }
+            return new CatalogoPrecos(versao, sabores, bebidas);
+        }
+
+        private static long lerPreco(String chave, String valor) {
+            try {
+                long centavos = new BigDecimal(valor.trim().replace(',', '.')).movePointRight(2).longValueExact();
+                if (centavos > 0) return centavos;
+            } catch (ArithmeticException | NumberFormatException e) {
+                // Mensagem única abaixo
+            }
+            throw new IllegalArgumentException("Preço inválido para " + chave + ": " + valor + " (use reais com até 2 casas).");
+        }
+
+        boolean mesmosPrecos(CatalogoPrecos outro) {
+            return Arrays.equals(precosSabores, outro.precosSabores) && Arrays.equals(precosBebidas, outro.precosBebidas);
+        }
+
+        /** Pizza canônica desta versão para a chave (tamanho + sabores compactados). */
+        Pizza pizza(int chave) {
+            AtomicReferenceArray<Pizza> pagina = canonicas.get(chave >>> BITS_PAGINA);
+            if (pagina == null) {
+                pagina = new AtomicReferenceArray<>(1 << BITS_PAGINA);
+                AtomicReferenceArray<Pizza> existente = canonicas.compareAndExchange(chave >>> BITS_PAGINA, null, pagina);
+                if (existente != null) pagina = existente;
+            }
+            int posicao = chave & ((1 << BITS_PAGINA) - 1);
+            Pizza pizza = pagina.get(posicao);
+            if (pizza != null) return pizza;
+            pizza = new Pizza(chave, this);
+            Pizza existente = pagina.compareAndExchange(posicao, null, pizza); // Outra thread pode ter criado antes
+            return existente != null ? existente : pizza;
+        }
+
+        // A mesma pizza precificada por esta versão (sem custo quando já é desta versão)
+        Pizza equivalente(Pizza pizza) {
+            return pizza.getCatalogo() == this ? pizza : pizza(pizza.getChave());
+        }
+
+        // O preço é o do sabor mais caro no tamanho escolhido (o fator de tamanho preserva a ordem)
+        long calcularPrecoPizza(List<Sabor> sabores, Pizza.TamanhoPizza tamanho) {
+            int linha = tamanho.ordinal() * NUM_SABORES;
+            long precoMaximo = 0;
+            for (int i = 0, n = sabores.size(); i < n; i++) {
+                precoMaximo = Math.max(precoMaximo, tabelaPizzas[linha + sabores.get(i).ordinal()]);
+            }
+            return precoMaximo;
+        }
+
+        public int getVersao() { return versao; }
+        public long getPrecoSabor(Sabor sabor) { return precosSabores[sabor.ordinal()]; }
+        public long getPrecoBebida(Bebida bebida) { return precosBebidas[bebida.ordinal()]; }
+    }
+
+    // NOVO: Catálogo vigente e versões conhecidas de um serviço. Imutável: o serviço troca o conjunto inteiro
+    // (AtomicReference), então a vigente e o registro mudam juntos, e cada instância do serviço tem os seus preços.
+    static final class VersoesCatalogo {
+        static final VersoesCatalogo INICIAL =
+            new VersoesCatalogo(CatalogoPrecos.PADRAO, Map.of(CatalogoPrecos.PADRAO.getVersao(), CatalogoPrecos.PADRAO));
+
+        private final CatalogoPrecos vigente;
+        private final Map<Integer, CatalogoPrecos> versoes; // Pedidos restaurados apontam para a versão com que foram criados
+
+        private VersoesCatalogo(CatalogoPrecos vigente, Map<Integer, CatalogoPrecos> versoes) {
+            this.vigente = vigente;
+            this.versoes = versoes;
+        }
+
+        CatalogoPrecos getVigente() { return vigente; }
+
+        CatalogoPrecos daVersao(int versao) {
+            CatalogoPrecos catalogo = versoes.get(versao);
+            if (catalogo == null) throw new IllegalStateException("Versão " + versao + " do catálogo de preços desconhecida.");
+            return catalogo;
+        }
+
+        // Acrescenta a versão; a maior versão conhecida é a vigente
+        VersoesCatalogo com(CatalogoPrecos catalogo) {
+            Map<Integer, CatalogoPrecos> novas = new HashMap<>(versoes);
+            novas.put(catalogo.getVersao(), catalogo);
+            return new VersoesCatalogo(catalogo.getVersao() >= vigente.getVersao() ? catalogo : vigente, Map.copyOf(novas));
+        }
+    }
+
+    // NOVO: Recarrega o catálogo quando o arquivo muda; um arquivo inválido é relatado e a versão vigente continua valendo
+    static final class VigiaCatalogo implements Closeable {
+        private final Path arquivo;
+        private final PizzariaService servico;
+        private final WatchService observador;
+        private final Thread thread;
+
+        VigiaCatalogo(Path arquivo, PizzariaService servico) throws IOException {
+            this.arquivo = arquivo.toAbsolutePath();
+            this.servico = servico;
+            this.observador = FileSystems.getDefault().newWatchService();
+            this.arquivo.getParent().register(observador, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            this.thread = new Thread(this::vigiar, "vigia-catalogo");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void vigiar() {
+            try {
+                while (true) {
+                    WatchKey chave = observador.take();
+                    boolean alterado = false;
+                    for (WatchEvent<?> evento : chave.pollEvents()) {
+                        if (arquivo.getFileName().equals(evento.context())) alterado = true;
+                    }
+                    chave.reset();
+                    if (!alterado) continue;
+                    Thread.sleep(100); // Editores gravam em etapas: espera a gravação terminar antes de ler
+                    for (WatchKey pendente = observador.poll(); pendente != null; pendente = observador.poll()) {
+                        pendente.pollEvents(); // Eventos da mesma gravação: uma leitura basta
+                        pendente.reset();
+                    }
+                    try {
+                        int anterior = servico.getCatalogo().getVersao();
+                        CatalogoPrecos vigente = servico.recarregarCatalogo(arquivo);
+                        if (vigente.getVersao() != anterior) System.out.println("--- Catálogo de preços v" + vigente.getVersao() + " em vigor ---");
+                    } catch (IOException | IllegalArgumentException e) {
+                        System.err.println("ERRO: catálogo " + arquivo + " ignorado, mantida a v" + servico.getCatalogo().getVersao() + ": " + e.getMessage());
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Encerrado
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            observador.close();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5)); // Nenhuma recarga depois da foto final
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // NOVO: O pedido é alterado no lugar. Subtotais e frete acompanham cada alteração, então o total
+    // sai em O(1) sem re-somar os itens; o frete é recalculado exatamente a partir da distância guardada.
+    // O estado é protegido pelo monitor do próprio pedido; os getters de lista devolvem cópias.
+    public static class Pedido {
+        private final int id;
+        private final Cliente cliente;
+        private final double distanciaKm;
+        private final long criadoEmMillis; // NOVO: Instante de criação (epoch ms), base das janelas de vendas
+        private final CatalogoPrecos catalogo; // NOVO: Versão de preços da criação, mantida mesmo após recargas
+        private final List<Pizza> pizzas; 
+        private final List<Bebida> bebidas; // NOVO: Lista de Bebidas
+        private long subtotalPizzasCentavos;
+        private long subtotalBebidasCentavos;
+        private long freteCentavos;
+        private volatile EtapaPedido etapa; // NOVO: Etapa atual no pipeline de preparo (null = fora do pipeline)
+
+        public Pedido(int id, Cliente cliente, List<Pizza> pizzas, List<Bebida> bebidas, double distanciaKm){
+            this(id, cliente, pizzas, bebidas, distanciaKm, System.currentTimeMillis());
+        }
+
+        public Pedido(int id, Cliente cliente, List<Pizza> pizzas, List<Bebida> bebidas, double distanciaKm, long criadoEmMillis){
+            this(id, cliente, pizzas, bebidas, distanciaKm, criadoEmMillis, CatalogoPrecos.PADRAO);
+        }
+
+        Pedido(int id, Cliente cliente, List<Pizza> pizzas, List<Bebida> bebidas, double distanciaKm, long criadoEmMillis,
+               CatalogoPrecos catalogo){
+            this.id = id;
+            this.cliente = cliente;
+            this.distanciaKm = distanciaKm;
+            this.criadoEmMillis = criadoEmMillis;
+            this.catalogo = catalogo;
+            this.pizzas = new ArrayList<>(pizzas.size());
+            for (Pizza pizza : pizzas) this.pizzas.add(catalogo.equivalente(pizza)); // Pizzas montadas antes de uma recarga
+            this.bebidas = new ArrayList<>(bebidas); // Inicializa bebidas
+            this.subtotalPizzasCentavos = somarPizzas(this.pizzas);
+            this.subtotalBebidasCentavos = somarBebidas(this.bebidas);
+            atualizarFrete();
+        }
+        
+        private static long somarPizzas(List<Pizza> pizzas) {
+            long soma = 0;
+            for (Pizza pizza : pizzas) soma += pizza.getPrecoCentavos();
+            return soma;
+        }
+        
+        // NOVO: Soma o valor das bebidas, pelos preços da versão do pedido
+        private long somarBebidas(List<Bebida> bebidas) {
+            long soma = 0;
+            for (Bebida bebida : bebidas) soma += catalogo.getPrecoBebida(bebida);
+            return soma;
+        }
+
+        private void atualizarFrete() {
+            freteCentavos = PizzariaService.calcularFreteCentavos(distanciaKm, pizzas.size(), bebidas.size());
+        }
+
+        /** Recalcula o total do zero, percorrendo os itens (para conferência dos subtotais incrementais). */
+        public synchronized long recalcularTotal() {
+            return somarPizzas(this.pizzas) + somarBebidas(this.bebidas)
+                + PizzariaService.calcularFreteCentavos(distanciaKm, pizzas.size(), bebidas.size()); // Inclui bebidas
+        }
+
+        synchronized void adicionarPizza(Pizza pizza) {
+            pizza = catalogo.equivalente(pizza);
+            pizzas.add(pizza);
+            subtotalPizzasCentavos += pizza.getPrecoCentavos();
+            atualizarFrete();
+            assert getValorTotalCentavos() == recalcularTotal();
+        }
+
+        synchronized Pizza removerPizza(int indice) {
+            Pizza removida = pizzas.remove(indice);
+            subtotalPizzasCentavos -= removida.getPrecoCentavos();
+            atualizarFrete();
+            assert getValorTotalCentavos() == recalcularTotal();
+            return removida;
+        }
+
+        synchronized Pizza substituirPizza(int indice, Pizza nova) {
+            nova = catalogo.equivalente(nova);
+            Pizza antiga = pizzas.set(indice, nova);
+            subtotalPizzasCentavos += nova.getPrecoCentavos() - antiga.getPrecoCentavos();
+            assert getValorTotalCentavos() == recalcularTotal();
+            return antiga;
+        }
+
+        synchronized void adicionarBebida(Bebida bebida) {
+            bebidas.add(bebida);
+            subtotalBebidasCentavos += catalogo.getPrecoBebida(bebida);
+            atualizarFrete();
+            assert getValorTotalCentavos() == recalcularTotal();
+        }
+
+        synchronized Bebida removerBebida(int indice) {
+            Bebida removida = bebidas.remove(indice);
+            subtotalBebidasCentavos -= catalogo.getPrecoBebida(removida);
+            atualizarFrete();
+            assert getValorTotalCentavos() == recalcularTotal();
+            return removida;
+        }
+
+        /** Cópia independente do estado atual, que não acompanha edições futuras. */
+        public synchronized Pedido copiar() {
+            return new Pedido(id, cliente, pizzas, bebidas, distanciaKm, criadoEmMillis, catalogo);
+        }
+
+        public int getId() { return id; }
+        public Cliente getCliente() { return cliente; }
+        public double getDistanciaKm() { return distanciaKm; }
+        public long getCriadoEmMillis() { return criadoEmMillis; }
+        public CatalogoPrecos getCatalogo() { return catalogo; }
+        public EtapaPedido getEtapa() { return etapa; }
+        void definirEtapa(EtapaPedido etapa) { this.etapa = etapa; }
+        public synchronized List<Pizza> getPizzas() { return List.copyOf(pizzas); } 
+        public synchronized List<Bebida> getBebidas() { return List.copyOf(bebidas); } // Getter
+        public synchronized Pizza getPizza(int indice) { return pizzas.get(indice); }
+        public synchronized Bebida getBebida(int indice) { return bebidas.get(indice); }
+        public synchronized int getNumPizzas() { return pizzas.size(); }
+        public synchronized int getNumBebidas() { return bebidas.size(); }
+        public synchronized boolean estaVazio() { return pizzas.isEmpty() && bebidas.isEmpty(); }
+        public synchronized long getValorTotalCentavos() { return subtotalPizzasCentavos + subtotalBebidasCentavos + freteCentavos; }
+        public synchronized long getFreteCentavos() { return freteCentavos; }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            Pedido other = (Pedido) obj;
+            return id == other.id;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Integer.hashCode(id);
+        }
+    }
+    
+    public static class PedidoNaoEncontradoException extends RuntimeException {
+        public PedidoNaoEncontradoException(String message) {
+            super(message);
+        }
+    }
+
+    // NOVO: Cadastro recusado porque o telefone ou o email já pertence a outro cliente
+    public static class ClienteDuplicadoException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Cliente existente; // Cliente não é serializável: null se a exceção for desserializada
+
+        public ClienteDuplicadoException(String message, Cliente existente) {
+            super(message);
+            this.existente = existente;
+        }
+
+        public Cliente getExistente() { return existente; }
+    }
+
+    // --- ESTRUTURAS DE ÍNDICE ---
+
+    // Lista de int crescente, sem boxing, usada nas listas de postagem dos índices
+    static final class ListaInt {
+        private int[] valores = new int[4];
+        private int tamanho;
+
+        void adicionar(int valor) {
+            if (tamanho == valores.length) valores = Arrays.copyOf(valores, tamanho * 2);
+            valores[tamanho++] = valor;
+        }
+
+        // NOVO: Mantém a lista em ordem crescente; inserir depois do último (o caso comum) custa O(1)
+        void inserirOrdenado(int valor) {
+            if (tamanho == 0 || valor > valores[tamanho - 1]) {
+                adicionar(valor);
+                return;
+            }
+            int posicao = Arrays.binarySearch(valores, 0, tamanho, valor);
+            if (posicao >= 0) return;
+            posicao = -posicao - 1;
+            if (tamanho == valores.length) valores = Arrays.copyOf(valores, tamanho * 2);
+            System.arraycopy(valores, posicao, valores, posicao + 1, tamanho - posicao);
+            valores[posicao] = valor;
+            tamanho++;
+        }
+
+        // NOVO: Remove o valor de uma lista ordenada; devolve false se ele não estava nela
+        boolean removerOrdenado(int valor) {
+            int posicao = Arrays.binarySearch(valores, 0, tamanho, valor);
+            if (posicao < 0) return false;
+            System.arraycopy(valores, posicao + 1, valores, posicao, tamanho - posicao - 1);
+            tamanho--;
+            return true;
+        }
+
+        // NOVO: Menor valor maior que o informado, numa lista ordenada; -1 se não houver
+        int proximoApos(int valor) {
+            int posicao = Arrays.binarySearch(valores, 0, tamanho, valor);
+            posicao = posicao >= 0 ? posicao + 1 : -posicao - 1;
+            return posicao < tamanho ? valores[posicao] : -1;
+        }
+
+        int get(int i) { return valores[i]; }
+        int tamanho() { return tamanho; }
+        int ultimo() { return tamanho == 0 ? -1 : valores[tamanho - 1]; }
+        int[] copiar() { return Arrays.copyOf(valores, tamanho); }
+    }
+
+    // NOVO: Repositório de clientes com índice de trigramas sobre os nomes normalizados.
+    // Os nomes são normalizados uma única vez no cadastro (minúsculas, sem acentos, espaços colapsados),
+    // e a busca consulta apenas a menor lista de postagem em vez de percorrer todos os clientes.
+    public static class RepositorioClientes {
+        private static final char MARCA_BIGRAMA = '\0';
+
+        private final List<Cliente> clientes;
+        private final List<String> nomesNormalizados;
+        private final Map<Long, ListaInt> indiceTrigramas;
+        private final Map<String, Integer> posicaoPorTelefone; // NOVO: Telefone normalizado -> posição
+        private final Map<String, Integer> posicaoPorEmail;    // NOVO: Email normalizado -> posição
+        // Várias buscas simultâneas; cadastros são exclusivos e mantêm lista e índices consistentes
+        private final ReentrantReadWriteLock trava;
+
+        public RepositorioClientes() {
+            this.clientes = new ArrayList<>();
+            this.nomesNormalizados = new ArrayList<>();
+            this.indiceTrigramas = new HashMap<>();
+            this.posicaoPorTelefone = new HashMap<>();
+            this.posicaoPorEmail = new HashMap<>();
+            this.trava = new ReentrantReadWriteLock();
+        }
+
+        public void adicionar(Cliente cliente) {
+            adicionar(cliente, c -> null);
+        }
+
+        // Cadastra o cliente com ID sequencial (posição + 1). O callback roda sob a trava de escrita,
+        // com o ID já atribuído e antes de o cliente ficar visível nas buscas (ex.: anexar ao diário).
+        // NOVO: Recusa telefone ou email já cadastrado; a checagem e a inclusão ocorrem sob a mesma trava.
+        public <T> T adicionar(Cliente cliente, Function<Cliente, T> aoCadastrar) {
+            return adicionar(cliente, aoCadastrar, true);
+        }
+
+        // Recuperação: dados gravados antes dos índices podem ter duplicados; o índice fica com o primeiro
+        void restaurar(Cliente cliente) {
+            adicionar(cliente, c -> null, false);
+        }
+
+        private <T> T adicionar(Cliente cliente, Function<Cliente, T> aoCadastrar, boolean recusarDuplicados) {
+            // Normalizações fora da trava: não dependem do estado
+            String nome = normalizarNome(cliente.getNome());
+            String telefone = normalizarTelefone(cliente.getTelefone());
+            String email = normalizarEmail(cliente.getEmail());
+            trava.writeLock().lock();
+            try {
+                if (recusarDuplicados) {
+                    recusarSeCadastrado(posicaoPorTelefone, telefone, "telefone", cliente.getTelefone());
+                    recusarSeCadastrado(posicaoPorEmail, email, "email", cliente.getEmail());
+                }
+                int posicao = clientes.size();
+                cliente.atribuirId(posicao + 1);
+                T resultado = aoCadastrar.apply(cliente);
+                clientes.add(cliente);
+                nomesNormalizados.add(nome);
+                indexar(nome, posicao);
+                if (!telefone.isEmpty()) posicaoPorTelefone.putIfAbsent(telefone, posicao);
+                if (!email.isEmpty()) posicaoPorEmail.putIfAbsent(email, posicao);
+                return resultado;
+            } finally {
+                trava.writeLock().unlock();
+            }
+        }
+
+        private void recusarSeCadastrado(Map<String, Integer> indice, String chave, String campo, String valor) {
+            Integer posicao = chave.isEmpty() ? null : indice.get(chave);
+            if (posicao != null) {
+                Cliente existente = clientes.get(posicao);
+                throw new ClienteDuplicadoException("O " + campo + " " + valor + " já pertence ao cliente "
+                        + existente.getNome() + " (ID " + existente.getId() + ").", existente);
+            }
+        }
+
+        /** NOVO: Identifica o cliente pelo telefone em O(1), ignorando formatação ("(11) 98888-1111" = "11988881111"). */
+        public Optional<Cliente> buscarPorTelefone(String telefone) {
+            return buscarNoIndice(posicaoPorTelefone, normalizarTelefone(telefone));
+        }
+
+        /** NOVO: Identifica o cliente pelo email em O(1), sem diferenciar maiúsculas. */
+        public Optional<Cliente> buscarPorEmail(String email) {
+            return buscarNoIndice(posicaoPorEmail, normalizarEmail(email));
+        }
+
+        private Optional<Cliente> buscarNoIndice(Map<String, Integer> indice, String chave) {
+            if (chave.isEmpty()) return Optional.empty();
+            trava.readLock().lock();
+            try {
+                Integer posicao = indice.get(chave);
+                return posicao == null ? Optional.empty() : Optional.of(clientes.get(posicao));
+            } finally {
+                trava.readLock().unlock();
+            }
+        }
+
+        public Optional<Cliente> buscarPorId(int id) {
+            trava.readLock().lock();
+            try {
+                return id >= 1 && id <= clientes.size() ? Optional.of(clientes.get(id - 1)) : Optional.empty();
+            } finally {
+                trava.readLock().unlock();
+            }
+        }
+
+        // NOVO: Até "limite" clientes com ID maior que o informado (posição = ID - 1): cópia de um trecho, O(limite)
+        List<Cliente> faixaDeIds(int aposId, int limite) {
+            trava.readLock().lock();
+            try {
+                int inicio = Math.min(aposId, clientes.size());
+                return List.copyOf(clientes.subList(inicio, (int) Math.min((long) inicio + limite, clientes.size())));
+            } finally {
+                trava.readLock().unlock();
+            }
+        }
+
+        // Cópia estável da lista, que pode crescer durante a iteração do chamador
+        public List<Cliente> listar() {
+            trava.readLock().lock();
+            try {
+                return List.copyOf(clientes);
+            } finally {
+                trava.readLock().unlock();
+            }
+        }
+
+        public int tamanho() {
+            trava.readLock().lock();
+            try {
+                return clientes.size();
+            } finally {
+                trava.readLock().unlock();
+            }
+        }
+
+        /**
+         * Busca clientes cujo nome contém o termo, ordenados por relevância:
+         * nome idêntico, depois prefixo do nome, depois início de palavra, depois qualquer trecho.
+         * Empates favorecem nomes mais curtos e, em seguida, os cadastrados primeiro.
+         * Termos com menos de 3 caracteres casam apenas com inícios de palavra.
+         */
+        public List<Cliente> buscarPorNome(String nomeBusca, int limite) {
+            String termo = normalizarNome(nomeBusca);
+            if (termo.isEmpty() || limite <= 0) return Collections.emptyList();
+
+            trava.readLock().lock();
+            try {
+                return ranquear(termo, limite);
+            } finally {
+                trava.readLock().unlock();
+            }
+        }
+
+        private List<Cliente> ranquear(String termo, int limite) {
+            ListaInt candidatos = menorListaDePostagem(termo);
+            if (candidatos == null) return Collections.emptyList();
+
+            long[] ranqueados = new long[candidatos.tamanho()];
+            int encontrados = 0;
+            for (int i = 0; i < candidatos.tamanho(); i++) {
+                int posicao = candidatos.get(i);
+                String nome = nomesNormalizados.get(posicao);
+                int relevancia = relevancia(nome, termo);
+                if (relevancia >= 0) {
+                    // Chave de ordenação: relevância | tamanho do nome | posição de cadastro
+                    ranqueados[encontrados++] = ((long) relevancia << 48)
+                            | ((long) Math.min(nome.length(), 0xFFFF) << 32)
+                            | posicao;
+                }
+            }
+            Arrays.sort(ranqueados, 0, encontrados);
+
+            int total = Math.min(encontrados, limite);
+            List<Cliente> resultado = new ArrayList<>(total);
+            for (int i = 0; i < total; i++) {
+                resultado.add(clientes.get((int) ranqueados[i]));
+            }
+            return resultado;
+        }
+
+        private ListaInt menorListaDePostagem(String termo) {
+            if (termo.length() < 3) {
+                // Termo curto: usa o gram de início de palavra (" a" ou " an")
+                char c1 = termo.length() == 2 ? termo.charAt(1) : MARCA_BIGRAMA;
+                return indiceTrigramas.get(chave(' ', termo.charAt(0), c1));
+            }
+            ListaInt menor = null;
+            for (int i = 0; i + 3 <= termo.length(); i++) {
+                ListaInt lista = indiceTrigramas.get(chave(termo.charAt(i), termo.charAt(i + 1), termo.charAt(i + 2)));
+                if (lista == null) return null; // Algum trigrama não existe: nenhum nome pode conter o termo
+                if (menor == null || lista.tamanho() < menor.tamanho()) menor = lista;
+            }
+            return menor;
+        }
+
+        // -1 = não contém; 0 = idêntico; 1 = prefixo; 2 = início de palavra; 3 = trecho qualquer
+        private static int relevancia(String nome, String termo) {
+            int indice = nome.indexOf(termo);
+            if (indice < 0) return -1;
+            if (indice == 0) return nome.length() == termo.length() ? 0 : 1;
+            while (indice >= 0) {
+                if (nome.charAt(indice - 1) == ' ') return 2;
+                indice = nome.indexOf(termo, indice + 1);
+            }
+            return 3;
+        }
+
+        private void indexar(String nome, int posicao) {
+            // Cada palavra recebe um espaço à esquerda, gerando grams de início de palavra
+            String comBordas = " " + nome;
+            for (int i = 0; i + 3 <= comBordas.length(); i++) {
+                adicionarPostagem(chave(comBordas.charAt(i), comBordas.charAt(i + 1), comBordas.charAt(i + 2)), posicao);
+            }
+            for (int i = 0; i + 1 < comBordas.length(); i++) {
+                if (comBordas.charAt(i) == ' ') {
+                    adicionarPostagem(chave(' ', comBordas.charAt(i + 1), MARCA_BIGRAMA), posicao);
+                }
+            }
+        }
+
+        private void adicionarPostagem(long chave, int posicao) {
+            ListaInt lista = indiceTrigramas.computeIfAbsent(chave, k -> new ListaInt());
+            if (lista.ultimo() != posicao) lista.adicionar(posicao); // Evita repetir o cliente na mesma lista
+        }
+
+        private static long chave(char c0, char c1, char c2) {
+            return ((long) c0 << 32) | ((long) c1 << 16) | c2;
+        }
+
+        // NOVO: Só os dígitos, sem zeros à esquerda e sem o código do país (55) em números com DDD;
+        // vazio quando não há dígitos ("-", "N/A"), e nesse caso o telefone não entra no índice
+        static String normalizarTelefone(String telefone) {
+            if (telefone == null) return "";
+            StringBuilder digitos = new StringBuilder(telefone.length());
+            for (int i = 0; i < telefone.length(); i++) {
+                char c = telefone.charAt(i);
+                if (c >= '0' && c <= '9' && (c != '0' || digitos.length() > 0)) digitos.append(c);
+            }
+            if (digitos.length() > 11 && digitos.charAt(0) == '5' && digitos.charAt(1) == '5') digitos.delete(0, 2);
+            return digitos.toString();
+        }
+
+        // NOVO: Sem espaços nas bordas e em minúsculas; vazio (fora do índice) se não tiver '@'
+        static String normalizarEmail(String email) {
+            if (email == null) return "";
+            String normalizado = email.strip().toLowerCase(Locale.ROOT);
+            return normalizado.indexOf('@') > 0 ? normalizado : "";
+        }
+
+        static String normalizarNome(String nome) {
+            String semAcentos = Normalizer.normalize(nome, Normalizer.Form.NFD);
+            StringBuilder sb = new StringBuilder(semAcentos.length());
+            boolean espacoPendente = false;
+            for (int i = 0; i < semAcentos.length(); i++) {
+                char c = semAcentos.charAt(i);
+                if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+                if (Character.isWhitespace(c)) {
+                    espacoPendente = sb.length() > 0;
+                    continue;
+                }
+                if (espacoPendente) {
+                    sb.append(' ');
+                    espacoPendente = false;
+                }
+                sb.append(Character.toLowerCase(c));
+            }
+            return sb.toString();
+        }
+    }
+
+    // NOVO: Repositório de pedidos indexado por ID, seguro para uso concorrente.
+    // Busca e remoção em O(1) pelo mapa de IDs; a listagem segue a ordem dos IDs,
+    // que são alocados em sequência e portanto refletem a ordem de criação.
+    public static class RepositorioPedidos {
+        private final Map<Integer, Pedido> pedidosPorId;
+        private final ConcurrentSkipListMap<Integer, Pedido> pedidosOrdenados;
+        // NOVO: Índice por valor total: chaves (valor, ID) compactadas em um long, em ordem de valor e depois de ID
+        private final ConcurrentSkipListSet<Long> chavesPorValor;
+        private final AtomicLong versao;
+        private volatile VisaoPedidos visaoOrdenada; // Cache da listagem, válido enquanto a versão não mudar
+
+        private static final class VisaoPedidos {
+            final long versao;
+            final List<Pedido> pedidos;
+
+            VisaoPedidos(long versao, List<Pedido> pedidos) {
+                this.versao = versao;
+                this.pedidos = pedidos;
+            }
+        }
+
+        public RepositorioPedidos() {
+            this.pedidosPorId = new ConcurrentHashMap<>();
+            this.pedidosOrdenados = new ConcurrentSkipListMap<>();
+            this.chavesPorValor = new ConcurrentSkipListSet<>();
+            this.versao = new AtomicLong();
+        }
+
+        // A chave por valor entra antes de o pedido ser publicado: edições só o alcançam pelo ID (pedidosPorId),
+        // então nenhuma reindexação pode correr entre o cálculo da chave e a sua inserção
+        public void adicionar(Pedido pedido) {
+            long chave = chaveValor(pedido.getValorTotalCentavos(), pedido.getId());
+            boolean chaveNova = chavesPorValor.add(chave);
+            if (pedidosPorId.putIfAbsent(pedido.getId(), pedido) != null) {
+                if (chaveNova) chavesPorValor.remove(chave); // A chave igual de um pedido existente fica onde está
+                throw new IllegalArgumentException("Já existe um pedido com o ID " + pedido.getId() + ".");
+            }
+            pedidosOrdenados.put(pedido.getId(), pedido);
+            versao.incrementAndGet();
+        }
+
+        public Optional<Pedido> buscar(int id) {
+            return Optional.ofNullable(pedidosPorId.get(id));
+        }
+
+        public boolean remover(int id) {
+            Pedido removido = pedidosPorId.remove(id);
+            if (removido != null) {
+                pedidosOrdenados.remove(id);
+                chavesPorValor.remove(chaveValor(removido.getValorTotalCentavos(), id));
+                versao.incrementAndGet();
+            }
+            return removido != null;
+        }
+
+        // NOVO: Move o pedido no índice por valor depois de uma edição (chamado sob a trava do pedido)
+        void reindexarValor(Pedido pedido, long totalAnterior) {
+            long totalAtual = pedido.getValorTotalCentavos();
+            if (totalAtual == totalAnterior || !pedidosPorId.containsKey(pedido.getId())) return;
+            chavesPorValor.add(chaveValor(totalAtual, pedido.getId()));
+            chavesPorValor.remove(chaveValor(totalAnterior, pedido.getId()));
+        }
+
+        // Valor nos 32 bits altos (até R$ 42 milhões por pedido, com saturação) e ID nos 31 baixos
+        static long chaveValor(long totalCentavos, int id) {
+            return (Math.min(Math.max(totalCentavos, 0), 0xFFFF_FFFFL) << 31) | id;
+        }
+
+        static int idDaChave(long chave) {
+            return (int) (chave & Integer.MAX_VALUE);
+        }
+
+        // NOVO: Pedidos com ID em (apos, ate], em ordem; posicionar custa O(log n), como o mapa ordenado
+        Iterable<Pedido> faixaDeIds(int apos, int ate) {
+            return apos >= ate ? List.of() : pedidosOrdenados.subMap(apos, false, ate, true).values();
+        }
+
+        // NOVO: Chaves (valor, ID) maiores que a informada, em ordem de valor
+        Iterable<Long> chavesPorValorApos(long chave) {
+            return chavesPorValor.tailSet(chave, false);
+        }
+
+        public int tamanho() { return pedidosPorId.size(); }
+        public boolean estaVazio() { return pedidosPorId.isEmpty(); }
+
+        // Percorre os pedidos em ordem de ID sem copiar a listagem (visão fracamente consistente do mapa ordenado)
+        Iterable<Pedido> percorrer() {
+            return pedidosOrdenados.values();
+        }
+
+        // Maior ID presente (0 se vazio), sem percorrer os pedidos
+        int ultimoId() {
+            Map.Entry<Integer, Pedido> ultimo = pedidosOrdenados.lastEntry();
+            return ultimo == null ? 0 : ultimo.getKey();
+        }
+
+        int primeiroId() {
+            Map.Entry<Integer, Pedido> primeiro = pedidosOrdenados.firstEntry();
+            return primeiro == null ? 0 : primeiro.getKey();
+        }
+
+        public List<Pedido> listar() {
+            VisaoPedidos visao = visaoOrdenada;
+            long versaoAtual = versao.get();
+            if (visao == null || visao.versao != versaoAtual) {
+                // Lê a versão antes de copiar: se houver escrita durante a cópia, a próxima chamada refaz a visão
+                visao = new VisaoPedidos(versaoAtual,
+                        Collections.unmodifiableList(new ArrayList<>(pedidosOrdenados.values())));
+                visaoOrdenada = visao;
+            }
+            return visao.pedidos;
+        }
+    }
+
+    // --- LÓGICA DE NEGÓCIO (PizzariaService) ---
+
+    // NOVO: Pedido a criar em lote (ex.: importado de arquivo), com o cliente referenciado pelo ID
+    public static class SolicitacaoPedido {
+        private final int idCliente;
+        private final double distanciaKm; // NaN = obter pelo endereço do cliente
+        private final List<Pizza> pizzas;
+        private final List<Bebida> bebidas;
+
+        public SolicitacaoPedido(int idCliente, double distanciaKm, List<Pizza> pizzas, List<Bebida> bebidas) {
+            this.idCliente = idCliente;
+            this.distanciaKm = distanciaKm;
+            this.pizzas = pizzas;
+            this.bebidas = bebidas;
+        }
+
+        public int getIdCliente() { return idCliente; }
+        public double getDistanciaKm() { return distanciaKm; }
+        public List<Pizza> getPizzas() { return pizzas; }
+        public List<Bebida> getBebidas() { return bebidas; }
+    }
+
+    // NOVO: Resultado de um lote, por posição: cada solicitação gerou um pedido ou uma mensagem de erro
+    public static class ResultadoLote {
+        private final Pedido[] pedidos;
+        private final String[] erros;
+
+        ResultadoLote(Pedido[] pedidos, String[] erros) {
+            this.pedidos = pedidos;
+            this.erros = erros;
+        }
+
+        public int tamanho() { return pedidos.length; }
+        public Pedido getPedido(int indice) { return pedidos[indice]; } // null se a solicitação foi rejeitada
+        public String getErro(int indice) { return erros[indice]; }     // null se o pedido foi criado
+
+        public int getNumCriados() {
+            int criados = 0;
+            for (Pedido pedido : pedidos) if (pedido != null) criados++;
+            return criados;
+        }
+    }
+
+    /**
+     * NOVO: Uma página de listagem. O cursor é a chave do último item na ordem da listagem (ID do pedido ou do cliente,
+     * ou o par valor/ID compactado na ordem por valor); a próxima página começa logo depois dele, posicionada pelo índice,
+     * então buscar a página N custa o mesmo que a primeira, e inserções/remoções não deslocam as páginas seguintes.
+     */
+    public static final class Pagina<T> {
+        public static final long INICIO = 0; // Cursor da primeira página
+
+        private final List<T> itens;
+        private final long proximoCursor; // -1 = última página
+
+        Pagina(List<T> itens, long proximoCursor) {
+            this.itens = itens;
+            this.proximoCursor = proximoCursor;
+        }
+
+        public List<T> getItens() { return itens; }
+        public boolean temProxima() { return proximoCursor >= 0; }
+        public long getProximoCursor() { return proximoCursor; }
+    }
+
+    // NOVO: Filtros da listagem paginada de pedidos. Imutável: cada "com..." devolve um novo filtro.
+    public static final class FiltroPedidos {
+        public static final FiltroPedidos TODOS = new FiltroPedidos(null, 0, 1, Integer.MAX_VALUE);
+
+        private final Cliente cliente;          // null = qualquer cliente
+        private final long valorMinimoCentavos; // 0 = qualquer valor
+        private final int idMinimo;
+        private final int idMaximo;
+
+        private FiltroPedidos(Cliente cliente, long valorMinimoCentavos, int idMinimo, int idMaximo) {
+            this.cliente = cliente;
+            this.valorMinimoCentavos = valorMinimoCentavos;
+            this.idMinimo = idMinimo;
+            this.idMaximo = idMaximo;
+        }
+
+        public FiltroPedidos comCliente(Cliente cliente) {
+            return new FiltroPedidos(cliente, valorMinimoCentavos, idMinimo, idMaximo);
+        }
+
+        public FiltroPedidos comValorMinimo(long centavos) {
+            if (centavos < 0) throw new IllegalArgumentException("O valor mínimo não pode ser negativo.");
+            return new FiltroPedidos(cliente, centavos, idMinimo, idMaximo);
+        }
+
+        public FiltroPedidos comIds(int idMinimo, int idMaximo) {
+            if (idMinimo > idMaximo) throw new IllegalArgumentException("Faixa de IDs inválida: " + idMinimo + " a " + idMaximo + ".");
+            return new FiltroPedidos(cliente, valorMinimoCentavos, Math.max(idMinimo, 1), idMaximo);
+        }
+
+        public Cliente getCliente() { return cliente; }
+        public long getValorMinimoCentavos() { return valorMinimoCentavos; }
+        public int getIdMinimo() { return idMinimo; }
+        public int getIdMaximo() { return idMaximo; }
+
+        boolean temFaixaDeIds() {
+            return idMinimo > 1 || idMaximo < Integer.MAX_VALUE;
+        }
+
+        boolean aceita(Pedido pedido) {
+            return (cliente == null || cliente.equals(pedido.getCliente()))
+                && pedido.getId() >= idMinimo && pedido.getId() <= idMaximo
+                && pedido.getValorTotalCentavos() >= valorMinimoCentavos;
+        }
+    }
+
+    // O serviço pode ser usado por vários terminais/threads ao mesmo tempo: IDs são alocados
+    // atomicamente, e cada edição trava apenas a faixa (stripe) do pedido alterado.
+    public static class PizzariaService {
+        private final RepositorioClientes clientes;
+        private final RepositorioPedidos pedidos;
+        private final ResumoVendas resumo;
+        private final JanelaVendas janela; // NOVO: Vendas recentes por minuto de criação dos pedidos
+        private final java.time.Clock relogio; // NOVO: Carimba a criação dos pedidos; fixo/deslocado em testes
+        private final AtomicInteger proximoIdPedido;
+        private final ReentrantLock[] travasPedidos;
+        // Mutações compartilham a trava de leitura; a foto (snapshot) usa a de escrita para obter um corte consistente
+        private final ReentrantReadWriteLock travaEscritas;
+        private volatile DiarioOperacoes diario; // null = sem persistência
+        private volatile PipelinePedidos pipeline; // NOVO: null = pedidos não passam pelo preparo acompanhado
+        private volatile CacheDistancias distancias; // NOVO: null = a distância precisa ser informada em todo pedido
+        private volatile MetricasServico metricas; // NOVO: null = sem histogramas (os eventos do JFR continuam)
+        // NOVO: Catálogo vigente e versões conhecidas, trocados juntos; travaCatalogo põe as recargas em série
+        private final AtomicReference<VersoesCatalogo> catalogos = new AtomicReference<>(VersoesCatalogo.INICIAL);
+        private final Object travaCatalogo = new Object();
+
+        private static final long CUSTO_BASE_KM_CENTAVOS = 180; 
+        private static final long FATOR_PESO_PIZZA_CENTAVOS = 60;
+        private static final long FATOR_PESO_BEBIDA_CENTAVOS = 20; // NOVO: Fator de peso para bebidas
+        private static final int NUM_TRAVAS_PEDIDOS = 1024; // Potência de 2
+
+        public PizzariaService() {
+            this(java.time.Clock.systemDefaultZone());
+        }
+
+        PizzariaService(java.time.Clock relogio) {
+            this.clientes = new RepositorioClientes();
+            this.pedidos = new RepositorioPedidos();
+            this.resumo = new ResumoVendas();
+            this.relogio = relogio;
+            this.janela = new JanelaVendas(relogio);
+            this.proximoIdPedido = new AtomicInteger(1);
+            this.travasPedidos = new ReentrantLock[NUM_TRAVAS_PEDIDOS];
+            for (int i = 0; i < NUM_TRAVAS_PEDIDOS; i++) {
+                travasPedidos[i] = new ReentrantLock();
+            }
+            this.travaEscritas = new ReentrantReadWriteLock();
+            this.metricas = new MetricasServico();
+        }
+        
+        public List<Cliente> getListaClientes() {
+            return clientes.listar();
+        }
+
+        public List<Pedido> getListaPedidos() {
+            return pedidos.listar();
+        }
+
+        // NOVO: Para quem só percorre ou conta os pedidos: não copia a listagem (ver RepositorioPedidos.percorrer)
+        public Iterable<Pedido> percorrerPedidos() {
+            return pedidos.percorrer();
+        }
+
+        public int getNumPedidos() {
+            return pedidos.tamanho();
+        }
+
+        public void adicionarCliente(Cliente cliente) {
+            DiarioOperacoes d = diario;
+            long seq;
+            travaEscritas.readLock().lock();
+            try {
+                // Anexado sob a trava do repositório: nenhum pedido pode referenciar o cliente antes do registro
+                seq = clientes.adicionar(cliente, c -> d == null ? 0L
+                        : d.anexar(DiarioOperacoes.CLIENTE, b -> DiarioOperacoes.escreverCliente(b, c)));
+            } finally {
+                travaEscritas.readLock().unlock();
+            }
+            if (d != null) d.aguardarGravacao(seq); // Espera o fsync fora da trava, sem bloquear as buscas
+        }
+
+        public Optional<Cliente> buscarClientePorId(int id) {
+            return clientes.buscarPorId(id);
+        }
+        
+        // NOVO: Identificação de quem liga ou escreve, pelos índices de telefone e email (tempo constante)
+        public Optional<Cliente> buscarClientePorTelefone(String telefone) {
+            return clientes.buscarPorTelefone(telefone);
+        }
+
+        public Optional<Cliente> buscarClientePorEmail(String email) {
+            return clientes.buscarPorEmail(email);
+        }
+        
+        // NOVO: Busca cliente por nome (retorna o mais relevante)
+        public Optional<Cliente> buscarClientePorNome(String nomeBusca) {
+            return buscarClientesPorNome(nomeBusca, 1).stream().findFirst();
+        }
+
+        // Busca clientes por trecho do nome (sem acentos/maiúsculas), em ordem de relevância
+        public List<Cliente> buscarClientesPorNome(String nomeBusca, int limite) {
+            Medicao medicao = medir(OperacaoServico.BUSCAR_CLIENTE_POR_NOME);
+            try {
+                return clientes.buscarPorNome(nomeBusca, limite);
+            } finally {
+                medicao.encerrar();
+            }
+        }
+
+        // Frete agora considera Pizzas e Bebidas
+        // Retorna centavos; só a parcela da distância (informada em km) precisa de arredondamento
+        public long calcularFrete(double distanciaKm, int numPizzas, int numBebidas) {
+            return calcularFreteCentavos(distanciaKm, numPizzas, numBebidas);
+        }
+
+        static long calcularFreteCentavos(double distanciaKm, int numPizzas, int numBebidas) {
+            if (distanciaKm < 0 || (numPizzas + numBebidas) <= 0) return 0;
+            return custoDistanciaCentavos(distanciaKm) + pesoEntrega(numPizzas, numBebidas);
+        }
+
+        static void validarDistancia(double distanciaKm) {
+            if (!(distanciaKm >= 0)) throw new IllegalArgumentException("A distância não pode ser negativa: " + distanciaKm + ".");
+        }
+
+        static long custoDistanciaCentavos(double distanciaKm) {
+            return Math.round(distanciaKm * CUSTO_BASE_KM_CENTAVOS);
+        }
+
+        // Parcela do frete pelo peso; também serve de medida de carga do entregador (pizza = 60, bebida = 20)
+        static long pesoEntrega(int numPizzas, int numBebidas) {
+            return (numPizzas * FATOR_PESO_PIZZA_CENTAVOS) + (numBebidas * FATOR_PESO_BEBIDA_CENTAVOS);
+        }
+
+        // NOVO: Cria o pedido com a distância obtida pelo endereço do cliente
+        public Pedido criarPedido(Cliente cliente, List<Pizza> pizzas, List<Bebida> bebidas) {
+            Medicao medicao = medir(OperacaoServico.CRIAR_PEDIDO);
+            try {
+                return criarPedidoMedido(cliente, pizzas, bebidas, resolverDistanciaKm(cliente), false);
+            } finally {
+                medicao.encerrar();
+            }
+        }
+
+        // Criar Pedido agora recebe a lista de Bebidas
+        public Pedido criarPedido(Cliente cliente, List<Pizza> pizzas, List<Bebida> bebidas, double distanciaKm) {
+            Medicao medicao = medir(OperacaoServico.CRIAR_PEDIDO);
+            try {
+                return criarPedidoMedido(cliente, pizzas, bebidas, distanciaKm, true);
+            } finally {
+                medicao.encerrar();
+            }
+        }
+
+        // informada: a distância veio do operador (não do cache) e, se diferente da conhecida, passa a valer para o endereço
+        private Pedido criarPedidoMedido(Cliente cliente, List<Pizza> pizzas, List<Bebida> bebidas, double distanciaKm, boolean informada) {
+            if (pizzas.isEmpty() && bebidas.isEmpty()) throw new IllegalArgumentException("O pedido está vazio.");
+            validarDistancia(distanciaKm);
+            
+            if (diario != null && cliente.getId() == 0) throw new IllegalArgumentException("O cliente precisa estar cadastrado.");
+            CacheDistancias cache = distancias;
+            if (informada && cache != null) cache.registrar(cliente.getEndereco(), distanciaKm);
+            
+            Pedido novoPedido;
+            travaEscritas.readLock().lock();
+            try {
+                Pedido criado = new Pedido(proximoIdPedido.getAndIncrement(), cliente, pizzas, bebidas, distanciaKm, relogio.millis(),
+                    getCatalogo());
+                registrar(DiarioOperacoes.PEDIDO_CRIADO, b -> DiarioOperacoes.escreverPedido(b, criado));
+                pedidos.adicionar(criado);
+                contabilizarPedido(criado, 1);
+                novoPedido = criado;
+            } finally {
+                travaEscritas.readLock().unlock();
+            }
+            encaminharAoPreparo(novoPedido); // Fora da trava: esperar vaga no pipeline não pode travar a foto do estado
+            return novoPedido;
+        }
+
+        /**
+         * NOVO: Cria vários pedidos de uma vez. As solicitações inválidas são rejeitadas individualmente,
+         * sem abortar o lote. Os válidos recebem uma faixa contínua de IDs (uma única alocação),
+         * são montados e precificados em paralelo e entram no diário com uma única espera de gravação.
+         */
+        public ResultadoLote criarPedidosEmLote(List<SolicitacaoPedido> solicitacoes) {
+            Medicao medicao = medir(OperacaoServico.CRIAR_PEDIDOS_EM_LOTE);
+            try {
+                return criarLoteMedido(solicitacoes);
+            } finally {
+                medicao.encerrar();
+            }
+        }
+
+        private ResultadoLote criarLoteMedido(List<SolicitacaoPedido> solicitacoes) {
+            int n = solicitacoes.size();
+            Pedido[] criados = new Pedido[n];
+            String[] erros = new String[n];
+            Cliente[] clientesLote = new Cliente[n];
+            double[] distanciasKm = new double[n];
+            CacheDistancias cache = distancias;
+            int validos = 0;
+            for (int i = 0; i < n; i++) {
+                SolicitacaoPedido solicitacao = solicitacoes.get(i);
+                if (solicitacao.getPizzas().isEmpty() && solicitacao.getBebidas().isEmpty()) {
+                    erros[i] = "O pedido está vazio.";
+                    continue;
+                }
+                Optional<Cliente> cliente = clientes.buscarPorId(solicitacao.getIdCliente());
+                if (cliente.isEmpty()) {
+                    erros[i] = "Cliente ID " + solicitacao.getIdCliente() + " não encontrado.";
+                    continue;
+                }
+                distanciasKm[i] = solicitacao.getDistanciaKm();
+                try {
+                    if (Double.isNaN(distanciasKm[i])) {
+                        distanciasKm[i] = resolverDistanciaKm(cliente.get());
+                    } else {
+                        validarDistancia(distanciasKm[i]);
+                        if (cache != null) cache.registrar(cliente.get().getEndereco(), distanciasKm[i]);
+                    }
+                } catch (IllegalArgumentException e) {
+                    erros[i] = e.getMessage();
+                    continue;
+                }
+                clientesLote[i] = cliente.get();
+                validos++;
+            }
+            if (validos == 0) return new ResultadoLote(criados, erros);
+
+            travaEscritas.readLock().lock();
+            try {
+                int[] ids = new int[n];
+                int proximo = proximoIdPedido.getAndAdd(validos);
+                for (int i = 0; i < n; i++) {
+                    if (erros[i] == null) ids[i] = proximo++;
+                }
+                long criadoEm = relogio.millis();
+                CatalogoPrecos catalogo = getCatalogo();
+                IntStream.range(0, n).parallel().forEach(i -> {
+                    if (erros[i] != null) return;
+                    SolicitacaoPedido solicitacao = solicitacoes.get(i);
+                    criados[i] = new Pedido(ids[i], clientesLote[i], solicitacao.getPizzas(), solicitacao.getBebidas(), distanciasKm[i], criadoEm, catalogo);
+                });
+
+                DiarioOperacoes d = diario;
+                long ultimaSeq = 0;
+                for (Pedido pedido : criados) {
+                    if (pedido == null) continue;
+                    if (d != null) ultimaSeq = d.anexar(DiarioOperacoes.PEDIDO_CRIADO, b -> DiarioOperacoes.escreverPedido(b, pedido));
+                    pedidos.adicionar(pedido);
+                    contabilizarPedido(pedido, 1);
+                }
+                if (d != null) d.aguardarGravacao(ultimaSeq); // Gravar a última sequência garante todas as anteriores
+            } finally {
+                travaEscritas.readLock().unlock();
+            }
+            for (Pedido pedido : criados) {
+                if (pedido != null) encaminharAoPreparo(pedido);
+            }
+            return new ResultadoLote(criados, erros);
+        }
+
+        // Entrega o pedido à primeira etapa do preparo; bloqueia enquanto a entrada estiver cheia (contrapressão)
+        private void encaminharAoPreparo(Pedido pedido) {
+            PipelinePedidos p = pipeline;
+            if (p == null) return;
+            try {
+                p.submeter(pedido);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrompido aguardando vaga no preparo do pedido ID " + pedido.getId() + ".");
+            }
+        }
+
+        public Pedido buscarPedido(int id) {
+            Medicao medicao = medir(OperacaoServico.BUSCAR_PEDIDO);
+            try {
+                return obterPedido(id);
+            } finally {
+                medicao.encerrar();
+            }
+        }
+
+        // Busca interna (edições, repetição), sem contar como chamada de buscarPedido nas métricas
+        private Pedido obterPedido(int id) {
+            return pedidos.buscar(id)
+                .orElseThrow(() -> new PedidoNaoEncontradoException("Pedido ID " + id + " não encontrado."));
+        }
+
+        /**
+         * NOVO: Página de pedidos que passam no filtro, a partir do cursor ({@link Pagina#INICIO} na primeira).
+         * A ordem vem do índice que conduz a busca: o do cliente (por ID), se houver cliente; senão o mapa por ID
+         * (restrito à faixa), se houver faixa ou nenhum valor mínimo; senão o índice por valor (menor valor primeiro).
+         * Os demais critérios são conferidos em cada pedido; o cursor só vale para o mesmo filtro.
+         * Na ordem por valor, um pedido editado entre duas páginas aparece só na posição do valor novo.
+         */
+        public Pagina<Pedido> listarPedidos(FiltroPedidos filtro, long cursor, int tamanhoPagina) {
+            if (tamanhoPagina < 1) throw new IllegalArgumentException("O tamanho da página deve ser positivo.");
+            ColetorPagina<Pedido> coletor = new ColetorPagina<>(tamanhoPagina);
+            if (filtro.getCliente() != null) {
+                HistoricoCliente historico = filtro.getCliente().getHistorico();
+                int id = Math.max(cursorDeId(cursor), filtro.getIdMinimo() - 1);
+                while ((id = historico.getProximoIdPedidoApos(id)) > 0 && id <= filtro.getIdMaximo()) {
+                    Pedido pedido = pedidos.buscar(id).orElse(null); // null: cancelado depois da leitura do índice
+                    if (pedido != null && filtro.aceita(pedido) && !coletor.aceitar(pedido, id)) break;
+                }
+            } else if (filtro.temFaixaDeIds() || filtro.getValorMinimoCentavos() == 0) {
+                int apos = Math.max(cursorDeId(cursor), filtro.getIdMinimo() - 1);
+                for (Pedido pedido : pedidos.faixaDeIds(apos, filtro.getIdMaximo())) {
+                    if (filtro.aceita(pedido) && !coletor.aceitar(pedido, pedido.getId())) break;
+                }
+            } else {
+                long inicio = Math.max(cursor, RepositorioPedidos.chaveValor(filtro.getValorMinimoCentavos(), 0));
+                for (long chave : pedidos.chavesPorValorApos(inicio)) {
+                    Pedido pedido = pedidos.buscar(RepositorioPedidos.idDaChave(chave)).orElse(null);
+                    // O valor pode ter mudado desde a leitura da chave: a chave nova aparece no seu próprio lugar
+                    if (pedido == null || RepositorioPedidos.chaveValor(pedido.getValorTotalCentavos(), pedido.getId()) != chave) continue;
+                    if (filtro.aceita(pedido) && !coletor.aceitar(pedido, chave)) break;
+                }
+            }
+            return coletor.pagina();
+        }
+
+        // Nas ordens por ID o cursor é um ID: fora de [0, Integer.MAX_VALUE] não veio de uma página desta listagem
+        private static int cursorDeId(long cursor) {
+            if (cursor < 0 || cursor > Integer.MAX_VALUE) throw new IllegalArgumentException("Cursor inválido: " + cursor + ".");
+            return (int) cursor;
+        }
+
+        /** NOVO: Página de clientes em ordem de ID (cadastro), a partir do cursor ({@link Pagina#INICIO} na primeira). */
+        public Pagina<Cliente> listarClientes(long cursor, int tamanhoPagina) {
+            if (tamanhoPagina < 1) throw new IllegalArgumentException("O tamanho da página deve ser positivo.");
+            ColetorPagina<Cliente> coletor = new ColetorPagina<>(tamanhoPagina);
+            for (Cliente cliente : clientes.faixaDeIds(cursorDeId(cursor), tamanhoPagina + 1)) {
+                if (!coletor.aceitar(cliente, cliente.getId())) break;
+            }
+            return coletor.pagina();
+        }
+
+        // Junta os itens de uma página; o primeiro item que não cabe só indica que existe a próxima
+        private static final class ColetorPagina<T> {
+            private final List<T> itens;
+            private final int tamanho;
+            private long ultimaChave;
+            private boolean haMais;
+
+            ColetorPagina(int tamanho) {
+                this.itens = new ArrayList<>(Math.min(tamanho, 1024));
+                this.tamanho = tamanho;
+            }
+
+            boolean aceitar(T item, long chave) {
+                if (itens.size() == tamanho) {
+                    haMais = true;
+                    return false;
+                }
+                itens.add(item);
+                ultimaChave = chave;
+                return true;
+            }
+
+            Pagina<T> pagina() {
+                return new Pagina<>(Collections.unmodifiableList(itens), haMais ? ultimaChave : -1);
+            }
+        }
+
+        /** NOVO: Pedidos do cliente ainda em memória, do mais antigo ao mais recente, pelo índice do cliente (sem varrer todos os pedidos). */
+        public List<Pedido> listarPedidosDoCliente(Cliente cliente) {
+            int[] ids = cliente.getHistorico().getIdsPedidos();
+            List<Pedido> resultado = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                pedidos.buscar(id).ifPresent(resultado::add); // Pode ter sido cancelado depois da leitura do índice
+            }
+            return resultado;
+        }
+
+        /** NOVO: Refaz o último pedido em memória do cliente, com os mesmos itens e distância, pelos preços vigentes. */
+        public Pedido repetirUltimoPedido(Cliente cliente) {
+            int ultimoId = cliente.getHistorico().getUltimoIdPedido();
+            if (ultimoId < 0) {
+                throw new PedidoNaoEncontradoException("O cliente " + cliente.getNome() + " não tem pedido recente para repetir.");
+            }
+            Pedido ultimo = obterPedido(ultimoId);
+            List<Pizza> pizzas;
+            List<Bebida> bebidas;
+            synchronized (ultimo) { // Itens lidos juntos, sem uma edição concorrente entre as duas cópias
+                pizzas = ultimo.getPizzas();
+                bebidas = ultimo.getBebidas();
+            }
+            return criarPedido(cliente, pizzas, bebidas, ultimo.getDistanciaKm());
+        }
+
+        // Executa uma edição sob a trava do pedido. O pedido é relido dentro da trava, pois o objeto
+        // recebido pelo chamador pode já ter sido cancelado por uma edição concorrente.
+        // A trava da faixa cobre validação, diário e alteração, mantendo o diário na mesma ordem das edições.
+        // NOVO: Cada edição é medida como a sua operação, incluindo a espera pelas travas.
+        private Pedido editarPedido(OperacaoServico operacao, int id, UnaryOperator<Pedido> edicao) {
+            Medicao medicao = medir(operacao);
+            ReentrantLock trava = travasPedidos[id & (NUM_TRAVAS_PEDIDOS - 1)];
+            travaEscritas.readLock().lock();
+            trava.lock();
+            try {
+                return edicao.apply(obterPedido(id));
+            } finally {
+                trava.unlock();
+                travaEscritas.readLock().unlock();
+                medicao.encerrar();
+            }
+        }
+
+        // Anexa a mutação ao diário (se houver) e aguarda a gravação conforme a política de sync.
+        // Chamado depois das validações e antes de alterar o estado, para que o diário só contenha operações válidas.
+        private void registrar(byte tipo, Consumer<ByteBuffer> carga) {
+            DiarioOperacoes d = diario;
+            if (d != null) d.aguardarGravacao(d.anexar(tipo, carga));
+        }
+        
+        // NOVO: Cada delta vai aos agregados totais, à janela do minuto em que o pedido foi criado
+        // e ao histórico do cliente do pedido
+        private void contabilizarPedido(Pedido pedido, int sinal) {
+            resumo.registrarPedido(pedido, sinal);
+            janela.registrarPedido(pedido, sinal);
+            pedido.getCliente().getHistorico().registrarPedido(pedido, sinal);
+        }
+
+        private void contabilizarValor(Pedido pedido, long centavos, int sinal) {
+            resumo.registrarValor(centavos, sinal);
+            janela.registrarValor(pedido, centavos, sinal);
+            pedido.getCliente().getHistorico().registrarValor(centavos, sinal);
+        }
+
+        private void contabilizarPizza(Pedido pedido, Pizza pizza, int sinal) {
+            resumo.registrarPizza(pizza, sinal);
+            janela.registrarPizza(pedido, pizza, sinal);
+            pedido.getCliente().getHistorico().registrarPizza(pizza, sinal);
+        }
+
+        private void contabilizarBebida(Pedido pedido, Bebida bebida, int sinal) {
+            resumo.registrarBebida(bebida, sinal);
+            janela.registrarBebida(pedido, bebida, sinal);
+        }
+
+        // Aplica uma alteração no lugar e repassa ao faturamento apenas a diferença de valor do pedido
+        private Pedido alterarNoLugar(Pedido pedido, Runnable alteracao) {
+            long totalAnterior = pedido.getValorTotalCentavos();
+            alteracao.run();
+            contabilizarValor(pedido, pedido.getValorTotalCentavos() - totalAnterior, 1);
+            pedidos.reindexarValor(pedido, totalAnterior);
+            return pedido;
+        }
+
+        // Remove o pedido que ficou sem itens e desconta seu valor do faturamento
+        private void cancelarPedidoVazio(Pedido pedido) {
+            pedidos.remover(pedido.getId());
+            resumo.registrarValor(pedido.getValorTotalCentavos(), -1);
+            janela.registrarPedido(pedido, -1); // Já sem itens: desconta o pedido e o valor restante
+            pedido.getCliente().getHistorico().registrarPedido(pedido, -1);
+            throw new PedidoNaoEncontradoException("O pedido ficou vazio e foi cancelado.");
+        }
+
+        public Pedido adicionarPizzaAoPedido(Pedido pedido, Pizza novaPizza) {
+            return editarPedido(OperacaoServico.ADICIONAR_PIZZA, pedido.getId(), atual -> {
+                registrar(DiarioOperacoes.PIZZA_ADICIONADA, b -> {
+                    b.putInt(atual.getId());
+                    DiarioOperacoes.escreverPizza(b, novaPizza);
+                });
+                contabilizarPizza(atual, novaPizza, 1);
+                return alterarNoLugar(atual, () -> atual.adicionarPizza(novaPizza));
+            });
+        }
+        
+        public Pedido adicionarBebidaAoPedido(Pedido pedido, Bebida novaBebida) {
+            return editarPedido(OperacaoServico.ADICIONAR_BEBIDA, pedido.getId(), atual -> {
+                registrar(DiarioOperacoes.BEBIDA_ADICIONADA, b -> b.putInt(atual.getId()).put((byte) novaBebida.ordinal()));
+                contabilizarBebida(atual, novaBebida, 1);
+                return alterarNoLugar(atual, () -> atual.adicionarBebida(novaBebida));
+            });
+        }
+
+        public Pedido removerPizzaDoPedido(Pedido pedido, int indicePizza) {
+            return editarPedido(OperacaoServico.REMOVER_PIZZA, pedido.getId(), atual -> {
+                if (indicePizza < 0 || indicePizza >= atual.getNumPizzas()) {
+                    throw new IndexOutOfBoundsException("Índice de pizza inválido.");
+                }
+                registrar(DiarioOperacoes.PIZZA_REMOVIDA, b -> b.putInt(atual.getId()).putInt(indicePizza));
+                alterarNoLugar(atual, () -> contabilizarPizza(atual, atual.removerPizza(indicePizza), -1));
+                
+                if (atual.estaVazio()) {
+                    cancelarPedidoVazio(atual);
+                }
+                return atual;
+            });
+        }
+        
+        public Pedido removerBebidaDoPedido(Pedido pedido, int indiceBebida) {
+            return editarPedido(OperacaoServico.REMOVER_BEBIDA, pedido.getId(), atual -> {
+                if (indiceBebida < 0 || indiceBebida >= atual.getNumBebidas()) {
+                    throw new IndexOutOfBoundsException("Índice de bebida inválido.");
+                }
+                registrar(DiarioOperacoes.BEBIDA_REMOVIDA, b -> b.putInt(atual.getId()).putInt(indiceBebida));
+                alterarNoLugar(atual, () -> contabilizarBebida(atual, atual.removerBebida(indiceBebida), -1));
+                
+                if (atual.estaVazio()) {
+                    cancelarPedidoVazio(atual);
+                }
+                return atual;
+            });
+        }
+        
+        public Pedido alterarSaborPizza(Pedido pedido, int indicePizza, List<Sabor> novosSabores) {
+            return editarPedido(OperacaoServico.ALTERAR_SABOR, pedido.getId(), atual -> {
+                if (indicePizza < 0 || indicePizza >= atual.getNumPizzas()) {
+                    throw new IndexOutOfBoundsException("Índice de pizza inválido.");
+                }
+                
+                Pizza novaPizza = Pizza.de(novosSabores, atual.getPizza(indicePizza).getTamanho());
+                registrar(DiarioOperacoes.SABOR_ALTERADO, b -> {
+                    b.putInt(atual.getId()).putInt(indicePizza);
+                    DiarioOperacoes.escreverPizza(b, novaPizza);
+                });
+                
+                contabilizarPizza(atual, novaPizza, 1);
+                return alterarNoLugar(atual, () -> contabilizarPizza(atual, atual.substituirPizza(indicePizza, novaPizza), -1));
+            });
+        }
+        
+        /**
+         * NOVO: Fecha o período movendo todos os pedidos atuais para um arquivo colunar.
+         * Roda com as escritas pausadas: os pedidos arquivados não podem mudar durante a gravação.
+         */
+        int arquivarPedidos(BiFunction<Integer, Integer, Path> nomearArquivo) throws IOException {
+            try {
+                return pausarEscritas(() -> {
+                    if (pedidos.estaVazio()) return 0;
+                    // Com as escritas pausadas, a visão sem cópia do mapa ordenado é estável durante a gravação
+                    int ultimoId = pedidos.ultimoId();
+                    try {
+                        ArquivoColunar.escrever(nomearArquivo.apply(pedidos.primeiroId(), ultimoId), pedidos.percorrer());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    registrar(DiarioOperacoes.PEDIDOS_ARQUIVADOS, b -> b.putInt(ultimoId));
+                    return descartarPedidosAte(ultimoId);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        // Remove do estado em memória (e dos agregados) os pedidos com ID até o limite, já arquivados.
+        // A janela de vendas não muda: pedidos arquivados continuam vendidos naquele minuto.
+        // NOVO: No histórico do cliente, o pedido sai do índice e passa para os totais arquivados.
+        int descartarPedidosAte(int ultimoId) {
+            int descartados = 0;
+            // O iterador do mapa concorrente tolera a remoção durante a varredura
+            for (Pedido pedido : pedidos.faixaDeIds(0, ultimoId)) {
+                pedidos.remover(pedido.getId());
+                resumo.registrarPedido(pedido, -1);
+                pedido.getCliente().getHistorico().arquivar(pedido);
+                descartados++;
+            }
+            return descartados;
+        }
+
+        // --- Suporte à persistência ---
+
+        void anexarDiario(DiarioOperacoes diario) {
+            this.diario = diario;
+        }
+
+        void anexarPipeline(PipelinePedidos pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        void anexarDistancias(CacheDistancias distancias) {
+            this.distancias = distancias;
+        }
+
+        CacheDistancias getDistancias() {
+            return distancias;
+        }
+
+        // NOVO: Troca ou desliga (null) as métricas; a recuperação as desliga para não contar a reaplicação do diário
+        void anexarMetricas(MetricasServico metricas) {
+            this.metricas = metricas;
+        }
+
+        public MetricasServico getMetricas() {
+            return metricas;
+        }
+
+        private Medicao medir(OperacaoServico operacao) {
+            return new Medicao(metricas, operacao);
+        }
+
+        /** NOVO: Texto das métricas: medidores do estado atual e, por operação, chamadas e percentis de latência. */
+        public void imprimirMetricas(PrintStream saida) {
+            saida.printf("Pedidos em memória: %d | Clientes: %d | Próximo ID de pedido: %d%n",
+                pedidos.tamanho(), clientes.tamanho(), proximoIdPedido.get());
+            MetricasServico m = metricas;
+            if (m == null) saida.println("Métricas de latência desativadas.");
+            else m.imprimir(saida);
+        }
+
+        /** Distância de entrega pelo endereço cadastrado do cliente. */
+        public double resolverDistanciaKm(Cliente cliente) {
+            CacheDistancias cache = distancias;
+            if (cache == null) throw new IllegalArgumentException("Informe a distância: nenhum resolvedor de endereços configurado.");
+            return cache.distanciaKm(cliente.getEndereco());
+        }
+
+        PipelinePedidos getPipeline() {
+            return pipeline;
+        }
+
+        // Executa a ação com todas as mutações pausadas (corte consistente para a foto do estado)
+        <T> T pausarEscritas(Supplier<T> acao) {
+            travaEscritas.writeLock().lock();
+            try {
+                return acao.get();
+            } finally {
+                travaEscritas.writeLock().unlock();
+            }
+        }
+
+        int getProximoIdPedido() {
+            return proximoIdPedido.get();
+        }
+
+        // Recria um pedido lido da foto ou do diário, preservando ID, distância, instante de criação e versão de preços
+        void restaurarPedido(int id, int idCliente, List<Pizza> pizzas, List<Bebida> bebidas, double distanciaKm, long criadoEmMillis,
+                             CatalogoPrecos catalogo) {
+            Cliente cliente = clientes.buscarPorId(idCliente)
+                .orElseThrow(() -> new IllegalStateException("Cliente ID " + idCliente + " ausente ao restaurar o pedido " + id + "."));
+            Pedido pedido = new Pedido(id, cliente, pizzas, bebidas, distanciaKm, criadoEmMillis, catalogo);
+            pedidos.adicionar(pedido);
+            contabilizarPedido(pedido, 1);
+            proximoIdPedido.accumulateAndGet(id + 1, Math::max);
+        }
+
+        void restaurarCliente(Cliente cliente, int idEsperado) {
+            clientes.restaurar(cliente);
+            if (cliente.getId() != idEsperado) {
+                throw new IllegalStateException("Cliente restaurado com ID " + cliente.getId() + ", esperado " + idEsperado + ".");
+            }
+        }
+
+        void restaurarProximoIdPedido(int proximoId) {
+            proximoIdPedido.accumulateAndGet(proximoId, Math::max);
+        }
+
+        public void gerarRelatorio() {
+            gerarRelatorio(System.out);
+        }
+
+        // Variante com destino explícito, para quem não pode desviar System.out (ex.: requisições HTTP concorrentes)
+        public void gerarRelatorio(PrintStream saida) {
+            Medicao medicao = medir(OperacaoServico.GERAR_RELATORIO);
+            try {
+                if (pedidos.estaVazio()) {
+                    saida.println("Nenhuma venda registrada para gerar o relatório.");
+                    return;
+                }
+                // Os agregados já estão atualizados: o custo depende só do número de sabores e bebidas
+                resumo.imprimir(saida);
+                imprimirVendasRecentes(saida);
+            } finally {
+                medicao.encerrar();
+            }
+        }
+
+        // Agregados incrementais como estão agora (auditoria: comparáveis com recalcularResumo)
+        ResumoVendas getResumo() {
+            return resumo;
+        }
+
+        /**
+         * NOVO: Refaz os agregados do zero (auditoria, correção de catálogo), percorrendo em paralelo os pedidos em memória
+         * e as fontes extras (ex.: arquivos do histórico). As escritas ficam pausadas durante a varredura, para que o
+         * resultado seja um corte consistente comparável aos agregados incrementais.
+         */
+        public ResumoVendas recalcularResumo(List<? extends FonteVendas> extras) {
+            return pausarEscritas(() -> {
+                List<FonteVendas> fontes = new ArrayList<>(extras);
+                fontes.add(new PedidosEmMemoria(pedidos.listar()));
+                return AgregacaoParalela.resumir(fontes);
+            });
+        }
+
+        /**
+         * NOVO: Recarrega o catálogo de preços do arquivo. A nova versão entra no diário antes de ser publicada,
+         * sob a trava de leitura como as demais mutações: pedidos continuam entrando durante a recarga.
+         * Devolve a versão vigente (a mesma de antes se os preços não mudaram).
+         */
+        public CatalogoPrecos recarregarCatalogo(Path arquivo) throws IOException {
+            travaEscritas.readLock().lock();
+            try {
+                synchronized (travaCatalogo) { // Recargas em série: cada uma numera a sua versão a partir da vigente
+                    CatalogoPrecos vigente = getCatalogo();
+                    CatalogoPrecos novo = CatalogoPrecos.ler(arquivo, vigente.getVersao() + 1);
+                    if (novo.mesmosPrecos(vigente)) return vigente; // Arquivo salvo sem mudanças ou já carregado antes de reiniciar
+                    registrar(DiarioOperacoes.CATALOGO, b -> DiarioOperacoes.escreverCatalogo(b, novo)); // Antes de qualquer pedido da nova versão
+                    catalogos.updateAndGet(versoes -> versoes.com(novo));
+                    return novo;
+                }
+            } finally {
+                travaEscritas.readLock().unlock();
+            }
+        }
+
+        /** NOVO: Catálogo de preços vigente deste serviço; os novos pedidos são precificados por ele. */
+        public CatalogoPrecos getCatalogo() {
+            return catalogos.get().getVigente();
+        }
+
+        CatalogoPrecos catalogoDaVersao(int versao) {
+            return catalogos.get().daVersao(versao);
+        }
+
+        // Catálogo lido da foto ou do diário; a maior versão restaurada volta a ser a vigente
+        void restaurarCatalogo(CatalogoPrecos catalogo) {
+            catalogos.updateAndGet(versoes -> versoes.com(catalogo));
+        }
+
+        /** NOVO: Vendas dos últimos 15 minutos, da última hora e do dia, lidas dos baldes por minuto. */
+        public void imprimirVendasRecentes(PrintStream saida) {
+            ResumoJanela consulta = new ResumoJanela();
+            saida.println("\n--- VENDAS RECENTES ---");
+            janela.ultimosMinutos(15, consulta).imprimir(saida, "Últimos 15 min");
+            janela.ultimosMinutos(60, consulta).imprimir(saida, "Última hora");
+            janela.hoje(consulta).imprimir(saida, "Hoje");
+        }
+
+        JanelaVendas getJanela() {
+            return janela;
+        }
+
+        /** NOVO: Grava a listagem de pedidos em CSV ou JSON por linha (pela extensão); retorna os bytes gravados. */
+        public long exportarPedidos(Path arquivo) throws IOException {
+            ExportadorVendas exportador = new ExportadorVendas(arquivo);
+            try (exportador) {
+                exportador.cabecalhoPedidos();
+                for (Pedido pedido : pedidos.percorrer()) exportador.pedido(pedido);
+            }
+            return exportador.getBytesGravados();
+        }
+
+        /** NOVO: Grava as seções do relatório (faturamento, sabores, bebidas, conexões) em CSV ou JSON por linha. */
+        public long exportarRelatorio(Path arquivo) throws IOException {
+            ExportadorVendas exportador = new ExportadorVendas(arquivo);
+            try (exportador) {
+                exportador.cabecalhoRelatorio();
+                resumo.exportar(exportador);
+            }
+            return exportador.getBytesGravados();
+        }
+    }
+
+    // NOVO: Agregados de vendas mantidos incrementalmente (faturamento, contagens e grafo de sabores).
+    // O serviço aplica deltas a cada criação/alteração de pedido, em vez de o relatório
+    // percorrer todo o histórico a cada chamada. Os deltas são atômicos e sem trava,
+    // pois edições de pedidos diferentes chegam de threads diferentes.
+    static class ResumoVendas {
+        private static final VarHandle CONTADOR = MethodHandles.arrayElementVarHandle(int[].class);
+
+        private final LongAdder faturamentoCentavos; // Em centavos para não acumular erro de arredondamento
+        private final int[] contagemSabores;
+        private final int[] contagemBebidas;
+        private final GrafoSabor grafo;
+
+        ResumoVendas() {
+            this(0, new int[Sabor.values().length], new int[Bebida.values().length], new GrafoSabor());
+        }
+
+        ResumoVendas(long faturamentoCentavos, int[] contagemSabores, int[] contagemBebidas, GrafoSabor grafo) {
+            this.faturamentoCentavos = new LongAdder();
+            this.faturamentoCentavos.add(faturamentoCentavos);
+            this.contagemSabores = contagemSabores;
+            this.contagemBebidas = contagemBebidas;
+            this.grafo = grafo;
+        }
+
+        void registrarPedido(Pedido pedido, int sinal) {
+            registrarValor(pedido.getValorTotalCentavos(), sinal);
+            for (Pizza pizza : pedido.getPizzas()) registrarPizza(pizza, sinal);
+            for (Bebida bebida : pedido.getBebidas()) registrarBebida(bebida, sinal);
+        }
+
+        void registrarValor(long centavos, int sinal) {
+            faturamentoCentavos.add(sinal * centavos);
+        }
+
+        void registrarPizza(Pizza pizza, int sinal) {
+            List<Sabor> sabores = pizza.getSabores();
+            grafo.registrarSabores(sabores, sinal);
+            for (Sabor s : sabores) {
+                CONTADOR.getAndAdd(contagemSabores, s.ordinal(), sinal);
+            }
+        }
+
+        void registrarBebida(Bebida bebida, int sinal) {
+            CONTADOR.getAndAdd(contagemBebidas, bebida.ordinal(), sinal);
+        }
+
+        long getFaturamentoCentavos() {
+            return faturamentoCentavos.sum();
+        }
+
+        void imprimir() {
+            imprimir(System.out);
+        }
+
+        void imprimir(PrintStream saida) {
+            saida.println("--- RELATÓRIO DE VENDAS COMPLETO ---");
+            saida.println("FATURAMENTO TOTAL: R$ " + Moeda.formatar(faturamentoCentavos.sum()));
+            saida.println("------------------------------------");
+
+            Sabor[] sabores = Sabor.values();
+            saida.println("\nTOP 5 SABORES MAIS PEDIDOS:");
+            imprimirMaisPedidos(saida, contagemSabores.clone(), 5, i -> sabores[i].getNomeFormatado());
+
+            Bebida[] bebidas = Bebida.values();
+            saida.println("\nBEBIDAS MAIS PEDIDAS:");
+            imprimirMaisPedidos(saida, contagemBebidas.clone(), 3, i -> bebidas[i].getNomeFormatado());
+
+            saida.println("\nANÁLISE DE CONEXÕES (GRAFO DE CO-OCORRÊNCIA):");
+            grafo.exibirConexoes(saida);
+            saida.println("------------------------------------");
+        }
+
+        // NOVO: Mesmas seções do relatório impresso, completas (todos os sabores e bebidas, em ordem de ordinal)
+        void exportar(ExportadorVendas saida) throws IOException {
+            saida.itemRelatorio("faturamento", "total_centavos", null, faturamentoCentavos.sum());
+            Sabor[] sabores = Sabor.values();
+            for (int i = 0; i < sabores.length; i++) saida.itemRelatorio("sabor", sabores[i].name(), null, contagemSabores[i]);
+            Bebida[] bebidas = Bebida.values();
+            for (int i = 0; i < bebidas.length; i++) saida.itemRelatorio("bebida", bebidas[i].name(), null, contagemBebidas[i]);
+            grafo.exportar(saida);
+        }
+
+        // Seleciona os maiores contadores sem ordenar nem criar mapas (empates: menor ordinal primeiro)
+        private static void imprimirMaisPedidos(PrintStream saida, int[] contagens, int limite, IntFunction<String> nome) {
+            boolean[] impressos = new boolean[contagens.length];
+            for (int k = 0; k < limite; k++) {
+                int melhor = -1;
+                for (int i = 0; i < contagens.length; i++) {
+                    if (!impressos[i] && contagens[i] > 0 && (melhor < 0 || contagens[i] > contagens[melhor])) {
+                        melhor = i;
+                    }
+                }
+                if (melhor < 0) return;
+                impressos[melhor] = true;
+                saida.println("  > " + nome.apply(melhor) + " (" + contagens[melhor] + " vezes)");
+            }
+        }
+    }
+
+    /**
+     * NOVO: Vendas por janela de tempo ("últimos 15 minutos", "última hora", "hoje") em anéis de baldes por minuto.
+     * Cada balde guarda faturamento, número de pedidos e contagens de sabores e bebidas do minuto de criação dos
+     * pedidos; um balde é zerado ao ser reaproveitado por um minuto mais novo. Consultar custa O(minutos da janela),
+     * sem alocar, qualquer que seja o volume de pedidos. O relógio é injetável (Clock.fixed/offset em testes).
+     * Alterações num pedido entram no balde do minuto em que ele foi criado; pedidos mais antigos que o anel são ignorados.
+     */
+    static final class JanelaVendas {
+        static final int NUM_MINUTOS = 24 * 60 + 1; // Um dia inteiro mais o minuto corrente
+        private static final long MINUTO_MS = 60_000;
+        private static final int NUM_SABORES = Sabor.values().length;
+        private static final int NUM_BEBIDAS = Bebida.values().length;
+
+        private final java.time.Clock relogio;
+        private final long[] minutoDoBalde = new long[NUM_MINUTOS];
+        private final long[] faturamentoCentavos = new long[NUM_MINUTOS];
+        private final int[] numPedidos = new int[NUM_MINUTOS];
+        private final int[] contagemSabores = new int[NUM_MINUTOS * NUM_SABORES];
+        private final int[] contagemBebidas = new int[NUM_MINUTOS * NUM_BEBIDAS];
+        private long inicioDoDiaMs = Long.MAX_VALUE; // Meia-noite local em cache, recalculada na virada do dia
+        private long fimDoDiaMs = Long.MIN_VALUE;
+
+        JanelaVendas(java.time.Clock relogio) {
+            this.relogio = relogio;
+            Arrays.fill(minutoDoBalde, Long.MIN_VALUE);
+        }
+
+        // Um pedido com sinal -1 já vazio (cancelado) só desconta a contagem e o valor restante
+        synchronized void registrarPedido(Pedido pedido, int sinal) {
+            int balde = balde(pedido.getCriadoEmMillis());
+            if (balde < 0) return;
+            numPedidos[balde] += sinal;
+            faturamentoCentavos[balde] += sinal * pedido.getValorTotalCentavos();
+            for (int i = 0; i < pedido.getNumPizzas(); i++) contarSabores(balde, pedido.getPizza(i), sinal);
+            for (int i = 0; i < pedido.getNumBebidas(); i++) contagemBebidas[balde * NUM_BEBIDAS + pedido.getBebida(i).ordinal()] += sinal;
+        }
+
+        synchronized void registrarValor(Pedido pedido, long centavos, int sinal) {
+            int balde = balde(pedido.getCriadoEmMillis());
+            if (balde >= 0) faturamentoCentavos[balde] += sinal * centavos;
+        }
+
+        synchronized void registrarPizza(Pedido pedido, Pizza pizza, int sinal) {
+            int balde = balde(pedido.getCriadoEmMillis());
+            if (balde >= 0) contarSabores(balde, pizza, sinal);
+        }
+
+        synchronized void registrarBebida(Pedido pedido, Bebida bebida, int sinal) {
+            int balde = balde(pedido.getCriadoEmMillis());
+            if (balde >= 0) contagemBebidas[balde * NUM_BEBIDAS + bebida.ordinal()] += sinal;
+        }
+
+        private void contarSabores(int balde, Pizza pizza, int sinal) {
+            for (Sabor sabor : pizza.getSabores()) contagemSabores[balde * NUM_SABORES + sabor.ordinal()] += sinal;
+        }
+
+        // Balde do minuto informado, zerado se ainda guardava um minuto anterior; -1 se o minuto já saiu do anel
+        private int balde(long instanteMs) {
+            long agora = Math.floorDiv(relogio.millis(), MINUTO_MS);
+            long minuto = Math.min(Math.floorDiv(instanteMs, MINUTO_MS), agora); // Relógio adiantado conta como agora
+            if (minuto <= agora - NUM_MINUTOS) return -1;
+            int balde = (int) Math.floorMod(minuto, (long) NUM_MINUTOS);
+            if (minutoDoBalde[balde] != minuto) {
+                if (minutoDoBalde[balde] > minuto) return -1;
+                minutoDoBalde[balde] = minuto;
+                faturamentoCentavos[balde] = 0;
+                numPedidos[balde] = 0;
+                Arrays.fill(contagemSabores, balde * NUM_SABORES, (balde + 1) * NUM_SABORES, 0);
+                Arrays.fill(contagemBebidas, balde * NUM_BEBIDAS, (balde + 1) * NUM_BEBIDAS, 0);
+            }
+            return balde;
+        }
+
+        /** Últimos N minutos, contando o minuto corrente (N = 15: o minuto atual e os 14 anteriores). */
+        ResumoJanela ultimosMinutos(int minutos, ResumoJanela destino) {
+            if (minutos < 1 || minutos > NUM_MINUTOS) throw new IllegalArgumentException("Janela de 1 a " + NUM_MINUTOS + " minutos.");
+            return consultar(Math.floorDiv(relogio.millis(), MINUTO_MS) - minutos + 1, destino);
+        }
+
+        /** Desde a meia-noite, no fuso do relógio. */
+        synchronized ResumoJanela hoje(ResumoJanela destino) {
+            long agoraMs = relogio.millis();
+            if (agoraMs < inicioDoDiaMs || agoraMs >= fimDoDiaMs) { // Só aloca na virada do dia
+                LocalDate dia = LocalDate.now(relogio);
+                inicioDoDiaMs = dia.atStartOfDay(relogio.getZone()).toInstant().toEpochMilli();
+                fimDoDiaMs = dia.plusDays(1).atStartOfDay(relogio.getZone()).toInstant().toEpochMilli();
+            }
+            return consultar(Math.floorDiv(inicioDoDiaMs, MINUTO_MS), destino);
+        }
+
+        // Soma os baldes do minuto inicial até o corrente, em O(minutos) e sem alocar
+        private synchronized ResumoJanela consultar(long minutoInicial, ResumoJanela destino) {
+            destino.zerar();
+            long agora = Math.floorDiv(relogio.millis(), MINUTO_MS);
+            long primeiro = Math.max(minutoInicial, agora - NUM_MINUTOS + 1);
+            destino.minutos = (int) (agora - primeiro + 1);
+            for (long minuto = primeiro; minuto <= agora; minuto++) {
+                int balde = (int) Math.floorMod(minuto, (long) NUM_MINUTOS);
+                if (minutoDoBalde[balde] != minuto) continue; // Minuto sem vendas
+                destino.faturamentoCentavos += faturamentoCentavos[balde];
+                destino.numPedidos += numPedidos[balde];
+                for (int i = 0; i < NUM_SABORES; i++) destino.contagemSabores[i] += contagemSabores[balde * NUM_SABORES + i];
+                for (int i = 0; i < NUM_BEBIDAS; i++) destino.contagemBebidas[i] += contagemBebidas[balde * NUM_BEBIDAS + i];
+            }
+            return destino;
+        }
+    }
+
+    // NOVO: Resultado de uma consulta à JanelaVendas; reutilizável entre consultas para não alocar
+    static final class ResumoJanela {
+        int minutos;
+        long faturamentoCentavos;
+        int numPedidos;
+        final int[] contagemSabores = new int[Sabor.values().length];
+        final int[] contagemBebidas = new int[Bebida.values().length];
+
+        void zerar() {
+            minutos = 0;
+            faturamentoCentavos = 0;
+            numPedidos = 0;
+            Arrays.fill(contagemSabores, 0);
+            Arrays.fill(contagemBebidas, 0);
+        }
+
+        void imprimir(PrintStream saida, String titulo) {
+            saida.printf("%s: %d pedidos, R$ %s", titulo, numPedidos, Moeda.formatar(faturamentoCentavos));
+            int melhor = -1;
+            for (int i = 0; i < contagemSabores.length; i++) {
+                if (contagemSabores[i] > 0 && (melhor < 0 || contagemSabores[i] > contagemSabores[melhor])) melhor = i;
+            }
+            if (melhor >= 0) saida.printf(" | sabor em alta: %s (%d)", Sabor.values()[melhor].getNomeFormatado(), contagemSabores[melhor]);
+            saida.println();
+        }
+    }
+
+    // NOVO: Acumulador de vendas confinado a uma thread, com contadores primitivos sem sincronização.
+    // Usado em varreduras completas (ex.: arquivo histórico); parciais são combinados com mesclar().
+    static final class AcumuladorVendas {
+        long faturamentoCentavos;
+        final int[] contagemSabores = new int[Sabor.values().length];
+        final int[] contagemBebidas = new int[Bebida.values().length];
+        final long[] conexoes = new long[GrafoSabor.NUM_CELULAS];
+        private final int[] ordinais = new int[Pizza.MAX_SABORES]; // Reutilizado na decodificação
+
+        // Sabores compactados em nibbles (ver Pizza.compactarSabores)
+        void registrarSaboresCompactados(int codigo) {
+            int quantidade = 0;
+            for (int i = 0; i < Pizza.MAX_SABORES; i++) {
+                int ordinal = (codigo >>> (4 * i)) & 0xF;
+                if (ordinal == Pizza.SABOR_VAZIO) break;
+                ordinais[quantidade++] = ordinal;
+                contagemSabores[ordinal]++;
+            }
+            for (int i = 0; i < quantidade; i++) {
+                for (int j = i + 1; j < quantidade; j++) {
+                    conexoes[GrafoSabor.celula(ordinais[i], ordinais[j])]++;
+                }
+            }
+        }
+
+        // NOVO: Pedido vivo, lido sob o próprio monitor: total e itens saem de um mesmo estado, sem copiar listas
+        void registrarPedido(Pedido pedido) {
+            synchronized (pedido) {
+                faturamentoCentavos += pedido.getValorTotalCentavos();
+                for (int i = 0, n = pedido.getNumPizzas(); i < n; i++) registrarSaboresCompactados(pedido.getPizza(i).getSaboresCompactados());
+                for (int i = 0, n = pedido.getNumBebidas(); i < n; i++) contagemBebidas[pedido.getBebida(i).ordinal()]++;
+            }
+        }
+
+        void mesclar(AcumuladorVendas outro) {
+            faturamentoCentavos += outro.faturamentoCentavos;
+            for (int i = 0; i < contagemSabores.length; i++) contagemSabores[i] += outro.contagemSabores[i];
+            for (int i = 0; i < contagemBebidas.length; i++) contagemBebidas[i] += outro.contagemBebidas[i];
+            for (int i = 0; i < conexoes.length; i++) conexoes[i] += outro.conexoes[i];
+        }
+
+        ResumoVendas paraResumo() {
+            return new ResumoVendas(faturamentoCentavos, contagemSabores.clone(), contagemBebidas.clone(),
+                    new GrafoSabor(conexoes.clone()));
+        }
+    }
+
+    // NOVO: Pedidos que podem ser agregados por faixas de posições [de, ate), cada faixa em qualquer thread
+    interface FonteVendas {
+        int tamanho();
+        void agregar(AcumuladorVendas acumulador, int de, int ate);
+    }
+
+    // NOVO: Pedidos em memória como fonte de varredura (a listagem do repositório tem acesso aleatório)
+    static final class PedidosEmMemoria implements FonteVendas {
+        private final List<Pedido> pedidos;
+
+        PedidosEmMemoria(List<Pedido> pedidos) {
+            this.pedidos = pedidos;
+        }
+
+        @Override
+        public int tamanho() { return pedidos.size(); }
+
+        @Override
+        public void agregar(AcumuladorVendas acumulador, int de, int ate) {
+            for (int i = de; i < ate; i++) acumulador.registrarPedido(pedidos.get(i));
+        }
+    }
+
+    /**
+     * NOVO: Varredura completa em fork/join. Cada fonte é dividida ao meio até faixas de LIMIAR pedidos; cada faixa
+     * soma num AcumuladorVendas próprio (contadores primitivos, sem disputa entre threads) e os parciais são mesclados
+     * na volta da recursão. As somas são inteiras, então o resumo (e o relatório impresso) é idêntico ao sequencial.
+     */
+    static final class AgregacaoParalela extends RecursiveTask<AcumuladorVendas> {
+        private static final long serialVersionUID = 1L;
+        static final int LIMIAR = 16_384;
+
+        private final transient FonteVendas fonte; // Só vive dentro do pool que executa a tarefa
+        private final int de;
+        private final int ate;
+
+        private AgregacaoParalela(FonteVendas fonte, int de, int ate) {
+            this.fonte = fonte;
+            this.de = de;
+            this.ate = ate;
+        }
+
+        @Override
+        protected AcumuladorVendas compute() {
+            if (ate - de <= LIMIAR) {
+                AcumuladorVendas parcial = new AcumuladorVendas();
+                fonte.agregar(parcial, de, ate);
+                return parcial;
+            }
+            int meio = (de + ate) >>> 1;
+            AgregacaoParalela direita = new AgregacaoParalela(fonte, meio, ate);
+            direita.fork();
+            AcumuladorVendas esquerda = new AgregacaoParalela(fonte, de, meio).compute();
+            esquerda.mesclar(direita.join());
+            return esquerda;
+        }
+
+        static ResumoVendas resumir(List<? extends FonteVendas> fontes) {
+            return resumir(fontes, ForkJoinPool.commonPool());
+        }
+
+        static ResumoVendas resumir(List<? extends FonteVendas> fontes, ForkJoinPool pool) {
+            return pool.invoke(ForkJoinTask.adapt(() -> {
+                List<AgregacaoParalela> tarefas = new ArrayList<>(fontes.size());
+                for (FonteVendas fonte : fontes) tarefas.add(new AgregacaoParalela(fonte, 0, fonte.tamanho()));
+                ForkJoinTask.invokeAll(tarefas);
+                AcumuladorVendas total = new AcumuladorVendas();
+                for (AgregacaoParalela tarefa : tarefas) total.mesclar(tarefa.join());
+                return total.paraResumo();
+            }));
+        }
+
+        // A mesma agregação numa única thread, percorrendo as fontes em ordem (referência para comparar)
+        static ResumoVendas resumirSequencial(List<? extends FonteVendas> fontes) {
+            AcumuladorVendas total = new AcumuladorVendas();
+            for (FonteVendas fonte : fontes) fonte.agregar(total, 0, fonte.tamanho());
+            return total.paraResumo();
+        }
+    }
+
+    // NOVO: Grafo de co-ocorrência de sabores como matriz triangular superior de long, indexada pelo ordinal.
+    // Cada par (i <= j) ocupa uma única célula: incrementos não alocam nem fazem buscas em mapa,
+    // e a exibição percorre a matriz sem precisar deduplicar pares. Incrementos são atômicos por célula.
+    static class GrafoSabor {
+        private static final VarHandle CELULA = MethodHandles.arrayElementVarHandle(long[].class);
+        private static final int NUM_SABORES = Sabor.values().length;
+        static final int NUM_CELULAS = NUM_SABORES * (NUM_SABORES + 1) / 2;
+        private static final int[] INICIO_LINHA = new int[NUM_SABORES];
+
+        static {
+            for (int i = 0, inicio = 0; i < NUM_SABORES; i++) {
+                INICIO_LINHA[i] = inicio - i; // Deslocado para que a célula (i, j) seja INICIO_LINHA[i] + j
+                inicio += NUM_SABORES - i;
+            }
+        }
+
+        private final long[] conexoes;
+
+        public GrafoSabor() {
+            this(new long[NUM_CELULAS]);
+        }
+
+        // Adota uma matriz já acumulada (mesmo layout triangular)
+        GrafoSabor(long[] conexoes) {
+            this.conexoes = conexoes;
+        }
+
+        static int celula(int a, int b) {
+            return a <= b ? INICIO_LINHA[a] + b : INICIO_LINHA[b] + a;
+        }
+
+        public void adicionarSabores(List<Sabor> sabores) {
+            registrarSabores(sabores, 1);
+        }
+
+        // Aplica um delta (+1/-1) a cada par de sabores da pizza, permitindo desfazer pizzas removidas ou alteradas
+        public void registrarSabores(List<Sabor> sabores, int delta) {
+            for (int i = 0; i < sabores.size(); i++) {
+                int s1 = sabores.get(i).ordinal();
+                for (int j = i + 1; j < sabores.size(); j++) {
+                    CELULA.getAndAdd(conexoes, celula(s1, sabores.get(j).ordinal()), (long) delta);
+                }
+            }
+        }
+
+        public long getConexoes(Sabor s1, Sabor s2) {
+            return conexoes[celula(s1.ordinal(), s2.ordinal())];
+        }
+
+        // Soma outro grafo a este (ex.: combinar grafos parciais calculados separadamente)
+        public void mesclar(GrafoSabor outro) {
+            for (int k = 0; k < conexoes.length; k++) {
+                CELULA.getAndAdd(conexoes, k, outro.conexoes[k]);
+            }
+        }
+
+        public void exibirConexoes() {
+            exibirConexoes(System.out);
+        }
+
+        void exportar(ExportadorVendas saida) throws IOException {
+            Sabor[] sabores = Sabor.values();
+            for (int i = 0; i < NUM_SABORES; i++) {
+                for (int j = i; j < NUM_SABORES; j++) {
+                    long count = conexoes[INICIO_LINHA[i] + j];
+                    if (count >= 1) saida.itemRelatorio("conexao", sabores[i].name(), sabores[j].name(), count);
+                }
+            }
+        }
+
+        public void exibirConexoes(PrintStream saida) {
+            Sabor[] sabores = Sabor.values();
+            for (int i = 0; i < NUM_SABORES; i++) {
+                for (int j = i; j < NUM_SABORES; j++) {
+                    long count = conexoes[INICIO_LINHA[i] + j];
+                    if (count >= 1) {
+                        saida.printf("  - %s e %s: %d vezes\n",
+                            sabores[i].getNomeFormatado(), sabores[j].getNomeFormatado(), count);
+                    }
+                }
+            }
+        }
+    }
+
+    // --- MÉTRICAS DO SERVIÇO (contadores, latências e eventos do JFR) ---
+
+    // NOVO: Operações medidas no serviço; o nome aparece no texto das métricas e nos eventos do JFR.
+    // Todas as chamadas são contadas; a latência vai ao histograma em 1 a cada "amostragem" chamadas, pois
+    // ler o relógio duas vezes custaria mais que as operações rápidas (buscarPedido leva menos de 100 ns).
+    public enum OperacaoServico {
+        CRIAR_PEDIDO("criarPedido", 8),
+        CRIAR_PEDIDOS_EM_LOTE("criarPedidosEmLote", 1),
+        BUSCAR_PEDIDO("buscarPedido", 16),
+        BUSCAR_CLIENTE_POR_NOME("buscarClientePorNome", 8),
+        ADICIONAR_PIZZA("adicionarPizzaAoPedido", 8),
+        ADICIONAR_BEBIDA("adicionarBebidaAoPedido", 8),
+        REMOVER_PIZZA("removerPizzaDoPedido", 8),
+        REMOVER_BEBIDA("removerBebidaDoPedido", 8),
+        ALTERAR_SABOR("alterarSaborPizza", 8),
+        GERAR_RELATORIO("gerarRelatorio", 1);
+
+        private final String nome;
+        private final int amostragem;
+
+        OperacaoServico(String nome, int amostragem) {
+            this.nome = nome;
+            this.amostragem = amostragem;
+        }
+
+        public String getNome() { return nome; }
+
+        // Sorteio por thread (sem estado compartilhado), então a amostra não se alinha a padrões de chamada
+        boolean sortearAmostra() {
+            return amostragem == 1 || ThreadLocalRandom.current().nextInt(amostragem) == 0;
+        }
+    }
+
+    /**
+     * NOVO: Histograma de latências (ns) com faixas log-lineares: 4 faixas por potência de 2, ou seja,
+     * erro de no máximo 25% em cada percentil, de 0 ns a ~36 min em 160 contadores fixos.
+     * Registrar não aloca nem trava (LongAdder por faixa); leituras feitas durante registros são aproximadas.
+     */
+    static final class HistogramaLatencia {
+        private static final int BITS_SUBFAIXA = 2;
+        private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+        private static final int MAIOR_EXPOENTE = 40; // 2^41 ns ≈ 36 min; acima disso cai na última faixa
+        static final int NUM_FAIXAS = SUBFAIXAS * MAIOR_EXPOENTE;
+
+        private final LongAdder[] faixas = new LongAdder[NUM_FAIXAS];
+        private final LongAdder somaNanos = new LongAdder();
+        private final AtomicLong maximoNanos = new AtomicLong();
+
+        HistogramaLatencia() {
+            for (int i = 0; i < NUM_FAIXAS; i++) faixas[i] = new LongAdder();
+        }
+
+        void registrar(long nanos) {
+            if (nanos < 0) nanos = 0; // nanoTime é monotônico, mas por garantia
+            faixas[faixa(nanos)].increment();
+            somaNanos.add(nanos);
+            if (nanos > maximoNanos.get()) maximoNanos.accumulateAndGet(nanos, Math::max); // CAS só em novo máximo
+        }
+
+        // Valores pequenos têm faixa própria; acima, expoente (bits altos) + 2 bits seguintes
+        static int faixa(long nanos) {
+            if (nanos < SUBFAIXAS) return (int) nanos;
+            int expoente = 63 - Long.numberOfLeadingZeros(nanos);
+            if (expoente > MAIOR_EXPOENTE) return NUM_FAIXAS - 1;
+            return ((expoente - BITS_SUBFAIXA + 1) << BITS_SUBFAIXA)
+                    | (int) ((nanos >>> (expoente - BITS_SUBFAIXA)) & (SUBFAIXAS - 1));
+        }
+
+        // Maior valor que cai na faixa (percentis são informados pelo limite superior)
+        static long limiteSuperior(int faixa) {
+            if (faixa < SUBFAIXAS) return faixa;
+            int deslocamento = (faixa >>> BITS_SUBFAIXA) - 1;
+            return ((long) (SUBFAIXAS | (faixa & (SUBFAIXAS - 1))) << deslocamento) + (1L << deslocamento) - 1;
+        }
+
+        /** Cópia das contagens para calcular vários percentis de um mesmo estado. */
+        Retrato retrato() {
+            long[] contagens = new long[NUM_FAIXAS];
+            long total = 0;
+            for (int i = 0; i < NUM_FAIXAS; i++) total += contagens[i] = faixas[i].sum();
+            return new Retrato(contagens, total, somaNanos.sum(), maximoNanos.get());
+        }
+
+        static final class Retrato {
+            final long[] contagens;
+            final long total;
+            final long somaNanos;
+            final long maximoNanos;
+
+            Retrato(long[] contagens, long total, long somaNanos, long maximoNanos) {
+                this.contagens = contagens;
+                this.total = total;
+                this.somaNanos = somaNanos;
+                this.maximoNanos = maximoNanos;
+            }
+
+            double mediaNanos() { return total == 0 ? 0 : (double) somaNanos / total; }
+
+            // Percentil em [0, 1]; 0 se não houve registros
+            long percentilNanos(double p) {
+                long posicao = Math.max(1, (long) Math.ceil(p * total));
+                long acumulado = 0;
+                for (int i = 0; i < contagens.length; i++) {
+                    acumulado += contagens[i];
+                    if (acumulado >= posicao) return Math.min(limiteSuperior(i), maximoNanos);
+                }
+                return maximoNanos;
+            }
+        }
+    }
+
+    /**
+     * NOVO: Métricas do PizzariaService: contador de chamadas e histograma de latência (amostrado) por operação.
+     * Os medidores (gauges) de pedidos e clientes são lidos do próprio serviço na hora do texto.
+     */
+    public static final class MetricasServico {
+        private static final double[] PERCENTIS = {0.50, 0.90, 0.99, 0.999};
+
+        private final LongAdder[] chamadas = new LongAdder[OperacaoServico.values().length];
+        private final HistogramaLatencia[] latencias = new HistogramaLatencia[OperacaoServico.values().length];
+
+        public MetricasServico() {
+            for (int i = 0; i < latencias.length; i++) {
+                chamadas[i] = new LongAdder();
+                latencias[i] = new HistogramaLatencia();
+            }
+        }
+
+        void contar(OperacaoServico operacao) {
+            chamadas[operacao.ordinal()].increment();
+        }
+
+        void registrarLatencia(OperacaoServico operacao, long nanos) {
+            latencias[operacao.ordinal()].registrar(nanos);
+        }
+
+        public long getChamadas(OperacaoServico operacao) {
+            return chamadas[operacao.ordinal()].sum();
+        }
+
+        public long getPercentilNanos(OperacaoServico operacao, double percentil) {
+            return latencias[operacao.ordinal()].retrato().percentilNanos(percentil);
+        }
+
+        void imprimir(PrintStream saida) {
+            saida.printf("%-26s %10s %9s %10s %10s %10s %10s %10s %10s%n",
+                "operação (µs)", "chamadas", "amostras", "média", "p50", "p90", "p99", "p99.9", "máx");
+            for (OperacaoServico operacao : OperacaoServico.values()) {
+                long total = getChamadas(operacao);
+                if (total == 0) continue;
+                HistogramaLatencia.Retrato retrato = latencias[operacao.ordinal()].retrato();
+                saida.printf("%-26s %10d %9d", operacao.getNome(), total, retrato.total);
+                if (retrato.total == 0) { // Poucas chamadas, nenhuma sorteada ainda
+                    saida.printf(" %10s%n", "-");
+                    continue;
+                }
+                saida.printf(" %10.2f", retrato.mediaNanos() / 1e3);
+                for (double percentil : PERCENTIS) saida.printf(" %10.2f", retrato.percentilNanos(percentil) / 1e3);
+                saida.printf(" %10.2f%n", retrato.maximoNanos / 1e3);
+            }
+        }
+    }
+
+    // NOVO: Evento do JFR por operação do serviço (categoria "Pizzaria"); sem gravação ativa, custa quase nada
+    @Name("pizzaria.OperacaoServico")
+    @Label("Operação do serviço")
+    @Category("Pizzaria")
+    @Description("Duração de uma chamada do PizzariaService")
+    @StackTrace(false)
+    static final class EventoOperacao extends Event {
+        @Label("Operação")
+        String operacao;
+    }
+
+    // NOVO: Uma chamada em andamento: alimenta as métricas (se ativas) e o evento do JFR, que tem relógio próprio
+    static final class Medicao {
+        private final MetricasServico metricas;
+        private final OperacaoServico operacao;
+        private final EventoOperacao evento;
+        private final boolean amostrada;
+        private final long inicio;
+
+        Medicao(MetricasServico metricas, OperacaoServico operacao) {
+            this.metricas = metricas;
+            this.operacao = operacao;
+            this.amostrada = metricas != null && operacao.sortearAmostra();
+            this.inicio = amostrada ? System.nanoTime() : 0;
+            this.evento = new EventoOperacao();
+            evento.begin();
+        }
+
+        void encerrar() {
+            if (metricas != null) {
+                metricas.contar(operacao);
+                if (amostrada) metricas.registrarLatencia(operacao, System.nanoTime() - inicio);
+            }
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.operacao = operacao.getNome();
+                evento.commit();
+            }
+        }
+    }
+
+    // --- PIPELINE DE PREPARO (Aceito → Cozinha → Forno → Despacho) ---
+
+    public enum EtapaPedido {
+        ACEITO, COZINHA, FORNO, DESPACHO, CONCLUIDO
+    }
+
+    // NOVO: Fonte de tempo do pipeline com threads. O relógio do sistema pode ser acelerado (ex.: 1 min simulado = 1 s real).
+    // O simulador de eventos tem seu próprio relógio, que só ele avança (ver SimuladorPipeline).
+    interface Relogio {
+        long agoraNanos();
+        void aguardar(long nanos) throws InterruptedException;
+    }
+
+    static final class RelogioSistema implements Relogio {
+        private final long inicio = System.nanoTime();
+        private final double aceleracao;
+
+        RelogioSistema(double aceleracao) {
+            if (aceleracao <= 0) throw new IllegalArgumentException("A aceleração do relógio deve ser positiva.");
+            this.aceleracao = aceleracao;
+        }
+
+        @Override
+        public long agoraNanos() { return (long) ((System.nanoTime() - inicio) * aceleracao); }
+
+        @Override
+        public void aguardar(long nanos) throws InterruptedException {
+            TimeUnit.NANOSECONDS.sleep((long) (nanos / aceleracao));
+        }
+    }
+
+    // NOVO: Configuração de uma etapa: trabalhadores em paralelo, capacidade da fila de entrada
+    // e duração estimada do trabalho por pedido
+    static final class ConfigEtapa {
+        final EtapaPedido etapa;
+        final int trabalhadores;
+        final int capacidadeFila;
+        final ToLongFunction<Pedido> duracaoNanos;
+        final int capacidadeFornada; // > 0: etapa de forno por fornadas (ver fornadas)
+
+        ConfigEtapa(EtapaPedido etapa, int trabalhadores, int capacidadeFila, ToLongFunction<Pedido> duracaoNanos) {
+            this(etapa, trabalhadores, capacidadeFila, duracaoNanos, 0);
+        }
+
+        private ConfigEtapa(EtapaPedido etapa, int trabalhadores, int capacidadeFila, ToLongFunction<Pedido> duracaoNanos,
+                            int capacidadeFornada) {
+            if (trabalhadores <= 0 || capacidadeFila <= 0) {
+                throw new IllegalArgumentException("Etapa " + etapa + " precisa de trabalhadores e fila positivos.");
+            }
+            this.etapa = etapa;
+            this.trabalhadores = trabalhadores;
+            this.capacidadeFila = capacidadeFila;
+            this.duracaoNanos = duracaoNanos;
+            this.capacidadeFornada = capacidadeFornada;
+        }
+
+        /**
+         * Etapa de forno por fornadas: cada trabalhador é um forno que assa cargas de até 'capacidadeFornada' pizzas
+         * escolhidas pelo EscalonadorForno entre todos os pedidos da etapa, e o tempo é o ciclo da fornada.
+         * O pedido sai quando a última pizza assa; 'capacidadeFila' limita os pedidos na etapa (esperando ou assando).
+         */
+        static ConfigEtapa fornadas(EtapaPedido etapa, int fornos, int capacidadeFornada, int capacidadeFila) {
+            if (capacidadeFornada <= 0) throw new IllegalArgumentException("A capacidade do forno deve ser positiva.");
+            return new ConfigEtapa(etapa, fornos, capacidadeFila, p -> 0, capacidadeFornada);
+        }
+
+        boolean porFornadas() { return capacidadeFornada > 0; }
+
+        private static final long MINUTO = TimeUnit.MINUTES.toNanos(1);
+        static final int CAPACIDADE_FORNO = 8;
+
+        // Tempos típicos: conferência 1 min; montagem 2 min + 1 min/pizza; entrega 5 min + 3 min/km (ida e volta).
+        // Forno: fornadas de até 8 pizzas (montagem por sabor + cozimento do maior tamanho, ver Fornada).
+        static List<ConfigEtapa> padrao(int cozinheiros, int fornos, int entregadores) {
+            return List.of(
+                new ConfigEtapa(EtapaPedido.ACEITO, 2, 20, p -> MINUTO),
+                new ConfigEtapa(EtapaPedido.COZINHA, cozinheiros, 20, p -> 2 * MINUTO + MINUTO * p.getNumPizzas()),
+                fornadas(EtapaPedido.FORNO, fornos, CAPACIDADE_FORNO, 20),
+                new ConfigEtapa(EtapaPedido.DESPACHO, entregadores, 20, p -> 5 * MINUTO + (long) (3 * MINUTO * p.getDistanciaKm())));
+        }
+    }
+
+    // Métricas de uma etapa. Permanência = da chegada à fila até o fim do trabalho; bloqueio = tempo que o pedido
+    // pronto esperou vaga na fila seguinte (segurando o trabalhador). Esse bloqueio também conta como espera na etapa seguinte.
+    static final class MetricasEtapa {
+        final LongAdder entradas = new LongAdder();
+        final LongAdder concluidos = new LongAdder();
+        final LongAdder permanenciaTotal = new LongAdder();
+        final LongAdder bloqueioTotal = new LongAdder();
+        final AtomicLong permanenciaMaxima = new AtomicLong();
+        final AtomicInteger picoFila = new AtomicInteger();
+
+        // Recebe o tamanho da fila logo após a entrada (lido da própria fila, sem contador paralelo)
+        void entrou(int tamanhoFila) {
+            entradas.increment();
+            picoFila.accumulateAndGet(tamanhoFila, Math::max);
+        }
+
+        void saiu(long permanencia, long bloqueio) {
+            concluidos.increment();
+            permanenciaTotal.add(permanencia);
+            bloqueioTotal.add(bloqueio);
+            permanenciaMaxima.accumulateAndGet(permanencia, Math::max);
+        }
+
+        static void imprimir(PrintStream saida, List<ConfigEtapa> etapas, MetricasEtapa[] metricas, IntUnaryOperator tamanhoFila,
+                             long duracaoNanos, long pedidosEntrada, long esperaEntradaTotal) {
+            double horas = Math.max(1, duracaoNanos) / 3.6e12;
+            double minuto = 60e9;
+            saida.printf("%-10s %5s %10s %10s %10s %10s %10s %10s%n",
+                "ETAPA", "TRAB", "FILA/PICO", "CONCLUÍDOS", "POR HORA", "PERM.MÉD", "PERM.MÁX", "BLOQ.MÉD");
+            for (int i = 0; i < etapas.size(); i++) {
+                MetricasEtapa m = metricas[i];
+                long concluidos = m.concluidos.sum();
+                saida.printf("%-10s %5d %10s %10d %10.1f %9.1fm %9.1fm %9.1fm%n",
+                    etapas.get(i).etapa, etapas.get(i).trabalhadores, tamanhoFila.applyAsInt(i) + "/" + m.picoFila.get(), concluidos,
+                    concluidos / horas,
+                    concluidos == 0 ? 0.0 : m.permanenciaTotal.sum() / (double) concluidos / minuto,
+                    m.permanenciaMaxima.get() / minuto,
+                    concluidos == 0 ? 0.0 : m.bloqueioTotal.sum() / (double) concluidos / minuto);
+            }
+            saida.printf("Espera média na entrada (contrapressão): %.1f min em %d pedidos%n",
+                pedidosEntrada == 0 ? 0.0 : esperaEntradaTotal / (double) pedidosEntrada / minuto, pedidosEntrada);
+        }
+    }
+
+    private static final class ItemPipeline {
+        final Pedido pedido;
+        final long entrada;
+
+        ItemPipeline(Pedido pedido, long entrada) {
+            this.pedido = pedido;
+            this.entrada = entrada;
+        }
+    }
+
+    // NOVO: Estado de uma etapa de forno por fornadas: os pedidos entram no EscalonadorForno e saem quando a última
+    // pizza assa. Não é thread-safe: o PipelinePedidos o usa sob trava; o simulador, na sua única thread.
+    private static final class FornoPipeline {
+        private static final class NoForno {
+            final ItemPipeline item;
+            int pizzasRestantes;
+
+            NoForno(ItemPipeline item, int pizzasRestantes) {
+                this.item = item;
+                this.pizzasRestantes = pizzasRestantes;
+            }
+        }
+
+        private final EscalonadorForno escalonador;
+        private final int limitePedidos;
+        private final Map<Pedido, NoForno> naEtapa = new IdentityHashMap<>();
+
+        FornoPipeline(ConfigEtapa config) {
+            this.escalonador = new EscalonadorForno(config.capacidadeFornada);
+            this.limitePedidos = config.capacidadeFila;
+        }
+
+        boolean temVaga() { return naEtapa.size() < limitePedidos; }
+
+        int getPedidos() { return naEtapa.size(); }
+
+        // Devolve false se o pedido não tem pizzas: nada a assar, ele segue direto para a próxima etapa
+        boolean receber(ItemPipeline item) {
+            int pizzas = escalonador.adicionarPedido(item.pedido, item.entrada);
+            if (pizzas > 0) naEtapa.put(item.pedido, new NoForno(item, pizzas));
+            return pizzas > 0;
+        }
+
+        Fornada proximaFornada(long agoraNanos) {
+            return escalonador.proximaFornada(agoraNanos);
+        }
+
+        // Pedidos cuja última pizza estava nesta fornada, na ordem da carga
+        List<ItemPipeline> concluir(Fornada fornada) {
+            List<ItemPipeline> prontos = new ArrayList<>();
+            for (PizzaPendente pizza : fornada.pizzas) {
+                NoForno noForno = naEtapa.get(pizza.pedido);
+                if (--noForno.pizzasRestantes == 0) {
+                    naEtapa.remove(pizza.pedido);
+                    prontos.add(noForno.item);
+                }
+            }
+            return prontos;
+        }
+    }
+
+    /**
+     * NOVO: Pipeline com threads: cada etapa tem uma fila limitada e seu grupo de trabalhadores.
+     * Quando uma fila enche, quem entrega para ela bloqueia; assim a saturação da cozinha volta
+     * etapa por etapa até a entrada (submeter), em vez de as filas crescerem sem limite.
+     * Numa etapa por fornadas, os trabalhadores são fornos que montam cargas pelo EscalonadorForno.
+     */
+    static final class PipelinePedidos implements Closeable {
+        private static final ItemPipeline FIM = new ItemPipeline(null, 0);
+
+        private final List<ConfigEtapa> etapas;
+        private final List<ArrayBlockingQueue<ItemPipeline>> filas = new ArrayList<>(); // null nas etapas por fornadas
+        private final FornoConcorrente[] fornos; // null nas etapas comuns
+        private final MetricasEtapa[] metricas;
+        private final List<Thread> trabalhadores = new ArrayList<>();
+        private final Relogio relogio;
+        private final long inicio;
+        private final Consumer<Pedido> aoConcluir;
+        private final LongAdder pedidosEntrada = new LongAdder();
+        private final LongAdder esperaEntradaTotal = new LongAdder();
+        // Leitura: submeter (verifica e enfileira); escrita: close. Assim nenhum pedido entra atrás do FIM
+        private final ReentrantReadWriteLock travaEntrada = new ReentrantReadWriteLock();
+        private boolean fechado; // Protegido por travaEntrada
+
+        // Etapa por fornadas: o FornoPipeline faz o papel da fila limitada, sob uma trava com duas condições
+        private static final class FornoConcorrente {
+            private final FornoPipeline forno;
+            private final ReentrantLock trava = new ReentrantLock();
+            private final Condition temVaga = trava.newCondition();
+            private final Condition temPizza = trava.newCondition();
+            private boolean encerrado;
+
+            FornoConcorrente(ConfigEtapa config) {
+                this.forno = new FornoPipeline(config);
+            }
+
+            // Bloqueia enquanto a etapa estiver lotada; false = pedido sem pizzas, que não passa pelo forno
+            boolean entregar(ItemPipeline item) throws InterruptedException {
+                trava.lockInterruptibly();
+                try {
+                    while (!forno.temVaga()) temVaga.await();
+                    boolean assa = forno.receber(item);
+                    if (assa) temPizza.signalAll();
+                    return assa;
+                } finally {
+                    trava.unlock();
+                }
+            }
+
+            // Espera haver pizza pendente e monta a fornada; null quando encerrado e sem nada a assar
+            Fornada proximaFornada(Relogio relogio) throws InterruptedException {
+                trava.lockInterruptibly();
+                try {
+                    while (true) {
+                        Fornada fornada = forno.proximaFornada(relogio.agoraNanos());
+                        if (fornada != null || encerrado) return fornada;
+                        temPizza.await();
+                    }
+                } finally {
+                    trava.unlock();
+                }
+            }
+
+            List<ItemPipeline> concluir(Fornada fornada) {
+                trava.lock();
+                try {
+                    List<ItemPipeline> prontos = forno.concluir(fornada);
+                    if (!prontos.isEmpty()) temVaga.signalAll();
+                    return prontos;
+                } finally {
+                    trava.unlock();
+                }
+            }
+
+            // Chamado depois que as etapas anteriores terminaram: nada mais entra
+            void encerrar() {
+                trava.lock();
+                try {
+                    encerrado = true;
+                    temPizza.signalAll();
+                } finally {
+                    trava.unlock();
+                }
+            }
+
+            int getPedidos() {
+                trava.lock();
+                try {
+                    return forno.getPedidos();
+                } finally {
+                    trava.unlock();
+                }
+            }
+        }
+
+        PipelinePedidos(List<ConfigEtapa> etapas, Relogio relogio, Consumer<Pedido> aoConcluir) {
+            if (etapas.isEmpty()) throw new IllegalArgumentException("O pipeline precisa de ao menos uma etapa.");
+            this.etapas = List.copyOf(etapas);
+            this.relogio = relogio;
+            this.inicio = relogio.agoraNanos();
+            this.aoConcluir = aoConcluir;
+            this.metricas = new MetricasEtapa[etapas.size()];
+            this.fornos = new FornoConcorrente[etapas.size()];
+            for (int i = 0; i < etapas.size(); i++) {
+                metricas[i] = new MetricasEtapa();
+                ConfigEtapa config = etapas.get(i);
+                if (config.porFornadas()) fornos[i] = new FornoConcorrente(config);
+                filas.add(config.porFornadas() ? null : new ArrayBlockingQueue<>(config.capacidadeFila));
+            }
+            for (int i = 0; i < etapas.size(); i++) {
+                for (int t = 0; t < etapas.get(i).trabalhadores; t++) {
+                    int etapa = i;
+                    Runnable trabalho = fornos[i] != null ? () -> executarForno(etapa) : () -> executarEtapa(etapa);
+                    Thread trabalhador = new Thread(trabalho, "etapa-" + etapas.get(i).etapa.name().toLowerCase() + "-" + (t + 1));
+                    trabalhador.setDaemon(true);
+                    trabalhadores.add(trabalhador);
+                    trabalhador.start();
+                }
+            }
+        }
+
+        /** Coloca o pedido na primeira etapa, bloqueando enquanto a fila de entrada estiver cheia. */
+        void submeter(Pedido pedido) throws InterruptedException {
+            travaEntrada.readLock().lockInterruptibly();
+            try {
+                if (fechado) throw new IllegalStateException("O pipeline está encerrado.");
+                long chegada = relogio.agoraNanos();
+                entrar(0, new ItemPipeline(pedido, chegada)); // Os trabalhadores seguem esvaziando: close só espera
+                pedidosEntrada.increment();
+                esperaEntradaTotal.add(relogio.agoraNanos() - chegada);
+            } finally {
+                travaEntrada.readLock().unlock();
+            }
+        }
+
+        // Entrega o pedido à etapa, bloqueando se ela estiver cheia
+        private void entrar(int i, ItemPipeline item) throws InterruptedException {
+            item.pedido.definirEtapa(etapas.get(i).etapa);
+            if (fornos[i] == null) {
+                filas.get(i).put(item);
+                metricas[i].entrou(filas.get(i).size()); // Só depois de aceito: quem espera vaga não conta como fila
+            } else {
+                boolean assa = fornos[i].entregar(item);
+                metricas[i].entrou(fornos[i].getPedidos());
+                if (!assa) sair(i, item, relogio.agoraNanos()); // Sem pizzas: quem entregou já o passa adiante
+            }
+        }
+
+        // Fim do trabalho do pedido na etapa: segue para a próxima (bloqueando se estiver cheia) ou conclui
+        private void sair(int i, ItemPipeline item, long fimTrabalho) throws InterruptedException {
+            if (i + 1 < etapas.size()) {
+                entrar(i + 1, new ItemPipeline(item.pedido, fimTrabalho));
+            } else {
+                item.pedido.definirEtapa(EtapaPedido.CONCLUIDO);
+                if (aoConcluir != null) aoConcluir.accept(item.pedido);
+            }
+            metricas[i].saiu(fimTrabalho - item.entrada, relogio.agoraNanos() - fimTrabalho);
+        }
+
+        private void executarEtapa(int i) {
+            ConfigEtapa config = etapas.get(i);
+            ArrayBlockingQueue<ItemPipeline> fila = filas.get(i);
+            try {
+                while (true) {
+                    ItemPipeline item = fila.take();
+                    if (item == FIM) return;
+                    relogio.aguardar(config.duracaoNanos.applyAsLong(item.pedido));
+                    sair(i, item, relogio.agoraNanos());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Encerramento forçado
+            }
+        }
+
+        // Um forno: assa a fornada escolhida e passa adiante os pedidos que ela completou (segurando o forno se a
+        // próxima etapa estiver cheia, como os trabalhadores das etapas comuns)
+        private void executarForno(int i) {
+            FornoConcorrente forno = fornos[i];
+            try {
+                Fornada fornada;
+                while ((fornada = forno.proximaFornada(relogio)) != null) {
+                    relogio.aguardar(fornada.getCicloNanos());
+                    long fimTrabalho = relogio.agoraNanos();
+                    for (ItemPipeline item : forno.concluir(fornada)) sair(i, item, fimTrabalho);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Encerramento forçado
+            }
+        }
+
+        private int tamanhoFila(int i) {
+            return fornos[i] != null ? fornos[i].getPedidos() : filas.get(i).size();
+        }
+
+        void imprimirMetricas(PrintStream saida) {
+            MetricasEtapa.imprimir(saida, etapas, metricas, this::tamanhoFila, relogio.agoraNanos() - inicio,
+                pedidosEntrada.sum(), esperaEntradaTotal.sum());
+        }
+
+        /** Para de aceitar pedidos, deixa as filas esvaziarem e encerra os trabalhadores. */
+        @Override
+        public void close() {
+            travaEntrada.writeLock().lock(); // Espera os submeter em andamento terminarem de enfileirar
+            try {
+                if (fechado) return;
+                fechado = true;
+            } finally {
+                travaEntrada.writeLock().unlock();
+            }
+            try {
+                int primeiro = 0;
+                for (int i = 0; i < etapas.size(); i++) {
+                    if (fornos[i] != null) fornos[i].encerrar();
+                    else for (int t = 0; t < etapas.get(i).trabalhadores; t++) filas.get(i).put(FIM);
+                    for (int t = 0; t < etapas.get(i).trabalhadores; t++) trabalhadores.get(primeiro + t).join();
+                    primeiro += etapas.get(i).trabalhadores;
+                }
+            } catch (InterruptedException e) {
+                trabalhadores.forEach(Thread::interrupt);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * NOVO: Simulação de eventos discretos do mesmo pipeline (mesmas etapas, filas limitadas e contrapressão),
+     * em uma única thread e com relógio simulado: o resultado depende só das entradas, então é reproduzível.
+     * Empates de horário são resolvidos pela ordem de agendamento. Etapas por fornadas usam o mesmo FornoPipeline.
+     */
+    static final class SimuladorPipeline {
+        private final List<ConfigEtapa> etapas;
+        private final RelogioSimulado relogio = new RelogioSimulado();
+        private final MetricasEtapa[] metricas;
+        private final List<ArrayDeque<ItemPipeline>> filas = new ArrayList<>();
+        private final List<ArrayDeque<Evento>> prontos = new ArrayList<>(); // Trabalho feito, aguardando vaga adiante
+        private final int[] livres;
+        private final FornoPipeline[] fornos; // null nas etapas comuns
+        private final Map<Fornada, Integer> aEncaminhar = new IdentityHashMap<>(); // Pedidos prontos que ainda seguram o forno
+        private final ArrayDeque<ItemPipeline> entrada = new ArrayDeque<>(); // Chegadas aguardando vaga na primeira fila
+        private final PriorityQueue<Evento> eventos = new PriorityQueue<>();
+        private long sequencia;
+        private long pedidosEntrada;
+        private long esperaEntradaTotal;
+
+        // Tempo virtual: só anda quando o laço de eventos avança, nunca por espera. Não é um Relogio de propósito:
+        // não é seguro entre threads e não faz sentido para os trabalhadores do PipelinePedidos.
+        private static final class RelogioSimulado {
+            private long agora;
+
+            long agoraNanos() { return agora; }
+
+            void avancarPara(long instante) {
+                if (instante < agora) throw new IllegalArgumentException("O relógio simulado não volta no tempo.");
+                agora = instante;
+            }
+        }
+
+        private static final class Evento implements Comparable<Evento> {
+            final long instante;
+            final long ordem;
+            final int etapa; // -1 = chegada; senão, fim do trabalho nesta etapa
+            final ItemPipeline item; // null no fim de uma fornada
+            final Fornada fornada; // Fornada que terminou ou que aprontou o pedido (null fora das etapas por fornadas)
+
+            Evento(long instante, long ordem, int etapa, ItemPipeline item) {
+                this(instante, ordem, etapa, item, null);
+            }
+
+            Evento(long instante, long ordem, int etapa, ItemPipeline item, Fornada fornada) {
+                this.instante = instante;
+                this.ordem = ordem;
+                this.etapa = etapa;
+                this.item = item;
+                this.fornada = fornada;
+            }
+
+            @Override
+            public int compareTo(Evento outro) {
+                int c = Long.compare(instante, outro.instante);
+                return c != 0 ? c : Long.compare(ordem, outro.ordem);
+            }
+        }
+
+        SimuladorPipeline(List<ConfigEtapa> etapas) {
+            this.etapas = List.copyOf(etapas);
+            this.metricas = new MetricasEtapa[etapas.size()];
+            this.livres = new int[etapas.size()];
+            this.fornos = new FornoPipeline[etapas.size()];
+            for (int i = 0; i < etapas.size(); i++) {
+                metricas[i] = new MetricasEtapa();
+                filas.add(new ArrayDeque<>());
+                prontos.add(new ArrayDeque<>());
+                livres[i] = etapas.get(i).trabalhadores;
+                if (etapas.get(i).porFornadas()) fornos[i] = new FornoPipeline(etapas.get(i));
+            }
+        }
+
+        void agendarChegada(long instanteNanos, Pedido pedido) {
+            eventos.add(new Evento(instanteNanos, sequencia++, -1, new ItemPipeline(pedido, instanteNanos)));
+        }
+
+        /** Processa todos os eventos até o último pedido concluir; retorna o instante final. */
+        long executar() {
+            while (!eventos.isEmpty()) {
+                Evento evento = eventos.poll();
+                relogio.avancarPara(evento.instante);
+                if (evento.etapa < 0) {
+                    entrada.add(evento.item);
+                } else if (evento.fornada != null) {
+                    concluirFornada(evento);
+                } else {
+                    prontos.get(evento.etapa).add(evento);
+                }
+                propagar();
+            }
+            return relogio.agoraNanos();
+        }
+
+        // O forno fica preso até passar adiante todos os pedidos que a fornada completou (como no pipeline com threads)
+        private void concluirFornada(Evento evento) {
+            List<ItemPipeline> completos = fornos[evento.etapa].concluir(evento.fornada);
+            if (completos.isEmpty()) {
+                livres[evento.etapa]++;
+                return;
+            }
+            aEncaminhar.put(evento.fornada, completos.size());
+            for (ItemPipeline item : completos) {
+                prontos.get(evento.etapa).add(new Evento(evento.instante, sequencia++, evento.etapa, item, evento.fornada));
+            }
+        }
+
+        private boolean temVaga(int i) {
+            return fornos[i] != null ? fornos[i].temVaga() : filas.get(i).size() < etapas.get(i).capacidadeFila;
+        }
+
+        private int tamanhoFila(int i) {
+            return fornos[i] != null ? fornos[i].getPedidos() : filas.get(i).size();
+        }
+
+        // Entrega o pedido à etapa (que tem vaga); sem pizzas, ele atravessa a etapa de forno no mesmo instante
+        private void entrar(int i, ItemPipeline item, long agora) {
+            item.pedido.definirEtapa(etapas.get(i).etapa);
+            if (fornos[i] == null) filas.get(i).add(item);
+            else if (!fornos[i].receber(item)) prontos.get(i).add(new Evento(agora, sequencia++, i, item));
+            metricas[i].entrou(tamanhoFila(i));
+        }
+
+        // Libera quem fez o trabalho do pedido: o trabalhador da etapa comum, ou o forno após o último pedido da fornada
+        private void liberar(int i, Evento feito) {
+            if (fornos[i] == null) {
+                livres[i]++;
+            } else if (feito.fornada != null && aEncaminhar.merge(feito.fornada, -1, Integer::sum) == 0) {
+                aEncaminhar.remove(feito.fornada);
+                livres[i]++;
+            }
+        }
+
+        // Move tudo o que puder andar no instante atual, de trás para frente, até nada mais mudar
+        private void propagar() {
+            long agora = relogio.agoraNanos();
+            int n = etapas.size();
+            boolean mudou = true;
+            while (mudou) {
+                mudou = false;
+                for (int i = n - 1; i >= 0; i--) {
+                    ArrayDeque<Evento> feitos = prontos.get(i);
+                    while (!feitos.isEmpty() && (i == n - 1 || temVaga(i + 1))) {
+                        Evento feito = feitos.poll();
+                        Pedido pedido = feito.item.pedido;
+                        liberar(i, feito);
+                        if (i == n - 1) {
+                            pedido.definirEtapa(EtapaPedido.CONCLUIDO);
+                        } else {
+                            entrar(i + 1, new ItemPipeline(pedido, feito.instante), agora);
+                        }
+                        metricas[i].saiu(feito.instante - feito.item.entrada, agora - feito.instante);
+                        mudou = true;
+                    }
+                    if (fornos[i] != null) {
+                        Fornada fornada;
+                        while (livres[i] > 0 && (fornada = fornos[i].proximaFornada(agora)) != null) {
+                            livres[i]--;
+                            eventos.add(new Evento(agora + fornada.getCicloNanos(), sequencia++, i, null, fornada));
+                            mudou = true;
+                        }
+                        continue;
+                    }
+                    ArrayDeque<ItemPipeline> fila = filas.get(i);
+                    while (livres[i] > 0 && !fila.isEmpty()) {
+                        ItemPipeline item = fila.poll();
+                        livres[i]--;
+                        long fim = agora + etapas.get(i).duracaoNanos.applyAsLong(item.pedido);
+                        eventos.add(new Evento(fim, sequencia++, i, item));
+                        mudou = true;
+                    }
+                }
+                while (!entrada.isEmpty() && temVaga(0)) {
+                    ItemPipeline item = entrada.poll();
+                    pedidosEntrada++;
+                    esperaEntradaTotal += agora - item.entrada;
+                    entrar(0, new ItemPipeline(item.pedido, item.entrada), agora);
+                    mudou = true;
+                }
+            }
+        }
+
+        void imprimirMetricas(PrintStream saida) {
+            MetricasEtapa.imprimir(saida, etapas, metricas, this::tamanhoFila, relogio.agoraNanos(),
+                pedidosEntrada, esperaEntradaTotal);
+        }
+    }
+
+    // --- ESCALONADOR DO FORNO (fornadas por tamanho e sabor) ---
+
+    // Pizza de um pedido aberto aguardando o forno. O prazo é o instante em que ela precisa sair do forno
+    // para o pedido chegar dentro da promessa: quanto mais longe o cliente, mais cedo vence.
+    static final class PizzaPendente {
+        private static final AtomicLong SEQUENCIA = new AtomicLong(); // Desempate estável entre prazos iguais
+
+        final Pedido pedido;
+        final Pizza pizza;
+        final long chegada;
+        final long prazo;
+        final long ordem;
+
+        PizzaPendente(Pedido pedido, Pizza pizza, long chegada, long prazo) {
+            this.pedido = pedido;
+            this.pizza = pizza;
+            this.chegada = chegada;
+            this.prazo = prazo;
+            this.ordem = SEQUENCIA.getAndIncrement();
+        }
+
+        static final Comparator<PizzaPendente> POR_URGENCIA =
+            Comparator.comparingLong((PizzaPendente p) -> p.prazo).thenComparingLong(p -> p.ordem);
+    }
+
+    // Uma carga do forno. Montagem: 30 s por sabor distinto (ingredientes separados uma vez por fornada)
+    // + 15 s por pizza; cozimento: o do maior tamanho da carga.
+    static final class Fornada {
+        private static final long MINUTO = TimeUnit.MINUTES.toNanos(1);
+        private static final long[] ASSAR_NANOS = {7 * MINUTO, 9 * MINUTO, 11 * MINUTO}; // BROTO, GRANDE, GIGA
+
+        final List<PizzaPendente> pizzas;
+        final long montagemNanos;
+        final long assarNanos;
+
+        Fornada(List<PizzaPendente> pizzas) {
+            this.pizzas = pizzas;
+            int saboresDistintos = 0; // Máscara de bits pelos ordinais de Sabor
+            long assar = 0;
+            for (PizzaPendente p : pizzas) {
+                for (Sabor sabor : p.pizza.getSabores()) saboresDistintos |= 1 << sabor.ordinal();
+                assar = Math.max(assar, ASSAR_NANOS[p.pizza.getTamanho().ordinal()]);
+            }
+            this.montagemNanos = Integer.bitCount(saboresDistintos) * MINUTO / 2 + pizzas.size() * MINUTO / 4;
+            this.assarNanos = assar;
+        }
+
+        long getCicloNanos() { return montagemNanos + assarNanos; }
+    }
+
+    // Política que decide a próxima carga do forno entre as pizzas pendentes
+    interface PoliticaForno {
+        void adicionar(PizzaPendente pizza);
+        Fornada proximaFornada(long agoraNanos); // null se não houver pizza pendente
+        int getPendentes();
+
+        /** Coloca todas as pizzas do pedido na fila do forno (bebidas não passam pelo forno); devolve quantas. */
+        default int adicionarPedido(Pedido pedido, long chegadaNanos) {
+            long prazo = EscalonadorForno.prazoSaidaForno(chegadaNanos, pedido.getDistanciaKm());
+            List<Pizza> pizzas = pedido.getPizzas();
+            for (Pizza pizza : pizzas) adicionar(new PizzaPendente(pedido, pizza, chegadaNanos, prazo));
+            return pizzas.size();
+        }
+    }
+
+    // Referência para comparação: carrega na ordem de chegada, misturando tamanhos
+    static final class FilaFornoFifo implements PoliticaForno {
+        private final ArrayDeque<PizzaPendente> fila = new ArrayDeque<>();
+        private final int capacidade;
+
+        FilaFornoFifo(int capacidade) {
+            this.capacidade = capacidade;
+        }
+
+        @Override
+        public void adicionar(PizzaPendente pizza) { fila.add(pizza); }
+
+        @Override
+        public Fornada proximaFornada(long agoraNanos) {
+            if (fila.isEmpty()) return null;
+            List<PizzaPendente> carga = new ArrayList<>(capacidade);
+            while (carga.size() < capacidade && !fila.isEmpty()) carga.add(fila.poll());
+            return new Fornada(carga);
+        }
+
+        @Override
+        public int getPendentes() { return fila.size(); }
+    }
+
+    /**
+     * NOVO: Escalonador de fornadas. Cada carga tem um único tamanho e é montada nesta ordem:
+     * 1) a pizza mais urgente de todas; 2) as do mesmo tamanho que venceriam antes de mais duas fornadas;
+     * 3) pizzas idênticas às já escolhidas (mesmo tamanho e sabores: montagem compartilhada);
+     * 4) as demais do mesmo tamanho, por urgência.
+     * Índices ordenados por tamanho e por pizza canônica (flyweight) deixam cada decisão em O(capacidade · log n).
+     */
+    static final class EscalonadorForno implements PoliticaForno {
+        private static final long MINUTO = TimeUnit.MINUTES.toNanos(1);
+        static final long PROMESSA_ENTREGA_NANOS = 45 * MINUTO;
+        private static final long SAIDA_DESPACHO_NANOS = 5 * MINUTO;
+        private static final long TRAJETO_POR_KM_NANOS = 90 * TimeUnit.SECONDS.toNanos(1);
+
+        private final int capacidade;
+        private final List<TreeSet<PizzaPendente>> porTamanho = new ArrayList<>();
+        private final Map<Pizza, TreeSet<PizzaPendente>> porPizza = new HashMap<>(); // Pizzas iguais (sabores e tamanho), de qualquer versão de preços
+        private int pendentes;
+
+        EscalonadorForno(int capacidade) {
+            if (capacidade <= 0) throw new IllegalArgumentException("A capacidade do forno deve ser positiva.");
+            this.capacidade = capacidade;
+            for (int i = 0; i < Pizza.TamanhoPizza.values().length; i++) porTamanho.add(new TreeSet<>(PizzaPendente.POR_URGENCIA));
+        }
+
+        // Prazo de saída do forno: promessa de entrega menos despacho e trajeto até o cliente
+        static long prazoSaidaForno(long chegadaNanos, double distanciaKm) {
+            return chegadaNanos + PROMESSA_ENTREGA_NANOS - SAIDA_DESPACHO_NANOS - (long) (distanciaKm * TRAJETO_POR_KM_NANOS);
+        }
+
+        @Override
+        public void adicionar(PizzaPendente pizza) {
+            porTamanho.get(pizza.pizza.getTamanho().ordinal()).add(pizza);
+            porPizza.computeIfAbsent(pizza.pizza, _ -> new TreeSet<>(PizzaPendente.POR_URGENCIA)).add(pizza);
+            pendentes++;
+        }
+
+        @Override
+        public Fornada proximaFornada(long agoraNanos) {
+            TreeSet<PizzaPendente> mesmoTamanho = null;
+            for (TreeSet<PizzaPendente> fila : porTamanho) {
+                if (fila.isEmpty()) continue;
+                if (mesmoTamanho == null || PizzaPendente.POR_URGENCIA.compare(fila.first(), mesmoTamanho.first()) < 0) {
+                    mesmoTamanho = fila;
+                }
+            }
+            if (mesmoTamanho == null) return null;
+
+            List<PizzaPendente> carga = new ArrayList<>(capacidade);
+            carga.add(retirar(mesmoTamanho.first()));
+            // Em risco: o conjunto está ordenado por prazo, então são exatamente as primeiras
+            long limite = agoraNanos + 2 * new Fornada(carga).getCicloNanos();
+            while (carga.size() < capacidade && !mesmoTamanho.isEmpty() && mesmoTamanho.first().prazo <= limite) {
+                carga.add(retirar(mesmoTamanho.first()));
+            }
+            for (int i = 0; i < carga.size() && carga.size() < capacidade; i++) {
+                TreeSet<PizzaPendente> identicas = porPizza.get(carga.get(i).pizza);
+                while (identicas != null && carga.size() < capacidade && !identicas.isEmpty()) {
+                    carga.add(retirar(identicas.first()));
+                }
+            }
+            while (carga.size() < capacidade && !mesmoTamanho.isEmpty()) {
+                carga.add(retirar(mesmoTamanho.first()));
+            }
+            return new Fornada(carga);
+        }
+
+        private PizzaPendente retirar(PizzaPendente pizza) {
+            porTamanho.get(pizza.pizza.getTamanho().ordinal()).remove(pizza);
+            TreeSet<PizzaPendente> identicas = porPizza.get(pizza.pizza);
+            identicas.remove(pizza);
+            if (identicas.isEmpty()) porPizza.remove(pizza.pizza);
+            pendentes--;
+            return pizza;
+        }
+
+        @Override
+        public int getPendentes() { return pendentes; }
+    }
+
+    // --- DESPACHO (rotas de entrega e frete por rota) ---
+
+    // Posição do destino em km a leste (x) e ao norte (y) da pizzaria
+    public static final class Coordenada {
+        static final Coordenada LOJA = new Coordenada(0, 0);
+
+        private final double xKm;
+        private final double yKm;
+
+        public Coordenada(double xKm, double yKm) {
+            this.xKm = xKm;
+            this.yKm = yKm;
+        }
+
+        public double getXKm() { return xKm; }
+        public double getYKm() { return yKm; }
+
+        public double distanciaKm(Coordenada outra) {
+            return Math.hypot(xKm - outra.xKm, yKm - outra.yKm);
+        }
+
+        public double distanciaDaLojaKm() { return distanciaKm(LOJA); }
+    }
+
+    static final class Parada {
+        final Pedido pedido;
+        final Coordenada destino;
+        final long peso;
+
+        Parada(Pedido pedido, Coordenada destino) {
+            this.pedido = pedido;
+            this.destino = destino;
+            this.peso = PizzariaService.pesoEntrega(pedido.getNumPizzas(), pedido.getNumBebidas());
+        }
+
+        // Frete que o pedido pagaria entregue sozinho; base do rateio do custo da rota
+        long getFreteIsoladoCentavos() {
+            return PizzariaService.calcularFreteCentavos(destino.distanciaDaLojaKm(), pedido.getNumPizzas(), pedido.getNumBebidas());
+        }
+    }
+
+    /**
+     * NOVO: Uma saída de entregador: paradas na ordem de visita, a partir da pizzaria.
+     * Como no frete por pedido, conta-se só a ida (loja → última parada). Custo = percurso × custo por km + peso total.
+     */
+    public static final class RotaEntrega {
+        private final int id;
+        private final List<Parada> paradas = new ArrayList<>();
+        private long peso;
+        private double km;
+
+        RotaEntrega(int id) {
+            this.id = id;
+        }
+
+        public int getId() { return id; }
+        public double getKm() { return km; }
+        public long getPeso() { return peso; }
+        public int getNumParadas() { return paradas.size(); }
+
+        public List<Pedido> getPedidos() {
+            List<Pedido> pedidos = new ArrayList<>(paradas.size());
+            for (Parada parada : paradas) pedidos.add(parada.pedido);
+            return pedidos;
+        }
+
+        public long getCustoCentavos() {
+            return PizzariaService.custoDistanciaCentavos(km) + peso;
+        }
+
+        /**
+         * Divide o custo da rota entre os pedidos, na ordem das paradas, proporcionalmente ao frete isolado de cada um.
+         * O arredondamento é feito sobre as somas acumuladas, então as parcelas fecham exatamente o custo da rota.
+         */
+        public long[] ratearFreteCentavos() {
+            long custo = getCustoCentavos();
+            long total = 0;
+            for (Parada parada : paradas) total += parada.getFreteIsoladoCentavos();
+            long[] parcelas = new long[paradas.size()];
+            long acumulado = 0, anterior = 0;
+            for (int i = 0; i < parcelas.length; i++) {
+                acumulado += paradas.get(i).getFreteIsoladoCentavos();
+                long ate = total == 0 ? custo * (i + 1) / parcelas.length : Math.round((double) custo * acumulado / total);
+                parcelas[i] = ate - anterior;
+                anterior = ate;
+            }
+            return parcelas;
+        }
+
+        private Coordenada posicao(int indice) {
+            return indice < 0 ? Coordenada.LOJA : paradas.get(indice).destino;
+        }
+
+        // Km a mais para visitar o destino entre as paradas indice-1 e indice (indice == tamanho: ao final)
+        double acrescimoKm(int indice, Coordenada destino) {
+            Coordenada anterior = posicao(indice - 1);
+            double acrescimo = anterior.distanciaKm(destino);
+            if (indice < paradas.size()) {
+                Coordenada seguinte = paradas.get(indice).destino;
+                acrescimo += destino.distanciaKm(seguinte) - anterior.distanciaKm(seguinte);
+            }
+            return acrescimo;
+        }
+
+        void inserir(int indice, Parada parada, double acrescimoKm) {
+            paradas.add(indice, parada);
+            peso += parada.peso;
+            km += acrescimoKm;
+        }
+
+        Parada remover(int indice) {
+            Parada removida = paradas.remove(indice);
+            peso -= removida.peso;
+            km = 0;
+            for (int i = 0; i < paradas.size(); i++) km += posicao(i - 1).distanciaKm(paradas.get(i).destino);
+            return removida;
+        }
+
+        int indiceDe(int idPedido) {
+            for (int i = 0; i < paradas.size(); i++) {
+                if (paradas.get(i).pedido.getId() == idPedido) return i;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * NOVO: Motor de despacho incremental. Cada pedido pronto entra na rota aberta onde custa menos km
+     * (inserção mais barata na sequência de paradas), respeitando a capacidade do entregador e o percurso máximo;
+     * se nenhuma servir, abre uma rota nova. Só as rotas com alguma parada nas células vizinhas de uma grade
+     * (lado = raio de agrupamento) são avaliadas, então replanejar um pedido não depende do total de pedidos abertos.
+     * Não é seguro para uso concorrente: o despacho é conduzido por uma única thread.
+     */
+    static final class MotorDespacho {
+        private final long capacidadePeso;
+        private final double raioKm;
+        private final double maxKmRota;
+        private final Map<Integer, RotaEntrega> rotas = new java.util.LinkedHashMap<>();
+        private final Map<Integer, RotaEntrega> rotaDoPedido = new HashMap<>();
+        private final Map<Long, List<RotaEntrega>> grade = new HashMap<>();
+        private int proximoIdRota = 1;
+
+        MotorDespacho(long capacidadePeso, double raioKm, double maxKmRota) {
+            if (capacidadePeso <= 0 || raioKm <= 0 || maxKmRota <= 0) {
+                throw new IllegalArgumentException("Capacidade, raio e percurso máximo devem ser positivos.");
+            }
+            this.capacidadePeso = capacidadePeso;
+            this.raioKm = raioKm;
+            this.maxKmRota = maxKmRota;
+        }
+
+        /** Planeja a entrega de um pedido pronto; retorna a rota em que ele entrou. */
+        RotaEntrega adicionar(Pedido pedido, Coordenada destino) {
+            if (rotaDoPedido.containsKey(pedido.getId())) {
+                throw new IllegalArgumentException("Pedido ID " + pedido.getId() + " já está em uma rota.");
+            }
+            Parada parada = new Parada(pedido, destino);
+            if (parada.peso > capacidadePeso) {
+                throw new IllegalArgumentException("Pedido ID " + pedido.getId() + " excede a capacidade de um entregador.");
+            }
+            RotaEntrega melhor = null;
+            int melhorIndice = 0;
+            double melhorAcrescimo = Double.MAX_VALUE;
+            long cx = celula(destino.getXKm()), cy = celula(destino.getYKm());
+            for (long dx = -1; dx <= 1; dx++) {
+                for (long dy = -1; dy <= 1; dy++) {
+                    List<RotaEntrega> vizinhas = grade.get(chave(cx + dx, cy + dy));
+                    if (vizinhas == null) continue;
+                    for (RotaEntrega rota : vizinhas) {
+                        if (rota.getPeso() + parada.peso > capacidadePeso) continue;
+                        for (int i = 0; i <= rota.getNumParadas(); i++) {
+                            double acrescimo = rota.acrescimoKm(i, destino);
+                            if (rota.getKm() + acrescimo > maxKmRota) continue;
+                            // Desempate pelo id da rota: o plano não depende da ordem de iteração da grade
+                            if (acrescimo < melhorAcrescimo || (acrescimo == melhorAcrescimo && rota.getId() < melhor.getId())) {
+                                melhor = rota;
+                                melhorIndice = i;
+                                melhorAcrescimo = acrescimo;
+                            }
+                        }
+                    }
+                }
+            }
+            if (melhor == null) {
+                melhor = new RotaEntrega(proximoIdRota++);
+                rotas.put(melhor.getId(), melhor);
+                melhorAcrescimo = destino.distanciaDaLojaKm();
+            }
+            desindexar(melhor);
+            melhor.inserir(melhorIndice, parada, melhorAcrescimo);
+            indexar(melhor);
+            rotaDoPedido.put(pedido.getId(), melhor);
+            return melhor;
+        }
+
+        /** Tira um pedido do plano (ex.: cancelado); a rota restante mantém a ordem das demais paradas. */
+        boolean remover(int idPedido) {
+            RotaEntrega rota = rotaDoPedido.remove(idPedido);
+            if (rota == null) return false;
+            desindexar(rota);
+            rota.remover(rota.indiceDe(idPedido));
+            if (rota.getNumParadas() == 0) rotas.remove(rota.getId());
+            else indexar(rota);
+            return true;
+        }
+
+        /** O entregador saiu: a rota deixa de receber pedidos. */
+        RotaEntrega despachar(int idRota) {
+            RotaEntrega rota = rotas.remove(idRota);
+            if (rota == null) throw new IllegalArgumentException("Rota ID " + idRota + " não está aberta.");
+            desindexar(rota);
+            for (Pedido pedido : rota.getPedidos()) rotaDoPedido.remove(pedido.getId());
+            return rota;
+        }
+
+        List<RotaEntrega> getRotas() {
+            return new ArrayList<>(rotas.values());
+        }
+
+        int getNumPedidos() {
+            return rotaDoPedido.size();
+        }
+
+        private long celula(double km) {
+            return (long) Math.floor(km / raioKm);
+        }
+
+        private static long chave(long cx, long cy) {
+            return (cx << 32) ^ (cy & 0xFFFFFFFFL);
+        }
+
+        private void indexar(RotaEntrega rota) {
+            for (Parada parada : rota.paradas) {
+                List<RotaEntrega> naCelula = grade.computeIfAbsent(
+                        chave(celula(parada.destino.getXKm()), celula(parada.destino.getYKm())), _ -> new ArrayList<>(2));
+                if (!naCelula.contains(rota)) naCelula.add(rota);
+            }
+        }
+
+        private void desindexar(RotaEntrega rota) {
+            for (Parada parada : rota.paradas) {
+                long chave = chave(celula(parada.destino.getXKm()), celula(parada.destino.getYKm()));
+                List<RotaEntrega> naCelula = grade.get(chave);
+                if (naCelula == null) continue;
+                naCelula.remove(rota);
+                if (naCelula.isEmpty()) grade.remove(chave);
+            }
+        }
+    }
+
+    // --- DISTÂNCIAS DE ENTREGA (endereço → km, com cache) ---
+
+    // NOVO: Fonte de distâncias a partir do endereço do cliente (geocodificador, serviço de mapas...).
+    // Lança IllegalArgumentException quando o endereço não pode ser localizado.
+    public interface ResolvedorDistancia {
+        double distanciaKm(String endereco);
+    }
+
+    /**
+     * NOVO: Substituto local e determinístico de um geocodificador: a rua define o bairro (0,5 a 8 km da loja,
+     * por um hash estável do nome normalizado) e o número desloca até 500 m. A latência opcional imita uma consulta remota.
+     */
+    static final class GeocodificadorLocal implements ResolvedorDistancia {
+        private final long latenciaNanos;
+
+        GeocodificadorLocal(long latenciaNanos) {
+            this.latenciaNanos = latenciaNanos;
+        }
+
+        @Override
+        public double distanciaKm(String endereco) {
+            String normalizado = CacheDistancias.normalizarEndereco(endereco);
+            int numero = 0;
+            StringBuilder rua = new StringBuilder();
+            for (String parte : normalizado.split(" ")) {
+                if (numero == 0 && !parte.isEmpty() && parte.chars().allMatch(Character::isDigit) && parte.length() <= 6) {
+                    numero = Integer.parseInt(parte);
+                } else if (numero == 0) {
+                    if (rua.length() > 0) rua.append(' ');
+                    rua.append(parte);
+                }
+            }
+            if (rua.length() == 0) throw new IllegalArgumentException("Endereço não localizado: '" + endereco + "'.");
+            if (latenciaNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(latenciaNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrompido localizando '" + endereco + "'.");
+                }
+            }
+            CRC32C hash = new CRC32C();
+            hash.update(rua.toString().getBytes(StandardCharsets.UTF_8));
+            long metros = 500 + hash.getValue() % 7_500 + numero % 500;
+            return Math.round(metros / 100.0) / 10.0; // Uma casa decimal, como o operador digitava
+        }
+    }
+
+    /**
+     * NOVO: Cache de distâncias na frente de um ResolvedorDistancia, com chave no endereço normalizado.
+     * Limitado em entradas (descarta a usada há mais tempo, LRU) e com validade (TTL), para que
+     * mudanças de endereço ou de mapa acabem refletidas. Consultas à origem acontecem fora da trava;
+     * duas falhas simultâneas para o mesmo endereço podem consultar a origem duas vezes.
+     */
+    static final class CacheDistancias implements ResolvedorDistancia {
+        private static final class Entrada {
+            final double km;
+            final long validaAte;
+
+            Entrada(double km, long validaAte) {
+                this.km = km;
+                this.validaAte = validaAte;
+            }
+        }
+
+        private final ResolvedorDistancia origem;
+        private final long validadeNanos;
+        private final Relogio relogio;
+        private final java.util.LinkedHashMap<String, Entrada> entradas;
+        private final LongAdder acertos = new LongAdder();
+        private final LongAdder falhas = new LongAdder();
+        private final LongAdder expiradas = new LongAdder();
+        private final LongAdder descartadas = new LongAdder();
+        private final LongAdder nanosAcertos = new LongAdder();
+        private final LongAdder nanosFalhas = new LongAdder();
+        private final AtomicLong nanosFalhaMaxima = new AtomicLong();
+
+        CacheDistancias(ResolvedorDistancia origem, int capacidade, long validadeNanos, Relogio relogio) {
+            if (capacidade <= 0 || validadeNanos <= 0) throw new IllegalArgumentException("Capacidade e validade devem ser positivas.");
+            this.origem = origem;
+            this.validadeNanos = validadeNanos;
+            this.relogio = relogio;
+            this.entradas = new java.util.LinkedHashMap<>(16, 0.75f, true) { // Ordem de acesso: o mais antigo é o LRU
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entrada> maisAntiga) {
+                    if (size() <= capacidade) return false;
+                    descartadas.increment();
+                    return true;
+                }
+            };
+        }
+
+        // Mesma normalização da busca de clientes, tratando vírgulas e pontos como espaços ("R. X, 10" = "r x 10")
+        static String normalizarEndereco(String endereco) {
+            return RepositorioClientes.normalizarNome(endereco.replace(',', ' ').replace('.', ' '));
+        }
+
+        @Override
+        public double distanciaKm(String endereco) {
+            long inicio = System.nanoTime();
+            String chave = normalizarEndereco(endereco);
+            synchronized (entradas) {
+                Entrada entrada = entradas.get(chave);
+                if (entrada != null && entrada.validaAte - relogio.agoraNanos() > 0) {
+                    acertos.increment();
+                    nanosAcertos.add(System.nanoTime() - inicio);
+                    return entrada.km;
+                }
+                if (entrada != null) {
+                    entradas.remove(chave);
+                    expiradas.increment();
+                }
+            }
+            double km = origem.distanciaKm(endereco);
+            synchronized (entradas) {
+                entradas.put(chave, new Entrada(km, relogio.agoraNanos() + validadeNanos));
+            }
+            long nanos = System.nanoTime() - inicio;
+            falhas.increment();
+            nanosFalhas.add(nanos);
+            nanosFalhaMaxima.accumulateAndGet(nanos, Math::max);
+            return km;
+        }
+
+        /**
+         * Guarda uma distância digitada pelo operador, que passa a valer para o endereço. A mesma distância que o cache
+         * já tem não renova a entrada: repetir o valor resolvido não pode adiar a expiração indefinidamente.
+         */
+        void registrar(String endereco, double km) {
+            PizzariaService.validarDistancia(km);
+            String chave = normalizarEndereco(endereco);
+            long agora = relogio.agoraNanos();
+            synchronized (entradas) {
+                Entrada atual = entradas.get(chave);
+                if (atual != null && atual.km == km && atual.validaAte - agora > 0) return;
+                entradas.put(chave, new Entrada(km, agora + validadeNanos));
+            }
+        }
+
+        /**
+         * Preenche o cache com as distâncias dos pedidos já feitos; o pedido mais recente de cada endereço prevalece.
+         * Cada entrada vale pelo que resta da validade contada da criação do pedido; pedidos mais antigos que ela ficam de fora.
+         */
+        int aquecer(Iterable<Pedido> pedidos, long agoraMillis) {
+            long agora = relogio.agoraNanos();
+            for (Pedido pedido : pedidos) {
+                long idadeNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(agoraMillis - pedido.getCriadoEmMillis(), 0));
+                if (pedido.getDistanciaKm() < 0 || idadeNanos >= validadeNanos) continue;
+                String chave = normalizarEndereco(pedido.getCliente().getEndereco());
+                synchronized (entradas) {
+                    entradas.put(chave, new Entrada(pedido.getDistanciaKm(), agora + validadeNanos - idadeNanos));
+                }
+            }
+            return getTamanho();
+        }
+
+        int getTamanho() {
+            synchronized (entradas) {
+                return entradas.size();
+            }
+        }
+
+        long getAcertos() { return acertos.sum(); }
+        long getFalhas() { return falhas.sum(); }
+        long getExpiradas() { return expiradas.sum(); }
+        long getDescartadas() { return descartadas.sum(); }
+
+        double getTaxaAcerto() {
+            long a = acertos.sum(), total = a + falhas.sum();
+            return total == 0 ? 0 : (double) a / total;
+        }
+
+        void imprimirMetricas(PrintStream saida) {
+            long a = acertos.sum(), f = falhas.sum();
+            saida.printf("Cache de distâncias: %d endereços, %d consultas, acerto %.1f%% (%d acertos, %d falhas, %d expiradas, %d descartadas)%n",
+                getTamanho(), a + f, 100 * getTaxaAcerto(), a, f, expiradas.sum(), descartadas.sum());
+            saida.printf("Latência: acerto %.2f µs em média; falha %.2f ms em média, %.2f ms no máximo%n",
+                a == 0 ? 0.0 : nanosAcertos.sum() / 1e3 / a, f == 0 ? 0.0 : nanosFalhas.sum() / 1e6 / f, nanosFalhaMaxima.get() / 1e6);
+        }
+    }
+
+    // --- EXPORTAÇÃO (CSV / JSON por linha para ferramentas de BI) ---
+
+    /**
+     * NOVO: Exportação em fluxo. Cada registro é codificado direto num buffer reutilizado, gravado com FileChannel
+     * quando enche. Números e textos são escritos byte a byte (UTF-8), sem String.format nem objetos por linha,
+     * então a memória usada não depende do número de pedidos. O formato vem da extensão (.jsonl/.json ou CSV).
+     * A listagem em JSON por linha usa os mesmos campos da importação, podendo ser reimportada.
+     */
+    static final class ExportadorVendas implements Closeable {
+        enum Formato { CSV, JSONL }
+
+        private static final int TAMANHO_BUFFER = 1 << 18;
+        private static final int MAX_BYTES_CARACTERE = 6; // Pior caso: caractere de controle escapado em JSON (6 bytes)
+
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+        private final Formato formato;
+        private long bytesGravados;
+
+        ExportadorVendas(Path arquivo) throws IOException {
+            String nome = arquivo.getFileName().toString().toLowerCase();
+            this.formato = nome.endsWith(".jsonl") || nome.endsWith(".json") ? Formato.JSONL : Formato.CSV;
+            this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        Formato getFormato() { return formato; }
+        long getBytesGravados() { return bytesGravados + buffer.position(); }
+
+        void cabecalhoPedidos() throws IOException {
+            if (formato == Formato.CSV) ascii("id,cliente,nome_cliente,distancia_km,pizzas,bebidas,frete_centavos,total_centavos\n");
+        }
+
+        // Lido sob o monitor do pedido: itens e totais saem de um mesmo estado, sem copiar o pedido
+        void pedido(Pedido pedido) throws IOException {
+            synchronized (pedido) {
+                if (formato == Formato.CSV) pedidoCsv(pedido);
+                else pedidoJson(pedido);
+            }
+        }
+
+        private void pedidoCsv(Pedido pedido) throws IOException {
+            inteiro(pedido.getId());
+            caractere(',');
+            inteiro(pedido.getCliente().getId());
+            caractere(',');
+            texto(pedido.getCliente().getNome());
+            caractere(',');
+            decimal(pedido.getDistanciaKm());
+            caractere(',');
+            for (int i = 0; i < pedido.getNumPizzas(); i++) { // Mesmo formato da importação: TAMANHO:SABOR+SABOR;...
+                Pizza pizza = pedido.getPizza(i);
+                if (i > 0) caractere(';');
+                ascii(pizza.getTamanho().name());
+                caractere(':');
+                List<Sabor> sabores = pizza.getSabores();
+                for (int j = 0; j < sabores.size(); j++) {
+                    if (j > 0) caractere('+');
+                    ascii(sabores.get(j).name());
+                }
+            }
+            caractere(',');
+            for (int i = 0; i < pedido.getNumBebidas(); i++) {
+                if (i > 0) caractere(';');
+                ascii(pedido.getBebida(i).name());
+            }
+            caractere(',');
+            inteiro(pedido.getFreteCentavos());
+            caractere(',');
+            inteiro(pedido.getValorTotalCentavos());
+            caractere('\n');
+        }
+
+        private void pedidoJson(Pedido pedido) throws IOException {
+            ascii("{\"id\":");
+            inteiro(pedido.getId());
+            ascii(",\"cliente\":");
+            inteiro(pedido.getCliente().getId());
+            ascii(",\"nomeCliente\":");
+            texto(pedido.getCliente().getNome());
+            ascii(",\"distanciaKm\":");
+            decimal(pedido.getDistanciaKm());
+            ascii(",\"pizzas\":[");
+            for (int i = 0; i < pedido.getNumPizzas(); i++) {
+                Pizza pizza = pedido.getPizza(i);
+                if (i > 0) caractere(',');
+                ascii("{\"tamanho\":\"");
+                ascii(pizza.getTamanho().name());
+                ascii("\",\"sabores\":[");
+                List<Sabor> sabores = pizza.getSabores();
+                for (int j = 0; j < sabores.size(); j++) {
+                    if (j > 0) caractere(',');
+                    caractere('"');
+                    ascii(sabores.get(j).name());
+                    caractere('"');
+                }
+                ascii("]}");
+            }
+            ascii("],\"bebidas\":[");
+            for (int i = 0; i < pedido.getNumBebidas(); i++) {
+                if (i > 0) caractere(',');
+                caractere('"');
+                ascii(pedido.getBebida(i).name());
+                caractere('"');
+            }
+            ascii("],\"freteCentavos\":");
+            inteiro(pedido.getFreteCentavos());
+            ascii(",\"totalCentavos\":");
+            inteiro(pedido.getValorTotalCentavos());
+            ascii("}\n");
+        }
+
+        void cabecalhoRelatorio() throws IOException {
+            if (formato == Formato.CSV) ascii("secao,chave,valor\n");
+        }
+
+        // Uma linha do relatório: seção (faturamento, sabor, bebida, conexao), chave ASCII e valor inteiro
+        void itemRelatorio(String secao, String chave, String chave2, long valor) throws IOException {
+            if (formato == Formato.CSV) {
+                ascii(secao);
+                caractere(',');
+                ascii(chave);
+                if (chave2 != null) {
+                    caractere('+');
+                    ascii(chave2);
+                }
+                caractere(',');
+            } else {
+                ascii("{\"secao\":\"");
+                ascii(secao);
+                ascii("\",\"chave\":\"");
+                ascii(chave);
+                if (chave2 != null) {
+                    caractere('+');
+                    ascii(chave2);
+                }
+                ascii("\",\"valor\":");
+            }
+            inteiro(valor);
+            if (formato == Formato.JSONL) caractere('}');
+            caractere('\n');
+        }
+
+        // --- Codificação direta no buffer ---
+
+        private void garantir(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) esvaziar();
+        }
+
+        private void esvaziar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) bytesGravados += canal.write(buffer);
+            buffer.clear();
+        }
+
+        private void caractere(char c) throws IOException {
+            garantir(1);
+            buffer.put((byte) c);
+        }
+
+        // Constantes e nomes de enum: só ASCII, sem escape
+        private void ascii(String texto) throws IOException {
+            garantir(texto.length());
+            for (int i = 0; i < texto.length(); i++) buffer.put((byte) texto.charAt(i));
+        }
+
+        private void inteiro(long valor) throws IOException {
+            garantir(20);
+            if (valor < 0) {
+                buffer.put((byte) '-');
+                if (valor == Long.MIN_VALUE) { // Sem simétrico positivo
+                    ascii("9223372036854775808");
+                    return;
+                }
+                valor = -valor;
+            }
+            int inicio = buffer.position();
+            do {
+                buffer.put((byte) ('0' + valor % 10));
+                valor /= 10;
+            } while (valor != 0);
+            for (int i = inicio, j = buffer.position() - 1; i < j; i++, j--) { // Dígitos saíram do menos significativo
+                byte b = buffer.get(i);
+                buffer.put(i, buffer.get(j));
+                buffer.put(j, b);
+            }
+        }
+
+        // Até 3 casas decimais, sem zeros à direita (5.3, 12, 0.125)
+        private void decimal(double valor) throws IOException {
+            long milesimos = Math.round(valor * 1000);
+            if (milesimos < 0) {
+                caractere('-');
+                milesimos = -milesimos;
+            }
+            inteiro(milesimos / 1000);
+            int fracao = (int) (milesimos % 1000);
+            if (fracao == 0) return;
+            caractere('.');
+            garantir(3);
+            for (int divisor = 100; fracao != 0; divisor /= 10) {
+                buffer.put((byte) ('0' + fracao / divisor));
+                fracao %= divisor;
+            }
+        }
+
+        // Texto livre entre aspas, em UTF-8, com o escape do formato (CSV: aspas dobradas; JSON: barra invertida)
+        private void texto(String texto) throws IOException {
+            caractere('"');
+            for (int i = 0; i < texto.length(); i++) {
+                garantir(MAX_BYTES_CARACTERE);
+                char c = texto.charAt(i);
+                if (c == '"') {
+                    buffer.put(formato == Formato.CSV ? (byte) '"' : (byte) '\\').put((byte) '"');
+                } else if (formato == Formato.JSONL && (c == '\\' || c < 0x20)) {
+                    if (c == '\\') {
+                        buffer.put((byte) '\\').put((byte) '\\');
+                    } else {
+                        buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                            .put((byte) Character.forDigit(c >> 4, 16)).put((byte) Character.forDigit(c & 0xF, 16));
+                    }
+                } else if (c < 0x80) {
+                    buffer.put((byte) c);
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < texto.length() && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                    int ponto = Character.toCodePoint(c, texto.charAt(++i));
+                    buffer.put((byte) (0xF0 | ponto >> 18)).put((byte) (0x80 | ponto >> 12 & 0x3F))
+                        .put((byte) (0x80 | ponto >> 6 & 0x3F)).put((byte) (0x80 | ponto & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buffer.put((byte) '?'); // Metade de par substituto: inválido em UTF-8
+                } else {
+                    buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+                }
+            }
+            caractere('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                esvaziar();
+            } finally {
+                canal.close();
+            }
+        }
+    }
+
+    // --- PERSISTÊNCIA (Diário + Fotos do estado) ---
+
+    // NOVO: Quando o diário força os dados ao disco
+    public enum PoliticaSync {
+        SEMPRE,    // Cada mutação só retorna após o fsync (mutações simultâneas compartilham o mesmo fsync)
+        INTERVALO, // fsync periódico em segundo plano; uma queda perde no máximo o último intervalo
+        NUNCA      // Apenas entrega ao sistema operacional, que decide quando gravar
+    }
+
+    // NOVO: Diário (write-ahead log) binário e somente-anexação das mutações de clientes e pedidos.
+    // Cada registro é codificado fora da trava num buffer da própria thread e copiado para um buffer
+    // compartilhado; uma thread escritora grava o lote inteiro com um único write + fsync (group commit).
+    // Formato do registro: [int tamanho][int crc32c][long seq][byte tipo][carga].
+    public static class DiarioOperacoes implements Closeable {
+        static final byte CLIENTE = 1;
+        static final byte PEDIDO_CRIADO = 2;
+        static final byte PIZZA_ADICIONADA = 3;
+        static final byte PIZZA_REMOVIDA = 4;
+        static final byte SABOR_ALTERADO = 5;
+        static final byte BEBIDA_ADICIONADA = 6;
+        static final byte BEBIDA_REMOVIDA = 7;
+        static final byte PEDIDOS_ARQUIVADOS = 8;
+        static final byte CATALOGO = 9; // NOVO: Nova versão do catálogo de preços
+
+        // NOVO: Versão do formato binário compartilhado pelo diário e pelas fotos. Só ela é lida: arquivos de
+        // outra versão são recusados, em vez de lidos num layout errado.
+        static final int VERSAO_FORMATO = 6;
+        // Cada segmento começa com mágica + versão
+        static final int MAGICA_SEGMENTO = 0x505A4449; // "PZDI"
+        static final int CABECALHO_SEGMENTO = 4 + 4;
+        static final int CABECALHO = 4 + 4 + 8 + 1;
+        private static final int CAPACIDADE_BUFFER = 1 << 20;
+        private static final ThreadLocal<ByteBuffer> RASCUNHO =
+                ThreadLocal.withInitial(() -> ByteBuffer.allocate(64 * 1024));
+
+        private final Path diretorio;
+        private final PoliticaSync politica;
+        private final long intervaloNanos;
+        private final ReentrantLock trava = new ReentrantLock();
+        private final Condition temDados = trava.newCondition();
+        private final Condition gravado = trava.newCondition();
+        private final CRC32C crc = new CRC32C();
+        private final Thread escritor;
+
+        // Estado protegido pela trava
+        private ByteBuffer ativo = ByteBuffer.allocateDirect(CAPACIDADE_BUFFER);
+        private ByteBuffer emGravacao = ByteBuffer.allocateDirect(CAPACIDADE_BUFFER);
+        private FileChannel canal;
+        private long inicioSegmento;
+        private long ultimaSeq;
+        private long seqGravada;
+        private boolean gravando;
+        private boolean gravacaoSolicitada;
+        private boolean fechado;
+        private IOException falha;
+        private long registrosDesdeFoto;
+        private long limiteFoto = Long.MAX_VALUE;
+        private Runnable gatilhoFoto = () -> { };
+
+        public DiarioOperacoes(Path diretorio, PoliticaSync politica, long intervaloMs, long ultimaSeqRecuperada) throws IOException {
+            this.diretorio = diretorio;
+            this.politica = politica;
+            this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, intervaloMs));
+            this.ultimaSeq = ultimaSeqRecuperada;
+            this.seqGravada = ultimaSeqRecuperada;
+            abrirSegmento(ultimaSeqRecuperada + 1);
+            this.escritor = new Thread(this::executarEscritor, "diario-escritor");
+            this.escritor.setDaemon(true);
+            this.escritor.start();
+        }
+
+        static Path arquivoSegmento(Path diretorio, long inicio) {
+            return diretorio.resolve(String.format("diario-%020d.log", inicio));
+        }
+
+        private void abrirSegmento(long inicio) throws IOException {
+            canal = FileChannel.open(arquivoSegmento(diretorio, inicio),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO_SEGMENTO).putInt(MAGICA_SEGMENTO).putInt(VERSAO_FORMATO).flip();
+            while (cabecalho.hasRemaining()) canal.write(cabecalho);
+            inicioSegmento = inicio;
+        }
+
+        // Dispara a ação (ex.: agendar uma foto) sempre que o número de registros desde a última foto atingir o limite
+        void definirGatilhoFoto(long registros, Runnable acao) {
+            trava.lock();
+            try {
+                this.limiteFoto = registros;
+                this.gatilhoFoto = acao;
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        /** Anexa um registro ao buffer e devolve seu número de sequência, sem esperar a gravação. */
+        public long anexar(byte tipo, Consumer<ByteBuffer> codificador) {
+            ByteBuffer carga = RASCUNHO.get();
+            carga.clear();
+            try {
+                codificador.accept(carga);
+            } catch (BufferOverflowException e) {
+                throw new IllegalArgumentException("Registro grande demais para o diário.");
+            }
+            carga.flip();
+            int tamanho = CABECALHO + carga.remaining();
+
+            trava.lock();
+            try {
+                verificarDisponivel();
+                while (ativo.remaining() < tamanho) {
+                    // Buffer cheio: pede gravação imediata e espera a troca de buffers
+                    gravacaoSolicitada = true;
+                    temDados.signal();
+                    gravado.awaitUninterruptibly();
+                    verificarDisponivel();
+                }
+                long seq = ++ultimaSeq;
+                int inicio = ativo.position();
+                ativo.putInt(tamanho - 4).putInt(0).putLong(seq).put(tipo).put(carga);
+                crc.reset();
+                crc.update(ativo.slice(inicio + 8, tamanho - 8));
+                ativo.putInt(inicio + 4, (int) crc.getValue());
+                temDados.signal();
+                if (++registrosDesdeFoto == limiteFoto) gatilhoFoto.run();
+                return seq;
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        /** Com a política SEMPRE, bloqueia até o registro estar no disco; nas demais retorna de imediato. */
+        public void aguardarGravacao(long seq) {
+            if (politica != PoliticaSync.SEMPRE) return;
+            trava.lock();
+            try {
+                while (seqGravada < seq) {
+                    verificarDisponivel();
+                    gravacaoSolicitada = true;
+                    temDados.signal();
+                    gravado.awaitUninterruptibly();
+                }
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        private void verificarDisponivel() {
+            if (falha != null) throw new UncheckedIOException("Falha ao gravar o diário.", falha);
+            if (fechado) throw new IllegalStateException("O diário está fechado.");
+        }
+
+        private void executarEscritor() {
+            while (true) {
+                long alvo;
+                FileChannel destino;
+                trava.lock();
+                try {
+                    long espera = intervaloNanos;
+                    while (!fechado && !gravacaoSolicitada && (ativo.position() == 0 || politica != PoliticaSync.SEMPRE)) {
+                        if (ativo.position() > 0 && espera <= 0) break; // Intervalo vencido com dados pendentes
+                        espera = ativo.position() == 0 ? intervaloNanos : espera;
+                        try {
+                            espera = temDados.awaitNanos(espera);
+                        } catch (InterruptedException e) {
+                            fechado = true;
+                        }
+                    }
+                    gravacaoSolicitada = false;
+                    if (ativo.position() == 0) {
+                        gravado.signalAll();
+                        if (fechado) return;
+                        continue;
+                    }
+                    ByteBuffer cheio = ativo;
+                    ativo = emGravacao;
+                    emGravacao = cheio;
+                    alvo = ultimaSeq;
+                    destino = canal;
+                    gravando = true;
+                } finally {
+                    trava.unlock();
+                }
+
+                IOException erro = null;
+                try {
+                    emGravacao.flip();
+                    while (emGravacao.hasRemaining()) destino.write(emGravacao);
+                    if (politica != PoliticaSync.NUNCA) destino.force(false);
+                } catch (IOException e) {
+                    erro = e;
+                } finally {
+                    emGravacao.clear();
+                }
+
+                trava.lock();
+                try {
+                    gravando = false;
+                    if (erro != null) falha = erro;
+                    else seqGravada = alvo;
+                    gravado.signalAll();
+                } finally {
+                    trava.unlock();
+                }
+            }
+        }
+
+        // Grava tudo o que está pendente, independentemente da política
+        private void descarregar() {
+            while (ativo.position() > 0 || gravando) {
+                verificarDisponivel();
+                gravacaoSolicitada = true;
+                temDados.signal();
+                gravado.awaitUninterruptibly();
+            }
+        }
+
+        /**
+         * Fecha o segmento atual e inicia um novo a partir da próxima sequência.
+         * Deve ser chamado com as escritas pausadas; devolve a última sequência do segmento fechado.
+         */
+        long rotacionar() throws IOException {
+            trava.lock();
+            try {
+                descarregar();
+                registrosDesdeFoto = 0;
+                if (ultimaSeq + 1 != inicioSegmento) { // Segmento atual vazio: nada a rotacionar
+                    canal.force(true);
+                    canal.close();
+                    abrirSegmento(ultimaSeq + 1);
+                }
+                return ultimaSeq;
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        long getUltimaSeq() {
+            trava.lock();
+            try {
+                return ultimaSeq;
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            trava.lock();
+            try {
+                if (fechado) return;
+                if (falha == null) descarregar();
+                fechado = true;
+                temDados.signal();
+            } finally {
+                trava.unlock();
+            }
+            try {
+                escritor.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            canal.force(true);
+            canal.close();
+        }
+
+        // --- Codificação binária compartilhada pelo diário e pelas fotos ---
+
+        static void escreverTexto(ByteBuffer b, String texto) {
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            b.putInt(bytes.length).put(bytes);
+        }
+
+        static String lerTexto(ByteBuffer b) {
+            byte[] bytes = new byte[b.getInt()];
+            b.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        static void escreverCliente(ByteBuffer b, Cliente cliente) {
+            b.putInt(cliente.getId());
+            escreverTexto(b, cliente.getNome());
+            escreverTexto(b, cliente.getEndereco());
+            escreverTexto(b, cliente.getTelefone());
+            escreverTexto(b, cliente.getEmail());
+        }
+
+        static void escreverPizza(ByteBuffer b, Pizza pizza) {
+            List<Sabor> sabores = pizza.getSabores();
+            b.put((byte) pizza.getTamanho().ordinal()).put((byte) sabores.size());
+            for (Sabor s : sabores) b.put((byte) s.ordinal());
+        }
+
+        static Pizza lerPizza(ByteBuffer b) {
+            Pizza.TamanhoPizza tamanho = Pizza.TamanhoPizza.getByIndex(b.get());
+            int quantidade = b.get();
+            List<Sabor> sabores = new ArrayList<>(quantidade);
+            for (int i = 0; i < quantidade; i++) sabores.add(Sabor.fromIndex(b.get()));
+            return Pizza.de(sabores, tamanho);
+        }
+
+        static void escreverCatalogo(ByteBuffer b, CatalogoPrecos catalogo) {
+            b.putInt(catalogo.getVersao()).put((byte) Sabor.values().length);
+            for (Sabor sabor : Sabor.values()) b.putLong(catalogo.getPrecoSabor(sabor));
+            b.put((byte) Bebida.values().length);
+            for (Bebida bebida : Bebida.values()) b.putLong(catalogo.getPrecoBebida(bebida));
+        }
+
+        static void lerCatalogo(ByteBuffer b, PizzariaService servico) {
+            int versao = b.getInt();
+            long[] sabores = new long[b.get()];
+            for (int i = 0; i < sabores.length; i++) sabores[i] = b.getLong();
+            long[] bebidas = new long[b.get()];
+            for (int i = 0; i < bebidas.length; i++) bebidas[i] = b.getLong();
+            try {
+                servico.restaurarCatalogo(new CatalogoPrecos(versao, sabores, bebidas));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Catálogo de preços v" + versao + " incompatível: " + e.getMessage());
+            }
+        }
+
+        static void escreverPedido(ByteBuffer b, Pedido pedido) {
+            b.putInt(pedido.getId()).putInt(pedido.getCliente().getId()).putDouble(pedido.getDistanciaKm());
+            b.putLong(pedido.getCriadoEmMillis()).putInt(pedido.getCatalogo().getVersao());
+            b.putInt(pedido.getPizzas().size());
+            for (Pizza pizza : pedido.getPizzas()) escreverPizza(b, pizza);
+            b.putInt(pedido.getBebidas().size());
+            for (Bebida bebida : pedido.getBebidas()) b.put((byte) bebida.ordinal());
+        }
+
+        static void lerPedido(ByteBuffer b, PizzariaService servico) {
+            int id = b.getInt();
+            int idCliente = b.getInt();
+            double distanciaKm = b.getDouble(); // O frete é derivado da distância e dos itens
+            long criadoEmMillis = b.getLong();
+            CatalogoPrecos catalogo = servico.catalogoDaVersao(b.getInt()); // Registrado antes do pedido (foto ou diário)
+            int numPizzas = b.getInt();
+            List<Pizza> pizzas = new ArrayList<>(numPizzas);
+            for (int i = 0; i < numPizzas; i++) pizzas.add(lerPizza(b));
+            int numBebidas = b.getInt();
+            List<Bebida> bebidas = new ArrayList<>(numBebidas);
+            for (int i = 0; i < numBebidas; i++) bebidas.add(Bebida.fromIndex(b.get()));
+            servico.restaurarPedido(id, idCliente, pizzas, bebidas, distanciaKm, criadoEmMillis, catalogo);
+        }
+
+        static void lerCliente(ByteBuffer b, PizzariaService servico) {
+            int id = b.getInt();
+            Cliente cliente = new Cliente(lerTexto(b), lerTexto(b), lerTexto(b), lerTexto(b));
+            servico.restaurarCliente(cliente, id);
+        }
+
+        // NOVO: Totais já arquivados de um cliente (só na foto; os em memória são refeitos com os pedidos)
+        static void escreverTotaisArquivados(ByteBuffer b, int idCliente, TotaisCliente totais) {
+            b.putInt(idCliente).putInt(totais.pedidos).putLong(totais.gastoCentavos).put((byte) totais.sabores.length);
+            for (int contagem : totais.sabores) b.putInt(contagem);
+        }
+
+        static void lerTotaisArquivados(ByteBuffer b, PizzariaService servico) {
+            int idCliente = b.getInt();
+            TotaisCliente totais = new TotaisCliente();
+            totais.pedidos = b.getInt();
+            totais.gastoCentavos = b.getLong();
+            int numSabores = b.get();
+            for (int i = 0; i < numSabores; i++) totais.sabores[i] = b.getInt();
+            Cliente cliente = servico.buscarClientePorId(idCliente)
+                    .orElseThrow(() -> new IllegalStateException("Histórico de cliente inexistente: ID " + idCliente + "."));
+            cliente.getHistorico().restaurarArquivados(totais);
+        }
+    }
+
+    // NOVO: Persistência do serviço: diário de mutações + fotos periódicas do estado completo.
+    // A recuperação carrega a foto mais recente e reaplica apenas o trecho do diário posterior a ela;
+    // cada foto rotaciona o diário e apaga os segmentos já cobertos, limitando o tempo de inicialização.
+    public static class Persistencia implements Closeable {
+        private static final int MAGICA_FOTO = 0x50495A5A; // "PIZZ"
+        private static final byte VERSAO_FOTO = DiarioOperacoes.VERSAO_FORMATO; // Mesmo formato do diário
+        public static final long REGISTROS_POR_FOTO_PADRAO = 100_000;
+
+        private final Path diretorio;
+        private final PizzariaService servico;
+        private final DiarioOperacoes diario;
+        private final ExecutorService executorFotos;
+        private final AtomicBoolean fotoAgendada = new AtomicBoolean();
+        private final AtomicBoolean fechada = new AtomicBoolean();
+
+        private Persistencia(Path diretorio, PizzariaService servico, DiarioOperacoes diario, long registrosPorFoto) {
+            this.diretorio = diretorio;
+            this.servico = servico;
+            this.diario = diario;
+            this.executorFotos = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "persistencia-fotos");
+                t.setDaemon(true);
+                return t;
+            });
+            diario.definirGatilhoFoto(registrosPorFoto, this::agendarFoto);
+        }
+
+        public static Persistencia abrir(Path diretorio, PoliticaSync politica, PizzariaService servico) throws IOException {
+            return abrir(diretorio, politica, 50, REGISTROS_POR_FOTO_PADRAO, servico);
+        }
+
+        /** Recupera o estado do diretório para o serviço (que deve estar vazio) e passa a registrar suas mutações. */
+        public static Persistencia abrir(Path diretorio, PoliticaSync politica, long intervaloSyncMs,
+                                         long registrosPorFoto, PizzariaService servico) throws IOException {
+            Files.createDirectories(diretorio);
+            MetricasServico metricas = servico.getMetricas();
+            servico.anexarMetricas(null); // A recuperação não é tráfego: fica fora das métricas de latência
+            long ultimaSeq;
+            try {
+                ultimaSeq = reaplicarDiario(diretorio, servico, carregarFotoMaisRecente(diretorio, servico));
+            } finally {
+                servico.anexarMetricas(metricas);
+            }
+            // Segmentos iniciados depois do último registro válido só contêm lixo de uma gravação interrompida
+            for (Path segmento : arquivosOrdenados(diretorio, "diario-", ".log")) {
+                if (numeroDoArquivo(segmento.getFileName().toString()) > ultimaSeq) Files.delete(segmento);
+            }
+            DiarioOperacoes diario = new DiarioOperacoes(diretorio, politica, intervaloSyncMs, ultimaSeq);
+            servico.anexarDiario(diario);
+            return new Persistencia(diretorio, servico, diario, registrosPorFoto);
+        }
+
+        private void agendarFoto() {
+            if (fotoAgendada.compareAndSet(false, true)) {
+                executorFotos.execute(() -> {
+                    try {
+                        tirarFoto();
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("ERRO: falha ao gravar a foto do estado: " + e.getMessage());
+                    } finally {
+                        fotoAgendada.set(false);
+                    }
+                });
+            }
+        }
+
+        private static final class EstadoCapturado {
+            final long seq;
+            final int proximoIdPedido;
+            final List<Cliente> clientes;
+            final List<Pedido> pedidos;
+            final Collection<CatalogoPrecos> catalogos; // O vigente e os citados pelos pedidos
+            final Map<Integer, TotaisCliente> arquivadosPorCliente; // Só clientes com pedidos já arquivados
+
+            EstadoCapturado(long seq, int proximoIdPedido, List<Cliente> clientes, List<Pedido> pedidos, CatalogoPrecos vigente) {
+                this.seq = seq;
+                this.proximoIdPedido = proximoIdPedido;
+                this.clientes = clientes;
+                this.pedidos = pedidos;
+                Map<Integer, CatalogoPrecos> citados = new TreeMap<>();
+                citados.put(vigente.getVersao(), vigente);
+                for (Pedido pedido : pedidos) citados.putIfAbsent(pedido.getCatalogo().getVersao(), pedido.getCatalogo());
+                this.catalogos = citados.values();
+                this.arquivadosPorCliente = new TreeMap<>();
+                for (Cliente cliente : clientes) {
+                    TotaisCliente arquivados = cliente.getHistorico().copiarArquivados();
+                    if (!arquivados.vazio()) arquivadosPorCliente.put(cliente.getId(), arquivados);
+                }
+            }
+        }
+
+        /** Grava uma foto consistente do estado e descarta os segmentos do diário que ela torna desnecessários. */
+        public synchronized void tirarFoto() throws IOException {
+            // Pausa curta: copia o estado dos pedidos (alterados no lugar pelas edições) e rotaciona o diário
+            EstadoCapturado estado = servico.pausarEscritas(() -> {
+                try {
+                    long seq = diario.rotacionar();
+                    List<Pedido> copias = new ArrayList<>(servico.getNumPedidos());
+                    for (Pedido pedido : servico.percorrerPedidos()) copias.add(pedido.copiar());
+                    return new EstadoCapturado(seq, servico.getProximoIdPedido(), servico.getListaClientes(), copias,
+                            servico.getCatalogo());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            Path destino = diretorio.resolve(String.format("foto-%020d.bin", estado.seq));
+            Path temporario = diretorio.resolve(destino.getFileName() + ".tmp");
+            try (EscritorFoto escritor = new EscritorFoto(temporario)) {
+                escritor.escrever(b -> b.putInt(MAGICA_FOTO).put(VERSAO_FOTO).putLong(estado.seq)
+                        .putInt(estado.proximoIdPedido).putInt(estado.catalogos.size()));
+                for (CatalogoPrecos catalogo : estado.catalogos) {
+                    escritor.escrever(b -> DiarioOperacoes.escreverCatalogo(b, catalogo));
+                }
+                escritor.escrever(b -> b.putInt(estado.clientes.size()));
+                for (Cliente cliente : estado.clientes) {
+                    escritor.escrever(b -> DiarioOperacoes.escreverCliente(b, cliente));
+                }
+                escritor.escrever(b -> b.putInt(estado.arquivadosPorCliente.size()));
+                for (Map.Entry<Integer, TotaisCliente> entrada : estado.arquivadosPorCliente.entrySet()) {
+                    escritor.escrever(b -> DiarioOperacoes.escreverTotaisArquivados(b, entrada.getKey(), entrada.getValue()));
+                }
+                escritor.escrever(b -> b.putInt(estado.pedidos.size()));
+                for (Pedido pedido : estado.pedidos) {
+                    escritor.escrever(b -> DiarioOperacoes.escreverPedido(b, pedido));
+                }
+            }
+            Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            apagarCobertos(estado.seq);
+        }
+
+        private void apagarCobertos(long seqFoto) throws IOException {
+            try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio)) {
+                for (Path arquivo : arquivos) {
+                    String nome = arquivo.getFileName().toString();
+                    long seq = numeroDoArquivo(nome);
+                    boolean fotoAntiga = nome.startsWith("foto-") && nome.endsWith(".bin") && seq < seqFoto;
+                    boolean segmentoCoberto = nome.startsWith("diario-") && seq <= seqFoto;
+                    boolean temporarioOrfao = nome.startsWith("foto-") && nome.endsWith(".tmp") && seq < seqFoto;
+                    if (seq >= 0 && (fotoAntiga || segmentoCoberto || temporarioOrfao)) Files.deleteIfExists(arquivo);
+                }
+            }
+        }
+
+        // Extrai o número de "foto-<n>.bin" / "diario-<n>.log"; -1 se o nome não seguir o padrão
+        private static long numeroDoArquivo(String nome) {
+            int inicio = nome.indexOf('-');
+            int fim = nome.indexOf('.');
+            if (inicio < 0 || fim <= inicio + 1) return -1;
+            try {
+                return Long.parseLong(nome.substring(inicio + 1, fim));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        private static List<Path> arquivosOrdenados(Path diretorio, String prefixo, String sufixo) throws IOException {
+            List<Path> encontrados = new ArrayList<>();
+            try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, prefixo + "*" + sufixo)) {
+                for (Path arquivo : arquivos) {
+                    if (numeroDoArquivo(arquivo.getFileName().toString()) >= 0) encontrados.add(arquivo);
+                }
+            }
+            encontrados.sort(Comparator.comparingLong(a -> numeroDoArquivo(a.getFileName().toString())));
+            return encontrados;
+        }
+
+        // Carrega a foto mais recente e devolve a sequência do diário que ela cobre (0 se não houver foto)
+        private static long carregarFotoMaisRecente(Path diretorio, PizzariaService servico) throws IOException {
+            List<Path> fotos = arquivosOrdenados(diretorio, "foto-", ".bin");
+            if (fotos.isEmpty()) return 0;
+            Path foto = fotos.get(fotos.size() - 1); // Fotos só aparecem completas (movidas atomicamente)
+            try (FileChannel canal = FileChannel.open(foto, StandardOpenOption.READ)) {
+                ByteBuffer b = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+                CRC32C crc = new CRC32C();
+                if (b.limit() >= 4) crc.update(b.slice(0, b.limit() - 4));
+                if (b.limit() < 4 || (int) crc.getValue() != b.getInt(b.limit() - 4)) {
+                    throw new IOException("Foto corrompida: " + foto);
+                }
+                if (b.getInt() != MAGICA_FOTO) throw new IOException("Formato de foto desconhecido: " + foto);
+                int versao = b.get();
+                if (versao != VERSAO_FOTO) throw new IOException("Formato de foto desconhecido (versão " + versao + "): " + foto);
+                long seq = b.getLong();
+                int proximoId = b.getInt();
+                int numCatalogos = b.getInt();
+                for (int i = 0; i < numCatalogos; i++) DiarioOperacoes.lerCatalogo(b, servico);
+                int numClientes = b.getInt();
+                for (int i = 0; i < numClientes; i++) DiarioOperacoes.lerCliente(b, servico);
+                int numHistoricos = b.getInt();
+                for (int i = 0; i < numHistoricos; i++) DiarioOperacoes.lerTotaisArquivados(b, servico);
+                int numPedidos = b.getInt();
+                for (int i = 0; i < numPedidos; i++) DiarioOperacoes.lerPedido(b, servico);
+                servico.restaurarProximoIdPedido(proximoId);
+                return seq;
+            }
+        }
+
+        // Reaplica os registros posteriores à foto; para no primeiro registro incompleto de cada segmento
+        // (gravação interrompida por uma queda). Devolve a maior sequência encontrada.
+        // Segmentos sem a mágica ou de outra versão do formato são recusados.
+        private static long reaplicarDiario(Path diretorio, PizzariaService servico, long seqFoto) throws IOException {
+            long ultimaSeq = seqFoto;
+            CRC32C crc = new CRC32C();
+            for (Path segmento : arquivosOrdenados(diretorio, "diario-", ".log")) {
+                try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ)) {
+                    ByteBuffer b = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+                    if (b.remaining() < DiarioOperacoes.CABECALHO_SEGMENTO) continue; // Criado e cabeçalho nunca gravado
+                    if (b.getInt(0) != DiarioOperacoes.MAGICA_SEGMENTO) throw new IOException("Formato de diário desconhecido: " + segmento);
+                    int versao = b.getInt(4);
+                    if (versao != DiarioOperacoes.VERSAO_FORMATO) {
+                        throw new IOException("Formato de diário desconhecido (versão " + versao + "): " + segmento);
+                    }
+                    b.position(DiarioOperacoes.CABECALHO_SEGMENTO);
+                    while (b.remaining() >= DiarioOperacoes.CABECALHO) {
+                        int inicio = b.position();
+                        int tamanho = b.getInt(inicio);
+                        if (tamanho < DiarioOperacoes.CABECALHO - 4 || tamanho > b.remaining() - 4) break;
+                        crc.reset();
+                        crc.update(b.slice(inicio + 8, tamanho - 4));
+                        if ((int) crc.getValue() != b.getInt(inicio + 4)) break;
+
+                        long seq = b.getLong(inicio + 8);
+                        byte tipo = b.get(inicio + 16);
+                        ByteBuffer carga = b.slice(inicio + DiarioOperacoes.CABECALHO, tamanho + 4 - DiarioOperacoes.CABECALHO);
+                        if (seq > seqFoto) aplicar(tipo, carga, servico);
+                        ultimaSeq = Math.max(ultimaSeq, seq);
+                        b.position(inicio + 4 + tamanho);
+                    }
+                }
+            }
+            return ultimaSeq;
+        }
+
+        // Reexecuta a mutação pelos mesmos métodos do serviço (sem diário anexado, logo sem novo registro)
+        private static void aplicar(byte tipo, ByteBuffer b, PizzariaService servico) {
+            try {
+                switch (tipo) {
+                    case DiarioOperacoes.CLIENTE: DiarioOperacoes.lerCliente(b, servico); break;
+                    case DiarioOperacoes.PEDIDO_CRIADO: DiarioOperacoes.lerPedido(b, servico); break;
+                    case DiarioOperacoes.PIZZA_ADICIONADA:
+                        servico.adicionarPizzaAoPedido(servico.buscarPedido(b.getInt()), DiarioOperacoes.lerPizza(b));
+                        break;
+                    case DiarioOperacoes.PIZZA_REMOVIDA:
+                        servico.removerPizzaDoPedido(servico.buscarPedido(b.getInt()), b.getInt());
+                        break;
+                    case DiarioOperacoes.SABOR_ALTERADO: {
+                        Pedido pedido = servico.buscarPedido(b.getInt());
+                        int indice = b.getInt();
+                        servico.alterarSaborPizza(pedido, indice, DiarioOperacoes.lerPizza(b).getSabores());
+                        break;
+                    }
+                    case DiarioOperacoes.BEBIDA_ADICIONADA:
+                        servico.adicionarBebidaAoPedido(servico.buscarPedido(b.getInt()), Bebida.fromIndex(b.get()));
+                        break;
+                    case DiarioOperacoes.BEBIDA_REMOVIDA:
+                        servico.removerBebidaDoPedido(servico.buscarPedido(b.getInt()), b.getInt());
+                        break;
+                    case DiarioOperacoes.PEDIDOS_ARQUIVADOS:
+                        servico.descartarPedidosAte(b.getInt());
+                        break;
+                    case DiarioOperacoes.CATALOGO:
+                        DiarioOperacoes.lerCatalogo(b, servico);
+                        break;
+                    default:
+                        throw new IllegalStateException("Tipo de registro desconhecido no diário: " + tipo);
+                }
+            } catch (PedidoNaoEncontradoException e) {
+                // Pedido esvaziado e cancelado: o mesmo desfecho da execução original
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!fechada.compareAndSet(false, true)) return;
+            executorFotos.shutdown();
+            try {
+                executorFotos.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            tirarFoto(); // A próxima inicialização não precisa reaplicar nada
+            diario.close();
+        }
+
+        // Grava a foto em blocos por um buffer direto reutilizado, acumulando o CRC do conteúdo
+        private static final class EscritorFoto implements Closeable {
+            private final FileChannel canal;
+            private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            private final CRC32C crc = new CRC32C();
+
+            EscritorFoto(Path arquivo) throws IOException {
+                this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            }
+
+            void escrever(Consumer<ByteBuffer> codificador) throws IOException {
+                ByteBuffer rascunho = DiarioOperacoes.RASCUNHO.get();
+                rascunho.clear();
+                codificador.accept(rascunho);
+                rascunho.flip();
+                if (buffer.remaining() < rascunho.remaining()) descarregar();
+                buffer.put(rascunho);
+            }
+
+            private void descarregar() throws IOException {
+                buffer.flip();
+                crc.update(buffer.duplicate());
+                while (buffer.hasRemaining()) canal.write(buffer);
+                buffer.clear();
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    descarregar();
+                    buffer.putInt((int) crc.getValue()).flip();
+                    while (buffer.hasRemaining()) canal.write(buffer);
+                    canal.force(true);
+                } finally {
+                    canal.close();
+                }
+            }
+        }
+    }
+
+    // --- ARQUIVO HISTÓRICO (formato colunar) ---
+
+    // NOVO: Arquivo colunar imutável de pedidos fechados, lido via MappedByteBuffer.
+    // Cada coluna é um bloco contíguo de primitivos, então os relatórios de mês/ano percorrem os arquivos
+    // na velocidade da memória, sem recriar objetos Pedido/Pizza no heap.
+    // Layout: cabeçalho | total (long) | frete (long) | id (int) | cliente (int) | início das pizzas (int, n+1)
+    //         | início das bebidas (int, n+1) | sabores da pizza (short) | tamanho da pizza (byte) | bebida (byte)
+    public static final class ArquivoColunar implements FonteVendas {
+        private static final int MAGICA = 0x505A4341; // "PZCA"
+        private static final int VERSAO = 1;
+        private static final int CABECALHO = 32;
+
+        private final ByteBuffer dados;
+        private final int numPedidos;
+        private final int colTotal, colFrete, colId, colCliente, colInicioPizzas, colInicioBebidas;
+        private final int colSabores, colTamanho, colBebida;
+
+        private ArquivoColunar(ByteBuffer dados) throws IOException {
+            if (dados.limit() < CABECALHO || dados.getInt(0) != MAGICA || dados.getInt(4) != VERSAO) {
+                throw new IOException("Arquivo colunar inválido.");
+            }
+            this.dados = dados;
+            this.numPedidos = dados.getInt(8);
+            int numPizzas = dados.getInt(12);
+            int[] colunas = layout(numPedidos, numPizzas);
+            colTotal = colunas[0];
+            colFrete = colunas[1];
+            colId = colunas[2];
+            colCliente = colunas[3];
+            colInicioPizzas = colunas[4];
+            colInicioBebidas = colunas[5];
+            colSabores = colunas[6];
+            colTamanho = colunas[7];
+            colBebida = colunas[8];
+        }
+
+        // Deslocamento de cada coluna, calculado a partir das contagens; o último é o início da coluna de bebidas
+        private static int[] layout(int numPedidos, int numPizzas) {
+            long[] colunas = new long[9];
+            long pos = CABECALHO;
+            colunas[0] = pos; pos += 8L * numPedidos;
+            colunas[1] = pos; pos += 8L * numPedidos;
+            colunas[2] = pos; pos += 4L * numPedidos;
+            colunas[3] = pos; pos += 4L * numPedidos;
+            colunas[4] = pos; pos += 4L * (numPedidos + 1);
+            colunas[5] = pos; pos += 4L * (numPedidos + 1);
+            colunas[6] = pos; pos += 2L * numPizzas;
+            colunas[7] = pos; pos += numPizzas;
+            colunas[8] = pos;
+            if (pos > Integer.MAX_VALUE) throw new IllegalArgumentException("Arquivo colunar excede 2 GB; divida o período.");
+            int[] resultado = new int[colunas.length];
+            for (int i = 0; i < colunas.length; i++) resultado[i] = (int) colunas[i];
+            return resultado;
+        }
+
+        /** Grava os pedidos (em ordem) num novo arquivo, de forma atômica. */
+        public static void escrever(Path arquivo, Iterable<Pedido> pedidos) throws IOException {
+            int n = 0, numPizzas = 0, numBebidas = 0;
+            for (Pedido pedido : pedidos) {
+                n++;
+                numPizzas += pedido.getPizzas().size();
+                numBebidas += pedido.getBebidas().size();
+            }
+            int[] col = layout(n, numPizzas);
+            long tamanho = (long) col[8] + numBebidas;
+            if (tamanho > Integer.MAX_VALUE) throw new IllegalArgumentException("Arquivo colunar excede 2 GB; divida o período.");
+
+            Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer b = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho);
+                b.putInt(0, MAGICA).putInt(4, VERSAO).putInt(8, n).putInt(12, numPizzas).putInt(16, numBebidas);
+                int pizza = 0, bebida = 0, i = 0;
+                for (Pedido pedido : pedidos) {
+                    if (i == n) throw new IllegalStateException("Pedidos alterados durante a gravação do arquivo colunar.");
+                    b.putLong(col[0] + 8 * i, pedido.getValorTotalCentavos());
+                    b.putLong(col[1] + 8 * i, pedido.getFreteCentavos());
+                    b.putInt(col[2] + 4 * i, pedido.getId());
+                    b.putInt(col[3] + 4 * i, pedido.getCliente().getId());
+                    b.putInt(col[4] + 4 * i, pizza);
+                    b.putInt(col[5] + 4 * i, bebida);
+                    for (Pizza p : pedido.getPizzas()) {
+                        b.putShort(col[6] + 2 * pizza, (short) p.getSaboresCompactados());
+                        b.put(col[7] + pizza, (byte) p.getTamanho().ordinal());
+                        pizza++;
+                    }
+                    for (Bebida bb : pedido.getBebidas()) {
+                        b.put(col[8] + bebida++, (byte) bb.ordinal());
+                    }
+                    i++;
+                }
+                if (i != n) throw new IllegalStateException("Pedidos alterados durante a gravação do arquivo colunar.");
+                b.putInt(col[4] + 4 * n, pizza);
+                b.putInt(col[5] + 4 * n, bebida);
+                b.force();
+            }
+            Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        public static ArquivoColunar abrir(Path arquivo) throws IOException {
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                return new ArquivoColunar(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+            }
+        }
+
+        public int getNumPedidos() { return numPedidos; }
+        public int getIdPedido(int i) { return dados.getInt(colId + 4 * i); }
+        public int getIdCliente(int i) { return dados.getInt(colCliente + 4 * i); }
+        public long getTotalCentavos(int i) { return dados.getLong(colTotal + 8 * i); }
+        public long getFreteCentavos(int i) { return dados.getLong(colFrete + 8 * i); }
+
+        @Override
+        public int tamanho() { return numPedidos; }
+
+        /** Acumula faturamento, sabores, bebidas e co-ocorrências dos pedidos [de, ate) lendo só as colunas necessárias. */
+        @Override
+        public void agregar(AcumuladorVendas acumulador, int de, int ate) {
+            for (int i = de; i < ate; i++) {
+                acumulador.faturamentoCentavos += dados.getLong(colTotal + 8 * i);
+            }
+            int fimPizzas = dados.getInt(colInicioPizzas + 4 * ate);
+            for (int p = dados.getInt(colInicioPizzas + 4 * de); p < fimPizzas; p++) {
+                acumulador.registrarSaboresCompactados(dados.getShort(colSabores + 2 * p) & 0xFFFF);
+            }
+            int fimBebidas = dados.getInt(colInicioBebidas + 4 * ate);
+            for (int b = dados.getInt(colInicioBebidas + 4 * de); b < fimBebidas; b++) {
+                acumulador.contagemBebidas[dados.get(colBebida + b)]++;
+            }
+        }
+    }
+
+    // NOVO: Diretório de arquivos colunares, um por fechamento: pedidos-<data>-<primeiro id>-<último id>.col
+    public static final class ArquivoHistorico {
+        private final Path diretorio;
+
+        public ArquivoHistorico(Path diretorio) {
+            this.diretorio = diretorio;
+        }
+
+        /** Fecha o período: move todos os pedidos atuais do serviço para um novo arquivo. Devolve quantos foram arquivados. */
+        public int fecharPeriodo(PizzariaService servico, LocalDate data) throws IOException {
+            Files.createDirectories(diretorio);
+            return servico.arquivarPedidos((primeiroId, ultimoId) -> diretorio.resolve(String.format("pedidos-%s-%010d-%010d.col",
+                    data, primeiroId, ultimoId)));
+        }
+
+        /** Agrega todos os arquivos com data de fechamento entre {@code desde} e {@code ate} (inclusive), em paralelo. */
+        public ResumoVendas resumir(LocalDate desde, LocalDate ate) throws IOException {
+            return AgregacaoParalela.resumir(abrir(desde, ate));
+        }
+
+        List<ArquivoColunar> abrir(LocalDate desde, LocalDate ate) throws IOException {
+            List<ArquivoColunar> abertos = new ArrayList<>();
+            for (Path arquivo : listar(desde, ate)) abertos.add(ArquivoColunar.abrir(arquivo));
+            return abertos;
+        }
+
+        public List<Path> listar(LocalDate desde, LocalDate ate) throws IOException {
+            List<Path> selecionados = new ArrayList<>();
+            if (!Files.isDirectory(diretorio)) return selecionados;
+            try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "pedidos-*.col")) {
+                for (Path arquivo : arquivos) {
+                    String nome = arquivo.getFileName().toString();
+                    LocalDate data = LocalDate.parse(nome.substring("pedidos-".length(), "pedidos-".length() + 10));
+                    if (!data.isBefore(desde) && !data.isAfter(ate)) selecionados.add(arquivo);
+                }
+            }
+            Collections.sort(selecionados);
+            return selecionados;
+        }
+    }
+
+    // --- IMPORTAÇÃO EM LOTE ---
+
+    // NOVO: Leitor JSON mínimo (objetos, listas, textos, números, true/false/null), para importação e API HTTP.
+    // Objetos viram Map, listas viram List e números viram Double.
+    static final class LeitorJson {
+        private final String texto;
+        private int pos;
+
+        LeitorJson(String texto) {
+            this.texto = texto;
+        }
+
+        Object lerDocumento() {
+            Object valor = lerValor();
+            pularEspacos();
+            if (pos != texto.length()) throw erro("conteúdo após o fim do documento");
+            return valor;
+        }
+
+        private Object lerValor() {
+            pularEspacos();
+            if (pos >= texto.length()) throw erro("fim inesperado");
+            char c = texto.charAt(pos);
+            switch (c) {
+                case '{': return lerObjeto();
+                case '[': return lerLista();
+                case '"': return lerTexto();
+                case 't': return lerLiteral("true", Boolean.TRUE);
+                case 'f': return lerLiteral("false", Boolean.FALSE);
+                case 'n': return lerLiteral("null", null);
+                default: return lerNumero();
+            }
+        }
+
+        private Map<String, Object> lerObjeto() {
+            Map<String, Object> objeto = new HashMap<>();
+            pos++;
+            pularEspacos();
+            if (consumir('}')) return objeto;
+            do {
+                pularEspacos();
+                if (pos >= texto.length() || texto.charAt(pos) != '"') throw erro("esperado nome de campo");
+                String chave = lerTexto();
+                pularEspacos();
+                if (!consumir(':')) throw erro("esperado ':'");
+                objeto.put(chave, lerValor());
+                pularEspacos();
+            } while (consumir(','));
+            if (!consumir('}')) throw erro("esperado '}'");
+            return objeto;
+        }
+
+        private List<Object> lerLista() {
+            List<Object> lista = new ArrayList<>();
+            pos++;
+            pularEspacos();
+            if (consumir(']')) return lista;
+            do {
+                lista.add(lerValor());
+                pularEspacos();
+            } while (consumir(','));
+            if (!consumir(']')) throw erro("esperado ']'");
+            return lista;
+        }
+
+        private String lerTexto() {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (pos < texto.length()) {
+                char c = texto.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= texto.length()) break;
+                char escape = texto.charAt(pos++);
+                switch (escape) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > texto.length()) throw erro("escape \\u incompleto");
+                        sb.append((char) Integer.parseInt(texto.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append(escape); // \" \\ \/
+                }
+            }
+            throw erro("texto não terminado");
+        }
+
+        private Object lerLiteral(String literal, Object valor) {
+            if (!texto.startsWith(literal, pos)) throw erro("valor inválido");
+            pos += literal.length();
+            return valor;
+        }
+
+        private Double lerNumero() {
+            int inicio = pos;
+            while (pos < texto.length() && "+-0123456789.eE".indexOf(texto.charAt(pos)) >= 0) pos++;
+            try {
+                return Double.valueOf(texto.substring(inicio, pos));
+            } catch (NumberFormatException e) {
+                throw erro("valor inválido");
+            }
+        }
+
+        private boolean consumir(char c) {
+            if (pos < texto.length() && texto.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void pularEspacos() {
+            while (pos < texto.length() && Character.isWhitespace(texto.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException erro(String motivo) {
+            return new IllegalArgumentException("JSON inválido na coluna " + (pos + 1) + ": " + motivo + ".");
+        }
+    }
+
+
+    /**
+     * NOVO: Importa pedidos de arquivo sem interação (agregadores e marketplaces).
+     * Formatos, escolhidos pela extensão (.jsonl/.json = JSON por linha; demais = CSV):
+     *   CSV:   cliente,distanciaKm,pizzas,bebidas   (cabeçalho opcional)
+     *          pizzas = TAMANHO:SABOR+SABOR;TAMANHO:SABOR   bebidas = BEBIDA;BEBIDA
+     *          ex.: 1,3.5,GRANDE:PEPPERONI+MUSSARELA;BROTO:ATUM,COCA_COLA_2L
+     *   JSONL: {"cliente":1,"distanciaKm":3.5,"pizzas":[{"tamanho":"GRANDE","sabores":["PEPPERONI"]}],"bebidas":["FANTA_2L"]}
+     * Distância vazia (CSV) ou ausente (JSON) é obtida pelo endereço do cliente.
+     * As linhas são lidas em lotes; cada lote é interpretado em paralelo e criado com criarPedidosEmLote.
+     * Linhas inválidas são relatadas com o número da linha, sem interromper a importação.
+     */
+    static final class ImportadorPedidos {
+        static final int TAMANHO_LOTE_PADRAO = 10_000;
+
+        private final PizzariaService servico;
+        private final int tamanhoLote;
+        private final PrintStream saidaErros;
+        private int importados;
+        private int rejeitados;
+
+        ImportadorPedidos(PizzariaService servico, int tamanhoLote, PrintStream saidaErros) {
+            if (tamanhoLote <= 0) throw new IllegalArgumentException("O tamanho do lote deve ser positivo.");
+            this.servico = servico;
+            this.tamanhoLote = tamanhoLote;
+            this.saidaErros = saidaErros;
+        }
+
+        int getImportados() { return importados; }
+        int getRejeitados() { return rejeitados; }
+
+        void importar(Path arquivo) throws IOException {
+            String nome = arquivo.getFileName().toString().toLowerCase();
+            boolean json = nome.endsWith(".jsonl") || nome.endsWith(".json");
+            List<String> linhas = new ArrayList<>(tamanhoLote);
+            ListaInt numeros = new ListaInt();
+            try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+                String linha;
+                int numero = 0;
+                while ((linha = leitor.readLine()) != null) {
+                    numero++;
+                    if (linha.isBlank() || (!json && numero == 1 && linha.trim().toLowerCase().startsWith("cliente"))) continue;
+                    linhas.add(linha);
+                    numeros.adicionar(numero);
+                    if (linhas.size() == tamanhoLote) {
+                        processarLote(linhas, numeros, json);
+                        linhas.clear();
+                        numeros = new ListaInt();
+                    }
+                }
+            }
+            if (!linhas.isEmpty()) processarLote(linhas, numeros, json);
+        }
+
+        private void processarLote(List<String> linhas, ListaInt numeros, boolean json) {
+            int n = linhas.size();
+            SolicitacaoPedido[] solicitacoes = new SolicitacaoPedido[n];
+            String[] erros = new String[n];
+            IntStream.range(0, n).parallel().forEach(i -> {
+                try {
+                    solicitacoes[i] = json ? lerJson(linhas.get(i)) : lerCsv(linhas.get(i));
+                } catch (RuntimeException e) {
+                    erros[i] = e.getMessage();
+                }
+            });
+
+            List<SolicitacaoPedido> validas = new ArrayList<>(n);
+            ListaInt posicoes = new ListaInt();
+            for (int i = 0; i < n; i++) {
+                if (erros[i] == null) {
+                    validas.add(solicitacoes[i]);
+                    posicoes.adicionar(i);
+                }
+            }
+            ResultadoLote resultado = servico.criarPedidosEmLote(validas);
+            for (int j = 0; j < resultado.tamanho(); j++) {
+                erros[posicoes.get(j)] = resultado.getErro(j);
+            }
+
+            // Relata na ordem das linhas, juntando erros de leitura e de validação
+            for (int i = 0; i < n; i++) {
+                if (erros[i] == null) {
+                    importados++;
+                } else {
+                    rejeitados++;
+                    saidaErros.println("LINHA " + numeros.get(i) + ": " + erros[i]);
+                }
+            }
+        }
+
+        static SolicitacaoPedido lerCsv(String linha) {
+            String[] campos = linha.split(",", -1);
+            if (campos.length < 2 || campos.length > 4) {
+                throw new IllegalArgumentException("Esperado: cliente,distanciaKm,pizzas,bebidas.");
+            }
+            List<Pizza> pizzas = new ArrayList<>();
+            if (campos.length > 2) {
+                for (String item : campos[2].split(";")) {
+                    if (item.isBlank()) continue;
+                    int separador = item.indexOf(':');
+                    if (separador < 0) throw new IllegalArgumentException("Pizza sem tamanho: '" + item.trim() + "' (use TAMANHO:SABOR+SABOR).");
+                    List<Sabor> sabores = new ArrayList<>();
+                    for (String sabor : item.substring(separador + 1).split("\\+")) sabores.add(constante(Sabor.class, sabor, "Sabor"));
+                    pizzas.add(Pizza.de(sabores, constante(Pizza.TamanhoPizza.class, item.substring(0, separador), "Tamanho")));
+                }
+            }
+            List<Bebida> bebidas = new ArrayList<>();
+            if (campos.length > 3) {
+                for (String bebida : campos[3].split(";")) {
+                    if (!bebida.isBlank()) bebidas.add(constante(Bebida.class, bebida, "Bebida"));
+                }
+            }
+            double distanciaKm = campos[1].isBlank() ? Double.NaN : decimal(campos[1].trim(), "distanciaKm"); // Vazio: pelo endereço
+            return new SolicitacaoPedido(inteiro(campos[0].trim(), "cliente"), distanciaKm, pizzas, bebidas);
+        }
+
+        static SolicitacaoPedido lerJson(String linha) {
+            if (!(new LeitorJson(linha).lerDocumento() instanceof Map<?, ?> objeto)) {
+                throw new IllegalArgumentException("Esperado um objeto JSON por linha.");
+            }
+            Object cliente = objeto.get("cliente");
+            Object distancia = objeto.get("distanciaKm");
+            if (!(cliente instanceof Double) || (distancia != null && !(distancia instanceof Double))) {
+                throw new IllegalArgumentException("Campo numérico 'cliente' é obrigatório; 'distanciaKm', se presente, deve ser numérico.");
+            }
+            List<Pizza> pizzas = new ArrayList<>();
+            for (Object item : lista(objeto.get("pizzas"), "pizzas")) pizzas.add(lerPizzaJson(item));
+            List<Bebida> bebidas = new ArrayList<>();
+            for (Object bebida : lista(objeto.get("bebidas"), "bebidas")) bebidas.add(constante(Bebida.class, String.valueOf(bebida), "Bebida"));
+
+            double idCliente = (Double) cliente;
+            if (idCliente != Math.rint(idCliente)) throw new IllegalArgumentException("ID de cliente inválido: " + idCliente);
+            return new SolicitacaoPedido((int) idCliente, distancia == null ? Double.NaN : (Double) distancia, pizzas, bebidas);
+        }
+
+        // {"tamanho":"GRANDE","sabores":["PEPPERONI","ATUM"]}
+        static Pizza lerPizzaJson(Object item) {
+            if (!(item instanceof Map<?, ?> pizza) || !(pizza.get("tamanho") instanceof String tamanho)) {
+                throw new IllegalArgumentException("Cada pizza precisa de 'tamanho' e 'sabores'.");
+            }
+            return Pizza.de(lerSaboresJson(pizza.get("sabores")), constante(Pizza.TamanhoPizza.class, tamanho, "Tamanho"));
+        }
+
+        static List<Sabor> lerSaboresJson(Object valor) {
+            List<Sabor> sabores = new ArrayList<>();
+            for (Object sabor : lista(valor, "sabores")) sabores.add(constante(Sabor.class, String.valueOf(sabor), "Sabor"));
+            return sabores;
+        }
+
+        static List<?> lista(Object valor, String campo) {
+            if (valor == null) return List.of();
+            if (!(valor instanceof List<?> lista)) throw new IllegalArgumentException("O campo '" + campo + "' deve ser uma lista.");
+            return lista;
+        }
+
+        // Aceita o nome da constante ou o nome formatado ("quatro queijos"), sem diferenciar maiúsculas
+        static <E extends Enum<E>> E constante(Class<E> tipo, String texto, String descricao) {
+            try {
+                return Enum.valueOf(tipo, texto.trim().replace(' ', '_').toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(descricao + " desconhecido: '" + texto.trim() + "'.");
+            }
+        }
+
+        private static int inteiro(String texto, String campo) {
+            try {
+                return Integer.parseInt(texto);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor inválido para " + campo + ": '" + texto + "'.");
+            }
+        }
+
+        private static double decimal(String texto, String campo) {
+            try {
+                return Double.parseDouble(texto);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor inválido para " + campo + ": '" + texto + "'.");
+            }
+        }
+    }
+
+    // --- API HTTP ---
+
+    /**
+     * NOVO: API HTTP embutida (com.sun.net.httpserver) para os caixas e o aplicativo de entrega.
+     * Cada requisição roda numa thread virtual própria; o serviço já é seguro para uso concorrente.
+     * Corpos e respostas em JSON, com valores em centavos; índices começam em 0.
+     *   POST   /clientes                               {"nome","endereco","telefone","email"}
+     *   GET    /clientes?nome=ana&limite=5
+     *   POST   /pedidos                                mesmo formato de uma linha da importação JSONL
+     *   GET    /pedidos/{id}
+     *   POST   /pedidos/{id}/pizzas                    {"tamanho":"GRANDE","sabores":["ATUM"]}
+     *   DELETE /pedidos/{id}/pizzas/{indice}
+     *   PUT    /pedidos/{id}/pizzas/{indice}/sabores   {"sabores":["ATUM","CALABRESA"]}
+     *   POST   /pedidos/{id}/bebidas                   {"bebida":"FANTA_2L"}
+     *   DELETE /pedidos/{id}/bebidas/{indice}
+     *   GET    /relatorio                              texto, no mesmo formato do menu
+     *   GET    /pipeline                               texto, métricas do preparo (com --pipeline)
+     *   GET    /distancias                             texto, acertos e latência do cache de distâncias
+     *   GET    /catalogo                               versão e preços vigentes (recarregados com --catalogo)
+     */
+    static final class ServidorHttp implements Closeable {
+        private static final String JSON = "application/json; charset=utf-8";
+        private static final String TEXTO = "text/plain; charset=utf-8";
+        private static final int BACKLOG = 4096;
+
+        private final HttpServer servidor;
+        private final ExecutorService executor;
+        private final PizzariaService servico;
+
+        private static final class Resposta {
+            final int status;
+            final String tipo;
+            final String corpo;
+
+            Resposta(int status, String tipo, String corpo) {
+                this.status = status;
+                this.tipo = tipo;
+                this.corpo = corpo;
+            }
+        }
+
+        private ServidorHttp(HttpServer servidor, ExecutorService executor, PizzariaService servico) {
+            this.servidor = servidor;
+            this.executor = executor;
+            this.servico = servico;
+        }
+
+        /** Inicia a API na porta informada (0 = porta livre qualquer). */
+        static ServidorHttp iniciar(PizzariaService servico, int porta) throws IOException {
+            // Sem TCP_NODELAY, respostas pequenas esperam o ACK atrasado do cliente (~40 ms por requisição)
+            if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+            // O padrão (200) fecha conexões ociosas além desse número, forçando milhares de clientes a reconectar
+            if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+                System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(BACKLOG));
+            }
+            HttpServer servidor = HttpServer.create(new InetSocketAddress(porta), BACKLOG);
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            ServidorHttp api = new ServidorHttp(servidor, executor, servico);
+            servidor.createContext("/", api::atender);
+            servidor.setExecutor(executor);
+            servidor.start();
+            return api;
+        }
+
+        int getPorta() { return servidor.getAddress().getPort(); }
+
+        @Override
+        public void close() {
+            servidor.stop(1); // Dá até 1 s para as trocas em andamento terminarem
+            executor.close();
+        }
+
+        private void atender(HttpExchange troca) throws IOException {
+            try {
+                Resposta resposta;
+                try {
+                    List<String> partes = new ArrayList<>();
+                    for (String parte : troca.getRequestURI().getPath().split("/")) {
+                        if (!parte.isEmpty()) partes.add(parte);
+                    }
+                    resposta = rotear(troca, troca.getRequestMethod(), partes);
+                } catch (PedidoNaoEncontradoException e) {
+                    resposta = erro(404, e.getMessage());
+                } catch (ClienteDuplicadoException e) {
+                    resposta = erro(409, e.getMessage());
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    resposta = erro(400, e.getMessage());
+                } catch (RuntimeException e) {
+                    resposta = erro(500, e.getClass().getSimpleName() + " - " + e.getMessage());
+                }
+                byte[] corpo = resposta.corpo.getBytes(StandardCharsets.UTF_8);
+                troca.getResponseHeaders().set("Content-Type", resposta.tipo);
+                troca.sendResponseHeaders(resposta.status, corpo.length == 0 ? -1 : corpo.length);
+                if (corpo.length > 0) troca.getResponseBody().write(corpo);
+            } finally {
+                troca.close();
+            }
+        }
+
+        private Resposta rotear(HttpExchange troca, String metodo, List<String> partes) throws IOException {
+            if (partes.isEmpty()) return erro(404, "Rota não encontrada.");
+            switch (partes.get(0)) {
+                case "relatorio":
+                    if (partes.size() != 1) break;
+                    if (!metodo.equals("GET")) return metodoNaoPermitido();
+                    ByteArrayOutputStream saida = new ByteArrayOutputStream();
+                    servico.gerarRelatorio(new PrintStream(saida, true, StandardCharsets.UTF_8));
+                    return new Resposta(200, TEXTO, saida.toString(StandardCharsets.UTF_8));
+                case "pipeline":
+                    if (partes.size() != 1) break;
+                    if (!metodo.equals("GET")) return metodoNaoPermitido();
+                    PipelinePedidos pipeline = servico.getPipeline();
+                    if (pipeline == null) return erro(404, "Pipeline de preparo desativado (use --pipeline).");
+                    ByteArrayOutputStream metricas = new ByteArrayOutputStream();
+                    pipeline.imprimirMetricas(new PrintStream(metricas, true, StandardCharsets.UTF_8));
+                    return new Resposta(200, TEXTO, metricas.toString(StandardCharsets.UTF_8));
+                case "distancias":
+                    if (partes.size() != 1) break;
+                    if (!metodo.equals("GET")) return metodoNaoPermitido();
+                    CacheDistancias cache = servico.getDistancias();
+                    if (cache == null) return erro(404, "Nenhum resolvedor de distâncias configurado.");
+                    ByteArrayOutputStream textoCache = new ByteArrayOutputStream();
+                    cache.imprimirMetricas(new PrintStream(textoCache, true, StandardCharsets.UTF_8));
+                    return new Resposta(200, TEXTO, textoCache.toString(StandardCharsets.UTF_8));
+                case "metricas":
+                    if (partes.size() != 1) break;
+                    if (!metodo.equals("GET")) return metodoNaoPermitido();
+                    ByteArrayOutputStream textoMetricas = new ByteArrayOutputStream();
+                    servico.imprimirMetricas(new PrintStream(textoMetricas, true, StandardCharsets.UTF_8));
+                    return new Resposta(200, TEXTO, textoMetricas.toString(StandardCharsets.UTF_8));
+                case "catalogo":
+                    if (partes.size() != 1) break;
+                    if (!metodo.equals("GET")) return metodoNaoPermitido();
+                    return new Resposta(200, JSON, catalogoJson(servico.getCatalogo()));
+                case "clientes":
+                    if (partes.size() == 3) return rotearHistoricoCliente(metodo, partes);
+                    if (partes.size() != 1) break;
+                    if (metodo.equals("GET")) return buscarClientes(troca.getRequestURI().getRawQuery());
+                    if (metodo.equals("POST")) return cadastrarCliente(lerCorpo(troca));
+                    return metodoNaoPermitido();
+                case "pedidos":
+                    return rotearPedidos(troca, metodo, partes);
+                default:
+                    break;
+            }
+            return erro(404, "Rota não encontrada.");
+        }
+
+        private Resposta rotearPedidos(HttpExchange troca, String metodo, List<String> partes) throws IOException {
+            if (partes.size() == 1) {
+                if (metodo.equals("GET")) return listarPedidos(troca.getRequestURI().getRawQuery());
+                if (!metodo.equals("POST")) return metodoNaoPermitido();
+                SolicitacaoPedido solicitacao = ImportadorPedidos.lerJson(new String(troca.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+                Cliente cliente = servico.buscarClientePorId(solicitacao.getIdCliente())
+                    .orElseThrow(() -> new IllegalArgumentException("Cliente ID " + solicitacao.getIdCliente() + " não encontrado."));
+                Pedido pedido = Double.isNaN(solicitacao.getDistanciaKm())
+                    ? servico.criarPedido(cliente, solicitacao.getPizzas(), solicitacao.getBebidas())
+                    : servico.criarPedido(cliente, solicitacao.getPizzas(), solicitacao.getBebidas(), solicitacao.getDistanciaKm());
+                return new Resposta(201, JSON, pedidoJson(pedido));
+            }
+            Pedido pedido = servico.buscarPedido(Integer.parseInt(partes.get(1)));
+            String item = partes.size() > 2 ? partes.get(2) : "";
+            if (partes.size() == 2) {
+                if (!metodo.equals("GET")) return metodoNaoPermitido();
+                return new Resposta(200, JSON, pedidoJson(pedido));
+            }
+            if (partes.size() == 3 && item.equals("pizzas")) {
+                if (!metodo.equals("POST")) return metodoNaoPermitido();
+                Pizza pizza = ImportadorPedidos.lerPizzaJson(lerCorpo(troca));
+                return new Resposta(200, JSON, pedidoJson(servico.adicionarPizzaAoPedido(pedido, pizza)));
+            }
+            if (partes.size() == 3 && item.equals("bebidas")) {
+                if (!metodo.equals("POST")) return metodoNaoPermitido();
+                Bebida bebida = ImportadorPedidos.constante(Bebida.class, String.valueOf(lerCorpo(troca).get("bebida")), "Bebida");
+                return new Resposta(200, JSON, pedidoJson(servico.adicionarBebidaAoPedido(pedido, bebida)));
+            }
+            if (partes.size() == 4 && (item.equals("pizzas") || item.equals("bebidas"))) {
+                if (!metodo.equals("DELETE")) return metodoNaoPermitido();
+                int indice = Integer.parseInt(partes.get(3));
+                Pedido atualizado = item.equals("pizzas")
+                    ? servico.removerPizzaDoPedido(pedido, indice)
+                    : servico.removerBebidaDoPedido(pedido, indice);
+                return new Resposta(200, JSON, pedidoJson(atualizado));
+            }
+            if (partes.size() == 5 && item.equals("pizzas") && partes.get(4).equals("sabores")) {
+                if (!metodo.equals("PUT")) return metodoNaoPermitido();
+                List<Sabor> sabores = ImportadorPedidos.lerSaboresJson(lerCorpo(troca).get("sabores"));
+                return new Resposta(200, JSON, pedidoJson(servico.alterarSaborPizza(pedido, Integer.parseInt(partes.get(3)), sabores)));
+            }
+            return erro(404, "Rota não encontrada.");
+        }
+
+        // NOVO: GET /pedidos?cliente=<id>&valorMinimoCentavos=<n>&de=<id>&ate=<id>&cursor=<c>&limite=<n>
+        // Responde {"pedidos":[...],"proximoCursor":c}; o cursor devolvido (null na última página) busca a seguinte.
+        private Resposta listarPedidos(String consulta) {
+            Map<String, String> parametros = parametros(consulta);
+            FiltroPedidos filtro = FiltroPedidos.TODOS;
+            String idCliente = parametros.get("cliente");
+            if (idCliente != null) {
+                int id = Integer.parseInt(idCliente);
+                Optional<Cliente> cliente = servico.buscarClientePorId(id);
+                if (cliente.isEmpty()) return erro(404, "Cliente ID " + id + " não encontrado.");
+                filtro = filtro.comCliente(cliente.get());
+            }
+            filtro = filtro.comValorMinimo(Long.parseLong(parametros.getOrDefault("valorMinimoCentavos", "0")))
+                .comIds(Integer.parseInt(parametros.getOrDefault("de", "1")),
+                        Integer.parseInt(parametros.getOrDefault("ate", String.valueOf(Integer.MAX_VALUE))));
+            Pagina<Pedido> pagina = servico.listarPedidos(filtro, cursor(parametros), limitePagina(parametros));
+            StringBuilder json = new StringBuilder(256).append("{\"pedidos\":[");
+            List<Pedido> itens = pagina.getItens();
+            for (int i = 0; i < itens.size(); i++) {
+                if (i > 0) json.append(',');
+                json.append(pedidoJson(itens.get(i)));
+            }
+            return new Resposta(200, JSON, proximoCursorJson(json.append(']'), pagina).toString());
+        }
+
+        // ?nome=<trecho>&limite=<n>, ou NOVO: ?telefone=<número> / ?email=<endereço> (no máximo um resultado)
+        // NOVO: Sem nenhum deles, lista todos em páginas: ?cursor=<c>&limite=<n> -> {"clientes":[...],"proximoCursor":c}
+        private Resposta buscarClientes(String consulta) {
+            Map<String, String> parametros = parametros(consulta);
+            String nome = parametros.get("nome");
+            String telefone = parametros.get("telefone");
+            String email = parametros.get("email");
+            List<Cliente> encontrados;
+            Pagina<Cliente> pagina = null;
+            if (telefone != null) encontrados = servico.buscarClientePorTelefone(telefone).stream().toList();
+            else if (email != null) encontrados = servico.buscarClientePorEmail(email).stream().toList();
+            else if (nome != null) encontrados = servico.buscarClientesPorNome(nome,
+                Integer.parseInt(parametros.getOrDefault("limite", String.valueOf(MAX_SUGESTOES_CLIENTE))));
+            else {
+                pagina = servico.listarClientes(cursor(parametros), limitePagina(parametros));
+                encontrados = pagina.getItens();
+            }
+            StringBuilder json = new StringBuilder("[");
+            for (Cliente cliente : encontrados) {
+                if (json.length() > 1) json.append(',');
+                clienteJson(json, cliente);
+            }
+            json.append(']');
+            if (pagina == null) return new Resposta(200, JSON, json.toString());
+            return new Resposta(200, JSON, proximoCursorJson(json.insert(0, "{\"clientes\":"), pagina).toString());
+        }
+
+        private static final int LIMITE_PAGINA_PADRAO = 50;
+        private static final int LIMITE_PAGINA_MAXIMO = 1000;
+
+        private static long cursor(Map<String, String> parametros) {
+            return Long.parseLong(parametros.getOrDefault("cursor", String.valueOf(Pagina.INICIO)));
+        }
+
+        private static int limitePagina(Map<String, String> parametros) {
+            int limite = Integer.parseInt(parametros.getOrDefault("limite", String.valueOf(LIMITE_PAGINA_PADRAO)));
+            if (limite < 1 || limite > LIMITE_PAGINA_MAXIMO) {
+                throw new IllegalArgumentException("O limite da página deve estar entre 1 e " + LIMITE_PAGINA_MAXIMO + ".");
+            }
+            return limite;
+        }
+
+        private static StringBuilder proximoCursorJson(StringBuilder json, Pagina<?> pagina) {
+            json.append(",\"proximoCursor\":");
+            return (pagina.temProxima() ? json.append(pagina.getProximoCursor()) : json.append("null")).append('}');
+        }
+
+        // Pares chave=valor da query string, já decodificados (a última ocorrência de uma chave prevalece)
+        private static Map<String, String> parametros(String consulta) {
+            Map<String, String> parametros = new HashMap<>();
+            if (consulta == null) return parametros;
+            for (String par : consulta.split("&")) {
+                int igual = par.indexOf('=');
+                if (igual < 0) continue;
+                parametros.put(par.substring(0, igual), URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+            }
+            return parametros;
+        }
+
+        // NOVO: GET /clientes/{id}/pedidos (histórico e totais) e POST /clientes/{id}/repetir (refaz o último pedido)
+        private Resposta rotearHistoricoCliente(String metodo, List<String> partes) {
+            int id = Integer.parseInt(partes.get(1));
+            Optional<Cliente> encontrado = servico.buscarClientePorId(id);
+            if (encontrado.isEmpty()) return erro(404, "Cliente ID " + id + " não encontrado.");
+            Cliente cliente = encontrado.get();
+            switch (partes.get(2)) {
+                case "pedidos":
+                    if (!metodo.equals("GET")) return metodoNaoPermitido();
+                    return new Resposta(200, JSON, historicoJson(cliente, servico.listarPedidosDoCliente(cliente)));
+                case "repetir":
+                    if (!metodo.equals("POST")) return metodoNaoPermitido();
+                    return new Resposta(201, JSON, pedidoJson(servico.repetirUltimoPedido(cliente)));
+                default:
+                    return erro(404, "Rota não encontrada.");
+            }
+        }
+
+        private static String historicoJson(Cliente cliente, List<Pedido> pedidos) {
+            StringBuilder json = new StringBuilder(256).append("{\"cliente\":");
+            clienteJson(json, cliente);
+            HistoricoCliente historico = cliente.getHistorico();
+            synchronized (historico) { // Os três totais de um mesmo estado
+                json.append(",\"numPedidos\":").append(historico.getNumPedidos())
+                    .append(",\"gastoTotalCentavos\":").append(historico.getGastoTotalCentavos())
+                    .append(",\"saborFavorito\":").append(aspas(historico.getSaborFavorito().map(Sabor::name).orElse(null)));
+            }
+            json.append(",\"pedidos\":[");
+            for (int i = 0; i < pedidos.size(); i++) {
+                if (i > 0) json.append(',');
+                json.append(pedidoJson(pedidos.get(i)));
+            }
+            return json.append("]}").toString();
+        }
+
+        private Resposta cadastrarCliente(Map<?, ?> corpo) {
+            Cliente cliente = new Cliente(texto(corpo, "nome"), texto(corpo, "endereco"), texto(corpo, "telefone"), texto(corpo, "email"));
+            servico.adicionarCliente(cliente);
+            StringBuilder json = new StringBuilder();
+            clienteJson(json, cliente);
+            return new Resposta(201, JSON, json.toString());
+        }
+
+        private static String texto(Map<?, ?> corpo, String campo) {
+            if (!(corpo.get(campo) instanceof String valor) || valor.isBlank()) {
+                throw new IllegalArgumentException("O campo '" + campo + "' é obrigatório.");
+            }
+            return valor;
+        }
+
+        private static Map<?, ?> lerCorpo(HttpExchange troca) throws IOException {
+            String corpo = new String(troca.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (!(new LeitorJson(corpo).lerDocumento() instanceof Map<?, ?> objeto)) {
+                throw new IllegalArgumentException("Esperado um objeto JSON no corpo.");
+            }
+            return objeto;
+        }
+
+        private static Resposta erro(int status, String mensagem) {
+            return new Resposta(status, JSON, "{\"erro\":" + aspas(mensagem) + "}");
+        }
+
+        private static Resposta metodoNaoPermitido() {
+            return erro(405, "Método não permitido nesta rota.");
+        }
+
+        static String pedidoJson(Pedido pedido) {
+            Pedido copia = pedido.copiar(); // Itens e totais lidos de um mesmo estado, mesmo com edições concorrentes
+            StringBuilder json = new StringBuilder(256);
+            json.append("{\"id\":").append(copia.getId());
+            EtapaPedido etapa = pedido.getEtapa();
+            if (etapa != null) json.append(",\"etapa\":\"").append(etapa.name()).append('"');
+            json.append(",\"cliente\":");
+            clienteJson(json, copia.getCliente());
+            json.append(",\"pizzas\":[");
+            List<Pizza> pizzas = copia.getPizzas();
+            for (int i = 0; i < pizzas.size(); i++) {
+                Pizza pizza = pizzas.get(i);
+                if (i > 0) json.append(',');
+                json.append("{\"tamanho\":\"").append(pizza.getTamanho().name()).append("\",\"sabores\":[");
+                List<Sabor> sabores = pizza.getSabores();
+                for (int j = 0; j < sabores.size(); j++) {
+                    if (j > 0) json.append(',');
+                    json.append('"').append(sabores.get(j).name()).append('"');
+                }
+                json.append("],\"precoCentavos\":").append(pizza.getPrecoCentavos()).append('}');
+            }
+            json.append("],\"bebidas\":[");
+            List<Bebida> bebidas = copia.getBebidas();
+            for (int i = 0; i < bebidas.size(); i++) {
+                if (i > 0) json.append(',');
+                json.append('"').append(bebidas.get(i).name()).append('"');
+            }
+            return json.append("],\"distanciaKm\":").append(copia.getDistanciaKm())
+                .append(",\"freteCentavos\":").append(copia.getFreteCentavos())
+                .append(",\"totalCentavos\":").append(copia.getValorTotalCentavos())
+                .append(",\"criadoEmMillis\":").append(copia.getCriadoEmMillis())
+                .append(",\"versaoPrecos\":").append(copia.getCatalogo().getVersao()).append('}').toString();
+        }
+
+        private static String catalogoJson(CatalogoPrecos catalogo) {
+            StringBuilder json = new StringBuilder("{\"versao\":").append(catalogo.getVersao()).append(",\"sabores\":{");
+            for (Sabor sabor : Sabor.values()) {
+                if (sabor.ordinal() > 0) json.append(',');
+                json.append('"').append(sabor.name()).append("\":").append(catalogo.getPrecoSabor(sabor));
+            }
+            json.append("},\"bebidas\":{");
+            for (Bebida bebida : Bebida.values()) {
+                if (bebida.ordinal() > 0) json.append(',');
+                json.append('"').append(bebida.name()).append("\":").append(catalogo.getPrecoBebida(bebida));
+            }
+            return json.append("}}").toString();
+        }
+
+        private static void clienteJson(StringBuilder json, Cliente cliente) {
+            json.append("{\"id\":").append(cliente.getId())
+                .append(",\"nome\":").append(aspas(cliente.getNome()))
+                .append(",\"endereco\":").append(aspas(cliente.getEndereco()))
+                .append(",\"telefone\":").append(aspas(cliente.getTelefone()))
+                .append(",\"email\":").append(aspas(cliente.getEmail())).append('}');
+        }
+
+        static String aspas(String texto) {
+            if (texto == null) return "null";
+            StringBuilder sb = new StringBuilder(texto.length() + 2).append('"');
+            for (int i = 0; i < texto.length(); i++) {
+                char c = texto.charAt(i);
+                switch (c) {
+                    case '"': sb.append("\\\""); break;
+                    case '\\': sb.append("\\\\"); break;
+                    case '\n': sb.append("\\n"); break;
+                    case '\r': sb.append("\\r"); break;
+                    case '\t': sb.append("\\t"); break;
+                    default:
+                        if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                        else sb.append(c);
+                }
+            }
+            return sb.append('"').toString();
+        }
+    }
+
+    // --- BENCHMARKS ---
+
+    // NOVO: Os caminhos críticos do serviço são medidos pelos benchmarks JMH do módulo benchmarks/ (ver o README),
+    // que usam os dados de popular(). Aqui ficam o teste de carga da API HTTP e as simulações:
+    // Uso: java PizzariaApp --carga-http [--clientes 2000] [--segundos 10]
+    //      java PizzariaApp --simular-pipeline [--pedidos 150] [--cozinheiros 4] [--fornos 4] [--entregadores 12] [--semente 42]
+    //      java PizzariaApp --simular-forno [--pedidos 200] [--fornos 4] [--capacidade 8] [--semente 42]
+    //      java PizzariaApp --simular-despacho [--pedidos 500] [--capacidade 480] [--raio 1.5] [--semente 42]
+    static final class BenchmarkPizzaria {
+        private static final Sabor[] SABORES = Sabor.values();
+        private static final Bebida[] BEBIDAS = Bebida.values();
+        private static final Pizza.TamanhoPizza[] TAMANHOS = Pizza.TamanhoPizza.values();
+        private static final String[] NOMES = {"Ana", "Bruno", "Carla", "Diego", "Elisa", "Fábio", "Gabriela", "Hugo"};
+        private static final String[] SOBRENOMES = {"Silva", "Costa", "Souza", "Oliveira", "Pereira", "Lima", "Araújo"};
+
+        private static final PrintStream SAIDA = System.out; // Capturada antes de qualquer desvio de System.out
+        static volatile Object sumidouro; // Impede que o JIT elimine resultados não usados
+
+        /**
+         * Teste de carga local da API HTTP: --carga-http [--clientes 2000] [--segundos 10].
+         * Cada cliente é uma thread virtual que envia requisições em sequência (mistura de leituras e escritas)
+         * contra um servidor local com 10 mil pedidos. Os primeiros 2 s são aquecimento e não entram nas medidas.
+         */
+        static void cargaHttp(String[] args) throws Exception {
+            int numClientes = 2_000;
+            int segundos = 10;
+            for (int i = 0; i < args.length - 1; i++) {
+                if (args[i].equals("--clientes")) numClientes = Integer.parseInt(args[i + 1]);
+                if (args[i].equals("--segundos")) segundos = Integer.parseInt(args[i + 1]);
+            }
+            int numPedidos = 10_000;
+            PizzariaService servico = popular(numPedidos);
+            int numClientesCadastrados = servico.getListaClientes().size();
+            LongAdder falhas = new LongAdder();
+            List<long[]> latencias = Collections.synchronizedList(new ArrayList<>());
+
+            try (ServidorHttp api = ServidorHttp.iniciar(servico, 0);
+                 ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                        .executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+                String base = "http://127.0.0.1:" + api.getPorta();
+                long inicioMedicao = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+                long fim = inicioMedicao + TimeUnit.SECONDS.toNanos(segundos);
+                for (int c = 0; c < numClientes; c++) {
+                    int semente = c + 1;
+                    clientes.submit(() -> {
+                        int[] aleatorios = indices(1024, Integer.MAX_VALUE, semente);
+                        long[] medidas = new long[1024];
+                        int quantidade = 0;
+                        for (int k = 0; System.nanoTime() < fim; k++) {
+                            HttpRequest requisicao = requisicaoAleatoria(base, aleatorios[k & 1023] ^ k, numPedidos, numClientesCadastrados);
+                            long inicio = System.nanoTime();
+                            try {
+                                HttpResponse<Void> resposta = http.send(requisicao, HttpResponse.BodyHandlers.discarding());
+                                if (resposta.statusCode() >= 300) falhas.increment();
+                            } catch (IOException e) {
+                                falhas.increment();
+                            }
+                            long fimRequisicao = System.nanoTime();
+                            if (inicio < inicioMedicao || fimRequisicao > fim) continue;
+                            if (quantidade == medidas.length) medidas = Arrays.copyOf(medidas, quantidade * 2);
+                            medidas[quantidade++] = fimRequisicao - inicio;
+                        }
+                        latencias.add(Arrays.copyOf(medidas, quantidade));
+                        return null;
+                    });
+                }
+            }
+
+            long[] todas = latencias.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.printf("%-30s %10s %14s %10s %10s %10s %8s%n", "CARGA HTTP", "CLIENTES", "req/s", "p50 ms", "p99 ms", "máx ms", "falhas");
+            if (todas.length == 0) return;
+            System.out.printf("%-30s %10d %14.0f %10.2f %10.2f %10.2f %8d%n", "mistura leitura/escrita", numClientes,
+                    todas.length / (double) segundos, percentil(todas, 0.50) / 1e6, percentil(todas, 0.99) / 1e6,
+                    todas[todas.length - 1] / 1e6, falhas.sum());
+        }
+
+        private static long percentil(long[] ordenadas, double fracao) {
+            return ordenadas[Math.min(ordenadas.length - 1, (int) Math.ceil(fracao * ordenadas.length) - 1)];
+        }
+
+        // 50% consultas de pedido, 20% novos pedidos, 15% bebidas adicionadas, 10% buscas de cliente, 5% relatórios
+        private static HttpRequest requisicaoAleatoria(String base, int aleatorio, int numPedidos, int numClientes) {
+            int tipo = Math.floorMod(aleatorio, 100);
+            int valor = Math.floorMod(aleatorio >>> 7, Integer.MAX_VALUE);
+            if (tipo < 50) {
+                return HttpRequest.newBuilder(URI.create(base + "/pedidos/" + (1 + valor % numPedidos))).GET().build();
+            }
+            if (tipo < 70) {
+                String corpo = "{\"cliente\":" + (1 + valor % numClientes) + ",\"distanciaKm\":" + (valor % 80) / 10.0
+                        + ",\"pizzas\":[{\"tamanho\":\"GRANDE\",\"sabores\":[\"" + SABORES[valor % SABORES.length].name()
+                        + "\"]}],\"bebidas\":[\"" + BEBIDAS[valor % BEBIDAS.length].name() + "\"]}";
+                return HttpRequest.newBuilder(URI.create(base + "/pedidos")).POST(HttpRequest.BodyPublishers.ofString(corpo)).build();
+            }
+            if (tipo < 85) {
+                String corpo = "{\"bebida\":\"" + BEBIDAS[valor % BEBIDAS.length].name() + "\"}";
+                return HttpRequest.newBuilder(URI.create(base + "/pedidos/" + (1 + valor % numPedidos) + "/bebidas"))
+                        .POST(HttpRequest.BodyPublishers.ofString(corpo)).build();
+            }
+            if (tipo < 95) {
+                return HttpRequest.newBuilder(URI.create(base + "/clientes?nome=" + NOMES[valor % NOMES.length].substring(0, 3))).GET().build();
+            }
+            return HttpRequest.newBuilder(URI.create(base + "/relatorio")).GET().build();
+        }
+
+        // Pedidos de uma sexta-feira de 5 h (18h–23h), com os instantes de chegada (ns desde a abertura) em chegadasNanos.
+        // Dado o total de pedidos, os instantes de um processo de Poisson com taxa variável são amostras independentes
+        // da curva de taxa normalizada: aqui um triângulo de 0 h a 5 h com pico em 2 h (inversão da distribuição acumulada)
+        private static List<Pedido> pedidosSextaFeira(int numPedidos, java.util.Random aleatorio, long[] chegadasNanos) {
+            Cliente cliente = new Cliente("Simulação", "-", "-", "-");
+            double duracaoHoras = 5, picoHoras = 2;
+            double[] chegadas = new double[numPedidos];
+            for (int i = 0; i < numPedidos; i++) {
+                double u = aleatorio.nextDouble();
+                chegadas[i] = u < picoHoras / duracaoHoras
+                    ? Math.sqrt(u * duracaoHoras * picoHoras)
+                    : duracaoHoras - Math.sqrt((1 - u) * duracaoHoras * (duracaoHoras - picoHoras));
+            }
+            Arrays.sort(chegadas);
+            List<Pedido> pedidos = new ArrayList<>(numPedidos);
+            for (int i = 0; i < numPedidos; i++) {
+                List<Pizza> pizzas = new ArrayList<>();
+                int numPizzas = 1 + aleatorio.nextInt(3);
+                for (int j = 0; j < numPizzas; j++) {
+                    pizzas.add(Pizza.de(List.of(SABORES[aleatorio.nextInt(SABORES.length)]), TAMANHOS[aleatorio.nextInt(TAMANHOS.length)]));
+                }
+                List<Bebida> bebidas = aleatorio.nextBoolean() ? List.of(BEBIDAS[aleatorio.nextInt(BEBIDAS.length)]) : List.of();
+                double distanciaKm = Math.round(aleatorio.nextDouble() * 80) / 10.0;
+                chegadasNanos[i] = (long) (chegadas[i] * 3.6e12);
+                pedidos.add(new Pedido(i + 1, cliente, pizzas, bebidas, distanciaKm));
+            }
+            return pedidos;
+        }
+
+        /**
+         * NOVO: Compara o escalonador de fornadas com a fila FIFO no mesmo rush de sexta-feira:
+         * --simular-forno [--pedidos 200] [--fornos 4] [--capacidade 8] [--semente 42].
+         * Ocupação = fração do período de atendimento em que os fornos trabalharam; lotação = lugares preenchidos por fornada;
+         * espera = da chegada do pedido até a pizza entrar no forno; atraso = saiu do forno depois do prazo.
+         */
+        static void simularForno(String[] args) {
+            int numPedidos = 200, fornos = 4, capacidade = 8;
+            long semente = 42;
+            for (int i = 0; i < args.length - 1; i++) {
+                switch (args[i]) {
+                    case "--pedidos": numPedidos = Integer.parseInt(args[i + 1]); break;
+                    case "--fornos": fornos = Integer.parseInt(args[i + 1]); break;
+                    case "--capacidade": capacidade = Integer.parseInt(args[i + 1]); break;
+                    case "--semente": semente = Long.parseLong(args[i + 1]); break;
+                    default: break;
+                }
+            }
+            long[] chegadas = new long[numPedidos];
+            List<Pedido> pedidosRush = pedidosSextaFeira(numPedidos, new java.util.Random(semente), chegadas);
+            SAIDA.printf("Rush: %d pedidos, %d fornos de %d lugares, semente %d%n", numPedidos, fornos, capacidade, semente);
+            SAIDA.printf("%-10s %9s %9s %9s %10s %10s %9s %9s %12s %12s%n", "POLÍTICA", "FORNADAS", "OCUPAÇÃO", "LOTAÇÃO",
+                "ESPERA.MÉD", "ESPERA.MÁX", "ATRASADAS", "FIM", "DECISÃO.MÉD", "DECISÃO.MÁX");
+            PrintStream silencio = new PrintStream(OutputStream.nullOutputStream());
+            for (int i = 0; i < 30; i++) { // Aquecimento (JIT), para os tempos de decisão refletirem código compilado
+                simularForno(silencio, "", new FilaFornoFifo(capacidade), pedidosRush, chegadas, fornos, capacidade);
+                simularForno(silencio, "", new EscalonadorForno(capacidade), pedidosRush, chegadas, fornos, capacidade);
+            }
+            simularForno(SAIDA, "FIFO", new FilaFornoFifo(capacidade), pedidosRush, chegadas, fornos, capacidade);
+            simularForno(SAIDA, "FORNADAS", new EscalonadorForno(capacidade), pedidosRush, chegadas, fornos, capacidade);
+        }
+
+        private static void simularForno(PrintStream saida, String nome, PoliticaForno politica, List<Pedido> pedidosRush, long[] chegadas,
+                                         int fornos, int capacidade) {
+            long[] livreEm = new long[fornos];
+            int proximo = 0, fornadas = 0, pizzas = 0, atrasadas = 0, picoPendentes = 0;
+            long ocupado = 0, esperaTotal = 0, esperaMaxima = 0, fim = 0, decisaoTotal = 0, decisaoMaxima = 0;
+            while (true) {
+                int forno = 0;
+                for (int f = 1; f < fornos; f++) if (livreEm[f] < livreEm[forno]) forno = f;
+                long agora = livreEm[forno];
+                if (politica.getPendentes() == 0) {
+                    if (proximo == chegadas.length) break;
+                    agora = Math.max(agora, chegadas[proximo]); // Forno ocioso até o próximo pedido
+                }
+                while (proximo < chegadas.length && chegadas[proximo] <= agora) {
+                    politica.adicionarPedido(pedidosRush.get(proximo), chegadas[proximo]);
+                    proximo++;
+                }
+                picoPendentes = Math.max(picoPendentes, politica.getPendentes());
+                long inicio = System.nanoTime();
+                Fornada fornada = politica.proximaFornada(agora);
+                long decisao = System.nanoTime() - inicio;
+                if (fornada == null) {
+                    livreEm[forno] = agora;
+                    continue;
+                }
+                decisaoTotal += decisao;
+                decisaoMaxima = Math.max(decisaoMaxima, decisao);
+                long termino = agora + fornada.getCicloNanos();
+                livreEm[forno] = termino;
+                fim = Math.max(fim, termino);
+                fornadas++;
+                ocupado += fornada.getCicloNanos();
+                for (PizzaPendente pizza : fornada.pizzas) {
+                    long espera = agora - pizza.chegada;
+                    esperaTotal += espera;
+                    esperaMaxima = Math.max(esperaMaxima, espera);
+                    if (termino > pizza.prazo) atrasadas++;
+                    pizzas++;
+                }
+            }
+            double minuto = 60e9;
+            double ocupacao = ocupado / ((double) fornos * Math.max(1, fim - chegadas[0]));
+            double lotacao = pizzas / ((double) capacidade * Math.max(1, fornadas));
+            saida.printf("%-10s %9d %8.1f%% %8.1f%% %9.1fm %9.1fm %9d %8.1fh %10.2fµs %10.2fµs%n", nome, fornadas,
+                100 * ocupacao, 100 * lotacao,
+                esperaTotal / (double) pizzas / minuto, esperaMaxima / minuto, atrasadas, fim / 3.6e12,
+                decisaoTotal / 1e3 / Math.max(1, fornadas), decisaoMaxima / 1e3);
+            saida.printf("%-10s %d pizzas, até %d pendentes ao mesmo tempo%n", "", pizzas, picoPendentes);
+        }
+
+        /**
+         * NOVO: Planeja entregas para N pedidos abertos ao mesmo tempo, espalhados em bairros ao redor da loja:
+         * --simular-despacho [--pedidos 500] [--capacidade 480] [--raio 1.5] [--semente 42].
+         * Mede a inserção incremental contra replanejar tudo do zero e compara km e custo com a entrega isolada.
+         */
+        static void simularDespacho(String[] args) {
+            int numPedidos = 500;
+            long capacidade = 480; // 8 pizzas, na unidade dos fatores de peso do frete
+            double raio = 1.5, maxKmRota = 15;
+            long semente = 42;
+            for (int i = 0; i < args.length - 1; i++) {
+                switch (args[i]) {
+                    case "--pedidos": numPedidos = Integer.parseInt(args[i + 1]); break;
+                    case "--capacidade": capacidade = Long.parseLong(args[i + 1]); break;
+                    case "--raio": raio = Double.parseDouble(args[i + 1]); break;
+                    case "--semente": semente = Long.parseLong(args[i + 1]); break;
+                    default: break;
+                }
+            }
+            java.util.Random aleatorio = new java.util.Random(semente);
+            List<Pedido> pedidosAbertos = pedidosSextaFeira(numPedidos, aleatorio, new long[numPedidos]);
+            Coordenada[] bairros = new Coordenada[12];
+            for (int i = 0; i < bairros.length; i++) {
+                double angulo = aleatorio.nextDouble() * 2 * Math.PI, distancia = 1 + aleatorio.nextDouble() * 6;
+                bairros[i] = new Coordenada(distancia * Math.cos(angulo), distancia * Math.sin(angulo));
+            }
+            Coordenada[] destinos = new Coordenada[numPedidos];
+            for (int i = 0; i < numPedidos; i++) {
+                Coordenada bairro = bairros[aleatorio.nextInt(bairros.length)];
+                destinos[i] = new Coordenada(bairro.getXKm() + aleatorio.nextGaussian() * 0.7, bairro.getYKm() + aleatorio.nextGaussian() * 0.7);
+            }
+
+            for (int r = 0; r < 20; r++) planejar(pedidosAbertos, destinos, capacidade, raio, maxKmRota, null); // Aquecimento (JIT)
+            long[] temposInsercao = new long[numPedidos];
+            MotorDespacho motor = planejar(pedidosAbertos, destinos, capacidade, raio, maxKmRota, temposInsercao);
+            long inicio = System.nanoTime();
+            planejar(pedidosAbertos, destinos, capacidade, raio, maxKmRota, null);
+            long doZero = System.nanoTime() - inicio;
+
+            double kmRotas = 0, kmIsolado = 0;
+            long custoRotas = 0, freteIsolado = 0;
+            boolean rateioConfere = true;
+            for (RotaEntrega rota : motor.getRotas()) {
+                kmRotas += rota.getKm();
+                custoRotas += rota.getCustoCentavos();
+                rateioConfere &= Arrays.stream(rota.ratearFreteCentavos()).sum() == rota.getCustoCentavos();
+            }
+            for (int i = 0; i < numPedidos; i++) {
+                Pedido pedido = pedidosAbertos.get(i);
+                kmIsolado += destinos[i].distanciaDaLojaKm();
+                freteIsolado += PizzariaService.calcularFreteCentavos(destinos[i].distanciaDaLojaKm(), pedido.getNumPizzas(), pedido.getNumBebidas());
+            }
+            long[] ordenados = temposInsercao.clone();
+            Arrays.sort(ordenados);
+            SAIDA.printf("Despacho: %d pedidos abertos, capacidade %d, raio %.1f km, semente %d%n", numPedidos, capacidade, raio, semente);
+            SAIDA.printf("Rotas: %d (%.1f pedidos/rota); percurso %.1f km contra %.1f km isolado; custo R$ %s contra R$ %s; rateio confere: %s%n",
+                motor.getRotas().size(), numPedidos / (double) motor.getRotas().size(), kmRotas, kmIsolado,
+                Moeda.formatar(custoRotas), Moeda.formatar(freteIsolado), rateioConfere ? "sim" : "NÃO");
+            SAIDA.printf("Inserção incremental: mediana %.2f µs, p99 %.2f µs, máx %.2f µs; replanejar os %d do zero: %.2f ms%n",
+                ordenados[numPedidos / 2] / 1e3, ordenados[(int) (numPedidos * 0.99)] / 1e3, ordenados[numPedidos - 1] / 1e3,
+                numPedidos, doZero / 1e6);
+        }
+
+        private static MotorDespacho planejar(List<Pedido> pedidosAbertos, Coordenada[] destinos, long capacidade,
+                                              double raio, double maxKmRota, long[] temposInsercao) {
+            MotorDespacho motor = new MotorDespacho(capacidade, raio, maxKmRota);
+            for (int i = 0; i < destinos.length; i++) {
+                long inicio = System.nanoTime();
+                motor.adicionar(pedidosAbertos.get(i), destinos[i]);
+                if (temposInsercao != null) temposInsercao[i] = System.nanoTime() - inicio;
+            }
+            sumidouro = motor;
+            return motor;
+        }
+
+        /**
+         * NOVO: Simula uma sexta-feira (18h–23h) no pipeline de preparo, com chegadas de Poisson cuja taxa
+         * sobe até o pico das 20h e depois cai. Mesma semente, mesmo resultado: dá para comparar
+         * escalas de equipe (ex.: --fornos 3 contra --fornos 4) e ver onde a fila se forma.
+         */
+        static void simularPipeline(String[] args) {
+            int numPedidos = 150, cozinheiros = 4, fornos = 4, entregadores = 12;
+            long semente = 42;
+            for (int i = 0; i < args.length - 1; i++) {
+                switch (args[i]) {
+                    case "--pedidos": numPedidos = Integer.parseInt(args[i + 1]); break;
+                    case "--cozinheiros": cozinheiros = Integer.parseInt(args[i + 1]); break;
+                    case "--fornos": fornos = Integer.parseInt(args[i + 1]); break;
+                    case "--entregadores": entregadores = Integer.parseInt(args[i + 1]); break;
+                    case "--semente": semente = Long.parseLong(args[i + 1]); break;
+                    default: break;
+                }
+            }
+            List<ConfigEtapa> etapas = ConfigEtapa.padrao(cozinheiros, fornos, entregadores);
+            SimuladorPipeline simulador = new SimuladorPipeline(etapas);
+            long[] chegadas = new long[numPedidos];
+            List<Pedido> pedidosRush = pedidosSextaFeira(numPedidos, new java.util.Random(semente), chegadas);
+            for (int i = 0; i < numPedidos; i++) simulador.agendarChegada(chegadas[i], pedidosRush.get(i));
+            long fim = simulador.executar();
+            SAIDA.printf("Simulação: %d pedidos, %d cozinheiros, %d fornos, %d entregadores, semente %d; último concluído em %.1f h%n",
+                numPedidos, cozinheiros, fornos, entregadores, semente, fim / 3.6e12);
+            simulador.imprimirMetricas(SAIDA);
+        }
+
+        // Índices pseudoaleatórios determinísticos, gerados antes da medição
+        static int[] indices(int quantidade, int limite, long semente) {
+            int[] resultado = new int[quantidade];
+            long x = semente;
+            for (int i = 0; i < quantidade; i++) {
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+                resultado[i] = (int) Math.floorMod(x, (long) limite);
+            }
+            return resultado;
+        }
+
+        static Pizza pizzaAleatoria(int semente) {
+            int quantidade = 1 + (semente & 3);
+            List<Sabor> sabores = new ArrayList<>(quantidade);
+            for (int i = 0; i < quantidade; i++) sabores.add(SABORES[(semente >>> (4 * i + 2)) % SABORES.length]);
+            return Pizza.de(sabores, TAMANHOS[(semente >>> 20) % TAMANHOS.length]);
+        }
+
+        static PizzariaService popular(int numPedidos) {
+            PizzariaService servico = new PizzariaService();
+            int numClientes = Math.max(1, numPedidos / 10);
+            for (int i = 0; i < numClientes; i++) {
+                servico.adicionarCliente(new Cliente(NOMES[i % NOMES.length] + " " + SOBRENOMES[(i / 8) % SOBRENOMES.length] + " " + i,
+                        "Rua " + i, "9" + i, "c" + i + "@ex.com"));
+            }
+            List<Cliente> clientes = servico.getListaClientes();
+            int[] aleatorios = indices(numPedidos, Integer.MAX_VALUE, 42);
+            for (int i = 0; i < numPedidos; i++) {
+                int a = aleatorios[i];
+                List<Pizza> pizzas = List.of(pizzaAleatoria(a), pizzaAleatoria(a >>> 3));
+                servico.criarPedido(clientes.get(i % clientes.size()), pizzas, List.of(BEBIDAS[a % BEBIDAS.length]), (a % 100) / 10.0);
+            }
+            return servico;
+        }
+    }
+
+    // --- INTERFACE DE USUÁRIO (Menu Principal) ---
+
+    private static final PizzariaService SERVICE = new PizzariaService();
+    private static Persistencia PERSISTENCIA; // null quando executado com --sem-persistencia
+    private static volatile ServidorHttp API; // null fora do modo --http
+    private static VigiaCatalogo VIGIA_CATALOGO; // null sem --catalogo
+    private static ArquivoHistorico HISTORICO = new ArquivoHistorico(Paths.get("dados-pizzaria", "arquivo"));
+    static final int MAX_SUGESTOES_CLIENTE = 5;
+    private static final int TAMANHO_PAGINA = 20; // NOVO: Itens por página nas listagens do menu
+    // NOVO: Saída bufferizada reaproveitada pelas listagens: cada página chega ao terminal numa única escrita
+    private static final PrintWriter TELA = new PrintWriter(
+        new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset()), 1 << 16), false);
+
+    public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--simular-pipeline") || Arrays.asList(args).contains("--simular-forno")
+                || Arrays.asList(args).contains("--simular-despacho")) {
+            try {
+                if (Arrays.asList(args).contains("--simular-forno")) BenchmarkPizzaria.simularForno(args);
+                else if (Arrays.asList(args).contains("--simular-despacho")) BenchmarkPizzaria.simularDespacho(args);
+                else BenchmarkPizzaria.simularPipeline(args);
+            } catch (RuntimeException e) {
+                System.err.println("ERRO NA SIMULAÇÃO: " + e.getMessage());
+            }
+            return;
+        }
+        if (Arrays.asList(args).contains("--carga-http")) {
+            try {
+                BenchmarkPizzaria.cargaHttp(args);
+            } catch (Exception e) {
+                System.err.println("ERRO NO BENCHMARK: " + e.getMessage());
+            }
+            return;
+        }
+
+        Scanner scanner = new Scanner(System.in);
+        
+        if (!iniciarPersistencia(args)) return;
+        iniciarDistancias();
+        if (!iniciarCatalogo(args)) return;
+        int indiceImportar = Arrays.asList(args).indexOf("--importar");
+        if (indiceImportar >= 0) {
+            importarPedidos(args, indiceImportar);
+            return;
+        }
+        int indiceExportar = Arrays.asList(args).indexOf("--exportar");
+        if (indiceExportar >= 0) {
+            exportarDados(args, indiceExportar);
+            return;
+        }
+        int indiceHttp = Arrays.asList(args).indexOf("--http");
+        if (indiceHttp >= 0) {
+            iniciarApi(args, indiceHttp);
+            return;
+        }
+        if (SERVICE.getListaClientes().isEmpty() && SERVICE.getNumPedidos() == 0) {
+            popularDadosIniciais(); // Apenas na primeira execução: depois o estado vem do diretório de dados
+        }
+
+        boolean continuar = true;
+        while (continuar) {
+            try {
+                exibirMenuPrincipal();
+                int opcao = lerInteiro(scanner);
+                
+                switch (opcao) {
+                    case 1: fazerPedido(scanner); break;
+                    case 2: menuAlterarPedido(scanner); break;
+                    case 3: adicionarClienteMenu(scanner); break;
+                    case 4: SERVICE.gerarRelatorio(); aguardarConfirmacao(scanner); break;
+                    case 5: gerarListaClientes(scanner); break;
+                    case 6: gerarListaPedidos(scanner); break;
+                    case 7: gerarRelatorioHistorico(scanner); break;
+                    case 8: fecharPeriodo(scanner); break;
+                    case 9:
+                        encerrarPersistencia();
+                        System.out.println("Sistema encerrado. Obrigado!");
+                        continuar = false;
+                        break;
+                    default:
+                        System.out.println("Opção inválida. Tente novamente.");
+                        aguardarConfirmacao(scanner);
+                }
+            } catch (PedidoNaoEncontradoException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                System.err.println("ERRO: " + e.getMessage());
+                aguardarConfirmacao(scanner); 
+            } catch (InputMismatchException e) {
+                System.err.println("ERRO: Entrada inválida. Esperava um número.");
+                scanner.nextLine(); 
+                aguardarConfirmacao(scanner); 
+            } catch (Exception e) {
+                System.err.println("ERRO INESPERADO: " + e.getClass().getSimpleName() + " - " + e.getMessage());
+                e.printStackTrace(); // Para debug em erro inesperado
+                aguardarConfirmacao(scanner); 
+            }
+        }
+        scanner.close();
+    }
+    
+    // --- Métodos de Utilidade e Interface ---
+
+    /**
+     * NOVO: Recupera o estado salvo e passa a registrar as mutações.
+     * Opções: --dados <diretório> (padrão: dados-pizzaria), --fsync sempre|intervalo|nunca, --sem-persistencia.
+     */
+    private static boolean iniciarPersistencia(String[] args) {
+        Path diretorio = Paths.get("dados-pizzaria");
+        PoliticaSync politica = PoliticaSync.INTERVALO;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sem-persistencia": return true;
+                case "--dados":
+                    diretorio = Paths.get(args[++i]);
+                    HISTORICO = new ArquivoHistorico(diretorio.resolve("arquivo"));
+                    break;
+                case "--fsync": politica = PoliticaSync.valueOf(args[++i].toUpperCase()); break;
+                default: break;
+            }
+        }
+        try {
+            long inicio = System.nanoTime();
+            PERSISTENCIA = Persistencia.abrir(diretorio, politica, SERVICE);
+            System.out.printf("--- Dados recuperados de %s em %d ms ---\n",
+                diretorio, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("ERRO: não foi possível recuperar os dados de " + diretorio + ": " + e.getMessage());
+            return false;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(PizzariaApp::encerrarPersistencia));
+        return true;
+    }
+
+    /**
+     * NOVO: Modo não interativo: --importar <arquivo.csv|arquivo.jsonl> [--lote N].
+     * Erros por linha vão para a saída de erro; ao final mostra o resumo e salva os dados.
+     */
+    private static void importarPedidos(String[] args, int indiceImportar) {
+        if (indiceImportar + 1 >= args.length) {
+            System.err.println("ERRO: informe o arquivo: --importar <arquivo>");
+            return;
+        }
+        int tamanhoLote = ImportadorPedidos.TAMANHO_LOTE_PADRAO;
+        int indiceLote = Arrays.asList(args).indexOf("--lote");
+        try {
+            if (indiceLote >= 0 && indiceLote + 1 < args.length) tamanhoLote = Integer.parseInt(args[indiceLote + 1]);
+            ImportadorPedidos importador = new ImportadorPedidos(SERVICE, tamanhoLote, System.err);
+            long inicio = System.nanoTime();
+            importador.importar(Paths.get(args[indiceImportar + 1]));
+            long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+            System.out.printf("--- Importação concluída: %d pedidos importados, %d linhas rejeitadas, em %d ms ---\n",
+                importador.getImportados(), importador.getRejeitados(), ms);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("ERRO NA IMPORTAÇÃO: " + e.getMessage());
+        } finally {
+            encerrarPersistencia();
+        }
+    }
+
+    /**
+     * NOVO: Modo não interativo: --exportar <pedidos.csv|pedidos.jsonl> [--relatorio <relatorio.csv|relatorio.jsonl>].
+     * Mostra o volume gravado e a vazão.
+     */
+    private static void exportarDados(String[] args, int indiceExportar) {
+        if (indiceExportar + 1 >= args.length) {
+            System.err.println("ERRO: informe o arquivo: --exportar <arquivo>");
+            return;
+        }
+        int indiceRelatorio = Arrays.asList(args).indexOf("--relatorio");
+        try {
+            long inicio = System.nanoTime();
+            long bytes = SERVICE.exportarPedidos(Paths.get(args[indiceExportar + 1]));
+            if (indiceRelatorio >= 0 && indiceRelatorio + 1 < args.length) bytes += SERVICE.exportarRelatorio(Paths.get(args[indiceRelatorio + 1]));
+            long nanos = System.nanoTime() - inicio;
+            System.out.printf("--- Exportação concluída: %d pedidos, %.1f MB em %d ms (%.1f MB/s) ---\n",
+                SERVICE.getNumPedidos(), bytes / 1e6, TimeUnit.NANOSECONDS.toMillis(nanos), bytes / 1e6 / (nanos / 1e9));
+        } catch (IOException e) {
+            System.err.println("ERRO NA EXPORTAÇÃO: " + e.getMessage());
+        } finally {
+            encerrarPersistencia();
+        }
+    }
+
+    /**
+     * NOVO: Modo servidor: --http [porta] (padrão 8080). A API roda até o processo ser encerrado (Ctrl+C);
+     * o gancho de encerramento para a API antes de salvar os dados.
+     */
+    private static void iniciarApi(String[] args, int indiceHttp) {
+        int porta = 8080;
+        try {
+            if (indiceHttp + 1 < args.length && !args[indiceHttp + 1].startsWith("--")) porta = Integer.parseInt(args[indiceHttp + 1]);
+            int indicePipeline = Arrays.asList(args).indexOf("--pipeline");
+            if (indicePipeline >= 0) {
+                double aceleracao = indicePipeline + 1 < args.length ? Double.parseDouble(args[indicePipeline + 1]) : 60;
+                SERVICE.anexarPipeline(new PipelinePedidos(ConfigEtapa.padrao(4, 4, 12), new RelogioSistema(aceleracao), null));
+                System.out.println("--- Pipeline de preparo ativo (relógio " + aceleracao + "x) ---");
+            }
+            API = ServidorHttp.iniciar(SERVICE, porta);
+            System.out.println("--- API HTTP ouvindo na porta " + API.getPorta() + " (Ctrl+C para encerrar) ---");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("ERRO: não foi possível iniciar a API HTTP: " + e.getMessage());
+            encerrarPersistencia();
+        }
+    }
+
+    // NOVO: Distâncias pelo endereço do cliente, aquecidas com os pedidos recuperados
+    private static void iniciarDistancias() {
+        CacheDistancias cache = new CacheDistancias(new GeocodificadorLocal(TimeUnit.MILLISECONDS.toNanos(20)),
+            10_000, TimeUnit.DAYS.toNanos(7), new RelogioSistema(1));
+        cache.aquecer(SERVICE.percorrerPedidos(), System.currentTimeMillis());
+        SERVICE.anexarDistancias(cache);
+    }
+
+    /** NOVO: --catalogo <arquivo>: carrega os preços do arquivo e recarrega a cada alteração, sem reiniciar. */
+    private static boolean iniciarCatalogo(String[] args) {
+        int indice = Arrays.asList(args).indexOf("--catalogo");
+        if (indice < 0) return true;
+        if (indice + 1 >= args.length) {
+            System.err.println("ERRO: informe o arquivo: --catalogo <arquivo>");
+            return false;
+        }
+        Path arquivo = Paths.get(args[indice + 1]);
+        try {
+            CatalogoPrecos vigente = SERVICE.recarregarCatalogo(arquivo);
+            VIGIA_CATALOGO = new VigiaCatalogo(arquivo, SERVICE);
+            System.out.println("--- Catálogo de preços v" + vigente.getVersao() + " (" + arquivo + "), recarregado ao ser alterado ---");
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("ERRO: não foi possível carregar o catálogo " + arquivo + ": " + e.getMessage());
+            encerrarPersistencia();
+            return false;
+        }
+    }
+
+    private static void encerrarPersistencia() {
+        ServidorHttp api = API;
+        if (api != null) api.close(); // Nenhuma requisição pode alterar o estado depois da foto final
+        try {
+            if (VIGIA_CATALOGO != null) VIGIA_CATALOGO.close();
+        } catch (IOException e) {
+            System.err.println("ERRO: falha ao encerrar a vigia do catálogo: " + e.getMessage());
+        }
+        PipelinePedidos pipeline = SERVICE.getPipeline();
+        if (pipeline != null) pipeline.close();
+        if (PERSISTENCIA == null) return;
+        try {
+            PERSISTENCIA.close();
+        } catch (IOException e) {
+            System.err.println("ERRO: falha ao salvar os dados: " + e.getMessage());
+        }
+    }
+    
+    private static void aguardarConfirmacao(Scanner scanner) {
+        System.out.println("\n--- Pressione ENTER para voltar ao Menu Principal ---");
+        scanner.nextLine(); 
+    }
+
+    private static void popularDadosIniciais() {
+        SERVICE.adicionarCliente(new Cliente("Ana Silva", "Rua das Flores, 10", "98888-1111", "ana@ex.com"));
+        SERVICE.adicionarCliente(new Cliente("Bruno Costa", "Av. Central, 50", "97777-2222", "bruno@ex.com"));
+
+        Cliente c1 = SERVICE.getListaClientes().get(0);
+        List<Pizza> p1 = new ArrayList<>();
+        p1.add(Pizza.de(Arrays.asList(Sabor.PEPPERONI, Sabor.MUSSARELA), Pizza.TamanhoPizza.GRANDE));
+        p1.add(Pizza.de(Arrays.asList(Sabor.QUATRO_QUEIJOS), Pizza.TamanhoPizza.BROTO));
+        List<Bebida> b1 = new ArrayList<>();
+        b1.add(Bebida.COCA_COLA_2L);
+        SERVICE.criarPedido(c1, p1, b1, 3.5);
+
+        Cliente c2 = SERVICE.getListaClientes().get(1);
+        List<Pizza> p2 = new ArrayList<>();
+        p2.add(Pizza.de(Arrays.asList(Sabor.FRANGO_CATUPIRY, Sabor.MUSSARELA), Pizza.TamanhoPizza.GIGA));
+        p2.add(Pizza.de(Arrays.asList(Sabor.PEPPERONI, Sabor.CALABRESA), Pizza.TamanhoPizza.GRANDE));
+        p2.add(Pizza.de(Arrays.asList(Sabor.MARGUERITA), Pizza.TamanhoPizza.GRANDE));
+        List<Bebida> b2 = new ArrayList<>();
+        b2.add(Bebida.GUARANA_2L);
+        b2.add(Bebida.GUARANA_2L);
+        b2.add(Bebida.FANTA_2L);
+        SERVICE.criarPedido(c2, p2, b2, 8.0);
+        
+        System.out.println("--- Dados Iniciais Populares Carregados (2 Clientes, 2 Pedidos, com Bebidas) ---");
+    }
+
+    private static void exibirMenuPrincipal() {
+        System.out.println("\n====================================");
+        System.out.println("|      PIZZARIA - MENU PRINCIPAL   |");
+        System.out.println("====================================");
+        System.out.println("1. Fazer um Novo Pedido");
+        System.out.println("2. Alterar Pedido Existente");
+        System.out.println("3. Adicionar Cliente");
+        System.out.println("4. Gerar Relatório de Vendas (Grafo)");
+        System.out.println("5. Exibir Lista de Clientes");
+        System.out.println("6. Exibir Lista de Pedidos");
+        System.out.println("7. Relatório do Histórico (Mês/Ano)");
+        System.out.println("8. Fechar Período (Arquivar Pedidos)");
+        System.out.println("9. Sair");
+        System.out.print("Sua Opção: ");
+    }
+    
+    private static int lerInteiro(Scanner scanner) {
+        int valor = scanner.nextInt();
+        scanner.nextLine(); 
+        return valor;
+    }
+    
+    private static double lerDouble(Scanner scanner) {
+        double valor = scanner.nextDouble();
+        scanner.nextLine();
+        return valor;
+    }
+
+    /**
+     * NOVO: Procura cliente por nome e oferece a opção de cadastrar se não encontrado.
+     */
+    private static Cliente procurarOuCriarCliente(Scanner scanner) {
+        while (true) {
+            System.out.println("\n--- SELECIONAR CLIENTE ---");
+            System.out.print("Digite o NOME, TELEFONE ou EMAIL do cliente: ");
+            String nomeBusca = scanner.nextLine().trim();
+
+            if (nomeBusca.isEmpty()) {
+                System.out.println("O nome não pode ser vazio.");
+                continue;
+            }
+
+            // NOVO: Telefone ou email identificam o cliente direto pelo índice
+            Optional<Cliente> identificado = identificarPorContato(nomeBusca);
+            if (identificado.isPresent()) {
+                System.out.println("✅ Cliente identificado: " + identificado.get());
+                return identificado.get();
+            }
+
+            List<Cliente> encontrados = SERVICE.buscarClientesPorNome(nomeBusca, MAX_SUGESTOES_CLIENTE);
+
+            if (encontrados.size() == 1) {
+                Cliente clienteEncontrado = encontrados.get(0);
+                System.out.println("✅ Cliente encontrado: " + clienteEncontrado.getNome());
+                return clienteEncontrado;
+            }
+
+            if (!encontrados.isEmpty()) {
+                // NOVO: Vários clientes casam com a busca; são listados em ordem de relevância
+                System.out.println("Clientes encontrados:");
+                for (int i = 0; i < encontrados.size(); i++) {
+                    System.out.printf("%d - %s\n", (i + 1), encontrados.get(i));
+                }
+                System.out.print("Selecione o cliente (0 se não for nenhum deles): ");
+                int opcao = lerInteiro(scanner);
+                if (opcao > 0 && opcao <= encontrados.size()) {
+                    Cliente clienteEncontrado = encontrados.get(opcao - 1);
+                    System.out.println("✅ Cliente selecionado: " + clienteEncontrado.getNome());
+                    return clienteEncontrado;
+                }
+            } else {
+                System.out.println("Cliente não encontrado.");
+            }
+
+            System.out.print("Deseja cadastrar um novo cliente com o nome '" + nomeBusca + "'? (1-Sim, 2-Não): ");
+            if (lerInteiro(scanner) == 1) {
+                return adicionarClienteMenu(scanner, nomeBusca);
+            } else {
+                System.out.println("Tentando novamente a busca...");
+            }
+        }
+    }
+    
+    private static Optional<Cliente> identificarPorContato(String texto) {
+        if (texto.indexOf('@') > 0) return SERVICE.buscarClientePorEmail(texto);
+        return pareceTelefone(texto) ? SERVICE.buscarClientePorTelefone(texto) : Optional.empty();
+    }
+
+    // Só dígitos e formatação de telefone, com ao menos 8 dígitos (número local)
+    private static boolean pareceTelefone(String texto) {
+        int digitos = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (Character.isDigit(c)) digitos++;
+            else if ("+()- ".indexOf(c) < 0) return false;
+        }
+        return digitos >= 8;
+    }
+    
+    private static List<Sabor> selecionarSabores(Scanner scanner, int quantiSabores) {
+        List<Sabor> saboresSelect = new ArrayList<>();
+        Sabor[] saboresDisponiveis = Sabor.values();
+
+        System.out.println("\n--- CARDÁPIO ---");
+        for (int j = 0; j < saboresDisponiveis.length; j++) {
+            System.out.printf("%d - %s (R$ %s)\n", 
+                (j + 1), saboresDisponiveis[j].getNomeFormatado(), Moeda.formatar(SERVICE.getCatalogo().getPrecoSabor(saboresDisponiveis[j])));
+        }
+        
+        for (int i = 0; i < quantiSabores; i++) {
+            System.out.printf("Selecione o %dº sabor: ", (i + 1));
+            int opcao = lerInteiro(scanner);
+
+            saboresSelect.add(Sabor.fromIndex(opcao - 1));
+        }
+        return saboresSelect;
+    }
+
+    private static Pizza.TamanhoPizza selecionarTamanho(Scanner scanner) {
+        System.out.println("\n--- SELECIONAR TAMANHO ---");
+        Pizza.TamanhoPizza[] tamanhos = Pizza.TamanhoPizza.values();
+        for (int i = 0; i < tamanhos.length; i++) {
+            System.out.printf("%d - %s\n", (i + 1), tamanhos[i].name());
+        }
+        System.out.print("Opção: ");
+        int tamanhoIndex = lerInteiro(scanner);
+
+        return Pizza.TamanhoPizza.getByIndex(tamanhoIndex - 1);
+    }
+    
+    // NOVO: Fluxo para adicionar bebidas
+    private static List<Bebida> adicionarBebidasAoPedido(Scanner scanner) {
+        List<Bebida> bebidas = new ArrayList<>();
+        Bebida[] bebidasDisponiveis = Bebida.values();
+        boolean adicionarMais = true;
+
+        System.out.println("\n--- SELECIONAR BEBIDAS (2L) ---");
+        
+        while (adicionarMais) {
+            System.out.println("\nBebidas disponíveis:");
+            for (int i = 0; i < bebidasDisponiveis.length; i++) {
+                System.out.printf("%d - %s (R$ %s)\n", 
+                    (i + 1), bebidasDisponiveis[i].getNomeFormatado(), Moeda.formatar(SERVICE.getCatalogo().getPrecoBebida(bebidasDisponiveis[i])));
+            }
+            System.out.println("0 - Nenhuma/Próxima Etapa");
+            System.out.print("Opção: ");
+            
+            int opcao = lerInteiro(scanner);
+
+            if (opcao == 0) {
+                adicionarMais = false;
+            } else if (opcao > 0 && opcao <= bebidasDisponiveis.length) {
+                Bebida bebida = Bebida.fromIndex(opcao - 1);
+                bebidas.add(bebida);
+                System.out.println("  > " + bebida.getNomeFormatado() + " adicionada.");
+            } else {
+                System.out.println("Opção inválida. Tente novamente.");
+            }
+        }
+        return bebidas;
+    }
+
+    private static void fazerPedido(Scanner scanner) {
+        try {
+            System.out.println("\n--- FAZER NOVO PEDIDO ---");
+            Cliente cliente = procurarOuCriarCliente(scanner);
+            if (oferecerRepeticao(scanner, cliente)) return;
+            
+            List<Pizza> pizzas = new ArrayList<>();
+            boolean adicionarMaisPizza = true;
+            
+            while (adicionarMaisPizza) {
+                Pizza.TamanhoPizza tamanho = selecionarTamanho(scanner);
+
+                int quantiSabores = 0;
+                while (quantiSabores < 1 || quantiSabores > 4) {
+                    System.out.print("Quantos sabores (1 a 4)? ");
+                    quantiSabores = lerInteiro(scanner);
+                }
+
+                List<Sabor> saboresSelect = selecionarSabores(scanner, quantiSabores);
+                Pizza pizza = Pizza.de(saboresSelect, tamanho, SERVICE.getCatalogo());
+                pizzas.add(pizza);
+                
+                System.out.println("  > Pizza adicionada: " + pizza);
+                
+                System.out.print("Adicionar mais pizzas? (1-Sim, 2-Não): ");
+                if(lerInteiro(scanner) != 1) adicionarMaisPizza = false;
+            }
+            
+            List<Bebida> bebidas = adicionarBebidasAoPedido(scanner); // Adiciona bebidas
+
+            double distanciaKm = Double.NaN;
+            try {
+                distanciaKm = SERVICE.resolverDistanciaKm(cliente);
+                System.out.printf("\nDistância até %s: %.1f km. Usar essa distância? (1-Sim, 2-Não): ", cliente.getEndereco(), distanciaKm);
+                if (lerInteiro(scanner) != 1) distanciaKm = Double.NaN;
+            } catch (IllegalArgumentException e) {
+                System.out.println("\n(" + e.getMessage() + ")");
+            }
+            if (Double.isNaN(distanciaKm)) {
+                System.out.print("Digite a distância para entrega em KM (ex: 5.5): ");
+                distanciaKm = lerDouble(scanner);
+            }
+
+            Pedido pedido = SERVICE.criarPedido(cliente, pizzas, bebidas, distanciaKm); 
+            imprimirPedidoConcluido(pedido);
+        } finally {
+            aguardarConfirmacao(scanner);
+        }
+    }
+
+    private static void imprimirPedidoConcluido(Pedido pedido) {
+        System.out.println("\n✅ Pedido #" + pedido.getId() + " concluído para " + pedido.getCliente().getNome() + "!");
+        System.out.println(String.format("   Frete: R$ %s | Valor Total: R$ %s", Moeda.formatar(pedido.getFreteCentavos()), Moeda.formatar(pedido.getValorTotalCentavos())));
+    }
+
+    // NOVO: Mostra o histórico do cliente e oferece refazer o último pedido; true se o pedido foi repetido
+    private static boolean oferecerRepeticao(Scanner scanner, Cliente cliente) {
+        HistoricoCliente historico = cliente.getHistorico();
+        if (historico.getNumPedidos() == 0) return false;
+        System.out.printf(">> %d pedido(s) até hoje, R$ %s no total%s.%n", historico.getNumPedidos(),
+                Moeda.formatar(historico.getGastoTotalCentavos()),
+                historico.getSaborFavorito().map(s -> " | Sabor favorito: " + s.getNomeFormatado()).orElse(""));
+        int ultimoId = historico.getUltimoIdPedido();
+        if (ultimoId < 0) return false; // Só pedidos já arquivados
+        Pedido ultimo;
+        try {
+            ultimo = SERVICE.buscarPedido(ultimoId);
+        } catch (PedidoNaoEncontradoException e) {
+            return false;
+        }
+        System.out.println("   Último pedido (#" + ultimo.getId() + "):");
+        ultimo.getPizzas().forEach(p -> System.out.println("   > " + p));
+        ultimo.getBebidas().forEach(b -> System.out.println("   > Bebida: " + b.getNomeFormatado()));
+        System.out.print("Repetir o último pedido? (1-Sim, 2-Não): ");
+        if (lerInteiro(scanner) != 1) return false;
+        imprimirPedidoConcluido(SERVICE.repetirUltimoPedido(cliente));
+        return true;
+    }
+
+    private static void menuAlterarPedido(Scanner scanner) {
+        Pedido pedido = null;
+        try {
+            System.out.println("\n--- ALTERAR PEDIDO ---");
+            System.out.print("Digite o ID do pedido: ");
+            int id = lerInteiro(scanner);
+            
+            pedido = SERVICE.buscarPedido(id);
+            
+            System.out.println(">> Pedido encontrado para " + pedido.getCliente().getNome() + ":");
+            pedido.getPizzas().forEach(p -> System.out.println("   > " + p));
+            pedido.getBebidas().forEach(b -> System.out.println("   > Bebida: " + b.getNomeFormatado()));
+            System.out.println("   Total atual: R$ " + Moeda.formatar(pedido.getValorTotalCentavos()));
+            
+            System.out.println("\nSelecione a Ação:");
+            System.out.println("1 - Adicionar nova pizza");
+            System.out.println("2 - Remover pizza");
+            System.out.println("3 - Alterar sabor de uma pizza");
+            System.out.println("4 - Adicionar bebida");
+            System.out.println("5 - Remover bebida");
+            System.out.print("Opção: ");
+            int opcao = lerInteiro(scanner);
+            
+            Pedido pedidoAtualizado = null;
+
+            switch (opcao) {
+                case 1: pedidoAtualizado = adicionarPizza(scanner, pedido); break;
+                case 2: pedidoAtualizado = removerPizza(scanner, pedido); break;
+                case 3: pedidoAtualizado = alterarSaborPizza(scanner, pedido); break;
+                case 4: pedidoAtualizado = adicionarBebida(scanner, pedido); break; // NOVO
+                case 5: pedidoAtualizado = removerBebida(scanner, pedido); break;  // NOVO
+                default: System.out.println("Opção inválida."); return;
+            }
+            
+            if (pedidoAtualizado != null) {
+                System.out.println("✅ Operação concluída!");
+                System.out.println("   Novo Total: R$ " + Moeda.formatar(pedidoAtualizado.getValorTotalCentavos()));
+            }
+        } finally {
+            aguardarConfirmacao(scanner);
+        }
+    }
+    
+    private static Pedido adicionarPizza(Scanner scanner, Pedido pedido) {
+        System.out.println("\n--- ADICIONAR PIZZA ---");
+        Pizza.TamanhoPizza tamanho = selecionarTamanho(scanner);
+        int quantiSabores = 0;
+        while (quantiSabores < 1 || quantiSabores > 4) {
+            System.out.print("Quantos sabores (1 a 4)? ");
+            quantiSabores = lerInteiro(scanner);
+        }
+        List<Sabor> saboresSelect = selecionarSabores(scanner, quantiSabores);
+        Pizza novaPizza = Pizza.de(saboresSelect, tamanho);
+        
+        System.out.println("Adicionando: " + pedido.getCatalogo().equivalente(novaPizza)); // Preço da versão do pedido
+        return SERVICE.adicionarPizzaAoPedido(pedido, novaPizza);
+    }
+    
+    // NOVO: Método para adicionar bebida em pedido existente
+    private static Pedido adicionarBebida(Scanner scanner, Pedido pedido) {
+        Bebida[] bebidasDisponiveis = Bebida.values();
+        
+        System.out.println("\n--- ADICIONAR BEBIDA ---");
+        for (int i = 0; i < bebidasDisponiveis.length; i++) {
+            System.out.printf("%d - %s (R$ %s)\n", 
+                (i + 1), bebidasDisponiveis[i].getNomeFormatado(), Moeda.formatar(pedido.getCatalogo().getPrecoBebida(bebidasDisponiveis[i])));
+        }
+        System.out.print("Opção: ");
+        
+        int opcao = lerInteiro(scanner);
+
+        if (opcao > 0 && opcao <= bebidasDisponiveis.length) {
+            Bebida bebida = Bebida.fromIndex(opcao - 1);
+            System.out.println("Adicionando: " + bebida.getNomeFormatado());
+            return SERVICE.adicionarBebidaAoPedido(pedido, bebida);
+        } else {
+            throw new IllegalArgumentException("Opção de bebida inválida.");
+        }
+    }
+    
+    private static Pedido removerPizza(Scanner scanner, Pedido pedido) {
+        System.out.println("\n--- REMOVER PIZZA ---");
+        if (pedido.getPizzas().isEmpty()) {
+            throw new IllegalArgumentException("O pedido não possui pizzas.");
+        }
+        
+        System.out.println("Pizzas no Pedido " + pedido.getId() + ":");
+        for (int i = 0; i < pedido.getPizzas().size(); i++) {
+            System.out.println((i + 1) + " - " + pedido.getPizzas().get(i));
+        }
+        
+        System.out.print("Digite o número da pizza para remover: ");
+        int indice = lerInteiro(scanner);
+        
+        return SERVICE.removerPizzaDoPedido(pedido, indice - 1);
+    }
+    
+    // NOVO: Método para remover bebida
+    private static Pedido removerBebida(Scanner scanner, Pedido pedido) {
+        System.out.println("\n--- REMOVER BEBIDA ---");
+        if (pedido.getBebidas().isEmpty()) {
+            throw new IllegalArgumentException("O pedido não possui bebidas.");
+        }
+        
+        System.out.println("Bebidas no Pedido " + pedido.getId() + ":");
+        for (int i = 0; i < pedido.getBebidas().size(); i++) {
+            System.out.println((i + 1) + " - " + pedido.getBebidas().get(i).getNomeFormatado() 
+                               + " (R$ " + Moeda.formatar(pedido.getCatalogo().getPrecoBebida(pedido.getBebidas().get(i))) + ")");
+        }
+        
+        System.out.print("Digite o número da bebida para remover: ");
+        int indice = lerInteiro(scanner);
+        
+        return SERVICE.removerBebidaDoPedido(pedido, indice - 1);
+    }
+    
+    private static Pedido alterarSaborPizza(Scanner scanner, Pedido pedido) {
+        System.out.println("\n--- ALTERAR SABOR ---");
+        if (pedido.getPizzas().isEmpty()) {
+            throw new IllegalArgumentException("O pedido não possui pizzas.");
+        }
+        
+        System.out.println("Pizzas no Pedido " + pedido.getId() + ":");
+        for (int i = 0; i < pedido.getPizzas().size(); i++) {
+            System.out.println((i + 1) + " - " + pedido.getPizzas().get(i));
+        }
+        
+        System.out.print("Digite o número da pizza para alterar: ");
+        int indicePizza = lerInteiro(scanner);
+        
+        Pizza pizzaAntiga = pedido.getPizzas().get(indicePizza - 1);
+        int quantiSabores = pizzaAntiga.getSabores().size();
+
+        System.out.printf("\nAlterando %s com %d sabores...\n", pizzaAntiga.getTamanho().name(), quantiSabores);
+        List<Sabor> novosSabores = selecionarSabores(scanner, quantiSabores);
+        
+        return SERVICE.alterarSaborPizza(pedido, indicePizza - 1, novosSabores);
+    }
+
+    /**
+     * Adiciona cliente, opcionalmente preenchendo o nome com o valor da busca.
+     * Retorna o cliente criado.
+     */
+    private static Cliente adicionarClienteMenu(Scanner scanner) {
+        return adicionarClienteMenu(scanner, "");
+    }
+    
+    private static Cliente adicionarClienteMenu(Scanner scanner, String nomePreenchido) {
+        System.out.println("\n--- NOVO CADASTRO DE CLIENTE ---");
+        String nome;
+        if (nomePreenchido.isEmpty()) {
+            System.out.print("Nome: "); 
+            nome = scanner.nextLine();
+        } else {
+            nome = nomePreenchido;
+            System.out.println("Nome: " + nome + " (Pré-preenchido)");
+        }
+        
+        System.out.print("Endereço: "); String endereco = scanner.nextLine();
+        System.out.print("Telefone: "); String telefone = scanner.nextLine();
+        System.out.print("Email: "); String email = scanner.nextLine();
+
+        Cliente cliente = new Cliente(nome, endereco, telefone, email);
+        try {
+            SERVICE.adicionarCliente(cliente);
+            System.out.println("✅ Cliente " + nome + " adicionado com sucesso!");
+        } catch (ClienteDuplicadoException e) {
+            // NOVO: Já cadastrado com esse telefone/email: segue com o cadastro existente
+            cliente = e.getExistente();
+            System.out.println("⚠️ " + e.getMessage() + " Usando o cadastro existente.");
+        }
+        
+        // Se chamado do menu principal, pausa. Se chamado do fluxo de pedido, não pausa aqui.
+        if (nomePreenchido.isEmpty()) {
+            aguardarConfirmacao(scanner); 
+        }
+        return cliente;
+    }
+
+    // NOVO: Listagens paginadas: cada página é buscada pelo cursor da anterior e montada no buffer da TELA
+    private static void gerarListaClientes(Scanner scanner) {
+        Pagina<Cliente> pagina = SERVICE.listarClientes(Pagina.INICIO, TAMANHO_PAGINA);
+        if (pagina.getItens().isEmpty()) {
+            System.out.println("A lista de clientes está vazia.");
+        } else {
+            TELA.println("\n--- LISTA DE CLIENTES ---");
+            while (true) {
+                for (Cliente cliente : pagina.getItens()) {
+                    TELA.append(Integer.toString(cliente.getId())).append(". ").println(cliente);
+                }
+                TELA.flush();
+                if (!pagina.temProxima() || !continuarListagem(scanner)) break;
+                pagina = SERVICE.listarClientes(pagina.getProximoCursor(), TAMANHO_PAGINA);
+            }
+        }
+        aguardarConfirmacao(scanner);
+    }
+    
+    private static void gerarListaPedidos(Scanner scanner) {
+        FiltroPedidos filtro = lerFiltroPedidos(scanner);
+        Pagina<Pedido> pagina = SERVICE.listarPedidos(filtro, Pagina.INICIO, TAMANHO_PAGINA);
+        if (pagina.getItens().isEmpty()) {
+            System.out.println(filtro == FiltroPedidos.TODOS ? "A lista de pedidos está vazia." : "Nenhum pedido atende ao filtro.");
+        } else {
+            TELA.println("\n--- LISTA DE PEDIDOS REGISTRADOS ---");
+            while (true) {
+                for (Pedido pedido : pagina.getItens()) renderizarPedido(pedido);
+                TELA.println("------------------------------------");
+                TELA.flush();
+                if (!pagina.temProxima() || !continuarListagem(scanner)) break;
+                pagina = SERVICE.listarPedidos(filtro, pagina.getProximoCursor(), TAMANHO_PAGINA);
+            }
+        }
+        aguardarConfirmacao(scanner);
+    }
+
+    private static FiltroPedidos lerFiltroPedidos(Scanner scanner) {
+        System.out.print("Filtrar os pedidos? (1-Sim, 2-Não): ");
+        if (lerInteiro(scanner) != 1) return FiltroPedidos.TODOS;
+        FiltroPedidos filtro = FiltroPedidos.TODOS;
+        System.out.print("Cliente (nome, telefone ou email; ENTER = todos): ");
+        String busca = scanner.nextLine().trim();
+        if (!busca.isEmpty()) {
+            Cliente cliente = identificarPorContato(busca).or(() -> SERVICE.buscarClientePorNome(busca))
+                .orElseThrow(() -> new IllegalArgumentException("Cliente '" + busca + "' não encontrado."));
+            System.out.println("  > Cliente: " + cliente.getNome());
+            filtro = filtro.comCliente(cliente);
+        }
+        System.out.print("Valor mínimo em R$ (0 = qualquer): ");
+        filtro = filtro.comValorMinimo(Math.round(lerDouble(scanner) * 100));
+        System.out.print("Do pedido ID (0 = primeiro): ");
+        int idMinimo = lerInteiro(scanner);
+        System.out.print("Até o pedido ID (0 = último): ");
+        int idMaximo = lerInteiro(scanner);
+        return filtro.comIds(Math.max(idMinimo, 1), idMaximo <= 0 ? Integer.MAX_VALUE : idMaximo);
+    }
+
+    private static boolean continuarListagem(Scanner scanner) {
+        System.out.print("1 - Próxima página, 0 - Parar: ");
+        return lerInteiro(scanner) == 1;
+    }
+
+    private static void renderizarPedido(Pedido pedido) {
+        Pedido copia = pedido.copiar(); // Itens e totais de um mesmo estado, mesmo com edições concorrentes
+        TELA.println("------------------------------------");
+        TELA.append("PEDIDO #").append(Integer.toString(copia.getId()))
+            .append(" | CLIENTE: ").append(copia.getCliente().getNome())
+            .append(" | TOTAL: R$ ").append(Moeda.formatar(copia.getValorTotalCentavos()))
+            .append(" (Frete: R$ ").append(Moeda.formatar(copia.getFreteCentavos())).println(')');
+
+        TELA.println("  PIZZAS:");
+        List<Pizza> pizzas = copia.getPizzas();
+        if (pizzas.isEmpty()) TELA.println("   (Nenhuma pizza neste pedido)");
+        for (Pizza pizza : pizzas) TELA.append("   > ").println(pizza);
+
+        TELA.println("  BEBIDAS:");
+        List<Bebida> bebidas = copia.getBebidas();
+        if (bebidas.isEmpty()) TELA.println("   (Nenhuma bebida neste pedido)");
+        for (Bebida bebida : bebidas) TELA.append("   > ").println(bebida.getNomeFormatado());
+    }
+
+    // NOVO: Relatório do mês ou do ano a partir dos arquivos colunares dos períodos fechados
+    private static void gerarRelatorioHistorico(Scanner scanner) throws IOException {
+        System.out.println("\n--- RELATÓRIO DO HISTÓRICO ---");
+        System.out.println("1 - Mês atual");
+        System.out.println("2 - Ano atual");
+        System.out.println("3 - Histórico completo recalculado (períodos fechados + pedidos atuais)"); // NOVO
+        System.out.print("Opção: ");
+        int opcao = lerInteiro(scanner);
+
+        LocalDate hoje = LocalDate.now();
+        LocalDate desde;
+        switch (opcao) {
+            case 1: desde = hoje.withDayOfMonth(1); break;
+            case 2: desde = hoje.withDayOfYear(1); break;
+            case 3:
+                long inicio = System.nanoTime();
+                ResumoVendas completo = SERVICE.recalcularResumo(HISTORICO.abrir(LocalDate.MIN, hoje));
+                System.out.printf("Recalculado em %d ms:%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+                completo.imprimir();
+                aguardarConfirmacao(scanner);
+                return;
+            default: throw new IllegalArgumentException("Opção de período inválida.");
+        }
+
+        if (HISTORICO.listar(desde, hoje).isEmpty()) {
+            System.out.println("Nenhum período fechado desde " + desde + ".");
+        } else {
+            System.out.println("Períodos fechados de " + desde + " a " + hoje + ":");
+            HISTORICO.resumir(desde, hoje).imprimir();
+        }
+        aguardarConfirmacao(scanner);
+    }
+
+    private static void fecharPeriodo(Scanner scanner) throws IOException {
+        System.out.print("\nArquivar todos os pedidos atuais? (1-Sim, 2-Não): ");
+        if (lerInteiro(scanner) == 1) {
+            int arquivados = HISTORICO.fecharPeriodo(SERVICE, LocalDate.now());
+            System.out.println("✅ " + arquivados + " pedido(s) arquivado(s).");
+        }
+        aguardarConfirmacao(scanner);
+    }
+}
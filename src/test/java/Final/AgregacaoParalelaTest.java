@@ -0,0 +1,57 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import Final.PizzariaApp.AgregacaoParalela;
+import Final.PizzariaApp.ArquivoColunar;
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.FonteVendas;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.PedidosEmMemoria;
+import Final.PizzariaApp.PizzariaService;
+import Final.PizzariaApp.ResumoVendas;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AgregacaoParalelaTest {
+    private static final int PEDIDOS = 5 * AgregacaoParalela.LIMIAR + 123; // Várias divisões, com faixas desiguais
+
+    @TempDir
+    Path diretorio;
+
+    private static String impresso(ResumoVendas resumo) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        resumo.imprimir(new PrintStream(saida, true, StandardCharsets.UTF_8));
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+
+    // Fontes acima do LIMIAR são divididas entre as threads do pool: o relatório tem de sair idêntico ao sequencial
+    @Test
+    void paraleloIgualAoSequencialComVariasFontes() throws IOException {
+        PizzariaService servico = BenchmarkPizzaria.popular(PEDIDOS);
+        List<Pedido> pedidos = servico.getListaPedidos();
+        Path arquivo = diretorio.resolve("historico.col");
+        ArquivoColunar.escrever(arquivo, pedidos);
+        List<FonteVendas> fontes = List.of(new PedidosEmMemoria(pedidos), ArquivoColunar.abrir(arquivo),
+                new PedidosEmMemoria(pedidos.subList(0, 3 * AgregacaoParalela.LIMIAR + 7)));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ResumoVendas sequencial = AgregacaoParalela.resumirSequencial(fontes);
+            ResumoVendas paralelo = AgregacaoParalela.resumir(fontes, pool);
+            assertEquals(sequencial.getFaturamentoCentavos(), paralelo.getFaturamentoCentavos(), "Faturamento diverge");
+            assertEquals(impresso(sequencial), impresso(paralelo), "Relatório paralelo diverge do sequencial");
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(impresso(servico.getResumo()), impresso(AgregacaoParalela.resumir(List.of(new PedidosEmMemoria(pedidos)))),
+                "Recontagem paralela diverge dos agregados incrementais");
+    }
+}
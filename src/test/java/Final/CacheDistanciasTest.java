@@ -0,0 +1,153 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.CacheDistancias;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.GeocodificadorLocal;
+import Final.PizzariaApp.PizzariaService;
+import Final.PizzariaApp.Relogio;
+import Final.PizzariaApp.ResolvedorDistancia;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CacheDistanciasTest {
+    private static final long VALIDADE = 100;
+
+    // Relógio parado: o teste avança o tempo explicitamente
+    private static final class RelogioManual implements Relogio {
+        long agora;
+
+        @Override
+        public long agoraNanos() { return agora; }
+
+        @Override
+        public void aguardar(long nanos) { agora += nanos; }
+    }
+
+    // Origem determinística que registra cada consulta
+    private static final class OrigemContada implements ResolvedorDistancia {
+        final GeocodificadorLocal geocodificador = new GeocodificadorLocal(0);
+        final List<String> consultas = new ArrayList<>();
+
+        @Override
+        public double distanciaKm(String endereco) {
+            consultas.add(endereco);
+            return geocodificador.distanciaKm(endereco);
+        }
+    }
+
+    private final RelogioManual relogio = new RelogioManual();
+    private final OrigemContada origem = new OrigemContada();
+
+    private CacheDistancias cache(int capacidade) {
+        return new CacheDistancias(origem, capacidade, VALIDADE, relogio);
+    }
+
+    @Test
+    void geocodificadorLocalEhDeterministico() {
+        GeocodificadorLocal geocodificador = new GeocodificadorLocal(0);
+        double km = geocodificador.distanciaKm("Rua das Flores, 10");
+        assertEquals(km, new GeocodificadorLocal(0).distanciaKm("Rua das Flores, 10"));
+        assertEquals(km, Math.round(km * 10) / 10.0, "Distância com mais de uma casa decimal");
+        assertThrows(IllegalArgumentException.class, () -> geocodificador.distanciaKm("123"), "Endereço sem rua deveria falhar");
+    }
+
+    @Test
+    void descartaOMenosUsadoRecentementeNaCapacidade() {
+        CacheDistancias cache = cache(2);
+        cache.distanciaKm("Rua A, 1");
+        cache.distanciaKm("Rua B, 2");
+        cache.distanciaKm("Rua A, 1"); // A passa a ser o mais recente: B é o próximo a sair
+        cache.distanciaKm("Rua C, 3");
+        assertEquals(2, cache.getTamanho());
+        assertEquals(1, cache.getDescartadas());
+
+        cache.distanciaKm("Rua A, 1");
+        assertEquals(List.of("Rua A, 1", "Rua B, 2", "Rua C, 3"), origem.consultas, "A deveria continuar no cache");
+        cache.distanciaKm("Rua B, 2");
+        assertEquals(4, origem.consultas.size(), "B deveria ter sido descartado");
+    }
+
+    @Test
+    void entradaExpiraAoFimDaValidade() {
+        CacheDistancias cache = cache(10);
+        cache.distanciaKm("Rua A, 1");
+        relogio.agora = VALIDADE - 1;
+        cache.distanciaKm("Rua A, 1");
+        assertEquals(1, origem.consultas.size(), "Ainda válida: deveria ser um acerto");
+
+        relogio.agora = VALIDADE;
+        cache.distanciaKm("Rua A, 1");
+        assertEquals(2, origem.consultas.size(), "Vencida: deveria consultar a origem de novo");
+        assertEquals(1, cache.getExpiradas());
+    }
+
+    @Test
+    void contadoresETaxaDeAcerto() {
+        CacheDistancias cache = cache(1);
+        cache.distanciaKm("Rua A, 1"); // falha
+        cache.distanciaKm("Rua A, 1"); // acerto
+        cache.distanciaKm("Rua A, 1"); // acerto
+        cache.distanciaKm("Rua B, 2"); // falha, descarta A
+        relogio.agora = VALIDADE;
+        cache.distanciaKm("Rua B, 2"); // expirada e falha
+        assertEquals(2, cache.getAcertos());
+        assertEquals(3, cache.getFalhas());
+        assertEquals(1, cache.getExpiradas());
+        assertEquals(1, cache.getDescartadas());
+        assertEquals(0.4, cache.getTaxaAcerto(), 1e-9);
+    }
+
+    @Test
+    void enderecosEquivalentesTemAMesmaChave() {
+        assertEquals(CacheDistancias.normalizarEndereco("rua sao joao 10"), CacheDistancias.normalizarEndereco("  Rua  São João,10 "));
+        assertEquals(CacheDistancias.normalizarEndereco("av paulista 5"), CacheDistancias.normalizarEndereco("AV. PAULISTA, 5"));
+
+        CacheDistancias cache = cache(10);
+        double km = cache.distanciaKm("Rua São João, 10");
+        assertEquals(km, cache.distanciaKm("RUA SAO JOAO 10"));
+        assertEquals(1, origem.consultas.size(), "Endereço equivalente deveria acertar o cache");
+    }
+
+    @Test
+    void registrarMesmaDistanciaNaoRenovaValidade() {
+        CacheDistancias cache = cache(10);
+        double km = cache.distanciaKm("Rua A, 1");
+        relogio.agora = VALIDADE - 1;
+        cache.registrar("Rua A, 1", km);
+        relogio.agora = VALIDADE;
+        cache.distanciaKm("Rua A, 1");
+        assertEquals(2, origem.consultas.size(), "Repetir a distância conhecida não pode adiar a expiração");
+
+        cache.registrar("Rua A, 1", km + 1); // Valor diferente digitado pelo operador: passa a valer
+        assertEquals(km + 1, cache.distanciaKm("Rua A, 1"));
+        assertThrows(IllegalArgumentException.class, () -> cache.registrar("Rua A, 1", -1));
+    }
+
+    // Pedidos com a distância resolvida pelo cache (acertos) não renovam a entrada; distância negativa é recusada
+    @Test
+    void pedidosComDistanciaResolvidaNaoRenovamAEntrada() {
+        CacheDistancias cache = cache(10);
+        PizzariaService servico = new PizzariaService();
+        servico.anexarDistancias(cache);
+        Cliente cliente = new Cliente("Cache", "Rua A, 1", "11999990002", "c@ex.com");
+        servico.adicionarCliente(cliente);
+
+        for (long t = 0; t < VALIDADE; t += 10) {
+            relogio.agora = t;
+            servico.criarPedido(cliente, List.of(), List.of(Bebida.values()[0]));
+            servico.repetirUltimoPedido(cliente); // Repete com a mesma distância, informada explicitamente
+        }
+        assertEquals(1, origem.consultas.size());
+        relogio.agora = VALIDADE;
+        servico.criarPedido(cliente, List.of(), List.of(Bebida.values()[0]));
+        assertEquals(2, origem.consultas.size(), "A entrada deveria vencer apesar dos acertos");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> servico.criarPedido(cliente, List.of(), List.of(Bebida.values()[0]), -1));
+    }
+}
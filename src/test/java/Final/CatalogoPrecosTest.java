@@ -0,0 +1,57 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.CatalogoPrecos;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.Persistencia;
+import Final.PizzariaApp.PizzariaService;
+import Final.PizzariaApp.PoliticaSync;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CatalogoPrecosTest {
+    private static final Bebida BEBIDA = Bebida.values()[0];
+
+    @TempDir
+    Path diretorio;
+
+    // Cada serviço tem o seu catálogo: recarregar ou restaurar um não muda os preços de outro no mesmo processo
+    @Test
+    void catalogoEhEstadoDeCadaServico() throws IOException {
+        Path arquivo = diretorio.resolve("precos.properties");
+        Files.writeString(arquivo, "bebida." + BEBIDA.name() + "=99.90\n");
+        Path dados = diretorio.resolve("dados");
+
+        PizzariaService recarregado = new PizzariaService();
+        PizzariaService outro = new PizzariaService();
+        try (Persistencia persistencia = Persistencia.abrir(dados, PoliticaSync.SEMPRE, recarregado)) {
+            Cliente cliente = new Cliente("Catálogo", "Rua", "11999990003", "cat@ex.com");
+            recarregado.adicionarCliente(cliente);
+            Pedido antes = recarregado.criarPedido(cliente, List.of(), List.of(BEBIDA), 1.0);
+            CatalogoPrecos novo = recarregado.recarregarCatalogo(arquivo);
+            Pedido depois = recarregado.criarPedido(cliente, List.of(), List.of(BEBIDA), 1.0);
+
+            assertEquals(2, novo.getVersao());
+            assertEquals(9_990, depois.getCatalogo().getPrecoBebida(BEBIDA));
+            assertSame(CatalogoPrecos.PADRAO, antes.getCatalogo(), "Pedido anterior deveria manter a sua versão");
+            assertSame(CatalogoPrecos.PADRAO, outro.getCatalogo(), "Recarga vazou para outro serviço");
+            assertSame(novo, recarregado.recarregarCatalogo(arquivo), "Arquivo sem mudanças não deveria gerar versão");
+        }
+
+        PizzariaService restaurado = new PizzariaService();
+        try (Persistencia persistencia = Persistencia.abrir(dados, PoliticaSync.SEMPRE, restaurado)) {
+            assertEquals(2, restaurado.getCatalogo().getVersao(), "A maior versão restaurada deveria ser a vigente");
+            assertEquals(1, restaurado.buscarPedido(1).getCatalogo().getVersao());
+            assertEquals(2, restaurado.buscarPedido(2).getCatalogo().getVersao());
+        }
+        assertSame(CatalogoPrecos.PADRAO, outro.getCatalogo(), "Restauração vazou para outro serviço");
+    }
+}
@@ -0,0 +1,187 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.ImportadorPedidos;
+import Final.PizzariaApp.LeitorJson;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.PizzariaService;
+import Final.PizzariaApp.Sabor;
+import Final.PizzariaApp.SolicitacaoPedido;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExportadorVendasTest {
+    @TempDir
+    Path diretorio;
+
+    // Nomes que exigem escape: vírgula e aspas (CSV), quebra de linha, tabulação e barra invertida (JSON), além de
+    // acentos e um caractere fora do BMP, que viram UTF-8 de 2 a 4 bytes
+    private static final String[] NOMES = {"Ana, a \"Rainha\" da Pizza", "José\nda Silva\\Filho\t🍕", "Bruno"};
+
+    private static PizzariaService servicoComPedidos() {
+        PizzariaService servico = new PizzariaService();
+        List<Cliente> clientes = new ArrayList<>();
+        for (int i = 0; i < NOMES.length; i++) {
+            Cliente cliente = new Cliente(NOMES[i], "Rua " + i, "1190000000" + i, "c" + i + "@ex.com");
+            servico.adicionarCliente(cliente);
+            clientes.add(cliente);
+        }
+        Pizza.TamanhoPizza grande = Pizza.TamanhoPizza.GRANDE;
+        servico.criarPedido(clientes.get(0), List.of(Pizza.de(List.of(Sabor.PEPPERONI, Sabor.MUSSARELA, Sabor.ATUM), grande),
+                Pizza.de(List.of(Sabor.ATUM), Pizza.TamanhoPizza.BROTO)), List.of(Bebida.COCA_COLA_2L), 2.125);
+        servico.criarPedido(clientes.get(1), List.of(), List.of(Bebida.FANTA_2L, Bebida.FANTA_2L), 10);
+        servico.criarPedido(clientes.get(1), List.of(Pizza.de(List.of(Sabor.ATUM, Sabor.PEPPERONI), Pizza.TamanhoPizza.GIGA)),
+                List.of(), 3.5);
+        servico.criarPedido(clientes.get(2), List.of(Pizza.de(List.of(Sabor.CALABRESA), grande)), List.of(Bebida.GUARANA_2L), 0);
+        return servico;
+    }
+
+    private static String distancia(double km) {
+        return BigDecimal.valueOf(km).stripTrailingZeros().toPlainString();
+    }
+
+    // Registros CSV (RFC 4180): campos entre aspas podem conter vírgulas, quebras de linha e aspas dobradas
+    private static List<List<String>> lerCsv(String conteudo) {
+        List<List<String>> registros = new ArrayList<>();
+        List<String> registro = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < conteudo.length(); i++) {
+            char c = conteudo.charAt(i);
+            if (entreAspas) {
+                if (c != '"') campo.append(c);
+                else if (i + 1 < conteudo.length() && conteudo.charAt(i + 1) == '"') campo.append(conteudo.charAt(++i));
+                else entreAspas = false;
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',' || c == '\n') {
+                registro.add(campo.toString());
+                campo.setLength(0);
+                if (c == '\n') {
+                    registros.add(registro);
+                    registro = new ArrayList<>();
+                }
+            } else {
+                campo.append(c);
+            }
+        }
+        assertEquals(0, campo.length() + registro.size(), "Último registro sem quebra de linha");
+        return registros;
+    }
+
+    private static Object json(String linha) {
+        return new LeitorJson(linha).lerDocumento();
+    }
+
+    private static void assertMesmosItens(Pedido esperado, SolicitacaoPedido lida) {
+        assertEquals(esperado.getCliente().getId(), lida.getIdCliente(), "Cliente do pedido " + esperado.getId());
+        assertEquals(esperado.getDistanciaKm(), lida.getDistanciaKm(), "Distância do pedido " + esperado.getId());
+        assertEquals(esperado.getPizzas(), lida.getPizzas(), "Pizzas do pedido " + esperado.getId());
+        assertEquals(esperado.getBebidas(), lida.getBebidas(), "Bebidas do pedido " + esperado.getId());
+    }
+
+    @Test
+    void listagemCsvVoltaIgualAosPedidos() throws IOException {
+        PizzariaService servico = servicoComPedidos();
+        Path arquivo = diretorio.resolve("pedidos.csv");
+        long bytes = servico.exportarPedidos(arquivo);
+        assertEquals(Files.size(arquivo), bytes);
+
+        List<List<String>> registros = lerCsv(Files.readString(arquivo, StandardCharsets.UTF_8));
+        List<Pedido> pedidos = servico.getListaPedidos();
+        assertEquals(List.of("id", "cliente", "nome_cliente", "distancia_km", "pizzas", "bebidas", "frete_centavos", "total_centavos"),
+                registros.get(0));
+        assertEquals(pedidos.size() + 1, registros.size());
+        for (int i = 0; i < pedidos.size(); i++) {
+            Pedido pedido = pedidos.get(i);
+            List<String> campos = registros.get(i + 1);
+            assertEquals(8, campos.size(), "Campos do pedido " + pedido.getId());
+            assertEquals(String.valueOf(pedido.getId()), campos.get(0));
+            assertEquals(pedido.getCliente().getNome(), campos.get(2), "Nome com escape CSV");
+            assertEquals(distancia(pedido.getDistanciaKm()), campos.get(3));
+            assertEquals(String.valueOf(pedido.getFreteCentavos()), campos.get(6));
+            assertEquals(String.valueOf(pedido.getValorTotalCentavos()), campos.get(7));
+            // Pizzas e bebidas no formato da importação: cliente,distância,pizzas,bebidas volta ao mesmo pedido
+            assertMesmosItens(pedido, ImportadorPedidos.lerCsv(String.join(",", campos.get(1), campos.get(3), campos.get(4), campos.get(5))));
+        }
+    }
+
+    @Test
+    void listagemJsonlVoltaIgualAosPedidos() throws IOException {
+        PizzariaService servico = servicoComPedidos();
+        Path arquivo = diretorio.resolve("pedidos.jsonl");
+        servico.exportarPedidos(arquivo);
+
+        List<String> linhas = Files.readAllLines(arquivo, StandardCharsets.UTF_8);
+        List<Pedido> pedidos = servico.getListaPedidos();
+        assertEquals(pedidos.size(), linhas.size(), "Uma linha por pedido: quebras de linha dos nomes escapadas");
+        for (int i = 0; i < pedidos.size(); i++) {
+            Pedido pedido = pedidos.get(i);
+            Map<?, ?> objeto = (Map<?, ?>) json(linhas.get(i));
+            assertEquals((double) pedido.getId(), objeto.get("id"));
+            assertEquals(pedido.getCliente().getNome(), objeto.get("nomeCliente"), "Nome com escape JSON");
+            assertEquals((double) pedido.getFreteCentavos(), objeto.get("freteCentavos"));
+            assertEquals((double) pedido.getValorTotalCentavos(), objeto.get("totalCentavos"));
+            assertMesmosItens(pedido, ImportadorPedidos.lerJson(linhas.get(i)));
+        }
+    }
+
+    // O relatório exportado (nos dois formatos) traz os mesmos números que a listagem, recontada aqui
+    @Test
+    void relatorioBateComAListagem() throws IOException {
+        PizzariaService servico = servicoComPedidos();
+        Map<String, Long> esperado = new LinkedHashMap<>();
+        long total = 0;
+        for (Pedido pedido : servico.getListaPedidos()) total += pedido.getValorTotalCentavos();
+        esperado.put("faturamento/total_centavos", total);
+        for (Sabor sabor : Sabor.values()) esperado.put("sabor/" + sabor.name(), 0L);
+        for (Bebida bebida : Bebida.values()) esperado.put("bebida/" + bebida.name(), 0L);
+        for (Pedido pedido : servico.getListaPedidos()) {
+            for (Pizza pizza : pedido.getPizzas()) {
+                List<Sabor> sabores = pizza.getSabores();
+                for (int i = 0; i < sabores.size(); i++) {
+                    esperado.merge("sabor/" + sabores.get(i).name(), 1L, Long::sum);
+                    for (int j = i + 1; j < sabores.size(); j++) {
+                        Sabor a = sabores.get(i), b = sabores.get(j);
+                        Sabor menor = a.ordinal() <= b.ordinal() ? a : b, maior = menor == a ? b : a;
+                        esperado.merge("conexao/" + menor.name() + "+" + maior.name(), 1L, Long::sum);
+                    }
+                }
+            }
+            for (Bebida bebida : pedido.getBebidas()) esperado.merge("bebida/" + bebida.name(), 1L, Long::sum);
+        }
+        assertEquals(total, servico.getResumo().getFaturamentoCentavos());
+
+        Path csv = diretorio.resolve("relatorio.csv");
+        servico.exportarRelatorio(csv);
+        List<List<String>> registros = lerCsv(Files.readString(csv, StandardCharsets.UTF_8));
+        assertEquals(List.of("secao", "chave", "valor"), registros.get(0));
+        Map<String, Long> doCsv = new LinkedHashMap<>();
+        for (List<String> campos : registros.subList(1, registros.size())) {
+            doCsv.put(campos.get(0) + "/" + campos.get(1), Long.parseLong(campos.get(2)));
+        }
+        assertEquals(esperado, doCsv);
+
+        Path jsonl = diretorio.resolve("relatorio.jsonl");
+        servico.exportarRelatorio(jsonl);
+        Map<String, Long> doJson = new LinkedHashMap<>();
+        for (String linha : Files.readAllLines(jsonl, StandardCharsets.UTF_8)) {
+            Map<?, ?> objeto = (Map<?, ?>) json(linha);
+            doJson.put(objeto.get("secao") + "/" + objeto.get("chave"), ((Double) objeto.get("valor")).longValue());
+        }
+        assertEquals(esperado, doJson);
+    }
+}
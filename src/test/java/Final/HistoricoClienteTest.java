@@ -0,0 +1,105 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.HistoricoCliente;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.PedidoNaoEncontradoException;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.PizzariaService;
+import Final.PizzariaApp.Sabor;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class HistoricoClienteTest {
+    private static final Sabor PRIMEIRO = Sabor.values()[0];
+    private static final Sabor SEGUNDO = Sabor.values()[1];
+    private static final Sabor TERCEIRO = Sabor.values()[2];
+
+    private static Pizza pizza(Pizza.TamanhoPizza tamanho, Sabor... sabores) {
+        return Pizza.de(List.of(sabores), tamanho);
+    }
+
+    // O serviço só cancela pedidos que ficam sem itens: remove tudo, e a última remoção avisa do cancelamento
+    private static void cancelar(PizzariaService servico, Pedido pedido) {
+        assertThrows(PedidoNaoEncontradoException.class, () -> {
+            while (true) {
+                if (pedido.getNumBebidas() > 0) servico.removerBebidaDoPedido(pedido, 0);
+                else servico.removerPizzaDoPedido(pedido, 0);
+            }
+        });
+    }
+
+    private static Cliente cliente(PizzariaService servico) {
+        Cliente cliente = new Cliente("Histórico", "Rua", "11999990000", "h@ex.com");
+        servico.adicionarCliente(cliente);
+        return cliente;
+    }
+
+    // Cancelar o pedido que decidia o sabor favorito devolve o favorito ao do pedido restante, e os totais de toda a vida
+    // passam a contar só o que sobrou
+    @Test
+    void cancelamentoAtualizaContagemTotalEFavorito() {
+        PizzariaService servico = new PizzariaService();
+        Cliente cliente = cliente(servico);
+        HistoricoCliente historico = cliente.getHistorico();
+        Pizza.TamanhoPizza grande = Pizza.TamanhoPizza.GRANDE;
+
+        Pedido primeiro = servico.criarPedido(cliente, List.of(pizza(grande, PRIMEIRO), pizza(grande, PRIMEIRO, TERCEIRO)),
+                List.of(), 1.0);
+        Pedido segundo = servico.criarPedido(cliente, List.of(pizza(grande, SEGUNDO), pizza(grande, SEGUNDO), pizza(grande, SEGUNDO)),
+                List.of(Bebida.values()[0]), 2.0);
+        assertEquals(2, historico.getNumPedidos());
+        assertEquals(primeiro.getValorTotalCentavos() + segundo.getValorTotalCentavos(), historico.getGastoTotalCentavos());
+        assertEquals(Optional.of(SEGUNDO), historico.getSaborFavorito());
+
+        servico.adicionarPizzaAoPedido(primeiro, pizza(grande, TERCEIRO));
+        assertEquals(primeiro.getValorTotalCentavos() + segundo.getValorTotalCentavos(), historico.getGastoTotalCentavos(),
+                "Gasto depois de editar o primeiro pedido");
+
+        cancelar(servico, segundo);
+        assertEquals(1, historico.getNumPedidos());
+        assertEquals(primeiro.getValorTotalCentavos(), historico.getGastoTotalCentavos(), "Gasto depois do cancelamento");
+        assertEquals(Optional.of(PRIMEIRO), historico.getSaborFavorito(), "Empate em 2: fica o sabor de menor ordinal");
+        assertArrayEquals(new int[] {primeiro.getId()}, historico.getIdsPedidos());
+
+        cancelar(servico, primeiro);
+        assertEquals(0, historico.getNumPedidos());
+        assertEquals(0, historico.getGastoTotalCentavos());
+        assertEquals(Optional.empty(), historico.getSaborFavorito());
+    }
+
+    // O pedido repetido é um pedido novo com os mesmos itens e distância; cancelado, repetir volta ao anterior
+    @Test
+    void repetirUltimoPedidoReproduzOsItens() {
+        PizzariaService servico = new PizzariaService();
+        Cliente cliente = cliente(servico);
+        assertThrows(PedidoNaoEncontradoException.class, () -> servico.repetirUltimoPedido(cliente));
+
+        Pedido antigo = servico.criarPedido(cliente, List.of(pizza(Pizza.TamanhoPizza.BROTO, PRIMEIRO)), List.of(), 1.0);
+        Pedido ultimo = servico.criarPedido(cliente,
+                List.of(pizza(Pizza.TamanhoPizza.GIGA, PRIMEIRO, SEGUNDO, TERCEIRO), pizza(Pizza.TamanhoPizza.GRANDE, SEGUNDO)),
+                List.of(Bebida.values()[0], Bebida.values()[1], Bebida.values()[0]), 3.5);
+
+        Pedido repetido = servico.repetirUltimoPedido(cliente);
+        assertNotEquals(ultimo.getId(), repetido.getId());
+        assertEquals(ultimo.getPizzas(), repetido.getPizzas());
+        assertEquals(ultimo.getBebidas(), repetido.getBebidas());
+        assertEquals(ultimo.getDistanciaKm(), repetido.getDistanciaKm());
+        assertEquals(ultimo.getValorTotalCentavos(), repetido.getValorTotalCentavos());
+        assertArrayEquals(new int[] {antigo.getId(), ultimo.getId(), repetido.getId()}, cliente.getHistorico().getIdsPedidos());
+
+        cancelar(servico, repetido);
+        cancelar(servico, ultimo);
+        Pedido deNovo = servico.repetirUltimoPedido(cliente);
+        assertEquals(antigo.getPizzas(), deNovo.getPizzas(), "Sem os dois últimos, repete o pedido mais antigo");
+        assertEquals(antigo.getBebidas(), deNovo.getBebidas());
+        assertEquals(2, cliente.getHistorico().getNumPedidos());
+    }
+}
@@ -0,0 +1,136 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.ImportadorPedidos;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.PizzariaService;
+import Final.PizzariaApp.Sabor;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImportadorPedidosTest {
+    @TempDir
+    Path diretorio;
+
+    // Guarda cada linha de erro junto com quantos pedidos o serviço tinha quando ela foi relatada
+    private static final class ErrosRelatados extends PrintStream {
+        final List<String> linhas = new ArrayList<>();
+        final List<Integer> pedidosNoServico = new ArrayList<>();
+        private final PizzariaService servico;
+
+        ErrosRelatados(PizzariaService servico) {
+            super(OutputStream.nullOutputStream());
+            this.servico = servico;
+        }
+
+        @Override
+        public void println(String linha) {
+            linhas.add(linha);
+            pedidosNoServico.add(servico.getNumPedidos());
+        }
+    }
+
+    private static PizzariaService servicoComDoisClientes() {
+        PizzariaService servico = new PizzariaService();
+        servico.adicionarCliente(new Cliente("Ana", "Rua A", "11988881111", "ana@ex.com"));
+        servico.adicionarCliente(new Cliente("Bruno", "Rua B", "21977772222", "bruno@ex.com"));
+        return servico;
+    }
+
+    private Path arquivo(String nome, String... linhas) throws IOException {
+        return Files.write(diretorio.resolve(nome), List.of(linhas), StandardCharsets.UTF_8);
+    }
+
+    private static void assertErro(ErrosRelatados erros, int indice, int linha, String trecho) {
+        String relatado = erros.linhas.get(indice);
+        assertTrue(relatado.startsWith("LINHA " + linha + ": ") && relatado.contains(trecho), "Erro relatado: " + relatado);
+    }
+
+    // Lotes de 3: o 1º tem erros de leitura e de validação, o 2º só linhas inválidas, o 3º mistura os dois, e o
+    // 4º fica incompleto. Os válidos recebem IDs contínuos na ordem do arquivo, e cada lote já está no serviço
+    // quando os seus erros são relatados (mas os lotes seguintes ainda não).
+    @Test
+    void csvRelataCadaLinhaInvalidaEConfirmaPorLote() throws IOException {
+        PizzariaService servico = servicoComDoisClientes();
+        Path csv = arquivo("pedidos.csv",
+                "cliente,distanciaKm,pizzas,bebidas",
+                "1,3.5,GRANDE:PEPPERONI+MUSSARELA;BROTO:ATUM,COCA_COLA_2L",
+                "2,1.0,GRANDE:ABACAXI,",
+                "9,2.0,BROTO:ATUM,",
+                "",
+                "2,-1,GRANDE:CALABRESA,",
+                "1,,GRANDE:CALABRESA,",
+                "2,0.5,,",
+                "2,2.5,giga:quatro queijos,fanta_2l",
+                "1;2;3",
+                "1,1.5,,GUARANA_2L;GUARANA_2L",
+                "2,4.0,BROTO:MARGUERITA+ATUM+CALABRESA,");
+        ErrosRelatados erros = new ErrosRelatados(servico);
+        ImportadorPedidos importador = new ImportadorPedidos(servico, 3, erros);
+        importador.importar(csv);
+
+        assertEquals(4, importador.getImportados());
+        assertEquals(6, importador.getRejeitados());
+        assertEquals(6, erros.linhas.size(), "Erros: " + erros.linhas);
+        assertErro(erros, 0, 3, "Sabor desconhecido: 'ABACAXI'");
+        assertErro(erros, 1, 4, "Cliente ID 9 não encontrado");
+        assertErro(erros, 2, 6, "negativa");
+        assertErro(erros, 3, 7, "Informe a distância");
+        assertErro(erros, 4, 8, "O pedido está vazio");
+        assertErro(erros, 5, 10, "Esperado: cliente,distanciaKm,pizzas,bebidas");
+        assertEquals(List.of(1, 1, 1, 1, 1, 3), erros.pedidosNoServico, "Pedidos no serviço ao relatar cada erro");
+
+        List<Pedido> pedidos = servico.getListaPedidos();
+        assertEquals(List.of(1, 2, 3, 4), pedidos.stream().map(Pedido::getId).toList(), "Faixa de IDs dos pedidos válidos");
+        assertEquals(List.of(1, 2, 1, 2), pedidos.stream().map(p -> p.getCliente().getId()).toList());
+        assertEquals(5, servico.getProximoIdPedido(), "Linhas inválidas não consomem IDs");
+        assertEquals(List.of(Pizza.de(List.of(Sabor.PEPPERONI, Sabor.MUSSARELA), Pizza.TamanhoPizza.GRANDE),
+                Pizza.de(List.of(Sabor.ATUM), Pizza.TamanhoPizza.BROTO)), pedidos.get(0).getPizzas());
+        assertEquals(List.of(Bebida.COCA_COLA_2L), pedidos.get(0).getBebidas());
+        assertEquals(List.of(Pizza.de(List.of(Sabor.QUATRO_QUEIJOS), Pizza.TamanhoPizza.GIGA)), pedidos.get(1).getPizzas());
+        assertEquals(List.of(Bebida.GUARANA_2L, Bebida.GUARANA_2L), pedidos.get(2).getBebidas());
+        assertEquals(4.0, pedidos.get(3).getDistanciaKm());
+    }
+
+    @Test
+    void jsonlRelataLinhasMalformadasEImportaAsDemais() throws IOException {
+        PizzariaService servico = servicoComDoisClientes();
+        Path jsonl = arquivo("pedidos.jsonl",
+                "{\"cliente\":1,\"distanciaKm\":2,\"pizzas\":[{\"tamanho\":\"GRANDE\",\"sabores\":[\"ATUM\",\"PEPPERONI\"]}],\"bebidas\":[\"FANTA_2L\"]}",
+                "{\"cliente\":1,\"pizzas\":[",
+                "{\"cliente\":\"um\",\"distanciaKm\":1}",
+                "{\"cliente\":2,\"distanciaKm\":1,\"bebidas\":[\"SUCO\"]}",
+                "[1,2]",
+                "{\"cliente\":2,\"distanciaKm\":1.5,\"bebidas\":[\"COCA_COLA_2L\"]}");
+        ErrosRelatados erros = new ErrosRelatados(servico);
+        ImportadorPedidos importador = new ImportadorPedidos(servico, ImportadorPedidos.TAMANHO_LOTE_PADRAO, erros);
+        importador.importar(jsonl);
+
+        assertEquals(2, importador.getImportados());
+        assertEquals(4, importador.getRejeitados());
+        assertErro(erros, 0, 2, "JSON inválido");
+        assertErro(erros, 1, 3, "Campo numérico 'cliente' é obrigatório");
+        assertErro(erros, 2, 4, "Bebida desconhecido: 'SUCO'");
+        assertErro(erros, 3, 5, "Esperado um objeto JSON por linha");
+        assertEquals(List.of(2, 2, 2, 2), erros.pedidosNoServico, "Lote único: confirmado antes dos erros");
+
+        List<Pedido> pedidos = servico.getListaPedidos();
+        assertEquals(List.of(1, 2), pedidos.stream().map(Pedido::getId).toList());
+        assertEquals(List.of(Pizza.de(List.of(Sabor.ATUM, Sabor.PEPPERONI), Pizza.TamanhoPizza.GRANDE)), pedidos.get(0).getPizzas());
+        assertEquals(2.0, pedidos.get(0).getDistanciaKm());
+        assertEquals(List.of(Bebida.COCA_COLA_2L), pedidos.get(1).getBebidas());
+    }
+}
@@ -0,0 +1,151 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.JanelaVendas;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.ResumoJanela;
+import Final.PizzariaApp.Sabor;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JanelaVendasTest {
+    private static final ZoneOffset FUSO = ZoneOffset.ofHours(-3);
+    private static final Cliente CLIENTE = new Cliente("Teste", "Rua", "11999990000", "t@ex.com");
+    private static final Instant DEZ_HORAS = LocalDateTime.of(2026, 3, 10, 10, 0).toInstant(FUSO);
+
+    // Relógio que só anda quando o teste manda
+    private static final class RelogioAjustavel extends Clock {
+        private Instant agora;
+
+        RelogioAjustavel(Instant agora) {
+            this.agora = agora;
+        }
+
+        void avancar(Duration duracao) {
+            agora = agora.plus(duracao);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return FUSO;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return agora;
+        }
+    }
+
+    private int proximoId = 1;
+
+    private Pedido pedido(Instant criadoEm, Sabor sabor, Bebida bebida) {
+        List<Pizza> pizzas = List.of(Pizza.de(List.of(sabor), Pizza.TamanhoPizza.values()[0]));
+        return new Pedido(proximoId++, CLIENTE, pizzas, List.of(bebida), 1.0, criadoEm.toEpochMilli());
+    }
+
+    private Pedido registrar(JanelaVendas janela, Instant criadoEm) {
+        Pedido pedido = pedido(criadoEm, Sabor.values()[0], Bebida.values()[0]);
+        janela.registrarPedido(pedido, 1);
+        return pedido;
+    }
+
+    private static void assertResumo(int pedidos, long centavos, ResumoJanela resumo, String janela) {
+        assertEquals(pedidos, resumo.numPedidos, "Pedidos em " + janela);
+        assertEquals(centavos, resumo.faturamentoCentavos, "Faturamento em " + janela);
+    }
+
+    // Pedidos do mesmo minuto dividem o balde; o primeiro pedido do minuto seguinte abre outro
+    @Test
+    void baldeViraNaFronteiraDoMinuto() {
+        RelogioAjustavel relogio = new RelogioAjustavel(DEZ_HORAS.plusSeconds(30));
+        JanelaVendas janela = new JanelaVendas(relogio);
+        Pedido primeiro = registrar(janela, relogio.instant());
+        relogio.avancar(Duration.ofMillis(29_999)); // 10:00:59.999
+        Pedido segundo = pedido(relogio.instant(), Sabor.values()[1], Bebida.values()[1]);
+        janela.registrarPedido(segundo, 1);
+        ResumoJanela minuto = janela.ultimosMinutos(1, new ResumoJanela());
+        assertResumo(2, primeiro.getValorTotalCentavos() + segundo.getValorTotalCentavos(), minuto, "10:00");
+        assertEquals(1, minuto.contagemSabores[1], "Sabor do segundo pedido no balde de 10:00");
+        assertEquals(1, minuto.contagemBebidas[1], "Bebida do segundo pedido no balde de 10:00");
+
+        relogio.avancar(Duration.ofMillis(1)); // 10:01:00.000
+        assertResumo(0, 0, janela.ultimosMinutos(1, new ResumoJanela()), "10:01 antes de vender");
+        Pedido terceiro = registrar(janela, relogio.instant());
+        assertResumo(1, terceiro.getValorTotalCentavos(), janela.ultimosMinutos(1, new ResumoJanela()), "10:01");
+        ResumoJanela doisMinutos = janela.ultimosMinutos(2, new ResumoJanela());
+        assertResumo(3, primeiro.getValorTotalCentavos() + segundo.getValorTotalCentavos() + terceiro.getValorTotalCentavos(),
+                doisMinutos, "10:00 a 10:01");
+        assertEquals(2, doisMinutos.minutos);
+    }
+
+    // Cada pedido cai logo dentro ou logo fora de uma das janelas: 15 min e 1 h contam o minuto corrente, hoje começa
+    // na meia-noite do fuso do relógio
+    @Test
+    void somasDe15Minutos1HoraEHoje() {
+        RelogioAjustavel relogio = new RelogioAjustavel(DEZ_HORAS.plusSeconds(45));
+        JanelaVendas janela = new JanelaVendas(relogio);
+        long agora = registrar(janela, relogio.instant()).getValorTotalCentavos();
+        long ha14 = registrar(janela, DEZ_HORAS.minus(Duration.ofMinutes(14))).getValorTotalCentavos();
+        long ha15 = registrar(janela, DEZ_HORAS.minus(Duration.ofMinutes(15)).plusSeconds(59)).getValorTotalCentavos();
+        long ha59 = registrar(janela, DEZ_HORAS.minus(Duration.ofMinutes(59))).getValorTotalCentavos();
+        long ha60 = registrar(janela, DEZ_HORAS.minus(Duration.ofMinutes(60)).plusSeconds(59)).getValorTotalCentavos();
+        long meiaNoite = registrar(janela, DEZ_HORAS.minus(Duration.ofHours(10))).getValorTotalCentavos();
+        long ontem = registrar(janela, DEZ_HORAS.minus(Duration.ofHours(10)).minusMillis(1)).getValorTotalCentavos();
+
+        assertResumo(2, agora + ha14, janela.ultimosMinutos(15, new ResumoJanela()), "15 minutos");
+        assertResumo(4, agora + ha14 + ha15 + ha59, janela.ultimosMinutos(60, new ResumoJanela()), "1 hora");
+        assertResumo(6, agora + ha14 + ha15 + ha59 + ha60 + meiaNoite, janela.hoje(new ResumoJanela()), "hoje");
+        assertResumo(7, agora + ha14 + ha15 + ha59 + ha60 + meiaNoite + ontem,
+                janela.ultimosMinutos(JanelaVendas.NUM_MINUTOS, new ResumoJanela()), "anel inteiro");
+
+        // Cancelar desconta do minuto de criação, não do corrente
+        relogio.avancar(Duration.ofMinutes(5));
+        Pedido cancelado = pedido(DEZ_HORAS.minus(Duration.ofMinutes(14)), Sabor.values()[0], Bebida.values()[0]);
+        janela.registrarPedido(cancelado, -1);
+        assertResumo(1, agora, janela.ultimosMinutos(15, new ResumoJanela()), "15 minutos às 10:05");
+        assertResumo(2, agora + ha15, janela.ultimosMinutos(60, new ResumoJanela()), "1 hora às 10:05, sem o pedido das 9:46");
+        assertResumo(5, agora + ha15 + ha59 + ha60 + meiaNoite, janela.hoje(new ResumoJanela()), "hoje após o cancelamento");
+    }
+
+    // Depois de um intervalo sem vendas maior que o anel, nenhum balde antigo reaparece, mesmo o que tem o mesmo índice
+    // do minuto corrente, e pedidos antigos demais são ignorados
+    @Test
+    void intervaloMaiorQueOAnelDescartaTudo() {
+        RelogioAjustavel relogio = new RelogioAjustavel(DEZ_HORAS);
+        JanelaVendas janela = new JanelaVendas(relogio);
+        for (int i = 0; i < 30; i++) {
+            registrar(janela, relogio.instant());
+            relogio.avancar(Duration.ofMinutes(1));
+        }
+        Instant ultimaVenda = DEZ_HORAS.plus(Duration.ofMinutes(29));
+        // Mesmo índice de balde da última venda (10:29), um anel inteiro depois: todas as vendas já saíram da janela
+        relogio.avancar(Duration.ofMinutes(JanelaVendas.NUM_MINUTOS - 1));
+        assertResumo(0, 0, janela.ultimosMinutos(JanelaVendas.NUM_MINUTOS, new ResumoJanela()), "anel após o intervalo");
+        assertResumo(0, 0, janela.hoje(new ResumoJanela()), "hoje após o intervalo");
+
+        Pedido antigo = pedido(ultimaVenda, Sabor.values()[0], Bebida.values()[0]);
+        janela.registrarPedido(antigo, 1);
+        janela.registrarPedido(antigo, -1);
+        Pedido novo = registrar(janela, relogio.instant());
+        ResumoJanela minuto = janela.ultimosMinutos(1, new ResumoJanela());
+        assertResumo(1, novo.getValorTotalCentavos(), minuto, "minuto reaproveitado");
+        assertEquals(1, minuto.contagemSabores[0], "Sabores do minuto antigo no balde reaproveitado");
+        assertResumo(1, novo.getValorTotalCentavos(), janela.ultimosMinutos(JanelaVendas.NUM_MINUTOS, new ResumoJanela()),
+                "anel com o pedido novo");
+    }
+}
@@ -0,0 +1,113 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.FiltroPedidos;
+import Final.PizzariaApp.Pagina;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.PizzariaService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class ListagemPedidosTest {
+    private static final int PEDIDOS = 30;
+    private static final int TAMANHO_PAGINA = 4;
+    private static final Comparator<Pedido> POR_VALOR =
+            Comparator.comparingLong(Pedido::getValorTotalCentavos).thenComparingInt(Pedido::getId);
+
+    private final PizzariaService servico = new PizzariaService();
+    private final Cliente ana = new Cliente("Ana", "Rua A, 1", "11999990010", "ana@ex.com");
+    private final Cliente bruno = new Cliente("Bruno", "Rua B, 2", "11999990011", "bruno@ex.com");
+
+    // Pedidos alternados entre os dois clientes, com valores variados (bebidas e distância) e alguns empates
+    ListagemPedidosTest() {
+        servico.adicionarCliente(ana);
+        servico.adicionarCliente(bruno);
+        for (int i = 0; i < PEDIDOS; i++) {
+            List<Bebida> bebidas = new ArrayList<>();
+            for (int b = 0; b <= i % 4; b++) bebidas.add(Bebida.values()[b % Bebida.values().length]);
+            servico.criarPedido(i % 2 == 0 ? ana : bruno, List.of(), bebidas, i % 5);
+        }
+    }
+
+    // Percorre todas as páginas pelo cursor; 'aposPrimeira' roda entre a primeira página e a segunda
+    private List<Pedido> percorrer(FiltroPedidos filtro, Consumer<List<Pedido>> aposPrimeira) {
+        List<Pedido> vistos = new ArrayList<>();
+        Pagina<Pedido> pagina = servico.listarPedidos(filtro, Pagina.INICIO, TAMANHO_PAGINA);
+        vistos.addAll(pagina.getItens());
+        aposPrimeira.accept(List.copyOf(vistos));
+        while (pagina.temProxima()) {
+            pagina = servico.listarPedidos(filtro, pagina.getProximoCursor(), TAMANHO_PAGINA);
+            vistos.addAll(pagina.getItens());
+        }
+        return vistos;
+    }
+
+    private List<Pedido> esperados(FiltroPedidos filtro, Comparator<Pedido> ordem) {
+        List<Pedido> todos = new ArrayList<>();
+        for (Pedido pedido : servico.getListaPedidos()) {
+            if ((filtro.getCliente() == null || filtro.getCliente().equals(pedido.getCliente()))
+                    && pedido.getId() >= filtro.getIdMinimo() && pedido.getId() <= filtro.getIdMaximo()
+                    && pedido.getValorTotalCentavos() >= filtro.getValorMinimoCentavos()) {
+                todos.add(pedido);
+            }
+        }
+        todos.sort(ordem);
+        return todos;
+    }
+
+    // Muda o valor de um pedido já listado e de um ainda não listado
+    private void editarValores(List<Pedido> listados, List<Pedido> pendentes) {
+        servico.adicionarBebidaAoPedido(listados.get(0), Bebida.values()[0]);
+        servico.adicionarBebidaAoPedido(pendentes.get(pendentes.size() - 1), Bebida.values()[1]);
+    }
+
+    @Test
+    void paginasDoClienteEmOrdemDeId() {
+        FiltroPedidos filtro = FiltroPedidos.TODOS.comCliente(ana);
+        List<Pedido> antes = esperados(filtro, Comparator.comparingInt(Pedido::getId));
+        List<Pedido> vistos = percorrer(filtro, listados -> editarValores(listados, antes));
+        assertEquals(PEDIDOS / 2, vistos.size());
+        assertEquals(antes, vistos, "Pedidos do cliente repetidos, perdidos ou fora da ordem de ID");
+    }
+
+    @Test
+    void paginasDaFaixaDeIdsEmOrdemDeId() {
+        FiltroPedidos filtro = FiltroPedidos.TODOS.comIds(5, 24);
+        List<Pedido> antes = esperados(filtro, Comparator.comparingInt(Pedido::getId));
+        List<Pedido> vistos = percorrer(filtro, listados -> editarValores(listados, antes));
+        assertEquals(20, vistos.size());
+        assertEquals(antes, vistos, "Pedidos da faixa repetidos, perdidos ou fora da ordem de ID");
+    }
+
+    // Um pedido ainda não listado cujo valor sobe aparece uma vez, na posição do valor novo (não também na antiga)
+    @Test
+    void paginasPorValorMinimoEmOrdemDeValor() {
+        List<Pedido> todos = esperados(FiltroPedidos.TODOS, POR_VALOR);
+        FiltroPedidos filtro = FiltroPedidos.TODOS.comValorMinimo(todos.get(5).getValorTotalCentavos());
+        List<Pedido> vistos = percorrer(filtro, listados -> {
+            Pedido proximo = esperados(filtro, POR_VALOR).get(listados.size());
+            for (int i = 0; i < 3; i++) servico.adicionarBebidaAoPedido(proximo, Bebida.values()[0]);
+        });
+        List<Pedido> depois = esperados(filtro, POR_VALOR);
+        assertEquals(depois, vistos, "Pedidos com valor mínimo repetidos, perdidos ou fora da ordem de valor");
+        assertEquals(vistos.size(), vistos.stream().distinct().count(), "Pedido editado listado duas vezes");
+        for (int i = 1; i < vistos.size(); i++) assertEquals(-1, POR_VALOR.compare(vistos.get(i - 1), vistos.get(i)));
+    }
+
+    @Test
+    void cursorForaDaFaixaDeIdsEhRecusado() {
+        for (long cursor : new long[] {-1, 1L << 32}) {
+            assertThrows(IllegalArgumentException.class, () -> servico.listarClientes(cursor, TAMANHO_PAGINA));
+            assertThrows(IllegalArgumentException.class, () -> servico.listarPedidos(FiltroPedidos.TODOS, cursor, TAMANHO_PAGINA));
+            assertThrows(IllegalArgumentException.class,
+                    () -> servico.listarPedidos(FiltroPedidos.TODOS.comCliente(ana), cursor, TAMANHO_PAGINA));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.DiarioOperacoes;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.Persistencia;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.PizzariaService;
+import Final.PizzariaApp.PoliticaSync;
+import Final.PizzariaApp.Sabor;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PersistenciaTest {
+    private static final Pizza PIZZA = Pizza.de(List.of(Sabor.values()[0]), Pizza.TamanhoPizza.values()[0]);
+
+    @TempDir
+    Path diretorio;
+
+    // Monta um registro com o mesmo enquadramento de DiarioOperacoes.anexar: tamanho | CRC | seq | tipo | carga
+    private static void registro(ByteBuffer segmento, long seq, byte tipo, Consumer<ByteBuffer> carga) {
+        int inicio = segmento.position();
+        segmento.putInt(0).putInt(0).putLong(seq).put(tipo);
+        carga.accept(segmento);
+        int tamanho = segmento.position() - inicio;
+        CRC32C crc = new CRC32C();
+        crc.update(segmento.slice(inicio + 8, tamanho - 8));
+        segmento.putInt(inicio, tamanho - 4).putInt(inicio + 4, (int) crc.getValue());
+    }
+
+    private static void cliente(ByteBuffer b) {
+        b.putInt(1);
+        for (String campo : List.of("Legado", "Rua A, 1", "11988887777", "legado@ex.com")) DiarioOperacoes.escreverTexto(b, campo);
+    }
+
+    private void gravarSegmento(long inicio, ByteBuffer conteudo) throws IOException {
+        conteudo.flip();
+        Files.write(DiarioOperacoes.arquivoSegmento(diretorio, inicio), Arrays.copyOf(conteudo.array(), conteudo.limit()));
+    }
+
+    @Test
+    void segmentosNovosTemCabecalhoEReaplicamSemFoto() throws IOException {
+        PizzariaService servico = new PizzariaService();
+        Persistencia.abrir(diretorio, PoliticaSync.SEMPRE, servico); // Sem close: simula uma queda, sem foto final
+        Cliente cliente = new Cliente("Ana", "Rua B, 2", "11977776666", "ana@ex.com");
+        servico.adicionarCliente(cliente);
+        Pedido pedido = servico.criarPedido(cliente, List.of(PIZZA), List.of(Bebida.values()[0]), 3.5);
+
+        ByteBuffer segmento = ByteBuffer.wrap(Files.readAllBytes(DiarioOperacoes.arquivoSegmento(diretorio, 1)));
+        assertEquals(DiarioOperacoes.MAGICA_SEGMENTO, segmento.getInt(0), "Segmento sem mágica");
+        assertEquals(DiarioOperacoes.VERSAO_FORMATO, segmento.getInt(4), "Segmento sem a versão do formato");
+
+        PizzariaService recuperado = new PizzariaService();
+        Persistencia.abrir(diretorio, PoliticaSync.SEMPRE, recuperado);
+        Pedido lido = recuperado.buscarPedido(pedido.getId());
+        assertEquals(pedido.getValorTotalCentavos(), lido.getValorTotalCentavos(), "Total divergente após reaplicar o diário");
+        assertEquals(pedido.getCriadoEmMillis(), lido.getCriadoEmMillis(), "Instante de criação perdido");
+    }
+
+    @Test
+    void segmentoDeVersaoDesconhecidaEhRecusado() throws IOException {
+        ByteBuffer segmento = ByteBuffer.allocate(1024).putInt(DiarioOperacoes.MAGICA_SEGMENTO).putInt(DiarioOperacoes.VERSAO_FORMATO + 1);
+        registro(segmento, 1, DiarioOperacoes.CLIENTE, PersistenciaTest::cliente);
+        gravarSegmento(1, segmento);
+
+        assertThrows(IOException.class, () -> Persistencia.abrir(diretorio, PoliticaSync.SEMPRE, new PizzariaService()),
+                "Versão futura do diário deveria ser recusada");
+    }
+}
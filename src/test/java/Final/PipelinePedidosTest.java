@@ -0,0 +1,169 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.ConfigEtapa;
+import Final.PizzariaApp.EtapaPedido;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.PipelinePedidos;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.Relogio;
+import Final.PizzariaApp.Sabor;
+import Final.PizzariaApp.SimuladorPipeline;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class PipelinePedidosTest {
+    private static final Cliente CLIENTE = new Cliente("Pipeline", "Rua", "11999990000", "p@ex.com");
+    private static final List<Pizza> PIZZAS = List.of(Pizza.de(List.of(Sabor.values()[0]), Pizza.TamanhoPizza.values()[0]));
+
+    private static List<Pedido> pedidos(int quantidade) {
+        List<Pedido> pedidos = new ArrayList<>();
+        for (int id = 1; id <= quantidade; id++) pedidos.add(new Pedido(id, CLIENTE, PIZZAS, List.of(), 1.0));
+        return pedidos;
+    }
+
+    // Relógio cujo trabalho só termina quando o teste libera: a ordem dos eventos é imposta, não cronometrada
+    private static final class RelogioControlado implements Relogio {
+        final CountDownLatch trabalhando = new CountDownLatch(1);
+        final CountDownLatch liberar = new CountDownLatch(1);
+
+        @Override
+        public long agoraNanos() { return 0; }
+
+        @Override
+        public void aguardar(long nanos) throws InterruptedException {
+            trabalhando.countDown();
+            liberar.await();
+        }
+    }
+
+    // Um trabalhador ocupado e a fila (capacidade 2) cheia: o quarto pedido precisa esperar em submeter
+    // até a etapa andar, e nenhum pedido se perde nem troca de ordem.
+    @Test
+    void filaCheiaBloqueiaSubmeterAteAEtapaAndar() throws Exception {
+        RelogioControlado relogio = new RelogioControlado();
+        List<Pedido> concluidos = Collections.synchronizedList(new ArrayList<>());
+        List<Pedido> pedidos = pedidos(4);
+        PipelinePedidos pipeline = new PipelinePedidos(List.of(new ConfigEtapa(EtapaPedido.COZINHA, 1, 2, p -> 1)),
+                relogio, concluidos::add);
+
+        pipeline.submeter(pedidos.get(0));
+        relogio.trabalhando.await(); // O trabalhador pegou o primeiro e está preso no trabalho
+        pipeline.submeter(pedidos.get(1));
+        pipeline.submeter(pedidos.get(2));
+        Thread bloqueado = new Thread(() -> {
+            try {
+                pipeline.submeter(pedidos.get(3));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        bloqueado.start();
+        while (bloqueado.getState() != Thread.State.WAITING) Thread.onSpinWait(); // Parado em put: fila cheia
+        assertEquals(List.of(), concluidos, "Nenhum pedido deveria ter saído com o trabalhador preso");
+
+        relogio.liberar.countDown();
+        bloqueado.join();
+        pipeline.close();
+        assertEquals(pedidos, concluidos, "Pedidos perdidos ou fora de ordem");
+        for (Pedido pedido : pedidos) assertEquals(EtapaPedido.CONCLUIDO, pedido.getEtapa());
+    }
+
+    // close concorrente com vários submeter: cada pedido ou é recusado ou chega ao fim; nenhum fica preso atrás do FIM.
+    @Test
+    void fecharDuranteSubmeterNaoPerdePedidosAceitos() throws Exception {
+        Relogio instantaneo = new Relogio() {
+            @Override
+            public long agoraNanos() { return 0; }
+
+            @Override
+            public void aguardar(long nanos) { }
+        };
+        for (int rodada = 0; rodada < 50; rodada++) {
+            AtomicInteger concluidos = new AtomicInteger();
+            AtomicInteger aceitos = new AtomicInteger();
+            PipelinePedidos pipeline = new PipelinePedidos(List.of(new ConfigEtapa(EtapaPedido.COZINHA, 2, 4, p -> 1)),
+                    instantaneo, p -> concluidos.incrementAndGet());
+            List<Thread> submissores = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread submissor = new Thread(() -> {
+                    for (Pedido pedido : pedidos(200)) {
+                        try {
+                            pipeline.submeter(pedido);
+                            aceitos.incrementAndGet();
+                        } catch (IllegalStateException e) {
+                            return; // Encerrado: os próximos também seriam recusados
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+                submissores.add(submissor);
+                submissor.start();
+            }
+            pipeline.close();
+            for (Thread submissor : submissores) submissor.join();
+            assertEquals(aceitos.get(), concluidos.get(), "Rodada " + rodada + ": pedido aceito depois do encerramento");
+        }
+    }
+
+    // Etapa de forno por fornadas no pipeline com threads: pedidos com várias pizzas só saem quando todas assam,
+    // pedidos só de bebida atravessam o forno, e o encerramento espera o forno esvaziar.
+    @Test
+    void fornoPorFornadasConcluiTodosOsPedidos() throws Exception {
+        Relogio instantaneo = new Relogio() {
+            @Override
+            public long agoraNanos() { return 0; }
+
+            @Override
+            public void aguardar(long nanos) { }
+        };
+        List<Pedido> concluidos = Collections.synchronizedList(new ArrayList<>());
+        PipelinePedidos pipeline = new PipelinePedidos(List.of(
+                new ConfigEtapa(EtapaPedido.COZINHA, 2, 4, p -> 1),
+                ConfigEtapa.fornadas(EtapaPedido.FORNO, 2, 3, 4),
+                new ConfigEtapa(EtapaPedido.DESPACHO, 2, 4, p -> 1)), instantaneo, concluidos::add);
+        List<Pedido> pedidos = new ArrayList<>();
+        for (int id = 1; id <= 200; id++) {
+            List<Pizza> pizzas = new ArrayList<>();
+            for (int i = 0; i < id % 5; i++) pizzas.add(Pizza.de(List.of(Sabor.values()[(id + i) % Sabor.values().length]),
+                    Pizza.TamanhoPizza.values()[i % Pizza.TamanhoPizza.values().length]));
+            pedidos.add(new Pedido(id, CLIENTE, pizzas, List.of(Bebida.values()[0]), 1.0));
+        }
+        for (Pedido pedido : pedidos) pipeline.submeter(pedido);
+        pipeline.close();
+        assertEquals(pedidos.size(), concluidos.size(), "Pedidos perdidos no forno");
+        assertEquals(pedidos.size(), concluidos.stream().distinct().count(), "Pedido concluído duas vezes");
+        for (Pedido pedido : pedidos) assertEquals(EtapaPedido.CONCLUIDO, pedido.getEtapa());
+    }
+
+    // Duas pizzas iguais do mesmo pedido dividem uma fornada: montagem 30 s (um sabor) + 2 × 15 s, cozimento 7 min (broto)
+    @Test
+    void simuladorAssaPizzasIguaisNaMesmaFornada() {
+        SimuladorPipeline simulador = new SimuladorPipeline(List.of(ConfigEtapa.fornadas(EtapaPedido.FORNO, 1, 8, 10)));
+        Pedido pedido = new Pedido(1, CLIENTE, List.of(PIZZAS.get(0), PIZZAS.get(0)), List.of(), 1.0);
+        simulador.agendarChegada(0, pedido);
+        assertEquals(TimeUnit.MINUTES.toNanos(8), simulador.executar());
+        assertEquals(EtapaPedido.CONCLUIDO, pedido.getEtapa());
+    }
+
+    // Com tempo virtual o resultado só depende das entradas: três pedidos simultâneos, um trabalhador de 10 ns
+    // e fila de 1 terminam exatamente em 30 ns, com a contrapressão segurando o terceiro na entrada.
+    @Test
+    void simuladorEhDeterministico() {
+        SimuladorPipeline simulador = new SimuladorPipeline(List.of(new ConfigEtapa(EtapaPedido.FORNO, 1, 1, p -> 10)));
+        List<Pedido> pedidos = pedidos(3);
+        for (Pedido pedido : pedidos) simulador.agendarChegada(0, pedido);
+        assertEquals(30, simulador.executar());
+        for (Pedido pedido : pedidos) assertEquals(EtapaPedido.CONCLUIDO, pedido.getEtapa());
+    }
+}
@@ -0,0 +1,65 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.PizzariaService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class PizzariaServiceConcorrenciaTest {
+    private static final int THREADS = 8;
+    private static final int POR_THREAD = 5_000;
+    private static final int PEDIDOS_DISPUTADOS = 4;
+
+    // Várias threads criam pedidos e adicionam bebidas ao mesmo tempo: metade das bebidas vai para o pedido que a
+    // thread acabou de criar, a outra metade para poucos pedidos compartilhados por todas (disputa pela mesma trava).
+    // Nenhum ID pode se repetir, nenhuma bebida pode se perder e o faturamento incremental deve bater com os pedidos.
+    @Test
+    void criarEEditarEmParaleloNaoPerdeAtualizacoesNemRepeteIds() throws Exception {
+        PizzariaService servico = new PizzariaService();
+        Cliente cliente = new Cliente("Concorrência", "Rua", "11999990000", "c@ex.com");
+        servico.adicionarCliente(cliente);
+        Pizza pizza = BenchmarkPizzaria.pizzaAleatoria(99);
+        List<Pedido> disputados = new ArrayList<>();
+        for (int i = 0; i < PEDIDOS_DISPUTADOS; i++) disputados.add(servico.criarPedido(cliente, List.of(pizza), List.of(), 2.0));
+
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < POR_THREAD; i++) {
+                        Bebida bebida = Bebida.values()[i % Bebida.values().length];
+                        Pedido novo = servico.criarPedido(cliente, List.of(pizza), List.of(), 2.0);
+                        servico.adicionarBebidaAoPedido(i % 2 == 0 ? novo : disputados.get(i % PEDIDOS_DISPUTADOS), bebida);
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) tarefa.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Pedido> pedidos = servico.getListaPedidos();
+        int esperados = PEDIDOS_DISPUTADOS + THREADS * POR_THREAD;
+        assertEquals(esperados, pedidos.size());
+        assertEquals(esperados, pedidos.stream().mapToInt(Pedido::getId).distinct().count(), "IDs duplicados");
+        assertEquals(THREADS * POR_THREAD, pedidos.stream().mapToInt(Pedido::getNumBebidas).sum(), "bebidas perdidas");
+        assertEquals(pedidos.stream().mapToLong(Pedido::getValorTotalCentavos).sum(), servico.getResumo().getFaturamentoCentavos(),
+                "faturamento incremental diverge dos pedidos");
+    }
+}
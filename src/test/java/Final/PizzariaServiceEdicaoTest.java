@@ -0,0 +1,87 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import Final.PizzariaApp.Bebida;
+import Final.PizzariaApp.BenchmarkPizzaria;
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.PedidoNaoEncontradoException;
+import Final.PizzariaApp.PizzariaService;
+import Final.PizzariaApp.ResumoVendas;
+import Final.PizzariaApp.Sabor;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PizzariaServiceEdicaoTest {
+    private static final int SEMENTES = 20;
+    private static final int OPERACOES = 2_000;
+
+    private static String impresso(ResumoVendas resumo) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        resumo.imprimir(new PrintStream(saida, true, StandardCharsets.UTF_8));
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+
+    private static List<Sabor> saboresAleatorios(Random aleatorio) {
+        List<Sabor> sabores = new ArrayList<>();
+        for (int i = 1 + aleatorio.nextInt(3); i > 0; i--) sabores.add(Sabor.values()[aleatorio.nextInt(Sabor.values().length)]);
+        return sabores;
+    }
+
+    // Sequências aleatórias de inclusões, remoções e trocas de sabor: depois de cada edição o total mantido pelos
+    // subtotais deve bater com o recálculo do pedido, e ao final o relatório incremental com o refeito do zero.
+    @Test
+    void totaisIncrementaisBatemComORecalculoEmEdicoesAleatorias() {
+        for (int semente = 1; semente <= SEMENTES; semente++) {
+            Random aleatorio = new Random(semente);
+            PizzariaService servico = new PizzariaService();
+            Cliente cliente = new Cliente("Edição " + semente, "Rua", "1199999" + String.format("%04d", semente), "e@ex.com");
+            servico.adicionarCliente(cliente);
+            List<Pedido> abertos = new ArrayList<>();
+
+            for (int i = 0; i < OPERACOES; i++) {
+                if (abertos.isEmpty() || aleatorio.nextInt(8) == 0) {
+                    abertos.add(servico.criarPedido(cliente, List.of(BenchmarkPizzaria.pizzaAleatoria(aleatorio.nextInt())),
+                            List.of(Bebida.values()[aleatorio.nextInt(Bebida.values().length)]), aleatorio.nextDouble() * 8));
+                    continue;
+                }
+                int posicao = aleatorio.nextInt(abertos.size());
+                Pedido pedido = abertos.get(posicao);
+                try {
+                    switch (aleatorio.nextInt(5)) {
+                        case 0 -> servico.adicionarPizzaAoPedido(pedido, BenchmarkPizzaria.pizzaAleatoria(aleatorio.nextInt()));
+                        case 1 -> servico.adicionarBebidaAoPedido(pedido, Bebida.values()[aleatorio.nextInt(Bebida.values().length)]);
+                        case 2 -> {
+                            if (pedido.getNumPizzas() > 0) servico.removerPizzaDoPedido(pedido, aleatorio.nextInt(pedido.getNumPizzas()));
+                        }
+                        case 3 -> {
+                            if (pedido.getNumBebidas() > 0) servico.removerBebidaDoPedido(pedido, aleatorio.nextInt(pedido.getNumBebidas()));
+                        }
+                        default -> {
+                            if (pedido.getNumPizzas() > 0) {
+                                servico.alterarSaborPizza(pedido, aleatorio.nextInt(pedido.getNumPizzas()), saboresAleatorios(aleatorio));
+                            }
+                        }
+                    }
+                } catch (PedidoNaoEncontradoException e) {
+                    abertos.remove(posicao); // Esvaziado e cancelado
+                    continue;
+                }
+                assertEquals(pedido.recalcularTotal(), pedido.getValorTotalCentavos(),
+                        "Semente " + semente + ", operação " + i + ": total incremental diverge do recálculo");
+            }
+
+            ResumoVendas refeito = servico.recalcularResumo(List.of());
+            assertEquals(refeito.getFaturamentoCentavos(), servico.getResumo().getFaturamentoCentavos(),
+                    "Semente " + semente + ": faturamento incremental diverge do recálculo");
+            assertEquals(impresso(refeito), impresso(servico.getResumo()),
+                    "Semente " + semente + ": relatório incremental diverge do recálculo");
+        }
+    }
+}
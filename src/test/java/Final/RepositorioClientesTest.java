@@ -0,0 +1,123 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.ClienteDuplicadoException;
+import Final.PizzariaApp.RepositorioClientes;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RepositorioClientesTest {
+    private static int proximoTelefone = 1;
+
+    private static RepositorioClientes repositorio(String... nomes) {
+        RepositorioClientes repositorio = new RepositorioClientes();
+        for (String nome : nomes) repositorio.adicionar(new Cliente(nome, "Rua", "1190000" + proximoTelefone++, ""));
+        return repositorio;
+    }
+
+    private static List<String> nomes(List<Cliente> clientes) {
+        return clientes.stream().map(Cliente::getNome).toList();
+    }
+
+    // Telefone e email escritos de outro jeito apontam para o mesmo cliente, e a recusa traz o cliente original
+    @Test
+    void telefoneEEmailFormatadosDeOutroJeitoColidem() {
+        RepositorioClientes repositorio = new RepositorioClientes();
+        Cliente ana = new Cliente("Ana", "Rua A", "(11) 98888-1111", "Ana@Ex.com");
+        repositorio.adicionar(ana);
+
+        for (String telefone : new String[] {"11988881111", "+55 11 98888-1111", "011 98888 1111"}) {
+            ClienteDuplicadoException e = assertThrows(ClienteDuplicadoException.class,
+                    () -> repositorio.adicionar(new Cliente("Outra", "Rua B", telefone, "outra@ex.com")), telefone);
+            assertSame(ana, e.getExistente(), "Cliente existente para o telefone " + telefone);
+        }
+        for (String email : new String[] {"ana@ex.com", "  ANA@EX.COM "}) {
+            ClienteDuplicadoException e = assertThrows(ClienteDuplicadoException.class,
+                    () -> repositorio.adicionar(new Cliente("Outra", "Rua B", "21977772222", email)), email);
+            assertSame(ana, e.getExistente(), "Cliente existente para o email " + email);
+        }
+        assertSame(ana, repositorio.buscarPorTelefone("55 (11) 98888-1111").orElseThrow());
+        assertSame(ana, repositorio.buscarPorEmail("ANA@ex.com").orElseThrow());
+        assertEquals(1, repositorio.tamanho());
+    }
+
+    // Telefone novo com email repetido: nada do cadastro recusado fica nos índices, nem o ID é consumido
+    @Test
+    void cadastroRecusadoNaoDeixaEntradasParciais() {
+        RepositorioClientes repositorio = new RepositorioClientes();
+        repositorio.adicionar(new Cliente("Ana", "Rua A", "11988881111", "ana@ex.com"));
+
+        assertThrows(ClienteDuplicadoException.class,
+                () -> repositorio.adicionar(new Cliente("Bruno", "Rua B", "21977772222", "ana@ex.com")));
+        assertThrows(IllegalStateException.class, () -> repositorio.adicionar(new Cliente("Bruno", "Rua B", "21977772222",
+                "bruno@ex.com"), c -> { throw new IllegalStateException("Falha ao anexar ao diário"); }));
+
+        assertEquals(1, repositorio.tamanho());
+        assertFalse(repositorio.buscarPorTelefone("21977772222").isPresent(), "Telefone do cadastro recusado no índice");
+        assertFalse(repositorio.buscarPorEmail("bruno@ex.com").isPresent(), "Email do cadastro recusado no índice");
+        assertTrue(repositorio.buscarPorNome("Bruno", 5).isEmpty(), "Nome do cadastro recusado no índice de trigramas");
+        assertFalse(repositorio.buscarPorId(2).isPresent());
+
+        Cliente bruno = new Cliente("Bruno", "Rua B", "21977772222", "bruno@ex.com");
+        repositorio.adicionar(bruno);
+        assertEquals(2, bruno.getId());
+        assertSame(bruno, repositorio.buscarPorTelefone("(21) 97777-2222").orElseThrow());
+        assertEquals(1, repositorio.buscarPorNome("Bruno", 5).size());
+    }
+
+    // Acentos, maiúsculas e espaços extras são ignorados dos dois lados: no cadastro e no termo buscado
+    @Test
+    void buscaIgnoraAcentosMaiusculasEEspacos() {
+        RepositorioClientes repositorio = repositorio("José  Antônio", "Joao Conceicao", "Zé");
+        assertEquals(List.of("José  Antônio"), nomes(repositorio.buscarPorNome("jose antonio", 5)));
+        assertEquals(List.of("José  Antônio"), nomes(repositorio.buscarPorNome("  ANTÔNIO", 5)));
+        assertEquals(List.of("Joao Conceicao"), nomes(repositorio.buscarPorNome("João Conceição", 5)));
+        assertEquals(List.of("Zé"), nomes(repositorio.buscarPorNome("ze", 5)));
+    }
+
+    // Termos de 3 ou mais letras casam com qualquer trecho do nome; termos mais curtos, só com inícios de palavra
+    @Test
+    void buscaPorTrechoDoNome() {
+        RepositorioClientes repositorio = repositorio("Mariana Lima", "Ana Souza", "Luana Andrade");
+        assertEquals(List.of("Mariana Lima"), nomes(repositorio.buscarPorNome("rian", 5)));
+        assertEquals(List.of("Luana Andrade"), nomes(repositorio.buscarPorNome("ndra", 5)));
+        assertTrue(repositorio.buscarPorNome("rianx", 5).isEmpty(), "Termo com trigrama inexistente");
+        assertTrue(repositorio.buscarPorNome("lima souza", 5).isEmpty(), "Trigramas de nomes diferentes não se somam");
+        assertEquals(List.of("Ana Souza", "Luana Andrade"), nomes(repositorio.buscarPorNome("an", 5)),
+                "Termo curto: Mariana e Luana só têm \"an\" no meio da palavra");
+        assertEquals(List.of("Luana Andrade", "Mariana Lima"), nomes(repositorio.buscarPorNome("l", 5)));
+    }
+
+    // Nome idêntico, prefixo, início de palavra, trecho; empates pelo nome mais curto e depois pelo cadastro mais antigo
+    @Test
+    void buscaOrdenaPorRelevancia() {
+        RepositorioClientes repositorio = repositorio("Mariana", "Maria Ana", "Ana Souza", "Anabela", "Ana Lima", "Ana");
+        assertEquals(List.of("Ana", "Anabela", "Ana Lima", "Ana Souza", "Maria Ana", "Mariana"),
+                nomes(repositorio.buscarPorNome("ana", 10)));
+        Cliente primeiro = repositorio.buscarPorNome("ana lima", 1).get(0);
+        repositorio.adicionar(new Cliente("Ana Lima", "Rua", "1199999999", ""));
+        assertSame(primeiro, repositorio.buscarPorNome("ana lima", 10).get(0), "Homônimo mais antigo primeiro");
+    }
+
+    // O menu pede no máximo MAX_SUGESTOES_CLIENTE: os mais relevantes, mesmo cadastrados por último
+    @Test
+    void buscaRespeitaOLimiteDeSugestoes() {
+        String[] nomes = new String[20];
+        for (int i = 0; i < nomes.length; i++) nomes[i] = "Cliente " + (char) ('a' + i) + " da Silva";
+        RepositorioClientes repositorio = repositorio(nomes);
+        repositorio.adicionar(new Cliente("Silva", "Rua", "1199999998", ""));
+        repositorio.adicionar(new Cliente("Silvana", "Rua", "1199999997", ""));
+
+        List<Cliente> sugestoes = repositorio.buscarPorNome("silva", PizzariaApp.MAX_SUGESTOES_CLIENTE);
+        assertEquals(PizzariaApp.MAX_SUGESTOES_CLIENTE, sugestoes.size());
+        assertEquals(List.of("Silva", "Silvana", "Cliente a da Silva", "Cliente b da Silva", "Cliente c da Silva"), nomes(sugestoes));
+        assertEquals(22, repositorio.buscarPorNome("silva", 100).size());
+        assertTrue(repositorio.buscarPorNome("silva", 0).isEmpty());
+    }
+}
@@ -0,0 +1,88 @@
+package Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import Final.PizzariaApp.Cliente;
+import Final.PizzariaApp.Pedido;
+import Final.PizzariaApp.Pizza;
+import Final.PizzariaApp.RepositorioPedidos;
+import Final.PizzariaApp.Sabor;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RepositorioPedidosTest {
+    private static final Cliente CLIENTE = new Cliente("Teste", "Rua", "11999990000", "t@ex.com");
+    private static final List<Pizza> PIZZAS = List.of(Pizza.de(List.of(Sabor.values()[0]), Pizza.TamanhoPizza.values()[0]));
+
+    private static RepositorioPedidos repositorio(int tamanho) {
+        RepositorioPedidos repositorio = new RepositorioPedidos();
+        for (int id = 1; id <= tamanho; id++) repositorio.adicionar(new Pedido(id, CLIENTE, PIZZAS, List.of(), 1.0));
+        return repositorio;
+    }
+
+    @Test
+    void buscaRemocaoEOrdemDeInsercao() {
+        RepositorioPedidos repositorio = repositorio(1_000);
+        Pedido pedido = repositorio.buscar(500).orElseThrow();
+        assertEquals(500, pedido.getId());
+        assertTrue(repositorio.remover(500));
+        assertFalse(repositorio.buscar(500).isPresent());
+        assertFalse(repositorio.remover(500));
+        List<Pedido> listados = repositorio.listar();
+        assertEquals(999, listados.size());
+        for (int i = 1; i < listados.size(); i++) assertTrue(listados.get(i - 1).getId() < listados.get(i).getId());
+        repositorio.adicionar(pedido);
+        assertSame(pedido, repositorio.buscar(500).orElseThrow());
+    }
+
+    // Um ID repetido é recusado sem deixar chave por valor órfã nem apagar a do pedido existente (mesma chave)
+    @Test
+    void idRepetidoNaoAlteraOIndicePorValor() {
+        RepositorioPedidos repositorio = repositorio(3);
+        List<Long> antes = new ArrayList<>();
+        repositorio.chavesPorValorApos(-1).forEach(antes::add);
+        assertThrows(IllegalArgumentException.class, () -> repositorio.adicionar(new Pedido(2, CLIENTE, PIZZAS, List.of(), 1.0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> repositorio.adicionar(new Pedido(2, CLIENTE, List.of(PIZZAS.get(0), PIZZAS.get(0)), List.of(), 1.0)));
+        List<Long> depois = new ArrayList<>();
+        repositorio.chavesPorValorApos(-1).forEach(depois::add);
+        assertEquals(antes, depois, "Índice por valor alterado pela inserção recusada");
+    }
+
+    // Todos os IDs de um repositório grande são achados, e só eles: o índice por ID não depende da ordem de inserção
+    @Test
+    void buscaAchaCadaIdDeUmRepositorioGrande() {
+        int tamanho = 100_000;
+        RepositorioPedidos repositorio = repositorio(tamanho);
+        for (int id = 1; id <= tamanho; id++) {
+            assertEquals(id, repositorio.buscar(id).orElseThrow().getId(), "Pedido " + id + " não encontrado");
+        }
+        for (int ausente : new int[] {0, -1, tamanho + 1, Integer.MAX_VALUE}) {
+            assertFalse(repositorio.buscar(ausente).isPresent(), "Pedido inexistente encontrado: " + ausente);
+        }
+        assertEquals(tamanho, repositorio.tamanho());
+    }
+
+    // IDs (k << 16) | k têm o mesmo hash espalhado (h ^ h >>> 16 zera os 16 bits baixos): todos caem no mesmo balde,
+    // que vira árvore. Busca e remoção precisam continuar distinguindo os pedidos pelo ID.
+    @Test
+    void idsQueColidemNoMesmoBaldeContinuamDistintos() {
+        RepositorioPedidos repositorio = new RepositorioPedidos();
+        List<Integer> ids = new ArrayList<>();
+        for (int k = 1; k <= 1_000; k++) ids.add((k << 16) | k);
+        for (int id : ids) repositorio.adicionar(new Pedido(id, CLIENTE, PIZZAS, List.of(), 1.0));
+        for (int id : ids) assertEquals(id, repositorio.buscar(id).orElseThrow().getId(), "Pedido " + id + " não encontrado");
+        assertFalse(repositorio.buscar((1 << 16) | 2).isPresent(), "ID ausente do mesmo balde encontrado");
+
+        for (int i = 0; i < ids.size(); i += 2) assertTrue(repositorio.remover(ids.get(i)));
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i % 2 == 1, repositorio.buscar(ids.get(i)).isPresent(), "Remoção afetou outro pedido do balde: " + ids.get(i));
+        }
+        assertEquals(ids.size() / 2, repositorio.tamanho());
+    }
+}